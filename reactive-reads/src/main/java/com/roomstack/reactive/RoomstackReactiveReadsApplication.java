@@ -0,0 +1,13 @@
+package com.roomstack.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class RoomstackReactiveReadsApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(RoomstackReactiveReadsApplication.class, args);
+	}
+
+}
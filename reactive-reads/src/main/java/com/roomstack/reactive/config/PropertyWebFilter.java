@@ -0,0 +1,102 @@
+package com.roomstack.reactive.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the property of each request from its X-Property-Id header, or
+ * the default property without one, as roomstack-backend does. Only the
+ * properties stored on this instance's shard are served; others get 400.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PropertyWebFilter implements WebFilter {
+
+    public static final String PROPERTY_HEADER = "X-Property-Id";
+
+    public static final String PROPERTY_ATTRIBUTE = "roomstack.propertyId";
+
+    private static final String DEFAULT_SHARD = "default";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${roomstack.reactive.shard:default}")
+    private String shard;
+
+    @Value("${roomstack.sharding.default-property:main}")
+    private String defaultProperty;
+
+    private final Set<String> propertyIds = new LinkedHashSet<>();
+
+    @PostConstruct
+    void init() {
+        // Properties not listed live on the default shard
+        if (DEFAULT_SHARD.equals(shard)) {
+            propertyIds.add(defaultProperty);
+        }
+        Binder.get(environment)
+                .bind("roomstack.sharding.properties", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of())
+                .forEach((propertyId, propertyShard) -> {
+                    if (shard.equals(propertyShard)) {
+                        propertyIds.add(propertyId);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String propertyId = exchange.getRequest().getHeaders().getFirst(PROPERTY_HEADER);
+        if (propertyId == null || propertyId.isBlank()) {
+            propertyId = defaultProperty;
+        }
+
+        if (!propertyIds.contains(propertyId)) {
+            return reject(exchange, "Unknown property: " + propertyId);
+        }
+
+        exchange.getAttributes().put(PROPERTY_ATTRIBUTE, propertyId);
+        return chain.filter(exchange);
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, String message) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Map.of("message", message));
+        } catch (JsonProcessingException e) {
+            body = message.getBytes(StandardCharsets.UTF_8);
+        }
+
+        exchange.getResponse().setStatusCode(HttpStatus.BAD_REQUEST);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer buffer = exchange.getResponse().bufferFactory().wrap(body);
+        return exchange.getResponse().writeWith(Mono.just(buffer));
+    }
+}
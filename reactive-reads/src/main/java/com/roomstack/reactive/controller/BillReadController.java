@@ -0,0 +1,42 @@
+package com.roomstack.reactive.controller;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.roomstack.reactive.config.PropertyWebFilter;
+import com.roomstack.reactive.repository.BillReadRepository;
+
+@RestController
+@RequestMapping("/api/bills")
+@CrossOrigin(origins = "*") // For development; restrict in production
+public class BillReadController {
+
+    private static final Set<String> PAYMENT_STATUSES = Set.of("pending", "partial", "paid");
+
+    @Autowired
+    private BillReadRepository billReadRepository;
+
+    /**
+     * Stream all bills with optional filtering, as a JSON array or, for Accept: application/x-ndjson, one per line
+     */
+    @GetMapping
+    public ResponseEntity<?> getAllBills(
+            @RequestAttribute(PropertyWebFilter.PROPERTY_ATTRIBUTE) String propertyId,
+            @RequestParam(required = false) String status) {
+        
+        if (status != null && !PAYMENT_STATUSES.contains(status)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        return new ResponseEntity<>(billReadRepository.findBills(propertyId, status), HttpStatus.OK);
+    }
+}
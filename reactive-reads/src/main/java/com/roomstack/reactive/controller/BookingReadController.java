@@ -0,0 +1,83 @@
+package com.roomstack.reactive.controller;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.roomstack.reactive.config.PropertyWebFilter;
+import com.roomstack.reactive.repository.BookingReadRepository;
+
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/bookings")
+@CrossOrigin(origins = "*") // For development; restrict in production
+public class BookingReadController {
+
+    private static final Set<String> STATUSES = Set.of("confirmed", "checked_in", "checked_out", "cancelled", "no_show");
+
+    @Autowired
+    private BookingReadRepository bookingReadRepository;
+
+    /**
+     * Stream all bookings with optional filtering, as a JSON array or, for Accept: application/x-ndjson, one per line
+     * Date ranges, which may reach into the archive, are left to roomstack-backend
+     */
+    @GetMapping
+    public ResponseEntity<?> getAllBookings(
+            @RequestAttribute(PropertyWebFilter.PROPERTY_ATTRIBUTE) String propertyId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String roomId,
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        
+        if (from != null || to != null) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Bookings by date range are served by roomstack-backend");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        
+        if (status != null && !STATUSES.contains(status)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        return new ResponseEntity<>(bookingReadRepository.findBookings(propertyId, status, roomId, customerId),
+                HttpStatus.OK);
+    }
+    
+    /**
+     * Check room availability
+     */
+    @GetMapping("/availability/check")
+    public Mono<ResponseEntity<Map<String, Boolean>>> checkRoomAvailability(
+            @RequestAttribute(PropertyWebFilter.PROPERTY_ATTRIBUTE) String propertyId,
+            @RequestParam String roomId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime checkOut) {
+        
+        // Validate dates
+        if (checkIn.isAfter(checkOut)) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        
+        return bookingReadRepository.isRoomAvailable(propertyId, roomId, checkIn, checkOut)
+                .map(available -> {
+                    Map<String, Boolean> response = new HashMap<>();
+                    response.put("available", available);
+                    return new ResponseEntity<>(response, HttpStatus.OK);
+                });
+    }
+}
@@ -0,0 +1,64 @@
+package com.roomstack.reactive.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.roomstack.reactive.config.PropertyWebFilter;
+import com.roomstack.reactive.model.RoomView;
+import com.roomstack.reactive.repository.RoomReadRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/rooms")
+@CrossOrigin(origins = "*") // For development; restrict in production
+public class RoomReadController {
+
+    @Autowired
+    private RoomReadRepository roomReadRepository;
+
+    /**
+     * Stream all rooms with optional filtering, as a JSON array or, for Accept: application/x-ndjson, one per line
+     * @param status Optional filter by room status
+     * @param floor Optional filter by floor
+     * @param minCapacity Optional filter by minimum capacity
+     * @param features Optional filter by features the room must all have, e.g. WiFi,Jacuzzi
+     * @return Rooms matching criteria
+     */
+    @GetMapping
+    public Flux<RoomView> getAllRooms(
+            @RequestAttribute(PropertyWebFilter.PROPERTY_ATTRIBUTE) String propertyId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) Integer minCapacity,
+            @RequestParam(required = false) List<String> features) {
+        
+        return roomReadRepository.findRooms(propertyId, status, floor, minCapacity, features);
+    }
+    
+    /**
+     * Get a room by ID
+     * @param id The room ID
+     * @return The room if found
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<RoomView>> getRoomById(
+            @RequestAttribute(PropertyWebFilter.PROPERTY_ATTRIBUTE) String propertyId,
+            @PathVariable String id) {
+        
+        return roomReadRepository.findRoom(propertyId, id)
+                .map(room -> new ResponseEntity<>(room, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+}
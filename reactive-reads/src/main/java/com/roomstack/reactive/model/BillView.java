@@ -0,0 +1,28 @@
+package com.roomstack.reactive.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A bill as roomstack-backend serialises BillModel
+ */
+public record BillView(
+        String id,
+        String propertyId,
+        @JsonIgnoreProperties("bill") // The booking's bill is this bill
+        BookingView booking,
+        BigDecimal roomCharge,
+        BigDecimal taxAmount,
+        BigDecimal total,
+        String paymentStatus,
+        LocalDateTime paymentDate,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public BillView withBooking(BookingView booking) {
+        return new BillView(id, propertyId, booking, roomCharge, taxAmount, total, paymentStatus, paymentDate,
+                createdAt, updatedAt);
+    }
+}
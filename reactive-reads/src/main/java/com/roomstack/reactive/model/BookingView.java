@@ -0,0 +1,32 @@
+package com.roomstack.reactive.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A booking as roomstack-backend serialises BookingModel
+ */
+public record BookingView(
+        String id,
+        String propertyId,
+        RoomView room,
+        CustomerView customer,
+        LocalDateTime checkIn,
+        LocalDateTime checkOut,
+        Integer adults,
+        Integer children,
+        String specialRequests,
+        String status,
+        String groupId,
+        Boolean autoAssigned,
+        @JsonIgnoreProperties("booking") // The bill's booking is this booking
+        BillView bill,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public BookingView withRoom(RoomView room) {
+        return new BookingView(id, propertyId, room, customer, checkIn, checkOut, adults, children,
+                specialRequests, status, groupId, autoAssigned, bill, createdAt, updatedAt);
+    }
+}
@@ -0,0 +1,24 @@
+package com.roomstack.reactive.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A customer as roomstack-backend serialises CustomerModel
+ */
+public record CustomerView(
+        String id,
+        String propertyId,
+        String name,
+        String email,
+        String phone,
+        String address,
+        Boolean currentGuest,
+        Integer totalStays,
+        Integer totalNights,
+        BigDecimal lifetimeSpend,
+        LocalDate lastStayDate,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,28 @@
+package com.roomstack.reactive.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A room as roomstack-backend serialises RoomModel
+ */
+public record RoomView(
+        String id,
+        String propertyId,
+        String number,
+        Map<String, Integer> beds,
+        Integer capacity,
+        Double pricePerNight,
+        List<String> features,
+        String status,
+        Integer floor,
+        String description,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public RoomView withCollections(Map<String, Integer> beds, List<String> features) {
+        return new RoomView(id, propertyId, number, beds, capacity, pricePerNight, features, status, floor,
+                description, createdAt, updatedAt);
+    }
+}
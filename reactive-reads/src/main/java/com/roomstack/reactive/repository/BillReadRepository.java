@@ -0,0 +1,51 @@
+package com.roomstack.reactive.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.reactive.model.BillView;
+import com.roomstack.reactive.model.BookingView;
+
+import reactor.core.publisher.Flux;
+
+@Repository
+public class BillReadRepository {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private RoomReadRepository roomReadRepository;
+
+    /**
+     * Stream the bills of a property, as GET /api/bills lists them
+     * @param propertyId The property
+     * @param paymentStatus Optional payment status
+     * @return The bills, each with its booking and the booking's room and customer
+     */
+    public Flux<BillView> findBills(String propertyId, String paymentStatus) {
+        StringBuilder sql = new StringBuilder(Rows.BILL_SELECT + "WHERE bl.property_id = :propertyId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("propertyId", propertyId);
+
+        if (paymentStatus != null) {
+            sql.append(" AND bl.payment_status = :paymentStatus");
+            params.put("paymentStatus", paymentStatus);
+        }
+
+        return roomReadRepository.findCollections(propertyId).flatMapMany(collections -> databaseClient
+                .sql(sql.toString())
+                .bindValues(params)
+                .map(row -> {
+                    RowCursor cursor = new RowCursor(row);
+                    BillView bill = Rows.bill(cursor);
+                    BookingView booking = Rows.booking(cursor, false);
+                    return bill.withBooking(booking == null ? null : booking.withRoom(collections.fill(booking.room())));
+                })
+                .all());
+    }
+}
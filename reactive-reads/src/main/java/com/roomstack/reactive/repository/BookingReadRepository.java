@@ -0,0 +1,87 @@
+package com.roomstack.reactive.repository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.reactive.model.BookingView;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class BookingReadRepository {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private RoomReadRepository roomReadRepository;
+
+    /**
+     * Stream the bookings of a property, filtered as GET /api/bookings filters them: by status,
+     * else by room, else by customer
+     * @param propertyId The property
+     * @param status Optional booking status
+     * @param roomId Optional room ID
+     * @param customerId Optional customer ID
+     * @return The bookings, each with its room, customer and bill
+     */
+    public Flux<BookingView> findBookings(String propertyId, String status, String roomId, String customerId) {
+        StringBuilder sql = new StringBuilder(Rows.BOOKING_SELECT + "WHERE b.property_id = :propertyId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("propertyId", propertyId);
+
+        if (status != null) {
+            sql.append(" AND b.status = :status");
+            params.put("status", status);
+        } else if (roomId != null) {
+            sql.append(" AND b.room_id = :roomId");
+            params.put("roomId", roomId);
+        } else if (customerId != null) {
+            sql.append(" AND b.customer_id = :customerId");
+            params.put("customerId", customerId);
+        }
+
+        return roomReadRepository.findCollections(propertyId).flatMapMany(collections -> databaseClient
+                .sql(sql.toString())
+                .bindValues(params)
+                .map(row -> {
+                    BookingView booking = Rows.booking(new RowCursor(row), true);
+                    return booking.withRoom(collections.fill(booking.room()));
+                })
+                .all());
+    }
+
+    /**
+     * Check whether a room has no active booking overlapping the dates.
+     * Same inclusive bounds as BookingRepository.findOverlappingBookings in roomstack-backend.
+     * @param propertyId The property
+     * @param roomId The room ID
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @return true if the room is available
+     */
+    public Mono<Boolean> isRoomAvailable(String propertyId, String roomId, LocalDateTime checkIn,
+            LocalDateTime checkOut) {
+        return databaseClient
+                .sql("SELECT b.id FROM bookings b WHERE b.property_id = :propertyId AND b.room_id = :roomId " +
+                     "AND b.status NOT IN ('cancelled', 'no_show') " +
+                     "AND ((:checkIn BETWEEN b.check_in AND b.check_out) " +
+                     "OR (:checkOut BETWEEN b.check_in AND b.check_out) " +
+                     "OR (b.check_in BETWEEN :checkIn AND :checkOut)) " +
+                     "LIMIT 1")
+                .bind("propertyId", propertyId)
+                .bind("roomId", roomId)
+                .bind("checkIn", checkIn)
+                .bind("checkOut", checkOut)
+                .map(row -> row.get(0, String.class))
+                .first()
+                .hasElement()
+                .map(overlapping -> !overlapping);
+    }
+}
@@ -0,0 +1,131 @@
+package com.roomstack.reactive.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.reactive.model.RoomView;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class RoomReadRepository {
+
+    /**
+     * Beds and features of a property's rooms, by room ID
+     */
+    public record RoomCollections(Map<String, Map<String, Integer>> beds, Map<String, List<String>> features) {
+
+        /**
+         * @return The room with its beds and features; null stays null
+         */
+        public RoomView fill(RoomView room) {
+            if (room == null) {
+                return null;
+            }
+            return room.withCollections(beds.getOrDefault(room.id(), Map.of()),
+                    features.getOrDefault(room.id(), List.of()));
+        }
+    }
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Stream the rooms of a property, filtered as GET /api/rooms filters them: by status, else by floor,
+     * else by minimum capacity, and by features on top of any of those
+     * @param propertyId The property
+     * @param status Optional room status
+     * @param floor Optional floor
+     * @param minCapacity Optional minimum capacity
+     * @param features Optional features the rooms must all have
+     * @return The rooms, with their beds and features
+     */
+    public Flux<RoomView> findRooms(String propertyId, String status, Integer floor, Integer minCapacity,
+            List<String> features) {
+        StringBuilder sql = new StringBuilder("SELECT " + Rows.ROOM_COLUMNS + " FROM rooms r WHERE r.property_id = :propertyId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("propertyId", propertyId);
+
+        if (status != null) {
+            sql.append(" AND r.status = :status");
+            params.put("status", status);
+        } else if (floor != null) {
+            sql.append(" AND r.floor = :floor");
+            params.put("floor", floor);
+        } else if (minCapacity != null) {
+            sql.append(" AND r.capacity >= :minCapacity");
+            params.put("minCapacity", minCapacity);
+        }
+
+        if (features != null && !features.isEmpty()) {
+            Set<String> required = new LinkedHashSet<>(features);
+            sql.append(" AND r.id IN (SELECT f.room_id FROM room_features f WHERE f.feature IN (:features) " +
+                    "GROUP BY f.room_id HAVING COUNT(DISTINCT f.feature) = :featureCount)");
+            params.put("features", required);
+            params.put("featureCount", required.size());
+        }
+
+        // The collections are read first, so the rooms' query is the only one open while they stream
+        return findCollections(propertyId).flatMapMany(collections -> databaseClient.sql(sql.toString())
+                .bindValues(params)
+                .map(row -> collections.fill(Rows.room(new RowCursor(row))))
+                .all());
+    }
+
+    /**
+     * Find a room of a property by ID
+     * @param propertyId The property
+     * @param id The room ID
+     * @return The room with its beds and features, or empty if not found
+     */
+    public Mono<RoomView> findRoom(String propertyId, String id) {
+        return findCollections(propertyId).flatMap(collections -> databaseClient
+                .sql("SELECT " + Rows.ROOM_COLUMNS + " FROM rooms r WHERE r.property_id = :propertyId AND r.id = :id")
+                .bind("propertyId", propertyId)
+                .bind("id", id)
+                .map(row -> collections.fill(Rows.room(new RowCursor(row))))
+                .one());
+    }
+
+    /**
+     * Load the beds and features of every room of a property, one query each.
+     * The room catalog is small next to bookings and bills, which stream past it.
+     * @param propertyId The property
+     * @return The beds and features by room ID
+     */
+    public Mono<RoomCollections> findCollections(String propertyId) {
+        Mono<Map<String, Map<String, Integer>>> beds = databaseClient
+                .sql("SELECT rb.room_id, rb.bed_type, rb.count FROM room_beds rb " +
+                     "JOIN rooms r ON r.id = rb.room_id WHERE r.property_id = :propertyId")
+                .bind("propertyId", propertyId)
+                .map(row -> new Object[] { row.get(0, String.class), row.get(1, String.class), row.get(2, Integer.class) })
+                .all()
+                .collect(() -> new HashMap<String, Map<String, Integer>>(), (byRoom, bed) -> byRoom
+                        .computeIfAbsent((String) bed[0], room -> new LinkedHashMap<>())
+                        .put((String) bed[1], (Integer) bed[2]))
+                .map(byRoom -> byRoom);
+
+        Mono<Map<String, List<String>>> features = databaseClient
+                .sql("SELECT f.room_id, f.feature FROM room_features f " +
+                     "JOIN rooms r ON r.id = f.room_id WHERE r.property_id = :propertyId")
+                .bind("propertyId", propertyId)
+                .map(row -> new String[] { row.get(0, String.class), row.get(1, String.class) })
+                .all()
+                .collect(() -> new HashMap<String, List<String>>(), (byRoom, feature) -> byRoom
+                        .computeIfAbsent(feature[0], room -> new ArrayList<>())
+                        .add(feature[1]))
+                .map(byRoom -> byRoom);
+
+        return Mono.zip(beds, features, RoomCollections::new);
+    }
+}
@@ -0,0 +1,25 @@
+package com.roomstack.reactive.repository;
+
+import io.r2dbc.spi.Readable;
+
+/**
+ * Reads the columns of a row in order, so joined entities can be mapped one after another
+ */
+final class RowCursor {
+
+    private final Readable row;
+
+    private int index;
+
+    RowCursor(Readable row) {
+        this.row = row;
+    }
+
+    <T> T next(Class<T> type) {
+        return row.get(index++, type);
+    }
+
+    void skip(int columns) {
+        index += columns;
+    }
+}
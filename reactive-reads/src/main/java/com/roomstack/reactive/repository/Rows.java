@@ -0,0 +1,135 @@
+package com.roomstack.reactive.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.roomstack.reactive.model.BillView;
+import com.roomstack.reactive.model.BookingView;
+import com.roomstack.reactive.model.CustomerView;
+import com.roomstack.reactive.model.RoomView;
+
+/**
+ * Column lists of the Room Stack tables, and the mapping of each to its view.
+ * Joined entities are selected one list after another and mapped in the same order.
+ */
+final class Rows {
+
+    static final String ROOM_COLUMNS =
+            "r.id, r.property_id, r.number, r.capacity, r.price_per_night, r.status, r.floor, r.description, " +
+            "r.created_at, r.updated_at";
+
+    static final String CUSTOMER_COLUMNS =
+            "c.id, c.property_id, c.name, c.email, c.phone, c.address, c.current_guest, c.total_stays, " +
+            "c.total_nights, c.lifetime_spend, c.last_stay_date, c.created_at, c.updated_at";
+
+    static final String BOOKING_COLUMNS =
+            "b.id, b.property_id, b.check_in, b.check_out, b.adults, b.children, b.special_requests, b.status, " +
+            "b.group_id, b.auto_assigned, b.created_at, b.updated_at";
+
+    static final String BILL_COLUMNS =
+            "bl.id, bl.property_id, bl.room_charge, bl.tax_amount, bl.total, bl.payment_status, bl.payment_date, " +
+            "bl.created_at, bl.updated_at";
+
+    /**
+     * A booking with its room, customer and bill
+     */
+    static final String BOOKING_SELECT =
+            "SELECT " + BOOKING_COLUMNS + ", " + ROOM_COLUMNS + ", " + CUSTOMER_COLUMNS + ", " + BILL_COLUMNS + " " +
+            "FROM bookings b " +
+            "LEFT JOIN rooms r ON r.id = b.room_id " +
+            "LEFT JOIN customers c ON c.id = b.customer_id " +
+            "LEFT JOIN bills bl ON bl.booking_id = b.id ";
+
+    /**
+     * A bill with its booking, the booking's room and customer
+     */
+    static final String BILL_SELECT =
+            "SELECT " + BILL_COLUMNS + ", " + BOOKING_COLUMNS + ", " + ROOM_COLUMNS + ", " + CUSTOMER_COLUMNS + " " +
+            "FROM bills bl " +
+            "LEFT JOIN bookings b ON b.id = bl.booking_id " +
+            "LEFT JOIN rooms r ON r.id = b.room_id " +
+            "LEFT JOIN customers c ON c.id = b.customer_id ";
+
+    private static final int ROOM_COLUMN_COUNT = 10;
+
+    private static final int CUSTOMER_COLUMN_COUNT = 13;
+
+    private static final int BILL_COLUMN_COUNT = 9;
+
+    private Rows() {
+    }
+
+    /**
+     * @return The room, without its beds and features, or null if the row has none
+     */
+    static RoomView room(RowCursor row) {
+        String id = row.next(String.class);
+        if (id == null) {
+            row.skip(ROOM_COLUMN_COUNT - 1);
+            return null;
+        }
+
+        return new RoomView(id, row.next(String.class), row.next(String.class), null,
+                row.next(Integer.class), row.next(Double.class), null, row.next(String.class),
+                row.next(Integer.class), row.next(String.class),
+                row.next(LocalDateTime.class), row.next(LocalDateTime.class));
+    }
+
+    static CustomerView customer(RowCursor row) {
+        String id = row.next(String.class);
+        if (id == null) {
+            row.skip(CUSTOMER_COLUMN_COUNT - 1);
+            return null;
+        }
+
+        return new CustomerView(id, row.next(String.class), row.next(String.class), row.next(String.class),
+                row.next(String.class), row.next(String.class), row.next(Boolean.class),
+                row.next(Integer.class), row.next(Integer.class), row.next(BigDecimal.class),
+                row.next(LocalDate.class), row.next(LocalDateTime.class), row.next(LocalDateTime.class));
+    }
+
+    /**
+     * A booking with its room and customer, then its bill if withBill is set
+     * @return The booking, or null if the row has none
+     */
+    static BookingView booking(RowCursor row, boolean withBill) {
+        String id = row.next(String.class);
+        String propertyId = row.next(String.class);
+        LocalDateTime checkIn = row.next(LocalDateTime.class);
+        LocalDateTime checkOut = row.next(LocalDateTime.class);
+        Integer adults = row.next(Integer.class);
+        Integer children = row.next(Integer.class);
+        String specialRequests = row.next(String.class);
+        String status = row.next(String.class);
+        String groupId = row.next(String.class);
+        Boolean autoAssigned = row.next(Boolean.class);
+        LocalDateTime createdAt = row.next(LocalDateTime.class);
+        LocalDateTime updatedAt = row.next(LocalDateTime.class);
+
+        RoomView room = room(row);
+        CustomerView customer = customer(row);
+        BillView bill = withBill ? bill(row) : null;
+        if (id == null) {
+            return null;
+        }
+
+        return new BookingView(id, propertyId, room, customer, checkIn, checkOut, adults, children,
+                specialRequests, status, groupId, Boolean.TRUE.equals(autoAssigned), bill, createdAt, updatedAt);
+    }
+
+    /**
+     * @return The bill, without its booking, or null if the row has none
+     */
+    static BillView bill(RowCursor row) {
+        String id = row.next(String.class);
+        if (id == null) {
+            row.skip(BILL_COLUMN_COUNT - 1);
+            return null;
+        }
+
+        return new BillView(id, row.next(String.class), null, row.next(BigDecimal.class),
+                row.next(BigDecimal.class), row.next(BigDecimal.class), row.next(String.class),
+                row.next(LocalDateTime.class), row.next(LocalDateTime.class), row.next(LocalDateTime.class));
+    }
+}
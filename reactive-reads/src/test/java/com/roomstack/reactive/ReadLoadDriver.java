@@ -0,0 +1,160 @@
+package com.roomstack.reactive;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load comparison of the read API on roomstack-backend (Spring MVC and JDBC)
+ * and on this module (WebFlux and R2DBC). Keeps a fixed number of GET
+ * requests in flight against each base URL in turn and reports throughput,
+ * latency percentiles and the server's live threads halfway through. Needs
+ * only the JDK:
+ *
+ * <pre>
+ * java reactive-reads/src/test/java/com/roomstack/reactive/ReadLoadDriver.java \
+ *     --concurrency 1000 --seconds 30 --path /api/rooms --path /api/bookings?status=confirmed \
+ *     http://localhost:8080 http://localhost:8090
+ * </pre>
+ *
+ * Both servers must read the same database, and expose actuator metrics for the thread count.
+ */
+public class ReadLoadDriver {
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = 500;
+        int seconds = 20;
+        int warmupSeconds = 5;
+        List<String> paths = new ArrayList<>();
+        List<String> targets = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--concurrency":
+                    concurrency = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmupSeconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--path":
+                    paths.add(args[++i]);
+                    break;
+                default:
+                    targets.add(args[i]);
+            }
+        }
+        if (targets.isEmpty()) {
+            System.err.println("Usage: ReadLoadDriver [--concurrency n] [--seconds n] [--warmup n] [--path p]... url...");
+            System.exit(2);
+        }
+        if (paths.isEmpty()) {
+            paths.add("/api/rooms");
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        System.out.printf("%d requests in flight, paths %s%n", concurrency, paths);
+        System.out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s %8s%n",
+                "target", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "threads");
+        for (String target : targets) {
+            run(client, target, paths, concurrency, warmupSeconds, false);
+            Result result = run(client, target, paths, concurrency, seconds, true);
+            System.out.printf("%-28s %9d %7d %9.0f %9.1f %9.1f %9.1f %9.1f %8s%n",
+                    target, result.latencies.length, result.errors, result.latencies.length / (double) seconds,
+                    percentile(result.latencies, 0.50), percentile(result.latencies, 0.99),
+                    percentile(result.latencies, 0.999), percentile(result.latencies, 1.0),
+                    result.threads < 0 ? "?" : String.valueOf(result.threads));
+        }
+    }
+
+    private record Result(double[] latencies, long errors, long threads) {
+    }
+
+    private static Result run(HttpClient client, String target, List<String> paths, int concurrency, int seconds,
+            boolean measure) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Double> latencies = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        long threads = -1;
+
+        long started = System.nanoTime();
+        long end = started + TimeUnit.SECONDS.toNanos(seconds);
+        long sampleAt = started + TimeUnit.SECONDS.toNanos(seconds) / 2;
+        int next = 0;
+        while (System.nanoTime() < end) {
+            if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                continue;
+            }
+            if (measure && threads < 0 && System.nanoTime() > sampleAt) {
+                threads = liveThreads(client, target);
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(target + paths.get(next++ % paths.size())))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                double millis = (System.nanoTime() - sent) / 1e6;
+                if (failure != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                } else {
+                    synchronized (latencies) {
+                        latencies.add(millis);
+                    }
+                }
+                inFlight.release();
+            });
+        }
+        // Let the requests still in flight finish before the next target
+        inFlight.acquire(concurrency);
+
+        double[] sorted;
+        synchronized (latencies) {
+            sorted = latencies.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+        Arrays.sort(sorted);
+        return new Result(sorted, errors.get(), threads);
+    }
+
+    /**
+     * The server's live JVM threads, from its actuator metrics, or -1 if unavailable
+     */
+    private static long liveThreads(HttpClient client, String target) {
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(target + "/actuator/metrics/jvm.threads.live")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = METRIC_VALUE.matcher(response.body());
+            return response.statusCode() == 200 && matcher.find() ? (long) Double.parseDouble(matcher.group(1)) : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static double percentile(double[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,57 @@
+package com.roomstack.reactive.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.roomstack.reactive.model.BillView;
+import com.roomstack.reactive.model.BookingView;
+import com.roomstack.reactive.repository.BillReadRepository;
+
+import reactor.core.publisher.Flux;
+
+@WebFluxTest(BillReadController.class)
+class BillReadControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private BillReadRepository billReadRepository;
+
+    @Test
+    void listsBillsWithTheirBookings() {
+        BookingView booking = BookingReadControllerTests.booking("b1");
+        BillView bill = booking.bill().withBooking(booking);
+        when(billReadRepository.findBills("main", "pending")).thenReturn(Flux.just(bill));
+
+        webTestClient.get()
+                .uri("/api/bills?status=pending")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo("bill-b1")
+                .jsonPath("$[0].paymentStatus").isEqualTo("pending")
+                .jsonPath("$[0].booking.id").isEqualTo("b1")
+                .jsonPath("$[0].booking.bill").doesNotExist();
+    }
+
+    @Test
+    void rejectsAnUnknownPaymentStatus() {
+        webTestClient.get()
+                .uri("/api/bills?status=overdue")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(billReadRepository, never()).findBills(anyString(), any());
+    }
+}
@@ -0,0 +1,111 @@
+package com.roomstack.reactive.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.roomstack.reactive.model.BillView;
+import com.roomstack.reactive.model.BookingView;
+import com.roomstack.reactive.model.CustomerView;
+import com.roomstack.reactive.repository.BookingReadRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(BookingReadController.class)
+class BookingReadControllerTests {
+
+    private static final LocalDateTime CHECK_IN = LocalDateTime.of(2030, 5, 1, 14, 0);
+
+    private static final LocalDateTime CHECK_OUT = LocalDateTime.of(2030, 5, 3, 11, 0);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private BookingReadRepository bookingReadRepository;
+
+    @Test
+    void listsBookingsWithTheFilters() {
+        when(bookingReadRepository.findBookings("main", "confirmed", "r1", "c1"))
+                .thenReturn(Flux.just(booking("b1")));
+
+        webTestClient.get()
+                .uri("/api/bookings?status=confirmed&roomId=r1&customerId=c1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo("b1")
+                .jsonPath("$[0].checkIn").isEqualTo("2030-05-01T14:00:00")
+                .jsonPath("$[0].room.number").isEqualTo("201")
+                .jsonPath("$[0].customer.email").isEqualTo("guest@example.com")
+                .jsonPath("$[0].bill.total").isEqualTo(198.0)
+                .jsonPath("$[0].bill.booking").doesNotExist();
+    }
+
+    @Test
+    void rejectsAnUnknownStatus() {
+        webTestClient.get()
+                .uri("/api/bookings?status=lost")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(bookingReadRepository, never()).findBookings(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void leavesDateRangesToTheBackend() {
+        webTestClient.get()
+                .uri("/api/bookings?from=2030-01-01T00:00:00")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Bookings by date range are served by roomstack-backend");
+    }
+
+    @Test
+    void checksRoomAvailability() {
+        when(bookingReadRepository.isRoomAvailable("main", "r1", CHECK_IN, CHECK_OUT)).thenReturn(Mono.just(false));
+
+        webTestClient.get()
+                .uri("/api/bookings/availability/check?roomId=r1&checkIn=2030-05-01T14:00:00&checkOut=2030-05-03T11:00:00")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.available").isEqualTo(false);
+    }
+
+    @Test
+    void rejectsACheckOutBeforeTheCheckIn() {
+        webTestClient.get()
+                .uri("/api/bookings/availability/check?roomId=r1&checkIn=2030-05-03T14:00:00&checkOut=2030-05-01T11:00:00")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(bookingReadRepository, never()).isRoomAvailable(anyString(), anyString(), any(), any());
+    }
+
+    static BookingView booking(String id) {
+        CustomerView customer = new CustomerView("c1", "main", "Guest", "guest@example.com", "555", null, false,
+                0, 0, BigDecimal.ZERO, null, CHECK_IN.minusDays(30), CHECK_IN.minusDays(30));
+        BookingView booking = new BookingView(id, "main", RoomReadControllerTests.room("r1", "201"), customer,
+                CHECK_IN, CHECK_OUT, 2, 0, null, "confirmed", null, false, null, CHECK_IN.minusDays(7),
+                CHECK_IN.minusDays(7));
+        BillView bill = new BillView("bill-" + id, "main", booking, new BigDecimal("180.00"), new BigDecimal("18.00"),
+                new BigDecimal("198.00"), "pending", null, CHECK_IN.minusDays(7), CHECK_IN.minusDays(7));
+        return new BookingView(id, "main", booking.room(), customer, CHECK_IN, CHECK_OUT, 2, 0, null, "confirmed",
+                null, false, bill, CHECK_IN.minusDays(7), CHECK_IN.minusDays(7));
+    }
+}
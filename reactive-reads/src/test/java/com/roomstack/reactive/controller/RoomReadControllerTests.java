@@ -0,0 +1,112 @@
+package com.roomstack.reactive.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.roomstack.reactive.config.PropertyWebFilter;
+import com.roomstack.reactive.model.RoomView;
+import com.roomstack.reactive.repository.RoomReadRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@WebFluxTest(controllers = RoomReadController.class, properties = "roomstack.sharding.properties.harbor=east")
+class RoomReadControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private RoomReadRepository roomReadRepository;
+
+    @Test
+    void listsRoomsOfTheDefaultPropertyWithTheFilters() {
+        when(roomReadRepository.findRooms("main", "available", 2, 3, List.of("WiFi", "Jacuzzi")))
+                .thenReturn(Flux.just(room("r1", "201"), room("r2", "202")));
+
+        webTestClient.get()
+                .uri("/api/rooms?status=available&floor=2&minCapacity=3&features=WiFi,Jacuzzi")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].number").isEqualTo("201")
+                .jsonPath("$[0].beds.queen").isEqualTo(1)
+                .jsonPath("$[1].id").isEqualTo("r2");
+    }
+
+    @Test
+    void streamsRoomsAsNdjson() {
+        when(roomReadRepository.findRooms("main", null, null, null, null))
+                .thenReturn(Flux.just(room("r1", "201"), room("r2", "202")));
+
+        Flux<RoomView> rooms = webTestClient.get()
+                .uri("/api/rooms")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(RoomView.class)
+                .getResponseBody();
+
+        StepVerifier.create(rooms.map(RoomView::id))
+                .expectNext("r1", "r2")
+                .verifyComplete();
+    }
+
+    @Test
+    void getsARoomById() {
+        when(roomReadRepository.findRoom("main", "r1")).thenReturn(Mono.just(room("r1", "201")));
+
+        webTestClient.get()
+                .uri("/api/rooms/r1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.number").isEqualTo("201")
+                .jsonPath("$.features[0]").isEqualTo("WiFi");
+    }
+
+    @Test
+    void answersNotFoundForAMissingRoom() {
+        when(roomReadRepository.findRoom("main", "missing")).thenReturn(Mono.empty());
+
+        webTestClient.get()
+                .uri("/api/rooms/missing")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void rejectsPropertiesOfAnotherShard() {
+        webTestClient.get()
+                .uri("/api/rooms")
+                .header(PropertyWebFilter.PROPERTY_HEADER, "harbor")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Unknown property: harbor");
+
+        verify(roomReadRepository, never()).findRooms(anyString(), any(), any(), any(), any());
+    }
+
+    static RoomView room(String id, String number) {
+        return new RoomView(id, "main", number, Map.of("queen", 1), 2, 90.0, List.of("WiFi"), "available", 2,
+                null, LocalDateTime.of(2030, 1, 1, 9, 0), LocalDateTime.of(2030, 1, 1, 9, 0));
+    }
+}
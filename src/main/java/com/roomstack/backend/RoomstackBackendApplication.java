@@ -6,12 +6,14 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {"com.roomstack"})
 @EntityScan("com.roomstack.model")
 @EnableJpaRepositories("com.roomstack.repository")
 @EnableJpaAuditing // Enable JPA auditing for createdAt and updatedAt fields
+@EnableScheduling // Enable background jobs such as the outbox dispatcher
 public class RoomstackBackendApplication {
 
 	public static void main(String[] args) {
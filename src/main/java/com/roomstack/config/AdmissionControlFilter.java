@@ -0,0 +1,233 @@
+package com.roomstack.config;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Priority-aware admission control in front of the database-bound endpoints.
+ * Booking writes and status changes (check-ins) and unpaginated list and
+ * search reads draw from one budget of permits. The reads have an adaptive
+ * limit and only take a permit while more than the reserved critical permits
+ * remain free, so a burst of them cannot take the connections booking writes
+ * need. A request holds its permit until it completes, including the
+ * asynchronous part of an async request. Requests that cannot be admitted
+ * get 429 (queue full) or 503 (queue timeout) with a Retry-After header.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /**
+     * Admission class of a request
+     */
+    enum Priority {
+        critical,
+        bulk,
+        unlimited
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${roomstack.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${roomstack.admission.total-limit:10}")
+    private int totalLimit;
+
+    @Value("${roomstack.admission.reserved-critical:4}")
+    private int reservedCritical;
+
+    @Value("${roomstack.admission.bulk-min-limit:1}")
+    private int bulkMinLimit;
+
+    @Value("${roomstack.admission.bulk-queue-size:50}")
+    private int bulkQueueSize;
+
+    @Value("${roomstack.admission.bulk-queue-timeout-ms:500}")
+    private long bulkQueueTimeoutMillis;
+
+    @Value("${roomstack.admission.critical-queue-size:200}")
+    private int criticalQueueSize;
+
+    @Value("${roomstack.admission.critical-queue-timeout-ms:2000}")
+    private long criticalQueueTimeoutMillis;
+
+    @Value("${roomstack.admission.latency-target-ms:250}")
+    private long latencyTargetMillis;
+
+    @Value("${roomstack.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    private ConcurrencyLimiter criticalLimiter;
+
+    private ConcurrencyLimiter bulkLimiter;
+
+    @PostConstruct
+    void init() {
+        int bulkMaxLimit = Math.max(bulkMinLimit, totalLimit - reservedCritical);
+
+        // Critical requests may use the whole budget; bulk reads never touch the reserved part
+        ConcurrencyLimiter.Budget budget = new ConcurrencyLimiter.Budget(totalLimit);
+        criticalLimiter = new ConcurrencyLimiter(budget, 0, totalLimit, totalLimit, totalLimit,
+                criticalQueueSize, criticalQueueTimeoutMillis, latencyTargetMillis, false);
+        bulkLimiter = new ConcurrencyLimiter(budget, reservedCritical, bulkMaxLimit, bulkMinLimit, bulkMaxLimit,
+                bulkQueueSize, bulkQueueTimeoutMillis, latencyTargetMillis, true);
+
+        registerGauges(Priority.critical, criticalLimiter);
+        registerGauges(Priority.bulk, bulkLimiter);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || classify(request) == Priority.unlimited;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = classify(request);
+        ConcurrencyLimiter limiter = priority == Priority.critical ? criticalLimiter : bulkLimiter;
+
+        try {
+            limiter.acquire();
+        } catch (ConcurrencyLimiter.RejectedException e) {
+            meterRegistry.counter("roomstack.admission.rejected",
+                    "priority", priority.name(), "reason", e.getReason().name()).increment();
+            reject(response, e.getReason());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response, ConcurrencyLimiter.Rejection.queue_timeout);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                // The response is still being produced; the container calls back when it is done
+                request.getAsyncContext().addListener(new AsyncRelease(limiter, start));
+            } else {
+                limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Decide which admission class a request belongs to
+     */
+    Priority classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        if ("POST".equals(method) && path.startsWith("/api/bookings")) {
+            return Priority.critical;
+        }
+        if ("PUT".equals(method) && path.startsWith("/api/bookings/") && path.endsWith("/status")) {
+            return Priority.critical;
+        }
+
+        if ("GET".equals(method)) {
+            switch (path) {
+                case "/api/bookings":
+                case "/api/customers":
+                case "/api/bills":
+                case "/api/rooms":
+                case "/api/reports/query":
+                    return Priority.bulk;
+                default:
+                    return Priority.unlimited;
+            }
+        }
+
+        return Priority.unlimited;
+    }
+
+    private void reject(HttpServletResponse response, ConcurrencyLimiter.Rejection reason) throws IOException {
+        HttpStatus status = reason == ConcurrencyLimiter.Rejection.queue_full
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Server is busy, retry later\"}");
+    }
+
+    /**
+     * Returns an async request's permit once, when the request completes, fails or times out
+     */
+    private static class AsyncRelease implements AsyncListener {
+
+        private final ConcurrencyLimiter limiter;
+
+        private final long start;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        AsyncRelease(ConcurrencyLimiter limiter, long start) {
+            this.limiter = limiter;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A restarted async cycle drops its listeners, so stay registered
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void registerGauges(Priority priority, ConcurrencyLimiter limiter) {
+        Gauge.builder("roomstack.admission.queue.depth", limiter, ConcurrencyLimiter::getQueueDepth)
+                .tag("priority", priority.name())
+                .register(meterRegistry);
+        Gauge.builder("roomstack.admission.in.flight", limiter, ConcurrencyLimiter::getInFlight)
+                .tag("priority", priority.name())
+                .register(meterRegistry);
+        Gauge.builder("roomstack.admission.limit", limiter, ConcurrencyLimiter::getLimit)
+                .tag("priority", priority.name())
+                .register(meterRegistry);
+    }
+}
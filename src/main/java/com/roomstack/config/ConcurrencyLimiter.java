@@ -0,0 +1,218 @@
+package com.roomstack.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit with a bounded wait queue. When adaptive, the limit follows
+ * AIMD: it grows by about one permit per limit's worth of fast responses and
+ * shrinks multiplicatively whenever a response exceeds the latency target.
+ * Limiters can draw from one shared {@link Budget}; a limiter with a reserve
+ * only takes a permit while more than that many of the budget's remain free.
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * Why a request was not admitted
+     */
+    public enum Rejection {
+        queue_full,
+        queue_timeout
+    }
+
+    /**
+     * Thrown when a request cannot be admitted
+     */
+    public static class RejectedException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Rejection reason;
+
+        RejectedException(Rejection reason) {
+            super(reason.name(), null, false, false);
+            this.reason = reason;
+        }
+
+        public Rejection getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Permits shared by several limiters, with the lock they all queue on
+     */
+    public static class Budget {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition permitReleased = lock.newCondition();
+
+        private final int total;
+
+        private int inFlight;
+
+        public Budget(int total) {
+            this.total = total;
+        }
+
+        public int getInFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final Budget budget;
+
+    private final int reserve;
+
+    private final ReentrantLock lock;
+
+    private final Condition permitReleased;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int maxQueue;
+
+    private final long queueTimeoutNanos;
+
+    private final long latencyTargetNanos;
+
+    private final boolean adaptive;
+
+    private double limit;
+
+    private int inFlight;
+
+    private int waiting;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue,
+            long queueTimeoutMillis, long latencyTargetMillis, boolean adaptive) {
+        this(new Budget(maxLimit), 0, initialLimit, minLimit, maxLimit, maxQueue, queueTimeoutMillis,
+                latencyTargetMillis, adaptive);
+    }
+
+    /**
+     * A limiter drawing from a shared budget
+     * @param reserve How many of the budget's permits this limiter must leave free
+     */
+    public ConcurrencyLimiter(Budget budget, int reserve, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+            long queueTimeoutMillis, long latencyTargetMillis, boolean adaptive) {
+        this.budget = budget;
+        this.reserve = reserve;
+        this.lock = budget.lock;
+        this.permitReleased = budget.permitReleased;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis);
+        this.adaptive = adaptive;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Take a permit, waiting in the queue up to the queue timeout
+     */
+    public void acquire() throws RejectedException, InterruptedException {
+        lock.lock();
+        try {
+            if (waiting == 0 && hasPermit()) {
+                take();
+                return;
+            }
+
+            if (waiting >= maxQueue) {
+                throw new RejectedException(Rejection.queue_full);
+            }
+
+            waiting++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (!hasPermit()) {
+                    if (remaining <= 0) {
+                        throw new RejectedException(Rejection.queue_timeout);
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+                take();
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return a permit and feed the observed latency into the limit
+     */
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+            budget.inFlight--;
+
+            if (adaptive) {
+                if (latencyNanos > latencyTargetNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                } else if (saturated) {
+                    // Only probe upwards when the limit was actually the bottleneck
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+
+            // Waiters of every limiter on the budget share the condition, and only some of them may fit
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private boolean hasPermit() {
+        return inFlight < (int) limit && budget.inFlight < budget.total - reserve;
+    }
+
+    private void take() {
+        inFlight++;
+        budget.inFlight++;
+    }
+}
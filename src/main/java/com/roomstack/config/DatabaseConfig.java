@@ -1,14 +1,26 @@
 package com.roomstack.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @Configuration
 @EnableTransactionManagement
+@EnableConfigurationProperties(ShardingProperties.class)
 public class DatabaseConfig {
-    
+
     /**
      * Translates native resource exceptions to Spring's DataAccessException hierarchy
      */
@@ -16,4 +28,38 @@ public class DatabaseConfig {
     public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
         return new PersistenceExceptionTranslationPostProcessor();
     }
+
+    /**
+     * One connection pool per shard behind a router, so every repository call
+     * and transaction uses the shard of the property it works for. The
+     * spring.datasource database is the default shard.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties defaultShard, ShardingProperties sharding,
+            ShardRouter shardRouter) {
+        Map<Object, Object> shards = new LinkedHashMap<>();
+        shards.put(ShardingProperties.DEFAULT_SHARD, defaultShard.initializeDataSourceBuilder().build());
+        sharding.getShards().forEach((name, shard) -> shards.put(name, DataSourceBuilder.create()
+                .url(shard.getUrl())
+                .username(shard.getUsername())
+                .password(shard.getPassword())
+                .driverClassName(shard.getDriverClassName())
+                .build()));
+
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(shardRouter);
+        dataSource.setTargetDataSources(shards);
+        dataSource.setDefaultTargetDataSource(shards.get(ShardingProperties.DEFAULT_SHARD));
+        dataSource.setLenientFallback(false);
+        return dataSource;
+    }
+
+    /**
+     * Scopes property-keyed entities to the property of the current thread
+     */
+    @Bean
+    public HibernatePropertiesCustomizer propertyTenantResolver(ShardRouter shardRouter) {
+        return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER,
+                new PropertyTenantResolver(shardRouter));
+    }
 }
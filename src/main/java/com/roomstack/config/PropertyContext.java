@@ -0,0 +1,119 @@
+package com.roomstack.config;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * The property (hotel) the current thread works for. Its shard decides the
+ * datasource connections are taken from, and Hibernate scopes every
+ * property-keyed entity to it. Background work can instead run against a
+ * whole shard, seeing the rows of every property stored there.
+ *
+ * <p>The scope is bound to the thread, so it must be set before a transaction
+ * takes its connection, and work handed to another thread must be wrapped.</p>
+ */
+public final class PropertyContext {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private PropertyContext() {
+    }
+
+    /**
+     * A property, or every property of a shard when shard is set
+     */
+    record Scope(String propertyId, String shard) {
+    }
+
+    /**
+     * The property of the current thread, or null if none was set or the thread works on a whole shard
+     */
+    public static String propertyId() {
+        Scope scope = CURRENT.get();
+        return scope == null ? null : scope.propertyId();
+    }
+
+    /**
+     * The shard the current thread works on as a whole, or null
+     */
+    public static String shard() {
+        Scope scope = CURRENT.get();
+        return scope == null ? null : scope.shard();
+    }
+
+    /**
+     * Run work as a property
+     */
+    public static <T> T callAs(String propertyId, Supplier<T> work) {
+        return callIn(new Scope(propertyId, null), work);
+    }
+
+    public static void runAs(String propertyId, Runnable work) {
+        callAs(propertyId, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run work against a whole shard, across the properties stored there
+     */
+    public static <T> T callOnShard(String shard, Supplier<T> work) {
+        return callIn(new Scope(null, shard), work);
+    }
+
+    /**
+     * Carry the current scope over to the thread that runs the task
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Scope scope = CURRENT.get();
+        return () -> {
+            Scope previous = CURRENT.get();
+            set(scope);
+            try {
+                return task.call();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Scope scope = CURRENT.get();
+        return () -> callIn(scope, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Bind a property to the current thread until restore is called with the returned scope
+     */
+    static Scope enter(String propertyId) {
+        Scope previous = CURRENT.get();
+        set(new Scope(propertyId, null));
+        return previous;
+    }
+
+    static void restore(Scope previous) {
+        set(previous);
+    }
+
+    private static <T> T callIn(Scope scope, Supplier<T> work) {
+        Scope previous = CURRENT.get();
+        set(scope);
+        try {
+            return work.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    private static void set(Scope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+}
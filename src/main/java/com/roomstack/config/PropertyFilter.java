@@ -0,0 +1,58 @@
+package com.roomstack.config;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Binds each request to the property named by its X-Property-Id header, or to
+ * the default property without one, before any transaction takes a
+ * connection. Unknown properties are rejected with 400.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PropertyFilter extends OncePerRequestFilter {
+
+    public static final String PROPERTY_HEADER = "X-Property-Id";
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String propertyId = request.getHeader(PROPERTY_HEADER);
+        if (propertyId == null || propertyId.isBlank()) {
+            propertyId = shardRouter.getDefaultProperty();
+        } else if (!shardRouter.isKnownProperty(propertyId)) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getWriter(), Map.of("message", "Unknown property: " + propertyId));
+            return;
+        }
+
+        PropertyContext.Scope previous = PropertyContext.enter(propertyId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PropertyContext.restore(previous);
+        }
+    }
+}
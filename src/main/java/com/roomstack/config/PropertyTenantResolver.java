@@ -0,0 +1,36 @@
+package com.roomstack.config;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Tells Hibernate the property a session works for, so every property-keyed
+ * entity is filtered by and stamped with it. A session that works on a whole
+ * shard uses the root tenant, which sees every property and keeps the
+ * property an entity was given.
+ */
+public class PropertyTenantResolver implements CurrentTenantIdentifierResolver<String> {
+
+    static final String ALL_PROPERTIES = "*";
+
+    private final ShardRouter shardRouter;
+
+    public PropertyTenantResolver(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        String propertyId = shardRouter.currentProperty();
+        return propertyId == null ? ALL_PROPERTIES : propertyId;
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public boolean isRoot(String tenantId) {
+        return ALL_PROPERTIES.equals(tenantId);
+    }
+}
@@ -0,0 +1,166 @@
+package com.roomstack.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Maps properties to shards and runs work across shards. Requests work for
+ * one property on its shard; background jobs and the few cross-property
+ * queries run once per shard as the whole shard, and scatter-gather merges
+ * the results of every shard.
+ */
+@Component
+public class ShardRouter {
+
+    @Autowired
+    private ShardingProperties sharding;
+
+    @Value("${roomstack.sharding.scatter-timeout-ms:5000}")
+    private long scatterTimeoutMs;
+
+    private ExecutorService scatterExecutor;
+
+    @PostConstruct
+    void init() {
+        sharding.getProperties().forEach((propertyId, shard) -> {
+            if (!ShardingProperties.DEFAULT_SHARD.equals(shard) && !sharding.getShards().containsKey(shard)) {
+                throw new IllegalStateException("Property " + propertyId + " is mapped to unknown shard " + shard);
+            }
+        });
+
+        AtomicInteger threads = new AtomicInteger();
+        scatterExecutor = Executors.newFixedThreadPool(Math.max(1, shards().size()), task -> {
+            Thread thread = new Thread(task, "shard-scatter-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scatterExecutor.shutdownNow();
+    }
+
+    /**
+     * Every shard, the default shard first
+     */
+    public List<String> shards() {
+        List<String> shards = new ArrayList<>();
+        shards.add(ShardingProperties.DEFAULT_SHARD);
+        sharding.getShards().keySet().stream()
+                .filter(shard -> !ShardingProperties.DEFAULT_SHARD.equals(shard))
+                .forEach(shards::add);
+        return shards;
+    }
+
+    /**
+     * Every configured property, the default property first
+     */
+    public Set<String> propertyIds() {
+        Set<String> propertyIds = new LinkedHashSet<>();
+        propertyIds.add(sharding.getDefaultProperty());
+        propertyIds.addAll(sharding.getProperties().keySet());
+        return propertyIds;
+    }
+
+    public boolean isKnownProperty(String propertyId) {
+        return propertyIds().contains(propertyId);
+    }
+
+    public String getDefaultProperty() {
+        return sharding.getDefaultProperty();
+    }
+
+    /**
+     * The shard that stores a property
+     */
+    public String shardOf(String propertyId) {
+        return sharding.getProperties().getOrDefault(propertyId, ShardingProperties.DEFAULT_SHARD);
+    }
+
+    /**
+     * The property the current thread works for, or null if it works on a whole shard
+     */
+    public String currentProperty() {
+        if (PropertyContext.shard() != null) {
+            return null;
+        }
+        String propertyId = PropertyContext.propertyId();
+        return propertyId == null ? sharding.getDefaultProperty() : propertyId;
+    }
+
+    /**
+     * The shard the current thread takes its connections from
+     */
+    public String currentShard() {
+        String shard = PropertyContext.shard();
+        return shard != null ? shard : shardOf(currentProperty());
+    }
+
+    /**
+     * Run work on every shard in turn, each time across all properties of the shard
+     */
+    public void forEachShard(Runnable work) {
+        for (String shard : shards()) {
+            PropertyContext.callOnShard(shard, () -> {
+                work.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Run a query on every shard in parallel, each across all properties of
+     * the shard, and merge the results in shard order
+     * @throws IllegalStateException If a shard fails or does not answer within the scatter timeout
+     */
+    public <T> List<T> scatter(Supplier<? extends List<T>> query) {
+        List<String> shards = shards();
+        if (shards.size() == 1) {
+            return new ArrayList<>(PropertyContext.callOnShard(shards.get(0), query));
+        }
+
+        List<Future<? extends List<T>>> pending = new ArrayList<>(shards.size());
+        for (String shard : shards) {
+            pending.add(scatterExecutor.submit(() -> PropertyContext.callOnShard(shard, query)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(scatterTimeoutMs);
+        List<T> merged = new ArrayList<>();
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                try {
+                    merged.addAll(pending.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Query failed on shard " + shards.get(i), e.getCause());
+                } catch (TimeoutException e) {
+                    throw new IllegalStateException("Shard " + shards.get(i) + " did not answer within "
+                            + scatterTimeoutMs + " ms");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+        return merged;
+    }
+}
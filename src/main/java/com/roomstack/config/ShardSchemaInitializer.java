@@ -0,0 +1,105 @@
+package com.roomstack.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.stereotype.Component;
+
+import com.roomstack.model.RoomModel;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Brings the schema of every shard up to date. The application's entity
+ * manager factory only manages the schema of the shard it bootstraps on, the
+ * default property's; every other shard gets a throwaway factory with the
+ * same ddl-auto setting. Rows written before properties existed belong to
+ * the default property.
+ */
+@Component
+public class ShardSchemaInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    private static final String[] PROPERTY_TABLES = {
+        "rooms", "customers", "bookings", "bills", "bookings_archive", "bills_archive", "rate_plan_rules"
+    };
+
+    // Bootstrapped first, so its shard's schema is in place
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JpaProperties jpaProperties;
+
+    @Autowired
+    private HibernateProperties hibernateProperties;
+
+    @PostConstruct
+    void init() {
+        Map<String, Object> settings = new HashMap<>(hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings()));
+        Object ddlAuto = settings.get(AvailableSettings.HBM2DDL_AUTO);
+        String bootstrapShard = shardRouter.shardOf(shardRouter.getDefaultProperty());
+
+        if (ddlAuto != null && !"none".equals(ddlAuto) && !"validate".equals(ddlAuto)) {
+            // A throwaway factory must not drop the schema it just created when it closes
+            settings.put(AvailableSettings.HBM2DDL_AUTO, "create-drop".equals(ddlAuto) ? "create" : ddlAuto);
+            settings.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new PropertyTenantResolver(shardRouter));
+
+            Map<Object, DataSource> shards = ((ShardRoutingDataSource) dataSource).getResolvedDataSources();
+            for (String shard : shardRouter.shards()) {
+                if (!shard.equals(bootstrapShard)) {
+                    updateSchema(shard, shards.get(shard), settings);
+                }
+            }
+        }
+
+        backfillPropertyIds(bootstrapShard);
+    }
+
+    private void updateSchema(String shard, DataSource shardDataSource, Map<String, Object> settings) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setPersistenceUnitName("shard-" + shard);
+        factory.setDataSource(shardDataSource);
+        factory.setPackagesToScan(RoomModel.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(settings);
+        factory.afterPropertiesSet();
+        factory.destroy();
+        log.info("Updated the schema of shard {}", shard);
+    }
+
+    private void backfillPropertyIds(String shard) {
+        PropertyContext.callOnShard(shard, () -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            for (String table : PROPERTY_TABLES) {
+                int updated = jdbcTemplate.update("UPDATE " + table + " SET property_id = ? WHERE property_id IS NULL",
+                        shardRouter.getDefaultProperty());
+                if (updated > 0) {
+                    log.info("Assigned {} rows of {} to property {}", updated, table, shardRouter.getDefaultProperty());
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.roomstack.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Shards and the properties stored on each, under roomstack.sharding. The
+ * "default" shard is the spring.datasource database; further shards are
+ * declared under shards.&lt;name&gt;. A property not listed lives on the
+ * default shard.
+ *
+ * <pre>
+ * roomstack.sharding.shards.east.url=jdbc:mysql://east-db:3306/roomstack
+ * roomstack.sharding.properties.harbor=east
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "roomstack.sharding")
+public class ShardingProperties {
+
+    public static final String DEFAULT_SHARD = "default";
+
+    // Requests without a property header work for this property
+    private String defaultProperty = "main";
+
+    // Property ID -> shard name
+    private Map<String, String> properties = new LinkedHashMap<>();
+
+    private Map<String, Shard> shards = new LinkedHashMap<>();
+
+    /**
+     * Connection settings of one shard
+     */
+    public static class Shard {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private String driverClassName;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getDriverClassName() {
+            return driverClassName;
+        }
+
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+    }
+
+    public String getDefaultProperty() {
+        return defaultProperty;
+    }
+
+    public void setDefaultProperty(String defaultProperty) {
+        this.defaultProperty = defaultProperty;
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    public void setProperties(Map<String, String> properties) {
+        this.properties = properties;
+    }
+
+    public Map<String, Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(Map<String, Shard> shards) {
+        this.shards = shards;
+    }
+}
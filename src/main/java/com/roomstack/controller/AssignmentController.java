@@ -0,0 +1,74 @@
+package com.roomstack.controller;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.roomstack.model.AssignmentRequest;
+import com.roomstack.model.AssignmentResult;
+import com.roomstack.service.RoomAssignmentService;
+
+@RestController
+@RequestMapping("/api/assignments")
+@CrossOrigin(origins = "*") // For development; restrict in production
+public class AssignmentController {
+
+    @Autowired
+    private RoomAssignmentService roomAssignmentService;
+
+    @Value("${roomstack.assignment.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${roomstack.assignment.reoptimize-days:90}")
+    private int reoptimizeDays;
+
+    /**
+     * Assign rooms to a batch of reservations and create their bookings
+     * @param requests Reservations by kind of room (guests, beds, features)
+     * @return One result per reservation, in request order
+     */
+    @PostMapping
+    public ResponseEntity<?> assignRooms(@RequestBody List<AssignmentRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "At most " + maxBatchSize + " reservations can be assigned at once");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(roomAssignmentService.assign(requests), HttpStatus.OK);
+    }
+
+    /**
+     * Move future engine-placed bookings to rooms that fragment the calendar less
+     * @param from Optional start of the check-in range (defaults to now)
+     * @param to Optional end of the check-in range (defaults to roomstack.assignment.reoptimize-days later)
+     * @return The bookings that were moved
+     */
+    @PostMapping("/reoptimize")
+    public ResponseEntity<List<AssignmentResult>> reoptimize(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        LocalDateTime start = from != null ? from : LocalDateTime.now();
+        LocalDateTime end = to != null ? to : start.plusDays(reoptimizeDays);
+
+        if (start.isAfter(end)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(roomAssignmentService.reoptimize(start, end), HttpStatus.OK);
+    }
+}
@@ -1,23 +1,44 @@
 package com.roomstack.controller;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.roomstack.config.PropertyContext;
+import com.roomstack.config.ShardRouter;
+import com.roomstack.model.AgingReport;
 import com.roomstack.model.BillModel;
 import com.roomstack.model.BillModel.PaymentStatus;
+import com.roomstack.model.SettlementEntry;
 import com.roomstack.service.BillService;
+import com.roomstack.service.IdempotencyService;
+import com.roomstack.service.ReceivablesAgingService;
 
 @RestController
 @RequestMapping("/api/bills")
@@ -27,6 +48,18 @@ public class BillController {
     @Autowired
     private BillService billService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private ReceivablesAgingService receivablesAgingService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Value("${roomstack.settlements.max-batch-size:10000}")
+    private int maxSettlementBatchSize;
+    
     /**
      * Get all bills with optional filtering
      */
@@ -50,6 +83,23 @@ public class BillController {
         return new ResponseEntity<>(bills, HttpStatus.OK);
     }
     
+    /**
+     * Get outstanding balances aged into 0-30, 31-60, 61-90 and 90+ day buckets, overall and per customer
+     * @param customerId Optional customer to report on
+     * @param limit Number of customers to list, largest balance first
+     */
+    @GetMapping("/aging")
+    public ResponseEntity<AgingReport> getAging(
+            @RequestParam(required = false) String customerId,
+            @RequestParam(defaultValue = "100") int limit) {
+        
+        if (limit < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        return new ResponseEntity<>(receivablesAgingService.report(customerId, limit), HttpStatus.OK);
+    }
+    
     /**
      * Get a bill by ID
      */
@@ -80,12 +130,21 @@ public class BillController {
     
     /**
      * Update payment status
+     * Retries carrying the same Idempotency-Key header replay the original response
      */
     @PutMapping("/{id}/payment")
-    public ResponseEntity<BillModel> updatePaymentStatus(
+    public ResponseEntity<?> updatePaymentStatus(
             @PathVariable String id,
-            @RequestParam String status) {
+            @RequestParam String status,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        
+        String fingerprint = "PUT /api/bills/" + id + "/payment?status=" + status;
         
+        return idempotencyService.execute("bill.payment", idempotencyKey, fingerprint,
+                () -> updatePaymentStatus(id, status));
+    }
+    
+    private ResponseEntity<BillModel> updatePaymentStatus(String id, String status) {
         PaymentStatus paymentStatus;
         try {
             paymentStatus = PaymentStatus.valueOf(status);
@@ -102,6 +161,50 @@ public class BillController {
         return new ResponseEntity<>(updatedBill, HttpStatus.OK);
     }
     
+    /**
+     * Settle many bills at once from (billId, status, paidAt) entries
+     * @return The outcome of each entry, in order
+     */
+    @PostMapping(value = "/settlements", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> settle(@RequestBody List<SettlementEntry> entries) {
+        if (entries.size() > maxSettlementBatchSize) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "At most " + maxSettlementBatchSize
+                    + " entries can be settled at once; upload larger settlements as CSV");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        
+        return new ResponseEntity<>(billService.settle(entries), HttpStatus.OK);
+    }
+    
+    /**
+     * Settle bills from an uploaded CSV file of billId,status[,paidAt] lines, of any size.
+     * The outcomes are streamed back as CSV, one line per entry, while the file is still being read.
+     */
+    @PostMapping(value = "/settlements", consumes = "text/csv")
+    public ResponseEntity<StreamingResponseBody> settleCsv(InputStream body) {
+        // The body is written on an async thread, outside the request's property scope
+        String propertyId = shardRouter.currentProperty();
+        StreamingResponseBody outcomes = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                PropertyContext.callAs(propertyId, () -> {
+                    try {
+                        return billService.settleCsv(new InputStreamReader(body, StandardCharsets.UTF_8), writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        return new ResponseEntity<>(outcomes, headers, HttpStatus.OK);
+    }
+    
     /**
      * Get available payment statuses
      */
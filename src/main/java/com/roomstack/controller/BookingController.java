@@ -2,10 +2,15 @@ package com.roomstack.controller;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,13 +21,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.roomstack.model.BookingModel;
+import com.roomstack.model.DailyChargeModel;
 import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.GroupBookingRequest;
+import com.roomstack.model.GroupBookingResult;
+import com.roomstack.model.JournalEntry;
+import com.roomstack.repository.DailyChargeRepository;
+import com.roomstack.service.AvailabilityService;
+import com.roomstack.service.BookingArchiveService;
+import com.roomstack.service.BookingPipeline;
 import com.roomstack.service.BookingService;
+import com.roomstack.service.EventJournalService;
+import com.roomstack.service.IdempotencyService;
+import com.roomstack.service.RoomLeaseService;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -32,28 +49,58 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
     
+    @Autowired
+    private BookingArchiveService bookingArchiveService;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private AvailabilityService availabilityService;
+    
+    @Autowired
+    private DailyChargeRepository dailyChargeRepository;
+    
+    @Autowired
+    private EventJournalService eventJournalService;
+    
+    @Autowired
+    private RoomLeaseService roomLeaseService;
+    
+    @Autowired
+    private BookingPipeline bookingPipeline;
+    
+    @Value("${roomstack.group-bookings.max-rooms:200}")
+    private int maxGroupRooms;
+    
     /**
      * Get all bookings with optional filtering
+     * A from/to range limits the results to stays overlapping it, and includes archived bookings
+     * when it starts before the archive horizon
      */
     @GetMapping
     public ResponseEntity<List<BookingModel>> getAllBookings(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String roomId,
-            @RequestParam(required = false) String customerId) {
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         
         List<BookingModel> bookings;
         
         if (status != null) {
             try {
                 BookingStatus bookingStatus = BookingStatus.valueOf(status);
-                bookings = bookingService.getBookingsByStatus(bookingStatus);
+                bookings = bookingService.getBookingsByStatus(bookingStatus, from, to);
             } catch (IllegalArgumentException e) {
                 return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
         } else if (roomId != null) {
-            bookings = bookingService.getBookingsByRoom(roomId);
+            bookings = bookingService.getBookingsByRoom(roomId, from, to);
         } else if (customerId != null) {
-            bookings = bookingService.getBookingsByCustomer(customerId);
+            bookings = bookingService.getBookingsByCustomer(customerId, from, to);
+        } else if (from != null || to != null) {
+            bookings = bookingService.getBookingsByStay(from, to);
         } else {
             bookings = bookingService.getAllBookings();
         }
@@ -61,6 +108,16 @@ public class BookingController {
         return new ResponseEntity<>(bookings, HttpStatus.OK);
     }
     
+    /**
+     * Archive finished bookings older than the archive horizon now rather than at the scheduled time
+     */
+    @PostMapping("/archive")
+    public ResponseEntity<Map<String, Integer>> archiveBookings() {
+        Map<String, Integer> response = new HashMap<>();
+        response.put("archived", bookingArchiveService.archive());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+    
     /**
      * Get a booking by ID
      */
@@ -76,13 +133,61 @@ public class BookingController {
     }
     
     /**
-     * Create a new booking
+     * Get the daily room charges the night audit posted for a booking
+     */
+    @GetMapping("/{id}/charges")
+    public ResponseEntity<List<DailyChargeModel>> getDailyCharges(@PathVariable String id) {
+        if (bookingService.getBookingById(id) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        
+        return new ResponseEntity<>(dailyChargeRepository.findByBookingIdOrderByChargeDateAsc(id), HttpStatus.OK);
+    }
+    
+    /**
+     * Get the journalled history of a booking and its bill, oldest first; still available after the booking is deleted
+     */
+    @GetMapping("/{id}/history")
+    public ResponseEntity<?> getBookingHistory(@PathVariable String id) {
+        if (!eventJournalService.isEnabled()) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "The event journal is disabled");
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        
+        List<JournalEntry> history = eventJournalService.bookingHistory(id);
+        if (history.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        
+        return new ResponseEntity<>(history, HttpStatus.OK);
+    }
+    
+    /**
+     * Create a new booking, through the room's pipeline worker when the booking pipeline is enabled
+     * Retries carrying the same Idempotency-Key header replay the original response
      */
     @PostMapping
-    public ResponseEntity<BookingModel> createBooking(
+    public CompletableFuture<ResponseEntity<?>> createBooking(
             @RequestBody Map<String, Object> bookingRequest,
             @RequestParam String roomId,
-            @RequestParam String customerId) {
+            @RequestParam String customerId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        
+        // Without a key the booking pipeline's reply is handed back as it comes; a keyed response is waited for and stored
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return createBooking(bookingRequest, roomId, customerId);
+        }
+        
+        String fingerprint = "POST /api/bookings?roomId=" + roomId + "&customerId=" + customerId
+                + " " + new TreeMap<>(bookingRequest);
+        
+        return CompletableFuture.completedFuture(idempotencyService.execute("booking.create", idempotencyKey,
+                fingerprint, () -> createBooking(bookingRequest, roomId, customerId).join()));
+    }
+    
+    private CompletableFuture<ResponseEntity<?>> createBooking(
+            Map<String, Object> bookingRequest, String roomId, String customerId) {
         
         // Extract booking data from request
         BookingModel booking = new BookingModel();
@@ -109,27 +214,124 @@ public class BookingController {
                 booking.setSpecialRequests((String) bookingRequest.get("specialRequests"));
             }
         } catch (Exception e) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
         }
         
         // Validate dates
         if (booking.getCheckIn() == null || booking.getCheckOut() == null || 
             booking.getCheckIn().isAfter(booking.getCheckOut())) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        
+        if (bookingPipeline.isEnabled()) {
+            try {
+                return bookingPipeline.submit(booking, roomId, customerId).thenApply(this::admissionResponse);
+            } catch (BookingPipeline.RejectedException e) {
+                Map<String, String> response = new HashMap<>();
+                response.put("message", e.getMessage() + "; retry");
+                return CompletableFuture.completedFuture(new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE));
+            }
+        }
+        
+        return CompletableFuture.completedFuture(createBookingUnderLease(booking, roomId, customerId));
+    }
+    
+    private ResponseEntity<?> admissionResponse(BookingPipeline.Admission admission) {
+        switch (admission.outcome()) {
+            case created:
+                return new ResponseEntity<>(admission.booking(), HttpStatus.CREATED);
+            case conflict:
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            default:
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+    
+    private ResponseEntity<?> createBookingUnderLease(BookingModel booking, String roomId, String customerId) {
+        // The room's lease queues requests for the room across nodes; the room lock taken
+        // by createBooking is what keeps every admission path apart
+        try {
+            return roomLeaseService.withLease(roomId, lease -> {
+                BookingModel createdBooking;
+                try {
+                    createdBooking = bookingService.createBooking(booking, roomId, customerId, lease);
+                } catch (BookingService.RoomUnavailableException e) {
+                    return new ResponseEntity<>(HttpStatus.CONFLICT);
+                }
+                
+                if (createdBooking == null) {
+                    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                }
+                
+                return new ResponseEntity<>(createdBooking, HttpStatus.CREATED);
+            });
+        } catch (RoomLeaseService.LeaseUnavailableException e) {
+            // Not stored for the idempotency key, so the client can retry
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage() + "; retry");
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
         }
+    }
+    
+    /**
+     * Book many rooms for one customer and stay, all or none
+     * Retries carrying the same Idempotency-Key header replay the original response
+     */
+    @PostMapping("/group")
+    public ResponseEntity<?> createGroupBooking(
+            @RequestBody GroupBookingRequest groupRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         
-        // Check availability
-        if (!bookingService.isRoomAvailable(roomId, booking.getCheckIn(), booking.getCheckOut())) {
-            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        StringBuilder fingerprint = new StringBuilder("POST /api/bookings/group ")
+                .append(groupRequest.getCustomerId()).append(' ')
+                .append(groupRequest.getCheckIn()).append(' ')
+                .append(groupRequest.getCheckOut());
+        if (groupRequest.getRooms() != null) {
+            groupRequest.getRooms().forEach(room -> fingerprint.append(' ').append(room.getRoomId())
+                    .append(':').append(room.getAdults()).append(':').append(room.getChildren())
+                    .append(':').append(room.getSpecialRequests()));
         }
         
-        BookingModel createdBooking = bookingService.createBooking(booking, roomId, customerId);
+        return idempotencyService.execute("booking.group.create", idempotencyKey, fingerprint.toString(),
+                () -> createGroupBooking(groupRequest));
+    }
+    
+    private ResponseEntity<?> createGroupBooking(GroupBookingRequest groupRequest) {
+        String error = validate(groupRequest);
+        if (error != null) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", error);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
         
-        if (createdBooking == null) {
+        GroupBookingResult result = bookingService.createGroupBooking(groupRequest);
+        
+        if (result == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         
-        return new ResponseEntity<>(createdBooking, HttpStatus.CREATED);
+        if (result.getUnavailableRoomIds() != null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Some rooms are not available for these dates");
+            response.put("unavailableRoomIds", result.getUnavailableRoomIds());
+            return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+        }
+        
+        return new ResponseEntity<>(result, HttpStatus.CREATED);
+    }
+    
+    /**
+     * Get the bookings of a group and their consolidated bill
+     */
+    @GetMapping("/group/{groupId}")
+    public ResponseEntity<GroupBookingResult> getGroupBooking(@PathVariable String groupId) {
+        GroupBookingResult result = bookingService.getGroupBooking(groupId);
+        
+        if (result == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        
+        return new ResponseEntity<>(result, HttpStatus.OK);
     }
     
     /**
@@ -183,6 +385,7 @@ public class BookingController {
         statuses.put("checked_in", "Checked In");
         statuses.put("checked_out", "Checked Out");
         statuses.put("cancelled", "Cancelled");
+        statuses.put("no_show", "No Show");
         
         return new ResponseEntity<>(statuses, HttpStatus.OK);
     }
@@ -201,11 +404,42 @@ public class BookingController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         
-        boolean isAvailable = bookingService.isRoomAvailable(roomId, checkIn, checkOut);
+        boolean isAvailable = availabilityService.checkAvailability(roomId, checkIn, checkOut);
         
         Map<String, Boolean> response = new HashMap<>();
         response.put("available", isAvailable);
         
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
+    
+    /**
+     * Check a group booking request
+     * @return The error message, or null if the request is valid
+     */
+    private String validate(GroupBookingRequest groupRequest) {
+        if (groupRequest.getCustomerId() == null) {
+            return "Customer is required";
+        }
+        if (groupRequest.getCheckIn() == null || groupRequest.getCheckOut() == null
+                || groupRequest.getCheckIn().isAfter(groupRequest.getCheckOut())) {
+            return "Valid check-in and check-out dates are required";
+        }
+        if (groupRequest.getRooms() == null || groupRequest.getRooms().isEmpty()) {
+            return "At least one room is required";
+        }
+        if (groupRequest.getRooms().size() > maxGroupRooms) {
+            return "At most " + maxGroupRooms + " rooms can be booked at once";
+        }
+        
+        Set<String> roomIds = new HashSet<>();
+        for (GroupBookingRequest.RoomRequest room : groupRequest.getRooms()) {
+            if (room.getRoomId() == null || !roomIds.add(room.getRoomId())) {
+                return "Each room must be given once";
+            }
+            if (room.getAdults() < 1 || room.getChildren() < 0) {
+                return "Each room needs at least one adult and no negative number of children";
+            }
+        }
+        return null;
+    }
 }
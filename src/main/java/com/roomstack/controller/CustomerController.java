@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -18,8 +19,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.roomstack.config.ShardRouter;
 import com.roomstack.model.CustomerModel;
+import com.roomstack.model.CacheInvalidationModel.EntityType;
 import com.roomstack.repository.CustomerRepository;
+import com.roomstack.service.CustomerProfileService;
+import com.roomstack.service.CustomerStatsService;
+import com.roomstack.service.InvalidationBus;
+import com.roomstack.service.UniqueKeyService;
 
 import jakarta.validation.Valid;
 
@@ -31,6 +38,21 @@ public class CustomerController {
     @Autowired
     private CustomerRepository customerRepository;
     
+    @Autowired
+    private UniqueKeyService uniqueKeyService;
+    
+    @Autowired
+    private CustomerStatsService customerStatsService;
+    
+    @Autowired
+    private CustomerProfileService customerProfileService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private InvalidationBus invalidationBus;
+    
     /**
      * Get all customers with optional filtering
      * @param status Optional filter by customer status (current/past)
@@ -66,6 +88,23 @@ public class CustomerController {
         return new ResponseEntity<>(customers, HttpStatus.OK);
     }
     
+    /**
+     * Find a guest by email at every property, querying all shards in parallel
+     * @param email The email to look up
+     * @return The guest's customer record at each property that has one
+     */
+    @GetMapping("/lookup")
+    public ResponseEntity<?> lookupByEmail(@RequestParam String email) {
+        try {
+            return new ResponseEntity<>(shardRouter.scatter(() -> customerRepository.findAllByEmail(email)),
+                    HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+    
     /**
      * Get a customer by ID
      * @param id The customer ID
@@ -78,6 +117,24 @@ public class CustomerController {
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     
+    /**
+     * Get a customer with all their bookings and bills in one call
+     * @param id The customer ID
+     * @return The customer's profile if found
+     */
+    @GetMapping("/{id}/profile")
+    public ResponseEntity<?> getCustomerProfile(@PathVariable String id) {
+        try {
+            return customerProfileService.getProfile(id)
+                    .<ResponseEntity<?>>map(profile -> new ResponseEntity<>(profile, HttpStatus.OK))
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+    
     /**
      * Create a new customer
      * @param customer The customer data
@@ -86,13 +143,20 @@ public class CustomerController {
     @PostMapping
     public ResponseEntity<?> createCustomer(@Valid @RequestBody CustomerModel customer) {
         // Check if email already exists
-        if (customerRepository.findByEmail(customer.getEmail()).isPresent()) {
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Email already exists");
-            return new ResponseEntity<>(response, HttpStatus.CONFLICT); // 409 Conflict
+        if (uniqueKeyService.emailExists(customer.getEmail())) {
+            return emailConflict();
+        }
+        
+        CustomerModel savedCustomer;
+        try {
+            savedCustomer = customerRepository.save(customer);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent insert; the unique constraint has the final say
+            return emailConflict();
         }
         
-        CustomerModel savedCustomer = customerRepository.save(customer);
+        uniqueKeyService.recordEmail(savedCustomer.getEmail());
+        invalidationBus.invalidate(EntityType.customer, savedCustomer.getId());
         return new ResponseEntity<>(savedCustomer, HttpStatus.CREATED);
     }
     
@@ -111,10 +175,8 @@ public class CustomerController {
                 .map(existingCustomer -> {
                     // Check if email is being changed and already exists
                     if (!existingCustomer.getEmail().equals(customerDetails.getEmail()) && 
-                            customerRepository.findByEmail(customerDetails.getEmail()).isPresent()) {
-                        Map<String, String> response = new HashMap<>();
-                        response.put("message", "Email already exists");
-                        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+                            uniqueKeyService.emailExists(customerDetails.getEmail())) {
+                        return emailConflict();
                     }
                     
                     // Update customer properties
@@ -122,9 +184,16 @@ public class CustomerController {
                     existingCustomer.setEmail(customerDetails.getEmail());
                     existingCustomer.setPhone(customerDetails.getPhone());
                     existingCustomer.setAddress(customerDetails.getAddress());
-                    existingCustomer.setCurrentGuest(customerDetails.getCurrentGuest());
                     
-                    CustomerModel updatedCustomer = customerRepository.save(existingCustomer);
+                    CustomerModel updatedCustomer;
+                    try {
+                        updatedCustomer = customerRepository.saveAndFlush(existingCustomer);
+                    } catch (DataIntegrityViolationException e) {
+                        return emailConflict();
+                    }
+                    
+                    uniqueKeyService.recordEmail(updatedCustomer.getEmail());
+                    invalidationBus.invalidate(EntityType.customer, updatedCustomer.getId());
                     return new ResponseEntity<>(updatedCustomer, HttpStatus.OK);
                 })
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
@@ -140,10 +209,28 @@ public class CustomerController {
         return customerRepository.findById(id)
                 .map(customer -> {
                     customerRepository.delete(customer);
+                    invalidationBus.invalidate(EntityType.customer, customer.getId());
                     Map<String, Boolean> response = new HashMap<>();
                     response.put("deleted", Boolean.TRUE);
                     return new ResponseEntity<>(response, HttpStatus.OK);
                 })
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
+    
+    /**
+     * Recompute currentGuest and the stay and spend counters of every customer from bookings and bills
+     * @return The number of customers updated
+     */
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildStats() {
+        Map<String, Integer> response = new HashMap<>();
+        response.put("customersUpdated", customerStatsService.rebuild());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+    
+    private ResponseEntity<?> emailConflict() {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Email already exists");
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT); // 409 Conflict
+    }
 }
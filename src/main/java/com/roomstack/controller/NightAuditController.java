@@ -0,0 +1,62 @@
+package com.roomstack.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.roomstack.model.NightAuditRunModel;
+import com.roomstack.service.NightAuditService;
+
+@RestController
+@RequestMapping("/api/night-audit")
+@CrossOrigin(origins = "*") // For development; restrict in production
+public class NightAuditController {
+
+    @Autowired
+    private NightAuditService nightAuditService;
+
+    /**
+     * Run or resume the night audit of a business date
+     * @param date Optional business date (defaults to yesterday)
+     * @return The audit run with its counts
+     */
+    @PostMapping
+    public ResponseEntity<NightAuditRunModel> runAudit(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        LocalDate auditDate = date != null ? date : LocalDate.now().minusDays(1);
+
+        // Only days that have ended can be closed
+        if (!auditDate.isBefore(LocalDate.now())) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(nightAuditService.run(auditDate), HttpStatus.OK);
+    }
+
+    /**
+     * Get the night audit run of a business date
+     */
+    @GetMapping("/{date}")
+    public ResponseEntity<NightAuditRunModel> getAudit(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        NightAuditRunModel run = nightAuditService.getRun(date);
+
+        if (run == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(run, HttpStatus.OK);
+    }
+}
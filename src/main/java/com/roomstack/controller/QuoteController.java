@@ -0,0 +1,46 @@
+package com.roomstack.controller;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.roomstack.model.QuoteRequest;
+import com.roomstack.service.QuoteService;
+
+@RestController
+@RequestMapping("/api/quotes")
+@CrossOrigin(origins = "*") // For development; restrict in production
+public class QuoteController {
+
+    @Autowired
+    private QuoteService quoteService;
+
+    @Value("${roomstack.quotes.max-batch-size:500}")
+    private int maxBatchSize;
+
+    /**
+     * Price many (room, checkIn, checkOut) stays in one request
+     * @param requests The stays to price
+     * @return One quote line per stay, in request order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> quoteBatch(@RequestBody List<QuoteRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "At most " + maxBatchSize + " stays can be quoted at once");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(quoteService.quoteBatch(requests), HttpStatus.OK);
+    }
+}
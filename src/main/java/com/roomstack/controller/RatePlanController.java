@@ -0,0 +1,183 @@
+package com.roomstack.controller;
+
+import java.time.DayOfWeek;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.roomstack.model.CacheInvalidationModel.EntityType;
+import com.roomstack.model.RatePlanRuleModel;
+import com.roomstack.model.RatePlanRuleModel.RuleType;
+import com.roomstack.repository.RatePlanRuleRepository;
+import com.roomstack.service.InvalidationBus;
+import com.roomstack.service.RateCalendarService;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/rate-plans/rules")
+@CrossOrigin(origins = "*") // For development; restrict in production
+public class RatePlanController {
+
+    @Autowired
+    private RatePlanRuleRepository ratePlanRuleRepository;
+
+    @Autowired
+    private RateCalendarService rateCalendarService;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * Get all rate plan rules
+     */
+    @GetMapping
+    public ResponseEntity<List<RatePlanRuleModel>> getAllRules() {
+        return new ResponseEntity<>(ratePlanRuleRepository.findAll(), HttpStatus.OK);
+    }
+
+    /**
+     * Get a rate plan rule by ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<RatePlanRuleModel> getRuleById(@PathVariable String id) {
+        return ratePlanRuleRepository.findById(id)
+                .map(rule -> new ResponseEntity<>(rule, HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Create a rate plan rule
+     */
+    @PostMapping
+    public ResponseEntity<?> createRule(@Valid @RequestBody RatePlanRuleModel rule) {
+        String error = validate(rule);
+        if (error != null) {
+            return badRequest(error);
+        }
+
+        rule.setId(null);
+        RatePlanRuleModel savedRule = ratePlanRuleRepository.save(rule);
+        rateCalendarService.applyRuleChange(null, savedRule);
+        invalidationBus.invalidate(EntityType.rate_rule, savedRule.getId());
+
+        return new ResponseEntity<>(savedRule, HttpStatus.CREATED);
+    }
+
+    /**
+     * Update a rate plan rule
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateRule(@PathVariable String id, @Valid @RequestBody RatePlanRuleModel ruleDetails) {
+        String error = validate(ruleDetails);
+        if (error != null) {
+            return badRequest(error);
+        }
+
+        return ratePlanRuleRepository.findById(id)
+                .<ResponseEntity<?>>map(existingRule -> {
+                    // The nights the rule covered before the change need recomputing too
+                    RatePlanRuleModel before = copyOf(existingRule);
+
+                    existingRule.setName(ruleDetails.getName());
+                    existingRule.setRoomId(ruleDetails.getRoomId());
+                    existingRule.setRuleType(ruleDetails.getRuleType());
+                    existingRule.setStartDate(ruleDetails.getStartDate());
+                    existingRule.setEndDate(ruleDetails.getEndDate());
+                    existingRule.setDaysOfWeek(ruleDetails.getDaysOfWeek());
+                    existingRule.setMinOccupancyPercent(ruleDetails.getMinOccupancyPercent());
+                    existingRule.setAdjustmentPercent(ruleDetails.getAdjustmentPercent());
+
+                    RatePlanRuleModel updatedRule = ratePlanRuleRepository.save(existingRule);
+                    rateCalendarService.applyRuleChange(before, updatedRule);
+                    invalidationBus.invalidate(EntityType.rate_rule, updatedRule.getId());
+
+                    return new ResponseEntity<>(updatedRule, HttpStatus.OK);
+                })
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Delete a rate plan rule
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Boolean>> deleteRule(@PathVariable String id) {
+        return ratePlanRuleRepository.findById(id)
+                .map(rule -> {
+                    ratePlanRuleRepository.delete(rule);
+                    rateCalendarService.applyRuleChange(rule, null);
+                    invalidationBus.invalidate(EntityType.rate_rule, rule.getId());
+                    Map<String, Boolean> response = new HashMap<>();
+                    response.put("deleted", Boolean.TRUE);
+                    return new ResponseEntity<>(response, HttpStatus.OK);
+                })
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Check the fields each rule type depends on
+     * @return The error message, or null if the rule is valid
+     */
+    private String validate(RatePlanRuleModel rule) {
+        if (rule.getStartDate() != null && rule.getEndDate() != null
+                && rule.getStartDate().isAfter(rule.getEndDate())) {
+            return "Start date must not be after end date";
+        }
+
+        if (rule.getRuleType() == RuleType.seasonal && rule.getStartDate() == null && rule.getEndDate() == null) {
+            return "Seasonal rules need a start or end date";
+        }
+
+        if (rule.getRuleType() == RuleType.weekday) {
+            if (rule.getDaysOfWeek() == null || rule.getDaysOfWeek().isBlank()) {
+                return "Weekday rules need daysOfWeek";
+            }
+            try {
+                for (String day : rule.getDaysOfWeek().split(",")) {
+                    DayOfWeek.valueOf(day.trim());
+                }
+            } catch (IllegalArgumentException e) {
+                return "Invalid daysOfWeek: " + rule.getDaysOfWeek();
+            }
+        }
+
+        if (rule.getRuleType() == RuleType.occupancy && rule.getMinOccupancyPercent() == null) {
+            return "Occupancy rules need minOccupancyPercent";
+        }
+
+        return null;
+    }
+
+    private static ResponseEntity<Map<String, String>> badRequest(String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", message);
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    private static RatePlanRuleModel copyOf(RatePlanRuleModel rule) {
+        RatePlanRuleModel copy = new RatePlanRuleModel();
+        copy.setId(rule.getId());
+        copy.setPropertyId(rule.getPropertyId());
+        copy.setRoomId(rule.getRoomId());
+        copy.setRuleType(rule.getRuleType());
+        copy.setStartDate(rule.getStartDate());
+        copy.setEndDate(rule.getEndDate());
+        copy.setDaysOfWeek(rule.getDaysOfWeek());
+        copy.setMinOccupancyPercent(rule.getMinOccupancyPercent());
+        copy.setAdjustmentPercent(rule.getAdjustmentPercent());
+        return copy;
+    }
+}
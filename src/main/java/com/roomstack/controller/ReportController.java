@@ -0,0 +1,139 @@
+package com.roomstack.controller;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.roomstack.model.ReportResult;
+import com.roomstack.service.HistoryArchiveService;
+import com.roomstack.service.ReportService;
+import com.roomstack.service.ReportService.Dimension;
+
+@RestController
+@RequestMapping("/api/reports")
+@CrossOrigin(origins = "*") // For development; restrict in production
+public class ReportController {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private HistoryArchiveService historyArchiveService;
+
+    /**
+     * Run an ad-hoc aggregation over bookings checking in within a date range
+     * @param from Start of the check-in range
+     * @param to End of the check-in range
+     * @param groupBy Dimensions to group by (floor, feature, beds, status, month, length_of_stay)
+     * @param queryId Optional client-chosen ID that can be used to cancel the query
+     * @return Aggregated rows per group
+     */
+    @GetMapping("/query")
+    public ResponseEntity<?> runQuery(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam List<String> groupBy,
+            @RequestParam(required = false) String queryId) {
+
+        // Validate dates
+        if (from.isAfter(to)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<Dimension> dimensions = new ArrayList<>();
+        try {
+            for (String dimension : groupBy) {
+                dimensions.add(Dimension.valueOf(dimension));
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            ReportResult result = reportService.runQuery(queryId, from, to, dimensions);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (CancellationException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.REQUEST_TIMEOUT);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Cancel a running report query
+     * @param queryId The query ID passed when the query was started
+     * @return Whether a running query was cancelled
+     */
+    @DeleteMapping("/query/{queryId}")
+    public ResponseEntity<Map<String, Boolean>> cancelQuery(@PathVariable String queryId) {
+        boolean cancelled = reportService.cancelQuery(queryId);
+
+        Map<String, Boolean> response = new HashMap<>();
+        response.put("cancelled", cancelled);
+
+        if (!cancelled) {
+            return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Export a year's closed bookings and bills into its columnar history file
+     * @param year The check-in year to export
+     * @return The number of bookings exported and the file size
+     */
+    @PostMapping("/history/export")
+    public ResponseEntity<Map<String, Long>> exportHistory(@RequestParam int year) throws IOException {
+        return new ResponseEntity<>(historyArchiveService.export(year), HttpStatus.OK);
+    }
+
+    /**
+     * Aggregate exported history by one dimension, reading only the columnar files
+     * @param from Start of the check-in range
+     * @param to End of the check-in range, exclusive
+     * @param groupBy Dimension to group by (month, room, customer, status, payment_status)
+     * @return Aggregated rows per group
+     */
+    @GetMapping("/history")
+    public ResponseEntity<?> getHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam String groupBy) throws IOException {
+
+        if (!from.isBefore(to)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        HistoryArchiveService.Dimension dimension;
+        try {
+            dimension = HistoryArchiveService.Dimension.valueOf(groupBy);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(historyArchiveService.report(from, to, dimension), HttpStatus.OK);
+    }
+}
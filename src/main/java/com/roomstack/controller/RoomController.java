@@ -1,10 +1,14 @@
 package com.roomstack.controller;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -18,8 +22,19 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.roomstack.event.RoomChangedEvent;
+import com.roomstack.event.RoomChangedEvent.ChangeType;
+import com.roomstack.model.CacheInvalidationModel.EntityType;
+import com.roomstack.model.JournalEntry;
 import com.roomstack.model.RoomModel;
+import com.roomstack.model.RoomQuote;
 import com.roomstack.repository.RoomRepository;
+import com.roomstack.service.BillService;
+import com.roomstack.service.EventJournalService;
+import com.roomstack.service.InvalidationBus;
+import com.roomstack.service.RateCalendarService;
+import com.roomstack.service.RoomFeatureIndex;
+import com.roomstack.service.UniqueKeyService;
 
 import jakarta.validation.Valid;
 
@@ -31,18 +46,41 @@ public class RoomController {
     @Autowired
     private RoomRepository roomRepository;
     
+    @Autowired
+    private UniqueKeyService uniqueKeyService;
+    
+    @Autowired
+    private RoomFeatureIndex roomFeatureIndex;
+    
+    @Autowired
+    private RateCalendarService rateCalendarService;
+    
+    @Autowired
+    private BillService billService;
+    
+    @Autowired
+    private EventJournalService eventJournalService;
+    
+    @Autowired
+    private InvalidationBus invalidationBus;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Get all rooms with optional filtering
      * @param status Optional filter by room status
      * @param floor Optional filter by floor
      * @param minCapacity Optional filter by minimum capacity
+     * @param features Optional filter by features the room must all have, e.g. WiFi,Jacuzzi
      * @return List of rooms matching criteria
      */
     @GetMapping
     public ResponseEntity<List<RoomModel>> getAllRooms(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Integer floor,
-            @RequestParam(required = false) Integer minCapacity) {
+            @RequestParam(required = false) Integer minCapacity,
+            @RequestParam(required = false) List<String> features) {
         
         List<RoomModel> rooms;
         
@@ -52,10 +90,20 @@ public class RoomController {
             rooms = roomRepository.findByFloor(floor);
         } else if (minCapacity != null) {
             rooms = roomRepository.findByCapacityGreaterThanEqual(minCapacity);
+        } else if (features != null) {
+            // Answered from the feature bitmap index; only matching rooms are loaded
+            rooms = roomRepository.findAllById(roomFeatureIndex.findRoomIds(features));
         } else {
             rooms = roomRepository.findAll();
         }
         
+        // Combine a feature filter with the other filters
+        if (features != null && (status != null || floor != null || minCapacity != null)) {
+            rooms = rooms.stream()
+                    .filter(room -> roomFeatureIndex.hasFeatures(room.getId(), features))
+                    .toList();
+        }
+        
         return new ResponseEntity<>(rooms, HttpStatus.OK);
     }
     
@@ -79,11 +127,25 @@ public class RoomController {
     @PostMapping
     public ResponseEntity<RoomModel> createRoom(@Valid @RequestBody RoomModel room) {
         // Check if room number already exists
-        if (roomRepository.findByNumber(room.getNumber()).isPresent()) {
+        if (uniqueKeyService.roomNumberExists(room.getNumber())) {
             return new ResponseEntity<>(HttpStatus.CONFLICT); // 409 Conflict
         }
         
-        RoomModel savedRoom = roomRepository.save(room);
+        room.setFeatureMask(roomFeatureIndex.encode(room.getFeatures()));
+        
+        RoomModel savedRoom;
+        try {
+            savedRoom = roomRepository.save(room);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent insert; the unique constraint has the final say
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+        
+        uniqueKeyService.recordRoomNumber(savedRoom.getNumber());
+        roomFeatureIndex.indexRoom(savedRoom);
+        rateCalendarService.refreshRoom(savedRoom);
+        eventPublisher.publishEvent(new RoomChangedEvent(ChangeType.created, savedRoom));
+        invalidationBus.invalidate(EntityType.room, savedRoom.getId());
         return new ResponseEntity<>(savedRoom, HttpStatus.CREATED);
     }
     
@@ -102,7 +164,7 @@ public class RoomController {
                 .map(existingRoom -> {
                     // Check if number is being changed and already exists
                     if (!existingRoom.getNumber().equals(roomDetails.getNumber()) && 
-                            roomRepository.findByNumber(roomDetails.getNumber()).isPresent()) {
+                            uniqueKeyService.roomNumberExists(roomDetails.getNumber())) {
                         return new ResponseEntity<RoomModel>(HttpStatus.CONFLICT);
                     }
                     
@@ -112,11 +174,23 @@ public class RoomController {
                     existingRoom.setCapacity(roomDetails.getCapacity());
                     existingRoom.setPricePerNight(roomDetails.getPricePerNight());
                     existingRoom.setFeatures(roomDetails.getFeatures());
+                    existingRoom.setFeatureMask(roomFeatureIndex.encode(roomDetails.getFeatures()));
                     existingRoom.setStatus(roomDetails.getStatus());
                     existingRoom.setFloor(roomDetails.getFloor());
                     existingRoom.setDescription(roomDetails.getDescription());
                     
-                    RoomModel updatedRoom = roomRepository.save(existingRoom);
+                    RoomModel updatedRoom;
+                    try {
+                        updatedRoom = roomRepository.saveAndFlush(existingRoom);
+                    } catch (DataIntegrityViolationException e) {
+                        return new ResponseEntity<RoomModel>(HttpStatus.CONFLICT);
+                    }
+                    
+                    uniqueKeyService.recordRoomNumber(updatedRoom.getNumber());
+                    roomFeatureIndex.indexRoom(updatedRoom);
+                    rateCalendarService.refreshRoom(updatedRoom);
+                    eventPublisher.publishEvent(new RoomChangedEvent(ChangeType.updated, updatedRoom));
+                    invalidationBus.invalidate(EntityType.room, updatedRoom.getId());
                     return new ResponseEntity<>(updatedRoom, HttpStatus.OK);
                 })
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
@@ -132,6 +206,10 @@ public class RoomController {
         return roomRepository.findById(id)
                 .map(room -> {
                     roomRepository.delete(room);
+                    roomFeatureIndex.removeRoom(room.getId());
+                    rateCalendarService.removeRoom(room.getId());
+                    eventPublisher.publishEvent(new RoomChangedEvent(ChangeType.deleted, room));
+                    invalidationBus.invalidate(EntityType.room, room.getId());
                     Map<String, Boolean> response = new HashMap<>();
                     response.put("deleted", Boolean.TRUE);
                     return new ResponseEntity<>(response, HttpStatus.OK);
@@ -139,6 +217,48 @@ public class RoomController {
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     
+    /**
+     * Get the journalled history of a room and the bookings placed in it, oldest first
+     */
+    @GetMapping("/{id}/history")
+    public ResponseEntity<?> getRoomHistory(@PathVariable String id) {
+        if (!eventJournalService.isEnabled()) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "The event journal is disabled");
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        
+        List<JournalEntry> history = eventJournalService.roomHistory(id);
+        if (history.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        
+        return new ResponseEntity<>(history, HttpStatus.OK);
+    }
+    
+    /**
+     * Quote a stay in a room, night by night
+     * @param id The room ID
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @return The nightly rates, room charge, tax and total
+     */
+    @GetMapping("/{id}/quote")
+    public ResponseEntity<RoomQuote> getQuote(
+            @PathVariable String id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime checkOut) {
+        
+        // Validate dates
+        if (checkIn.isAfter(checkOut)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        return roomRepository.findById(id)
+                .map(room -> new ResponseEntity<>(billService.quote(room, checkIn, checkOut), HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+    
     /**
      * Get available room statuses
      * @return List of valid room statuses
@@ -0,0 +1,77 @@
+package com.roomstack.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.roomstack.model.BillModel;
+import com.roomstack.model.BillModel.PaymentStatus;
+
+/**
+ * Published by BillService whenever a bill is created or its payment status changes
+ */
+public class BillChangedEvent {
+
+    private final String billId;
+
+    private final String bookingId;
+
+    private final String customerId;
+
+    // The day the bill was raised; receivables age from it
+    private final LocalDate billDate;
+
+    private final BigDecimal total;
+
+    private final PaymentStatus paymentStatus;
+
+    private final String propertyId;
+
+    public BillChangedEvent(BillModel bill) {
+        this(bill.getId(),
+                bill.getBooking().getId(),
+                bill.getBooking().getCustomer() == null ? null : bill.getBooking().getCustomer().getId(),
+                bill.getCreatedAt() == null ? LocalDate.now() : bill.getCreatedAt().toLocalDate(),
+                bill.getTotal(),
+                bill.getPaymentStatus(),
+                bill.getPropertyId());
+    }
+
+    public BillChangedEvent(String billId, String bookingId, String customerId, LocalDate billDate,
+            BigDecimal total, PaymentStatus paymentStatus, String propertyId) {
+        this.billId = billId;
+        this.bookingId = bookingId;
+        this.customerId = customerId;
+        this.billDate = billDate;
+        this.total = total;
+        this.paymentStatus = paymentStatus;
+        this.propertyId = propertyId;
+    }
+
+    public String getBillId() {
+        return billId;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public LocalDate getBillDate() {
+        return billDate;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+}
@@ -0,0 +1,121 @@
+package com.roomstack.event;
+
+import java.time.LocalDateTime;
+
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+
+/**
+ * Published by BookingService whenever a booking is created, changes status or room, or is deleted, and by
+ * the night audit and the archive for the bookings their bulk updates change or move out
+ */
+public class BookingChangedEvent {
+
+    public enum ChangeType {
+        created,
+        status_changed,
+        room_changed,
+        deleted,
+        archived
+    }
+
+    private final ChangeType type;
+
+    private final String bookingId;
+
+    private final String roomId;
+
+    private final String previousRoomId;
+
+    private final String customerId;
+
+    private final LocalDateTime checkIn;
+
+    private final LocalDateTime checkOut;
+
+    private final BookingStatus previousStatus;
+
+    private final BookingStatus status;
+
+    private final String propertyId;
+
+    public BookingChangedEvent(ChangeType type, BookingModel booking, BookingStatus previousStatus) {
+        this(type, booking, previousStatus, null);
+    }
+
+    public BookingChangedEvent(ChangeType type, BookingModel booking, BookingStatus previousStatus,
+            String previousRoomId) {
+        this.type = type;
+        this.bookingId = booking.getId();
+        this.roomId = booking.getRoom().getId();
+        this.previousRoomId = previousRoomId;
+        this.customerId = booking.getCustomer().getId();
+        this.checkIn = booking.getCheckIn();
+        this.checkOut = booking.getCheckOut();
+        this.previousStatus = previousStatus;
+        this.status = booking.getStatus();
+        this.propertyId = booking.getPropertyId();
+    }
+
+    public BookingChangedEvent(ChangeType type, String bookingId, String roomId, String customerId,
+            LocalDateTime checkIn, LocalDateTime checkOut, BookingStatus previousStatus, BookingStatus status,
+            String propertyId) {
+        this.type = type;
+        this.bookingId = bookingId;
+        this.roomId = roomId;
+        this.previousRoomId = null;
+        this.customerId = customerId;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.propertyId = propertyId;
+    }
+
+    /**
+     * Whether the booking no longer exists among the live bookings after this change
+     */
+    public boolean isRemoval() {
+        return type == ChangeType.deleted || type == ChangeType.archived;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public String getPreviousRoomId() {
+        return previousRoomId;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public LocalDateTime getCheckIn() {
+        return checkIn;
+    }
+
+    public LocalDateTime getCheckOut() {
+        return checkOut;
+    }
+
+    public BookingStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public BookingStatus getStatus() {
+        return status;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+}
@@ -0,0 +1,86 @@
+package com.roomstack.event;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.roomstack.model.CacheInvalidationModel;
+
+/**
+ * Published by the invalidation bus with the entities other nodes changed.
+ * It is published on the shard the changes were made on, so listeners reload
+ * the entities from there. A full flush means changes may have been missed:
+ * listeners reload everything they cache, from every shard.
+ */
+public class CacheInvalidationEvent {
+
+    private final boolean fullFlush;
+
+    private final Set<String> roomIds = new HashSet<>();
+
+    private final Set<String> customerIds = new HashSet<>();
+
+    private final Set<String> bookingIds = new HashSet<>();
+
+    private final Set<String> billIds = new HashSet<>();
+
+    private final Set<String> rateRuleIds = new HashSet<>();
+
+    private final Set<String> affectedRoomIds = new HashSet<>();
+
+    public CacheInvalidationEvent(Collection<CacheInvalidationModel> changes) {
+        this.fullFlush = false;
+        for (CacheInvalidationModel change : changes) {
+            switch (change.getEntityType()) {
+                case room -> roomIds.add(change.getEntityId());
+                case customer -> customerIds.add(change.getEntityId());
+                case booking -> bookingIds.add(change.getEntityId());
+                case bill -> billIds.add(change.getEntityId());
+                case rate_rule -> rateRuleIds.add(change.getEntityId());
+            }
+            if (change.getRoomId() != null) {
+                affectedRoomIds.add(change.getRoomId());
+            }
+        }
+        affectedRoomIds.addAll(roomIds);
+    }
+
+    private CacheInvalidationEvent() {
+        this.fullFlush = true;
+    }
+
+    public static CacheInvalidationEvent fullFlush() {
+        return new CacheInvalidationEvent();
+    }
+
+    public boolean isFullFlush() {
+        return fullFlush;
+    }
+
+    public Set<String> getRoomIds() {
+        return roomIds;
+    }
+
+    public Set<String> getCustomerIds() {
+        return customerIds;
+    }
+
+    public Set<String> getBookingIds() {
+        return bookingIds;
+    }
+
+    public Set<String> getBillIds() {
+        return billIds;
+    }
+
+    public Set<String> getRateRuleIds() {
+        return rateRuleIds;
+    }
+
+    /**
+     * Changed rooms, and the rooms of changed bookings, whose availability may have changed
+     */
+    public Set<String> getAffectedRoomIds() {
+        return affectedRoomIds;
+    }
+}
@@ -0,0 +1,83 @@
+package com.roomstack.event;
+
+import java.util.List;
+
+import com.roomstack.model.RoomModel;
+
+/**
+ * Published by RoomController whenever a room is created, updated or deleted
+ */
+public class RoomChangedEvent {
+
+    public enum ChangeType {
+        created,
+        updated,
+        deleted
+    }
+
+    private final ChangeType type;
+
+    private final String roomId;
+
+    private final String number;
+
+    private final String status;
+
+    private final double pricePerNight;
+
+    private final int capacity;
+
+    private final int floor;
+
+    private final List<String> features;
+
+    private final String propertyId;
+
+    public RoomChangedEvent(ChangeType type, RoomModel room) {
+        this.type = type;
+        this.roomId = room.getId();
+        this.number = room.getNumber();
+        this.status = room.getStatus();
+        this.pricePerNight = room.getPricePerNight();
+        this.capacity = room.getCapacity();
+        this.floor = room.getFloor();
+        this.features = room.getFeatures() == null ? List.of() : List.copyOf(room.getFeatures());
+        this.propertyId = room.getPropertyId();
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public double getPricePerNight() {
+        return pricePerNight;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+
+    public List<String> getFeatures() {
+        return features;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+}
@@ -0,0 +1,120 @@
+package com.roomstack.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outstanding bill balances bucketed by age in days, overall and per customer
+ */
+public class AgingReport {
+
+    /**
+     * Outstanding balances of one customer
+     */
+    public static class CustomerAging {
+
+        private String customerId;
+
+        private String customerName;
+
+        private Map<String, BigDecimal> buckets;
+
+        private BigDecimal total;
+
+        private int billCount;
+
+        public CustomerAging(String customerId, Map<String, BigDecimal> buckets, BigDecimal total, int billCount) {
+            this.customerId = customerId;
+            this.buckets = buckets;
+            this.total = total;
+            this.billCount = billCount;
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        public String getCustomerName() {
+            return customerName;
+        }
+
+        public void setCustomerName(String customerName) {
+            this.customerName = customerName;
+        }
+
+        public Map<String, BigDecimal> getBuckets() {
+            return buckets;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public int getBillCount() {
+            return billCount;
+        }
+    }
+
+    private LocalDate asOf;
+
+    private Map<String, BigDecimal> buckets;
+
+    private BigDecimal total;
+
+    private int billCount;
+
+    private int customerCount;
+
+    private List<CustomerAging> customers;
+
+    // Getters and Setters
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDate asOf) {
+        this.asOf = asOf;
+    }
+
+    public Map<String, BigDecimal> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(Map<String, BigDecimal> buckets) {
+        this.buckets = buckets;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public int getBillCount() {
+        return billCount;
+    }
+
+    public void setBillCount(int billCount) {
+        this.billCount = billCount;
+    }
+
+    public int getCustomerCount() {
+        return customerCount;
+    }
+
+    public void setCustomerCount(int customerCount) {
+        this.customerCount = customerCount;
+    }
+
+    public List<CustomerAging> getCustomers() {
+        return customers;
+    }
+
+    public void setCustomers(List<CustomerAging> customers) {
+        this.customers = customers;
+    }
+}
@@ -0,0 +1,120 @@
+package com.roomstack.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.TenantId;
+
+import com.roomstack.model.BillModel.PaymentStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * The bill of an archived booking, moved together with it. The customer is
+ * copied from the booking so customer totals can be summed without a join.
+ */
+@Entity
+@Table(name = "bills_archive", indexes = {
+    @Index(name = "idx_bills_archive_booking", columnList = "booking_id"),
+    @Index(name = "idx_bills_archive_customer", columnList = "customer_id"),
+    @Index(name = "idx_bills_archive_property", columnList = "property_id")
+})
+public class ArchivedBillModel {
+
+    @Id
+    private String id;
+
+    @TenantId
+    @Column(name = "property_id", length = 64)
+    private String propertyId;
+
+    @Column(name = "booking_id")
+    private String bookingId;
+
+    @Column(name = "customer_id")
+    private String customerId;
+
+    @Column(name = "room_charge", precision = 10, scale = 2)
+    private BigDecimal roomCharge;
+
+    @Column(name = "tax_amount", precision = 10, scale = 2)
+    private BigDecimal taxAmount;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal total;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status")
+    private PaymentStatus paymentStatus;
+
+    @Column(name = "payment_date")
+    private LocalDateTime paymentDate;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public BigDecimal getRoomCharge() {
+        return roomCharge;
+    }
+
+    public BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public LocalDateTime getPaymentDate() {
+        return paymentDate;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,139 @@
+package com.roomstack.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.TenantId;
+
+import com.roomstack.model.BookingModel.BookingStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A finished booking moved out of the bookings table by the archiver. Rows are
+ * written with INSERT ... SELECT and never updated; the room and customer are
+ * plain columns so the archive outlives them.
+ */
+@Entity
+@Table(name = "bookings_archive", indexes = {
+    @Index(name = "idx_bookings_archive_room", columnList = "room_id, check_out"),
+    @Index(name = "idx_bookings_archive_customer", columnList = "customer_id, check_out"),
+    @Index(name = "idx_bookings_archive_status", columnList = "status, check_out"),
+    @Index(name = "idx_bookings_archive_property", columnList = "property_id")
+})
+public class ArchivedBookingModel {
+
+    @Id
+    private String id;
+
+    @TenantId
+    @Column(name = "property_id", length = 64)
+    private String propertyId;
+
+    @Column(name = "room_id")
+    private String roomId;
+
+    @Column(name = "customer_id")
+    private String customerId;
+
+    @Column(name = "check_in")
+    private LocalDateTime checkIn;
+
+    @Column(name = "check_out")
+    private LocalDateTime checkOut;
+
+    private int adults;
+
+    private int children;
+
+    @Column(name = "special_requests", columnDefinition = "TEXT")
+    private String specialRequests;
+
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+
+    @Column(name = "group_id")
+    private String groupId;
+
+    @Column(name = "auto_assigned")
+    private boolean autoAssigned;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public LocalDateTime getCheckIn() {
+        return checkIn;
+    }
+
+    public LocalDateTime getCheckOut() {
+        return checkOut;
+    }
+
+    public int getAdults() {
+        return adults;
+    }
+
+    public int getChildren() {
+        return children;
+    }
+
+    public String getSpecialRequests() {
+        return specialRequests;
+    }
+
+    public BookingStatus getStatus() {
+        return status;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public boolean isAutoAssigned() {
+        return autoAssigned;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,105 @@
+package com.roomstack.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A reservation for a kind of room rather than a concrete one, e.g. from an OTA
+ */
+public class AssignmentRequest {
+
+    // Caller's reference for the reservation, echoed in the result
+    private String reference;
+
+    private String customerId;
+
+    private LocalDateTime checkIn;
+
+    private LocalDateTime checkOut;
+
+    private int adults;
+
+    private int children;
+
+    // Minimum number of beds of each type, e.g. {"double": 1}
+    private Map<String, Integer> beds;
+
+    // Features the room must all have
+    private List<String> features;
+
+    private String specialRequests;
+
+    // Getters and Setters
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public LocalDateTime getCheckIn() {
+        return checkIn;
+    }
+
+    public void setCheckIn(LocalDateTime checkIn) {
+        this.checkIn = checkIn;
+    }
+
+    public LocalDateTime getCheckOut() {
+        return checkOut;
+    }
+
+    public void setCheckOut(LocalDateTime checkOut) {
+        this.checkOut = checkOut;
+    }
+
+    public int getAdults() {
+        return adults;
+    }
+
+    public void setAdults(int adults) {
+        this.adults = adults;
+    }
+
+    public int getChildren() {
+        return children;
+    }
+
+    public void setChildren(int children) {
+        this.children = children;
+    }
+
+    public Map<String, Integer> getBeds() {
+        return beds;
+    }
+
+    public void setBeds(Map<String, Integer> beds) {
+        this.beds = beds;
+    }
+
+    public List<String> getFeatures() {
+        return features;
+    }
+
+    public void setFeatures(List<String> features) {
+        this.features = features;
+    }
+
+    public String getSpecialRequests() {
+        return specialRequests;
+    }
+
+    public void setSpecialRequests(String specialRequests) {
+        this.specialRequests = specialRequests;
+    }
+}
@@ -0,0 +1,69 @@
+package com.roomstack.model;
+
+/**
+ * Outcome of assigning (or re-assigning) one reservation to a room
+ */
+public class AssignmentResult {
+
+    private String reference;
+
+    private String bookingId;
+
+    private String roomId;
+
+    private String roomNumber;
+
+    private String previousRoomId;
+
+    // Why the reservation could not be assigned; null on success
+    private String message;
+
+    // Getters and Setters
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(String bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getRoomNumber() {
+        return roomNumber;
+    }
+
+    public void setRoomNumber(String roomNumber) {
+        this.roomNumber = roomNumber;
+    }
+
+    public String getPreviousRoomId() {
+        return previousRoomId;
+    }
+
+    public void setPreviousRoomId(String previousRoomId) {
+        this.previousRoomId = previousRoomId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
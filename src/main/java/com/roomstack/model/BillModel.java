@@ -3,10 +3,14 @@ package com.roomstack.model;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.TenantId;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
@@ -15,13 +19,16 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "bills")
+@Table(name = "bills", indexes = {
+    @Index(name = "idx_bills_property", columnList = "property_id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class BillModel {
     
@@ -34,8 +41,14 @@ public class BillModel {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
+
+    @TenantId
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "property_id", length = 64)
+    private String propertyId;
     
     @NotNull(message = "Booking is required")
+    @JsonIgnoreProperties("bill") // The booking's bill is this bill
     @OneToOne
     @JoinColumn(name = "booking_id", unique = true)
     private BookingModel booking;
@@ -74,6 +87,14 @@ public class BillModel {
         this.id = id;
     }
 
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
     public BookingModel getBooking() {
         return booking;
     }
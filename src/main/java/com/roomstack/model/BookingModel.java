@@ -2,10 +2,15 @@ package com.roomstack.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -15,6 +20,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
@@ -23,7 +29,9 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+    @Index(name = "idx_bookings_property", columnList = "property_id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class BookingModel {
     
@@ -31,12 +39,18 @@ public class BookingModel {
         confirmed,
         checked_in,
         checked_out,
-        cancelled
+        cancelled,
+        no_show
     }
     
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
+
+    @TenantId
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "property_id", length = 64)
+    private String propertyId;
     
     @NotNull(message = "Room is required")
     @ManyToOne
@@ -69,6 +83,16 @@ public class BookingModel {
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
     
+    // Shared by the bookings of a group booking
+    @Column(name = "group_id")
+    private String groupId;
+    
+    // Placed by the room assignment engine, which may move it to another room later
+    @ColumnDefault("false")
+    @Column(name = "auto_assigned")
+    private boolean autoAssigned;
+    
+    @JsonIgnoreProperties("booking") // The bill's booking is this booking
     @OneToOne(mappedBy = "booking", cascade = CascadeType.ALL)
     private BillModel bill;
     
@@ -89,6 +113,14 @@ public class BookingModel {
         this.id = id;
     }
 
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
     public RoomModel getRoom() {
         return room;
     }
@@ -153,6 +185,22 @@ public class BookingModel {
         this.status = status;
     }
 
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(String groupId) {
+        this.groupId = groupId;
+    }
+
+    public boolean isAutoAssigned() {
+        return autoAssigned;
+    }
+
+    public void setAutoAssigned(boolean autoAssigned) {
+        this.autoAssigned = autoAssigned;
+    }
+
     public BillModel getBill() {
         return bill;
     }
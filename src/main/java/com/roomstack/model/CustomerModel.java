@@ -1,11 +1,18 @@
 package com.roomstack.model;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.TenantId;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
@@ -13,24 +20,31 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_customers_property_email", columnNames = {"property_id", "email"})
+})
 @EntityListeners(AuditingEntityListener.class)
+@DynamicUpdate // Profile edits must not write back stale stats
 public class CustomerModel {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
+    @TenantId
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "property_id", length = 64)
+    private String propertyId;
+
     @NotBlank(message = "Name is required")
     private String name;
 
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
-    @Column(unique = true)
     private String email;
 
     @NotBlank(message = "Phone number is required")
@@ -39,9 +53,30 @@ public class CustomerModel {
     @Column(columnDefinition = "TEXT")
     private String address;
 
-    @NotNull(message = "Current guest status is required")
+    // Maintained from the customer's bookings; see CustomerStatsService
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Column(name = "current_guest")
-    private Boolean currentGuest;
+    @ColumnDefault("false")
+    private Boolean currentGuest = false;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "total_stays", nullable = false)
+    @ColumnDefault("0")
+    private int totalStays;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "total_nights", nullable = false)
+    @ColumnDefault("0")
+    private int totalNights;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "lifetime_spend", precision = 12, scale = 2, nullable = false)
+    @ColumnDefault("0")
+    private BigDecimal lifetimeSpend = BigDecimal.ZERO;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "last_stay_date")
+    private LocalDate lastStayDate;
 
     @CreatedDate
     @Column(name = "created_at")
@@ -60,6 +95,14 @@ public class CustomerModel {
         this.id = id;
     }
 
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
     public String getName() {
         return name;
     }
@@ -100,6 +143,38 @@ public class CustomerModel {
         this.currentGuest = currentGuest;
     }
 
+    public int getTotalStays() {
+        return totalStays;
+    }
+
+    public void setTotalStays(int totalStays) {
+        this.totalStays = totalStays;
+    }
+
+    public int getTotalNights() {
+        return totalNights;
+    }
+
+    public void setTotalNights(int totalNights) {
+        this.totalNights = totalNights;
+    }
+
+    public BigDecimal getLifetimeSpend() {
+        return lifetimeSpend;
+    }
+
+    public void setLifetimeSpend(BigDecimal lifetimeSpend) {
+        this.lifetimeSpend = lifetimeSpend;
+    }
+
+    public LocalDate getLastStayDate() {
+        return lastStayDate;
+    }
+
+    public void setLastStayDate(LocalDate lastStayDate) {
+        this.lastStayDate = lastStayDate;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
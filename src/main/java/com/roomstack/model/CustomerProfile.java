@@ -0,0 +1,53 @@
+package com.roomstack.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A customer with all their bookings, live and archived, each with its bill
+ */
+public class CustomerProfile {
+
+    private CustomerModel customer;
+
+    // Newest stay first
+    private List<BookingModel> bookings;
+
+    private BigDecimal totalBilled;
+
+    // Pending and partially paid bills; bills have no paid-to-date amount, so partial ones count in full
+    private BigDecimal outstanding;
+
+    // Getters and Setters
+    public CustomerModel getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(CustomerModel customer) {
+        this.customer = customer;
+    }
+
+    public List<BookingModel> getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(List<BookingModel> bookings) {
+        this.bookings = bookings;
+    }
+
+    public BigDecimal getTotalBilled() {
+        return totalBilled;
+    }
+
+    public void setTotalBilled(BigDecimal totalBilled) {
+        this.totalBilled = totalBilled;
+    }
+
+    public BigDecimal getOutstanding() {
+        return outstanding;
+    }
+
+    public void setOutstanding(BigDecimal outstanding) {
+        this.outstanding = outstanding;
+    }
+}
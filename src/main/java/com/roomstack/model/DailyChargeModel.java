@@ -0,0 +1,88 @@
+package com.roomstack.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Room charge for one night of a stay, posted by the night audit
+ */
+@Entity
+@Table(name = "daily_charges",
+       uniqueConstraints = @UniqueConstraint(columnNames = { "booking_id", "charge_date" }))
+public class DailyChargeModel {
+
+    @Id
+    private String id;
+
+    // Plain column rather than a relation: charges are written in bulk and outlive booking edits
+    @Column(name = "booking_id", nullable = false)
+    private String bookingId;
+
+    @Column(name = "room_id")
+    private String roomId;
+
+    @Column(name = "charge_date", nullable = false)
+    private LocalDate chargeDate;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(String bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public LocalDate getChargeDate() {
+        return chargeDate;
+    }
+
+    public void setChargeDate(LocalDate chargeDate) {
+        this.chargeDate = chargeDate;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.roomstack.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Assigns each room feature name a bit position in RoomModel.featureMask
+ */
+@Entity
+@Table(name = "feature_dictionary")
+public class FeatureDictionaryModel {
+
+    @Id
+    private Integer bit;
+
+    @NotBlank(message = "Feature name is required")
+    @Column(unique = true)
+    private String name;
+
+    // Getters and Setters
+    public Integer getBit() {
+        return bit;
+    }
+
+    public void setBit(Integer bit) {
+        this.bit = bit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,97 @@
+package com.roomstack.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Many rooms booked together for one customer and one stay
+ */
+public class GroupBookingRequest {
+
+    /**
+     * One room of the group and its guests
+     */
+    public static class RoomRequest {
+
+        private String roomId;
+
+        private int adults;
+
+        private int children;
+
+        private String specialRequests;
+
+        public String getRoomId() {
+            return roomId;
+        }
+
+        public void setRoomId(String roomId) {
+            this.roomId = roomId;
+        }
+
+        public int getAdults() {
+            return adults;
+        }
+
+        public void setAdults(int adults) {
+            this.adults = adults;
+        }
+
+        public int getChildren() {
+            return children;
+        }
+
+        public void setChildren(int children) {
+            this.children = children;
+        }
+
+        public String getSpecialRequests() {
+            return specialRequests;
+        }
+
+        public void setSpecialRequests(String specialRequests) {
+            this.specialRequests = specialRequests;
+        }
+    }
+
+    private String customerId;
+
+    private LocalDateTime checkIn;
+
+    private LocalDateTime checkOut;
+
+    private List<RoomRequest> rooms;
+
+    // Getters and Setters
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public LocalDateTime getCheckIn() {
+        return checkIn;
+    }
+
+    public void setCheckIn(LocalDateTime checkIn) {
+        this.checkIn = checkIn;
+    }
+
+    public LocalDateTime getCheckOut() {
+        return checkOut;
+    }
+
+    public void setCheckOut(LocalDateTime checkOut) {
+        this.checkOut = checkOut;
+    }
+
+    public List<RoomRequest> getRooms() {
+        return rooms;
+    }
+
+    public void setRooms(List<RoomRequest> rooms) {
+        this.rooms = rooms;
+    }
+}
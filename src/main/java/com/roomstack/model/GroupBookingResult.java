@@ -0,0 +1,72 @@
+package com.roomstack.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The bookings of a group and their consolidated bill
+ */
+public class GroupBookingResult {
+
+    private String groupId;
+
+    private List<BookingModel> bookings;
+
+    // Rooms that were not available; nothing was booked if any
+    private List<String> unavailableRoomIds;
+
+    private BigDecimal roomCharge;
+
+    private BigDecimal taxAmount;
+
+    private BigDecimal total;
+
+    // Getters and Setters
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(String groupId) {
+        this.groupId = groupId;
+    }
+
+    public List<BookingModel> getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(List<BookingModel> bookings) {
+        this.bookings = bookings;
+    }
+
+    public List<String> getUnavailableRoomIds() {
+        return unavailableRoomIds;
+    }
+
+    public void setUnavailableRoomIds(List<String> unavailableRoomIds) {
+        this.unavailableRoomIds = unavailableRoomIds;
+    }
+
+    public BigDecimal getRoomCharge() {
+        return roomCharge;
+    }
+
+    public void setRoomCharge(BigDecimal roomCharge) {
+        this.roomCharge = roomCharge;
+    }
+
+    public BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    public void setTaxAmount(BigDecimal taxAmount) {
+        this.taxAmount = taxAmount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,177 @@
+package com.roomstack.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Checkpoint of the night audit for one business date. The audit resumes from
+ * the stage and booking ID recorded here, so a crashed run picks up where its
+ * last committed chunk left off. The run that currently holds the date is
+ * recorded as well, so no two nodes audit the same date at once.
+ */
+@Entity
+@Table(name = "night_audit_runs")
+public class NightAuditRunModel {
+
+    public enum Stage {
+        check_outs,
+        no_shows,
+        daily_charges,
+        reconcile,
+        done
+    }
+
+    @Id
+    @Column(name = "audit_date")
+    private LocalDate auditDate;
+
+    @Enumerated(EnumType.STRING)
+    private Stage stage;
+
+    // Keyset cursor: the last booking ID processed in the current stage
+    @Column(name = "last_booking_id")
+    private String lastBookingId;
+
+    @Column(name = "checked_out")
+    private int checkedOut;
+
+    @Column(name = "no_shows")
+    private int noShows;
+
+    @Column(name = "charges_posted")
+    private int chargesPosted;
+
+    @Column(name = "rooms_reconciled")
+    private int roomsReconciled;
+
+    @Column(name = "customers_reconciled")
+    private int customersReconciled;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Claimed and renewed by NightAuditService with plain SQL, never through the entity
+    @Column(name = "claimed_by", insertable = false, updatable = false)
+    private String claimedBy;
+
+    @Column(name = "claimed_until", insertable = false, updatable = false)
+    private LocalDateTime claimedUntil;
+
+    // Getters and Setters
+    public LocalDate getAuditDate() {
+        return auditDate;
+    }
+
+    public void setAuditDate(LocalDate auditDate) {
+        this.auditDate = auditDate;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public void setStage(Stage stage) {
+        this.stage = stage;
+    }
+
+    public String getLastBookingId() {
+        return lastBookingId;
+    }
+
+    public void setLastBookingId(String lastBookingId) {
+        this.lastBookingId = lastBookingId;
+    }
+
+    public int getCheckedOut() {
+        return checkedOut;
+    }
+
+    public void setCheckedOut(int checkedOut) {
+        this.checkedOut = checkedOut;
+    }
+
+    public int getNoShows() {
+        return noShows;
+    }
+
+    public void setNoShows(int noShows) {
+        this.noShows = noShows;
+    }
+
+    public int getChargesPosted() {
+        return chargesPosted;
+    }
+
+    public void setChargesPosted(int chargesPosted) {
+        this.chargesPosted = chargesPosted;
+    }
+
+    public int getRoomsReconciled() {
+        return roomsReconciled;
+    }
+
+    public void setRoomsReconciled(int roomsReconciled) {
+        this.roomsReconciled = roomsReconciled;
+    }
+
+    public int getCustomersReconciled() {
+        return customersReconciled;
+    }
+
+    public void setCustomersReconciled(int customersReconciled) {
+        this.customersReconciled = customersReconciled;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+}
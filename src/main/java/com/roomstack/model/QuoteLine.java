@@ -0,0 +1,75 @@
+package com.roomstack.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Price of one stay in a batch quote, or the reason it could not be priced
+ */
+public class QuoteLine {
+
+    private String roomId;
+
+    private LocalDateTime checkIn;
+
+    private LocalDateTime checkOut;
+
+    private BigDecimal roomCharge;
+
+    private BigDecimal taxAmount;
+
+    private BigDecimal total;
+
+    private String message;
+
+    public QuoteLine(QuoteRequest request) {
+        this.roomId = request.getRoomId();
+        this.checkIn = request.getCheckIn();
+        this.checkOut = request.getCheckOut();
+    }
+
+    // Getters and Setters
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public LocalDateTime getCheckIn() {
+        return checkIn;
+    }
+
+    public LocalDateTime getCheckOut() {
+        return checkOut;
+    }
+
+    public BigDecimal getRoomCharge() {
+        return roomCharge;
+    }
+
+    public void setRoomCharge(BigDecimal roomCharge) {
+        this.roomCharge = roomCharge;
+    }
+
+    public BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    public void setTaxAmount(BigDecimal taxAmount) {
+        this.taxAmount = taxAmount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
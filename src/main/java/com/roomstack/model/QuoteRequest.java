@@ -0,0 +1,40 @@
+package com.roomstack.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stay to price in a batch quote
+ */
+public class QuoteRequest {
+
+    private String roomId;
+
+    private LocalDateTime checkIn;
+
+    private LocalDateTime checkOut;
+
+    // Getters and Setters
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public LocalDateTime getCheckIn() {
+        return checkIn;
+    }
+
+    public void setCheckIn(LocalDateTime checkIn) {
+        this.checkIn = checkIn;
+    }
+
+    public LocalDateTime getCheckOut() {
+        return checkOut;
+    }
+
+    public void setCheckOut(LocalDateTime checkOut) {
+        this.checkOut = checkOut;
+    }
+}
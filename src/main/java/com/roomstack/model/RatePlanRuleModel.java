@@ -0,0 +1,185 @@
+package com.roomstack.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.TenantId;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Adjusts the nightly rate of one room (or of every room of the rule's property
+ * when roomId is null) by a percentage. Seasonal rules apply between startDate and endDate, weekday
+ * rules on the listed days of the week, and occupancy rules once the share of
+ * booked rooms for a night reaches minOccupancyPercent.
+ */
+@Entity
+@Table(name = "rate_plan_rules")
+@EntityListeners(AuditingEntityListener.class)
+public class RatePlanRuleModel {
+
+    public enum RuleType {
+        seasonal,
+        weekday,
+        occupancy
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @TenantId
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "property_id", length = 64)
+    private String propertyId;
+
+    private String name;
+
+    @Column(name = "room_id")
+    private String roomId;
+
+    @NotNull(message = "Rule type is required")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rule_type")
+    private RuleType ruleType;
+
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    // Comma-separated java.time.DayOfWeek names, e.g. "FRIDAY,SATURDAY"
+    @Column(name = "days_of_week")
+    private String daysOfWeek;
+
+    @Min(value = 0, message = "Occupancy threshold cannot be negative")
+    @Max(value = 100, message = "Occupancy threshold cannot exceed 100")
+    @Column(name = "min_occupancy_percent")
+    private Integer minOccupancyPercent;
+
+    @Min(value = -100, message = "Adjustment cannot be below -100%")
+    @Column(name = "adjustment_percent")
+    private int adjustmentPercent;
+
+    @CreatedDate
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public RuleType getRuleType() {
+        return ruleType;
+    }
+
+    public void setRuleType(RuleType ruleType) {
+        this.ruleType = ruleType;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getDaysOfWeek() {
+        return daysOfWeek;
+    }
+
+    public void setDaysOfWeek(String daysOfWeek) {
+        this.daysOfWeek = daysOfWeek;
+    }
+
+    public Integer getMinOccupancyPercent() {
+        return minOccupancyPercent;
+    }
+
+    public void setMinOccupancyPercent(Integer minOccupancyPercent) {
+        this.minOccupancyPercent = minOccupancyPercent;
+    }
+
+    public int getAdjustmentPercent() {
+        return adjustmentPercent;
+    }
+
+    public void setAdjustmentPercent(int adjustmentPercent) {
+        this.adjustmentPercent = adjustmentPercent;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
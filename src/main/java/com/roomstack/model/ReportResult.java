@@ -0,0 +1,50 @@
+package com.roomstack.model;
+
+import java.util.List;
+
+/**
+ * Result of an ad-hoc report query
+ */
+public class ReportResult {
+    
+    private String queryId;
+    
+    private List<String> dimensions;
+    
+    private long scannedBookings;
+    
+    private List<ReportRow> rows;
+    
+    // Getters and Setters
+    public String getQueryId() {
+        return queryId;
+    }
+
+    public void setQueryId(String queryId) {
+        this.queryId = queryId;
+    }
+
+    public List<String> getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(List<String> dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public long getScannedBookings() {
+        return scannedBookings;
+    }
+
+    public void setScannedBookings(long scannedBookings) {
+        this.scannedBookings = scannedBookings;
+    }
+
+    public List<ReportRow> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<ReportRow> rows) {
+        this.rows = rows;
+    }
+}
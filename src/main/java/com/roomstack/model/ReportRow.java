@@ -0,0 +1,51 @@
+package com.roomstack.model;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * One aggregated group of an ad-hoc report
+ */
+public class ReportRow {
+    
+    private Map<String, String> group;
+    
+    private long bookings;
+    
+    private long nights;
+    
+    private BigDecimal revenue;
+    
+    // Getters and Setters
+    public Map<String, String> getGroup() {
+        return group;
+    }
+
+    public void setGroup(Map<String, String> group) {
+        this.group = group;
+    }
+
+    public long getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(long bookings) {
+        this.bookings = bookings;
+    }
+
+    public long getNights() {
+        return nights;
+    }
+
+    public void setNights(long nights) {
+        this.nights = nights;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
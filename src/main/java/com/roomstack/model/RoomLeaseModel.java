@@ -0,0 +1,89 @@
+package com.roomstack.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Lease on a room, held by one booking request of one node at a time. The
+ * fencing token goes up with every new holder, so a holder whose lease
+ * expired cannot write under it after another has taken over. The row is
+ * kept when the lease is released; only the holder is cleared.
+ */
+@Entity
+@Table(name = "room_leases")
+public class RoomLeaseModel {
+
+    @Id
+    @Column(name = "room_id")
+    private String roomId;
+
+    // Null while nobody holds the lease
+    @Column(length = 64)
+    private String holder;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    @Column(name = "acquired_at")
+    private LocalDateTime acquiredAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Last time the holder wrote under the lease
+    @Column(name = "fenced_at")
+    private LocalDateTime fencedAt;
+
+    // Getters and Setters
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getHolder() {
+        return holder;
+    }
+
+    public void setHolder(String holder) {
+        this.holder = holder;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public void setAcquiredAt(LocalDateTime acquiredAt) {
+        this.acquiredAt = acquiredAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getFencedAt() {
+        return fencedAt;
+    }
+
+    public void setFencedAt(LocalDateTime fencedAt) {
+        this.fencedAt = fencedAt;
+    }
+}
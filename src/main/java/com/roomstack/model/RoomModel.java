@@ -4,10 +4,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.TenantId;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
@@ -19,22 +24,30 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.MapKeyColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 
 @Entity
-@Table(name = "rooms")
+@Table(name = "rooms", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_rooms_property_number", columnNames = {"property_id", "number"})
+})
 @EntityListeners(AuditingEntityListener.class)
 public class RoomModel {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
+    @TenantId
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "property_id", length = 64)
+    private String propertyId;
+
     @NotBlank(message = "Room number is required")
-    @Column(unique = true)
     private String number;
 
     @ElementCollection
+    @BatchSize(size = 50) // Load bed maps for many rooms per query instead of one per room
     @CollectionTable(name = "room_beds", 
         joinColumns = @JoinColumn(name = "room_id"))
     @MapKeyColumn(name = "bed_type")
@@ -48,11 +61,17 @@ public class RoomModel {
     private double pricePerNight;
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "room_features", 
         joinColumns = @JoinColumn(name = "room_id"))
     @Column(name = "feature")
     private List<String> features;
 
+    // Features as bits of the feature dictionary; null if a feature has no bit below 64
+    @JsonIgnore
+    @Column(name = "feature_mask")
+    private Long featureMask;
+
     private String status;
 
     @Min(value = 1, message = "Floor must be at least 1")
@@ -76,6 +95,14 @@ public class RoomModel {
 		this.id = id;
 	}
 
+	public String getPropertyId() {
+		return propertyId;
+	}
+
+	public void setPropertyId(String propertyId) {
+		this.propertyId = propertyId;
+	}
+
 	public String getNumber() {
 		return number;
 	}
@@ -116,6 +143,14 @@ public class RoomModel {
 		this.features = features;
 	}
 
+	public Long getFeatureMask() {
+		return featureMask;
+	}
+
+	public void setFeatureMask(Long featureMask) {
+		this.featureMask = featureMask;
+	}
+
 	public String getStatus() {
 		return status;
 	}
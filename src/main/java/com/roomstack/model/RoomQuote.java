@@ -0,0 +1,85 @@
+package com.roomstack.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Price of a stay in a room, night by night
+ */
+public class RoomQuote {
+
+    /**
+     * Rate charged for one night
+     */
+    public static class NightlyRate {
+
+        private LocalDate date;
+
+        private BigDecimal price;
+
+        public NightlyRate(LocalDate date, BigDecimal price) {
+            this.date = date;
+            this.price = price;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+    }
+
+    private String roomId;
+
+    private List<NightlyRate> nights;
+
+    private BigDecimal roomCharge;
+
+    private BigDecimal taxAmount;
+
+    private BigDecimal total;
+
+    // Getters and Setters
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public List<NightlyRate> getNights() {
+        return nights;
+    }
+
+    public void setNights(List<NightlyRate> nights) {
+        this.nights = nights;
+    }
+
+    public BigDecimal getRoomCharge() {
+        return roomCharge;
+    }
+
+    public void setRoomCharge(BigDecimal roomCharge) {
+        this.roomCharge = roomCharge;
+    }
+
+    public BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    public void setTaxAmount(BigDecimal taxAmount) {
+        this.taxAmount = taxAmount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,51 @@
+package com.roomstack.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of a payment settlement: the payment status a bill moves to
+ */
+public class SettlementEntry {
+
+    private String billId;
+
+    // Parsed when the entry is applied, so a bad value fails only its own entry
+    private String status;
+
+    // When the payment was made; defaults to the settlement time for paid entries
+    private LocalDateTime paidAt;
+
+    public SettlementEntry() {
+    }
+
+    public SettlementEntry(String billId, String status, LocalDateTime paidAt) {
+        this.billId = billId;
+        this.status = status;
+        this.paidAt = paidAt;
+    }
+
+    // Getters and Setters
+    public String getBillId() {
+        return billId;
+    }
+
+    public void setBillId(String billId) {
+        this.billId = billId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getPaidAt() {
+        return paidAt;
+    }
+
+    public void setPaidAt(LocalDateTime paidAt) {
+        this.paidAt = paidAt;
+    }
+}
@@ -0,0 +1,56 @@
+package com.roomstack.model;
+
+/**
+ * Outcome of applying one settlement entry
+ */
+public class SettlementResult {
+
+    public enum Outcome {
+        applied,
+        unchanged,
+        not_found,
+        invalid,
+        conflict
+    }
+
+    private String billId;
+
+    private String status;
+
+    private Outcome outcome;
+
+    // Why the entry was not applied; null otherwise
+    private String message;
+
+    public SettlementResult(SettlementEntry entry, Outcome outcome, String message) {
+        this.billId = entry.getBillId();
+        this.status = entry.getStatus();
+        this.outcome = outcome;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public String getBillId() {
+        return billId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,32 @@
+package com.roomstack.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.ArchivedBillModel;
+
+@Repository
+public interface ArchivedBillRepository extends JpaRepository<ArchivedBillModel, String> {
+    
+    /**
+     * Find the archived bills of the given bookings
+     * @param bookingIds The archived booking IDs
+     * @return List of their bills
+     */
+    List<ArchivedBillModel> findByBookingIdIn(Collection<String> bookingIds);
+    
+    /**
+     * Sum the archived paid bills of each of the given customers
+     * @param customerIds The customers to sum
+     * @return Customer ID and paid total of each customer with an archived paid bill
+     */
+    @Query("SELECT b.customerId, SUM(b.total) FROM ArchivedBillModel b " +
+           "WHERE b.paymentStatus = 'paid' AND b.customerId IN :customerIds " +
+           "GROUP BY b.customerId")
+    List<Object[]> sumPaidTotalsByCustomer(@Param("customerIds") Collection<String> customerIds);
+}
@@ -0,0 +1,84 @@
+package com.roomstack.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.ArchivedBookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBookingModel, String> {
+    
+    /**
+     * Find archived bookings whose stay overlaps a date range
+     * @param from Start of the range
+     * @param to End of the range
+     * @return List of matching archived bookings
+     */
+    @Query("SELECT b FROM ArchivedBookingModel b WHERE b.checkOut > :from AND b.checkIn < :to")
+    List<ArchivedBookingModel> findByStay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Find archived bookings by status whose stay overlaps a date range
+     * @param status The booking status to filter by
+     * @param from Start of the range
+     * @param to End of the range
+     * @return List of matching archived bookings
+     */
+    @Query("SELECT b FROM ArchivedBookingModel b WHERE b.status = :status " +
+           "AND b.checkOut > :from AND b.checkIn < :to")
+    List<ArchivedBookingModel> findByStatusAndStay(
+            @Param("status") BookingStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+    
+    /**
+     * Find archived bookings of a room whose stay overlaps a date range
+     * @param roomId The room ID
+     * @param from Start of the range
+     * @param to End of the range
+     * @return List of matching archived bookings
+     */
+    @Query("SELECT b FROM ArchivedBookingModel b WHERE b.roomId = :roomId " +
+           "AND b.checkOut > :from AND b.checkIn < :to")
+    List<ArchivedBookingModel> findByRoomAndStay(
+            @Param("roomId") String roomId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+    
+    /**
+     * Find archived bookings of a customer whose stay overlaps a date range
+     * @param customerId The customer ID
+     * @param from Start of the range
+     * @param to End of the range
+     * @return List of matching archived bookings
+     */
+    @Query("SELECT b FROM ArchivedBookingModel b WHERE b.customerId = :customerId " +
+           "AND b.checkOut > :from AND b.checkIn < :to")
+    List<ArchivedBookingModel> findByCustomerAndStay(
+            @Param("customerId") String customerId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+    
+    /**
+     * Find every archived booking of a customer, newest stay first
+     * @param customerId The customer ID
+     * @return The customer's archived bookings
+     */
+    List<ArchivedBookingModel> findByCustomerIdOrderByCheckInDesc(String customerId);
+    
+    /**
+     * Find the archived completed stays of the given customers
+     * @param customerIds The customers to look up
+     * @return Customer ID, check-in and check-out of each archived checked-out booking
+     */
+    @Query("SELECT b.customerId, b.checkIn, b.checkOut FROM ArchivedBookingModel b " +
+           "WHERE b.status = 'checked_out' AND b.customerId IN :customerIds")
+    List<Object[]> findCompletedStays(@Param("customerIds") Collection<String> customerIds);
+}
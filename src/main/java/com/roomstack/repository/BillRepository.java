@@ -1,9 +1,12 @@
 package com.roomstack.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.roomstack.model.BillModel;
@@ -33,4 +36,40 @@ public interface BillRepository extends JpaRepository<BillModel, String> {
      * @return Optional containing the bill if found
      */
     Optional<BillModel> findByBookingId(String bookingId);
+    
+    /**
+     * Sum the paid bills of each of the given customers
+     * @param customerIds The customers to sum
+     * @return Customer ID and paid total of each customer with a paid bill
+     */
+    @Query("SELECT b.booking.customer.id, SUM(b.total) FROM BillModel b " +
+           "WHERE b.paymentStatus = 'paid' AND b.booking.customer.id IN :customerIds " +
+           "GROUP BY b.booking.customer.id")
+    List<Object[]> sumPaidTotalsByCustomer(@Param("customerIds") Collection<String> customerIds);
+    
+    /**
+     * Load what a settlement needs to know about each of the given bills
+     * @param ids The bill IDs
+     * @return Bill ID, payment status, total, customer ID, booking ID, creation time and property of each bill found
+     */
+    @Query("SELECT b.id, b.paymentStatus, b.total, c.id, bk.id, b.createdAt, b.propertyId FROM BillModel b " +
+           "LEFT JOIN b.booking bk LEFT JOIN bk.customer c WHERE b.id IN :ids")
+    List<Object[]> findSettlementState(@Param("ids") Collection<String> ids);
+    
+    /**
+     * Find every bill that is not fully paid
+     * @return Bill ID, booking ID, customer ID, creation time, total, payment status and property of each outstanding bill
+     */
+    @Query("SELECT b.id, bk.id, c.id, b.createdAt, b.total, b.paymentStatus, b.propertyId FROM BillModel b " +
+           "JOIN b.booking bk LEFT JOIN bk.customer c WHERE b.paymentStatus <> 'paid'")
+    List<Object[]> findOutstanding();
+    
+    /**
+     * Find which of the given bills are not fully paid
+     * @param ids The bill IDs
+     * @return The same columns as findOutstanding, for the bills that exist and are outstanding
+     */
+    @Query("SELECT b.id, bk.id, c.id, b.createdAt, b.total, b.paymentStatus, b.propertyId FROM BillModel b " +
+           "JOIN b.booking bk LEFT JOIN bk.customer c WHERE b.paymentStatus <> 'paid' AND b.id IN :ids")
+    List<Object[]> findOutstandingByIds(@Param("ids") Collection<String> ids);
 }
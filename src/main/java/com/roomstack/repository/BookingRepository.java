@@ -1,18 +1,27 @@
 package com.roomstack.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.roomstack.model.BookingModel;
 import com.roomstack.model.CustomerModel;
 import com.roomstack.model.RoomModel;
 import com.roomstack.model.BookingModel.BookingStatus;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface BookingRepository extends JpaRepository<BookingModel, String> {
     
@@ -37,6 +46,15 @@ public interface BookingRepository extends JpaRepository<BookingModel, String> {
      */
     List<BookingModel> findByCustomer(CustomerModel customer);
     
+    /**
+     * Find the bookings of a customer with their room, customer and bill in one query, newest stay first
+     * @param customerId The customer ID
+     * @return The customer's bookings
+     */
+    @Query("SELECT b FROM BookingModel b JOIN FETCH b.room JOIN FETCH b.customer LEFT JOIN FETCH b.bill " +
+           "WHERE b.customer.id = :customerId ORDER BY b.checkIn DESC")
+    List<BookingModel> findByCustomerWithBills(@Param("customerId") String customerId);
+    
     /**
      * Find bookings within a date range (check-in date)
      * @param startDate The start date of the range
@@ -45,6 +63,22 @@ public interface BookingRepository extends JpaRepository<BookingModel, String> {
      */
     List<BookingModel> findByCheckInBetween(LocalDateTime startDate, LocalDateTime endDate);
     
+    /**
+     * Find the next chunk of bookings within a check-in date range, ordered by ID (keyset pagination)
+     * @param startDate The start date of the range
+     * @param endDate The end date of the range
+     * @param afterId Only bookings with an ID greater than this are returned
+     * @param pageable The chunk size
+     * @return The next chunk of bookings within the date range, with their room, customer and bill
+     */
+    @Query("SELECT b FROM BookingModel b JOIN FETCH b.room JOIN FETCH b.customer LEFT JOIN FETCH b.bill " +
+           "WHERE b.checkIn BETWEEN :startDate AND :endDate AND b.id > :afterId ORDER BY b.id")
+    List<BookingModel> findChunkByCheckInBetween(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("afterId") String afterId,
+            Pageable pageable);
+    
     /**
      * Find overlapping bookings for a room
      * @param roomId The room ID
@@ -54,7 +88,7 @@ public interface BookingRepository extends JpaRepository<BookingModel, String> {
      * @return List of overlapping bookings
      */
     @Query("SELECT b FROM BookingModel b WHERE b.room.id = :roomId " +
-           "AND b.status != 'cancelled' " +
+           "AND b.status NOT IN ('cancelled', 'no_show') " +
            "AND ((:checkIn BETWEEN b.checkIn AND b.checkOut) " +
            "OR (:checkOut BETWEEN b.checkIn AND b.checkOut) " +
            "OR (b.checkIn BETWEEN :checkIn AND :checkOut)) " +
@@ -65,6 +99,30 @@ public interface BookingRepository extends JpaRepository<BookingModel, String> {
             @Param("checkOut") LocalDateTime checkOut,
             @Param("bookingId") String bookingId);
     
+    /**
+     * Find which of the given rooms have a booking overlapping the dates, in one query
+     * @param roomIds The room IDs
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @return IDs of the rooms that are not available
+     */
+    @Query("SELECT DISTINCT b.room.id FROM BookingModel b WHERE b.room.id IN :roomIds " +
+           "AND b.status NOT IN ('cancelled', 'no_show') " +
+           "AND ((:checkIn BETWEEN b.checkIn AND b.checkOut) " +
+           "OR (:checkOut BETWEEN b.checkIn AND b.checkOut) " +
+           "OR (b.checkIn BETWEEN :checkIn AND :checkOut))")
+    List<String> findUnavailableRoomIds(
+            @Param("roomIds") Collection<String> roomIds,
+            @Param("checkIn") LocalDateTime checkIn,
+            @Param("checkOut") LocalDateTime checkOut);
+    
+    /**
+     * Find the bookings of a group booking
+     * @param groupId The group ID
+     * @return List of bookings in the group
+     */
+    List<BookingModel> findByGroupId(String groupId);
+    
     /**
      * Find current bookings for a room (status confirmed or checked_in)
      * @param room The room
@@ -89,4 +147,242 @@ public interface BookingRepository extends JpaRepository<BookingModel, String> {
      */
     @Query("SELECT b FROM BookingModel b WHERE DATE(b.checkOut) = DATE(:checkOutDate)")
     List<BookingModel> findByCheckOutDate(@Param("checkOutDate") LocalDateTime checkOutDate);
+    
+    /**
+     * Find the stay dates of active (not cancelled or no-show) bookings overlapping a date range
+     * @param startDate The start date of the range
+     * @param endDate The end date of the range
+     * @return Room ID, check-in and check-out of each stay
+     */
+    @Query("SELECT b.room.id, b.checkIn, b.checkOut FROM BookingModel b " +
+           "WHERE b.status NOT IN ('cancelled', 'no_show') " +
+           "AND b.checkOut > :startDate AND b.checkIn < :endDate")
+    List<Object[]> findActiveStayDates(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Find the stays of active (not cancelled or no-show) bookings overlapping a date range
+     * @param startDate The start date of the range
+     * @param endDate The end date of the range
+     * @return Booking ID, room ID, check-in and check-out of each stay
+     */
+    @Query("SELECT b.id, b.room.id, b.checkIn, b.checkOut FROM BookingModel b " +
+           "WHERE b.status NOT IN ('cancelled', 'no_show') " +
+           "AND b.checkOut >= :startDate AND b.checkIn <= :endDate")
+    List<Object[]> findActiveStays(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Find the stays of active (not cancelled or no-show) bookings in the given rooms overlapping a date range
+     * @param roomIds The room IDs
+     * @param startDate The start date of the range
+     * @param endDate The end date of the range
+     * @return Booking ID, room ID, check-in and check-out of each stay
+     */
+    @Query("SELECT b.id, b.room.id, b.checkIn, b.checkOut FROM BookingModel b " +
+           "WHERE b.status NOT IN ('cancelled', 'no_show') " +
+           "AND b.room.id IN :roomIds AND b.checkOut >= :startDate AND b.checkIn <= :endDate")
+    List<Object[]> findActiveStaysForRooms(
+            @Param("roomIds") Collection<String> roomIds,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Find confirmed bookings placed by the assignment engine with check-in in a date range
+     * @param startDate The start date of the range
+     * @param endDate The end date of the range
+     * @return The bookings, ordered by check-in date
+     */
+    @Query("SELECT b FROM BookingModel b WHERE b.autoAssigned = true AND b.status = 'confirmed' " +
+           "AND b.checkIn BETWEEN :startDate AND :endDate ORDER BY b.checkIn")
+    List<BookingModel> findAutoAssignedBetween(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Find the next chunk of checked-in bookings whose check-out has passed, ordered by ID (keyset pagination)
+     * @param cutoff Bookings checking out before this are overdue
+     * @param afterId Only bookings with an ID greater than this are returned
+     * @param pageable The chunk size
+     * @return Booking ID, room ID and customer ID of each overdue booking
+     */
+    @Query("SELECT b.id, b.room.id, b.customer.id FROM BookingModel b WHERE b.status = 'checked_in' " +
+           "AND b.checkOut < :cutoff AND b.id > :afterId ORDER BY b.id")
+    List<Object[]> findOverdueCheckOutChunk(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("afterId") String afterId,
+            Pageable pageable);
+    
+    /**
+     * Find the next chunk of confirmed bookings whose check-in day has passed, ordered by ID (keyset pagination)
+     * @param cutoff Bookings checking in before this are no-shows
+     * @param afterId Only bookings with an ID greater than this are returned
+     * @param pageable The chunk size
+     * @return Booking ID and room ID of each no-show
+     */
+    @Query("SELECT b.id, b.room.id FROM BookingModel b WHERE b.status = 'confirmed' " +
+           "AND b.checkIn < :cutoff AND b.id > :afterId ORDER BY b.id")
+    List<Object[]> findNoShowChunk(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("afterId") String afterId,
+            Pageable pageable);
+    
+    /**
+     * Find the next chunk of bookings that stayed the night ending at nightEnd, ordered by ID (keyset pagination)
+     * @param nightEnd Midnight at the end of the night
+     * @param afterId Only bookings with an ID greater than this are returned
+     * @param pageable The chunk size
+     * @return Booking ID and room ID of each stay
+     */
+    @Query("SELECT b.id, b.room.id FROM BookingModel b WHERE b.status IN ('checked_in', 'checked_out') " +
+           "AND b.checkIn < :nightEnd AND b.checkOut >= :nightEnd AND b.id > :afterId ORDER BY b.id")
+    List<Object[]> findInHouseChunk(
+            @Param("nightEnd") LocalDateTime nightEnd,
+            @Param("afterId") String afterId,
+            Pageable pageable);
+    
+    /**
+     * Change the status of the given bookings, skipping any that have left the expected status
+     * @param ids The booking IDs
+     * @param expected The status the bookings must still have
+     * @param status The new status
+     * @param now The update timestamp
+     * @return The number of bookings updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BookingModel b SET b.status = :status, b.updatedAt = :now " +
+           "WHERE b.id IN :ids AND b.status = :expected")
+    int updateStatusIfCurrent(
+            @Param("ids") Collection<String> ids,
+            @Param("expected") BookingStatus expected,
+            @Param("status") BookingStatus status,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Find the bookings a bulk status update changed, by the status and timestamp it set
+     * @param ids The booking IDs given to the update
+     * @param status The status the update set
+     * @param now The timestamp the update set
+     * @return Booking ID, room ID, customer ID, check-in, check-out and property ID of each changed booking
+     */
+    @Query("SELECT b.id, b.room.id, b.customer.id, b.checkIn, b.checkOut, b.propertyId FROM BookingModel b " +
+           "WHERE b.id IN :ids AND b.status = :status AND b.updatedAt = :now")
+    List<Object[]> findUpdatedStays(
+            @Param("ids") Collection<String> ids,
+            @Param("status") BookingStatus status,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Find the completed stays of the given customers
+     * @param customerIds The customers to look up
+     * @return Customer ID, check-in and check-out of each checked-out booking
+     */
+    @Query("SELECT b.customer.id, b.checkIn, b.checkOut FROM BookingModel b " +
+           "WHERE b.status = 'checked_out' AND b.customer.id IN :customerIds")
+    List<Object[]> findCompletedStays(@Param("customerIds") Collection<String> customerIds);
+    
+    /**
+     * Find which of the given customers have a checked-in booking
+     * @param customerIds The customers to look up
+     * @return IDs of the customers currently in house
+     */
+    @Query("SELECT DISTINCT b.customer.id FROM BookingModel b " +
+           "WHERE b.status = 'checked_in' AND b.customer.id IN :customerIds")
+    List<String> findInHouseCustomerIds(@Param("customerIds") Collection<String> customerIds);
+    
+    /**
+     * Find bookings whose stay overlaps a date range
+     * @param from Start of the range
+     * @param to End of the range
+     * @return List of matching bookings
+     */
+    @Query("SELECT b FROM BookingModel b WHERE b.checkOut > :from AND b.checkIn < :to")
+    List<BookingModel> findByStay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Find bookings by status whose stay overlaps a date range
+     * @param status The booking status to filter by
+     * @param from Start of the range
+     * @param to End of the range
+     * @return List of matching bookings
+     */
+    @Query("SELECT b FROM BookingModel b WHERE b.status = :status " +
+           "AND b.checkOut > :from AND b.checkIn < :to")
+    List<BookingModel> findByStatusAndStay(
+            @Param("status") BookingStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+    
+    /**
+     * Find bookings of a room whose stay overlaps a date range
+     * @param roomId The room ID
+     * @param from Start of the range
+     * @param to End of the range
+     * @return List of matching bookings
+     */
+    @Query("SELECT b FROM BookingModel b WHERE b.room.id = :roomId " +
+           "AND b.checkOut > :from AND b.checkIn < :to")
+    List<BookingModel> findByRoomAndStay(
+            @Param("roomId") String roomId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+    
+    /**
+     * Find bookings of a customer whose stay overlaps a date range
+     * @param customerId The customer ID
+     * @param from Start of the range
+     * @param to End of the range
+     * @return List of matching bookings
+     */
+    @Query("SELECT b FROM BookingModel b WHERE b.customer.id = :customerId " +
+           "AND b.checkOut > :from AND b.checkIn < :to")
+    List<BookingModel> findByCustomerAndStay(
+            @Param("customerId") String customerId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+    
+    /**
+     * Find finished bookings that ended before a cutoff and owe nothing, ready to be archived, and lock them
+     * for the rest of the transaction. Bookings another node's batch has locked are skipped, so concurrent
+     * archivers take disjoint batches.
+     * @param cutoff Bookings checking out before this are old enough
+     * @param pageable The batch size
+     * @return IDs of the bookings to archive
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    // A lock timeout of -2 is Hibernate's SKIP LOCKED
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT b.id FROM BookingModel b LEFT JOIN b.bill bl " +
+           "WHERE b.status IN ('checked_out', 'cancelled', 'no_show') AND b.checkOut < :cutoff " +
+           "AND (bl.id IS NULL OR bl.paymentStatus = 'paid') ORDER BY b.id")
+    List<String> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    /**
+     * Find the stays of bookings changed since a point in time, whatever their status
+     * @param since Bookings updated at or after this time
+     * @return Booking ID, room ID, check-in, check-out and status of each booking
+     */
+    @Query("SELECT b.id, b.room.id, b.checkIn, b.checkOut, b.status FROM BookingModel b " +
+           "WHERE b.updatedAt >= :since")
+    List<Object[]> findStaysChangedSince(@Param("since") LocalDateTime since);
+    
+    /**
+     * Find the stays of bookings by ID, whatever their status
+     * @param ids The booking IDs
+     * @return Booking ID, room ID, check-in, check-out and status of each booking that exists
+     */
+    @Query("SELECT b.id, b.room.id, b.checkIn, b.checkOut, b.status FROM BookingModel b " +
+           "WHERE b.id IN :ids")
+    List<Object[]> findStaysByIds(@Param("ids") Collection<String> ids);
+    
+    /**
+     * Find which of the given bookings still exist
+     * @param ids The booking IDs
+     * @return IDs of the bookings that exist
+     */
+    @Query("SELECT b.id FROM BookingModel b WHERE b.id IN :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
 }
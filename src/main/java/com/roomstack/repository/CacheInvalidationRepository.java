@@ -0,0 +1,50 @@
+package com.roomstack.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.CacheInvalidationModel;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidationModel, Long> {
+
+    /**
+     * Find the invalidations after a watermark, in ID order
+     * @param watermark The highest ID already read
+     * @param pageable The batch size
+     * @return The next batch of invalidations
+     */
+    @Query("SELECT i FROM CacheInvalidationModel i WHERE i.id > :watermark ORDER BY i.id")
+    List<CacheInvalidationModel> findAfter(@Param("watermark") long watermark, Pageable pageable);
+
+    /**
+     * Find invalidations by ID; used to pick up IDs that were skipped while their transaction was open
+     * @param ids The invalidation IDs
+     * @return The invalidations that exist
+     */
+    List<CacheInvalidationModel> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Find the highest invalidation ID
+     * @return The ID, or null if the table is empty
+     */
+    @Query("SELECT MAX(i.id) FROM CacheInvalidationModel i")
+    Long findMaxId();
+
+    /**
+     * Delete invalidations older than the cutoff
+     * @param cutoff Invalidations created before this time are removed
+     * @return Number of deleted invalidations
+     */
+    @Modifying
+    @Query("DELETE FROM CacheInvalidationModel i WHERE i.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
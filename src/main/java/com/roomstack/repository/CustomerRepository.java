@@ -1,12 +1,18 @@
 package com.roomstack.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.roomstack.model.CustomerModel;
 
@@ -20,6 +26,20 @@ public interface CustomerRepository extends JpaRepository<CustomerModel, String>
      */
     Optional<CustomerModel> findByEmail(String email);
     
+    /**
+     * Find every customer with an email, across the properties a session sees
+     * @param email The email to search for
+     * @return List of customers with the email, one per property at most
+     */
+    List<CustomerModel> findAllByEmail(String email);
+    
+    /**
+     * Get the email of every customer
+     * @return List of all customer emails
+     */
+    @Query("SELECT c.email FROM CustomerModel c")
+    List<String> findAllEmails();
+    
     /**
      * Find customers by their current guest status
      * @param currentGuest True for current guests, false for past guests
@@ -52,4 +72,92 @@ public interface CustomerRepository extends JpaRepository<CustomerModel, String>
     List<CustomerModel> searchCustomersByStatusAndTerm(
             @Param("searchTerm") String searchTerm, 
             @Param("currentGuest") Boolean currentGuest);
+    
+    /**
+     * Set currentGuest for customers with a checked-in booking
+     * @param now The update timestamp
+     * @return The number of customers changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerModel c SET c.currentGuest = true, c.updatedAt = :now " +
+           "WHERE (c.currentGuest = false OR c.currentGuest IS NULL) " +
+           "AND EXISTS (SELECT b.id FROM BookingModel b WHERE b.customer = c AND b.status = 'checked_in')")
+    int reconcileCurrentGuests(@Param("now") LocalDateTime now);
+    
+    /**
+     * Clear currentGuest for customers without a checked-in booking
+     * @param now The update timestamp
+     * @return The number of customers changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerModel c SET c.currentGuest = false, c.updatedAt = :now " +
+           "WHERE c.currentGuest = true " +
+           "AND NOT EXISTS (SELECT b.id FROM BookingModel b WHERE b.customer = c AND b.status = 'checked_in')")
+    int reconcilePastGuests(@Param("now") LocalDateTime now);
+    
+    /**
+     * Mark a customer as a current guest
+     * @param id The customer ID
+     * @param now The update timestamp
+     * @return The number of customers changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerModel c SET c.currentGuest = true, c.updatedAt = :now WHERE c.id = :id")
+    int markCurrentGuest(@Param("id") String id, @Param("now") LocalDateTime now);
+    
+    /**
+     * Clear currentGuest for a customer unless another of their bookings is still checked in
+     * @param id The customer ID
+     * @param now The update timestamp
+     * @return The number of customers changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerModel c SET c.currentGuest = false, c.updatedAt = :now " +
+           "WHERE c.id = :id " +
+           "AND NOT EXISTS (SELECT b.id FROM BookingModel b WHERE b.customer = c AND b.status = 'checked_in')")
+    int clearCurrentGuest(@Param("id") String id, @Param("now") LocalDateTime now);
+    
+    /**
+     * Count a completed stay towards a customer's stats
+     * @param id The customer ID
+     * @param nights The nights of the stay
+     * @param stayDate The check-out date of the stay
+     * @param now The update timestamp
+     * @return The number of customers changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerModel c SET c.totalStays = c.totalStays + 1, " +
+           "c.totalNights = c.totalNights + :nights, " +
+           "c.lastStayDate = CASE WHEN c.lastStayDate IS NULL OR c.lastStayDate < :stayDate " +
+           "THEN :stayDate ELSE c.lastStayDate END, " +
+           "c.updatedAt = :now WHERE c.id = :id")
+    int addStay(@Param("id") String id, @Param("nights") int nights,
+            @Param("stayDate") LocalDate stayDate, @Param("now") LocalDateTime now);
+    
+    /**
+     * Add to a customer's lifetime spend; a negative amount reverses a payment
+     * @param id The customer ID
+     * @param amount The amount paid
+     * @param now The update timestamp
+     * @return The number of customers changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerModel c SET c.lifetimeSpend = c.lifetimeSpend + :amount, c.updatedAt = :now " +
+           "WHERE c.id = :id")
+    int addSpend(@Param("id") String id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+    
+    /**
+     * Find the next chunk of customer IDs, ordered by ID (keyset pagination)
+     * @param afterId Only customers with an ID greater than this are returned
+     * @param pageable The chunk size
+     * @return The customer IDs
+     */
+    @Query("SELECT c.id FROM CustomerModel c WHERE c.id > :afterId ORDER BY c.id")
+    List<String> findIdChunk(@Param("afterId") String afterId, Pageable pageable);
 }
@@ -0,0 +1,19 @@
+package com.roomstack.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.DailyChargeModel;
+
+@Repository
+public interface DailyChargeRepository extends JpaRepository<DailyChargeModel, String> {
+    
+    /**
+     * Find the daily charges posted for a booking
+     * @param bookingId The booking ID
+     * @return List of charges, oldest night first
+     */
+    List<DailyChargeModel> findByBookingIdOrderByChargeDateAsc(String bookingId);
+}
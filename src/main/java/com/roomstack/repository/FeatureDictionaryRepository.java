@@ -0,0 +1,10 @@
+package com.roomstack.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.FeatureDictionaryModel;
+
+@Repository
+public interface FeatureDictionaryRepository extends JpaRepository<FeatureDictionaryModel, Integer> {
+}
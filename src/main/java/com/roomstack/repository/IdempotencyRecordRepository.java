@@ -0,0 +1,34 @@
+package com.roomstack.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.IdempotencyRecordModel;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecordModel, String> {
+
+    /**
+     * Delete records that have expired
+     * @param cutoff Records expiring before this time are removed
+     * @return Number of deleted records
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecordModel r WHERE r.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Delete one record if it has expired, leaving a fresh claim that replaced it in place
+     * @param id The record ID
+     * @param cutoff The record is removed only if it expires before this time
+     * @return 1 if the record was removed, otherwise 0
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecordModel r WHERE r.id = :id AND r.expiresAt < :cutoff")
+    int deleteIfExpired(@Param("id") String id, @Param("cutoff") LocalDateTime cutoff);
+}
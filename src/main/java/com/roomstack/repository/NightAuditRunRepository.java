@@ -0,0 +1,19 @@
+package com.roomstack.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.NightAuditRunModel;
+
+@Repository
+public interface NightAuditRunRepository extends JpaRepository<NightAuditRunModel, LocalDate> {
+    
+    /**
+     * Find audit runs that have not completed, oldest first
+     * @return List of unfinished runs
+     */
+    List<NightAuditRunModel> findByCompletedAtIsNullOrderByAuditDateAsc();
+}
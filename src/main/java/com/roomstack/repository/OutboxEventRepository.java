@@ -0,0 +1,76 @@
+package com.roomstack.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.OutboxEventModel;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventModel, String> {
+
+    /**
+     * Find unprocessed events that are due for delivery, oldest first
+     * @param now Events with an available-at time after this are skipped (retry backoff)
+     * @param pageable The batch size
+     * @return The next batch of events to dispatch
+     */
+    @Query("SELECT e FROM OutboxEventModel e WHERE e.processedAt IS NULL " +
+           "AND e.availableAt <= :now ORDER BY e.createdAt")
+    List<OutboxEventModel> findDueEvents(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claim an event by marking it processed; the row stays locked until the delivering
+     * transaction ends, and a rollback releases the claim
+     * @param id The event ID
+     * @param processedAt The processing time
+     * @return 1 if this caller claimed the event, 0 if another node already processed it
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventModel e SET e.processedAt = :processedAt " +
+           "WHERE e.id = :id AND e.processedAt IS NULL")
+    int claim(@Param("id") String id, @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * Record a failed delivery, unless the event was processed or retried by another node meanwhile
+     * @param id The event ID
+     * @param previousAttempts The attempts the failing delivery read
+     * @param lastError The failure message
+     * @param availableAt When the event is due again
+     * @return Number of updated events
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventModel e SET e.attempts = :previousAttempts + 1, e.lastError = :lastError, " +
+           "e.availableAt = :availableAt " +
+           "WHERE e.id = :id AND e.processedAt IS NULL AND e.attempts = :previousAttempts")
+    int recordFailure(@Param("id") String id, @Param("previousAttempts") int previousAttempts,
+            @Param("lastError") String lastError, @Param("availableAt") LocalDateTime availableAt);
+
+    /**
+     * Count events that have not been processed yet
+     * @return Number of pending events
+     */
+    long countByProcessedAtIsNull();
+
+    /**
+     * Find the oldest unprocessed event
+     * @return Optional containing the oldest pending event
+     */
+    Optional<OutboxEventModel> findFirstByProcessedAtIsNullOrderByCreatedAtAsc();
+
+    /**
+     * Delete processed events older than the cutoff
+     * @param cutoff Events processed before this time are removed
+     * @return Number of deleted events
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEventModel e WHERE e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
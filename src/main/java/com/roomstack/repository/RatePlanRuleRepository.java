@@ -0,0 +1,10 @@
+package com.roomstack.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.roomstack.model.RatePlanRuleModel;
+
+@Repository
+public interface RatePlanRuleRepository extends JpaRepository<RatePlanRuleModel, String> {
+}
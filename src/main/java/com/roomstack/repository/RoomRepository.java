@@ -1,13 +1,22 @@
 package com.roomstack.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.roomstack.model.RoomModel;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface RoomRepository extends JpaRepository<RoomModel, String> {
     
@@ -18,6 +27,52 @@ public interface RoomRepository extends JpaRepository<RoomModel, String> {
      */
     Optional<RoomModel> findByNumber(String number);
     
+    /**
+     * Get the number of every room
+     * @return List of all room numbers
+     */
+    @Query("SELECT r.number FROM RoomModel r")
+    List<String> findAllNumbers();
+    
+    /**
+     * Get the ID of every room
+     * @return List of all room IDs
+     */
+    @Query("SELECT r.id FROM RoomModel r")
+    List<String> findAllIds();
+    
+    /**
+     * Find rooms changed since a point in time
+     * @param since Rooms updated at or after this time
+     * @return List of changed rooms
+     */
+    List<RoomModel> findByUpdatedAtGreaterThanEqual(LocalDateTime since);
+    
+    /**
+     * Find rooms by ID and lock them for the rest of the transaction, in ID order to avoid deadlocks
+     * @param ids The room IDs
+     * @return The rooms that exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RoomModel r WHERE r.id IN :ids ORDER BY r.id")
+    List<RoomModel> findAllByIdForUpdate(@Param("ids") Collection<String> ids);
+
+    /**
+     * Load the features of rooms in one query; rooms already in the session get their collection initialized
+     * @param ids The room IDs
+     * @return The rooms with their features
+     */
+    @Query("SELECT DISTINCT r FROM RoomModel r LEFT JOIN FETCH r.features WHERE r.id IN :ids")
+    List<RoomModel> fetchFeatures(@Param("ids") Collection<String> ids);
+
+    /**
+     * Load the bed maps of rooms in one query; rooms already in the session get their collection initialized
+     * @param ids The room IDs
+     * @return The rooms with their beds
+     */
+    @Query("SELECT DISTINCT r FROM RoomModel r LEFT JOIN FETCH r.beds WHERE r.id IN :ids")
+    List<RoomModel> fetchBeds(@Param("ids") Collection<String> ids);
+    
     /**
      * Find rooms by their status
      * @param status The room status to filter by
@@ -46,4 +101,70 @@ public interface RoomRepository extends JpaRepository<RoomModel, String> {
      * @return A list of rooms with at least the specified capacity
      */
     List<RoomModel> findByCapacityGreaterThanEqual(int capacity);
-}
+    
+    /**
+     * Get every (room ID, feature) pair in one query
+     * @return List of [roomId, feature] rows
+     */
+    @Query("SELECT r.id, f FROM RoomModel r JOIN r.features f")
+    List<Object[]> findAllRoomFeatures();
+    
+    /**
+     * Get every room ID with its stored feature mask
+     * @return List of [roomId, featureMask] rows
+     */
+    @Query("SELECT r.id, r.featureMask FROM RoomModel r")
+    List<Object[]> findAllFeatureMasks();
+    
+    /**
+     * Store the feature mask of a room
+     * @param id The room ID
+     * @param featureMask The new feature mask
+     * @return Number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RoomModel r SET r.featureMask = :featureMask WHERE r.id = :id")
+    int updateFeatureMask(@Param("id") String id, @Param("featureMask") Long featureMask);
+    
+    /**
+     * Mark rooms with a checked-in booking as occupied
+     * @param now The update timestamp
+     * @return The number of rooms changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RoomModel r SET r.status = 'occupied', r.updatedAt = :now " +
+           "WHERE r.status NOT IN ('maintenance', 'occupied') " +
+           "AND EXISTS (SELECT b.id FROM BookingModel b WHERE b.room = r AND b.status = 'checked_in')")
+    int reconcileOccupied(@Param("now") LocalDateTime now);
+    
+    /**
+     * Mark rooms held by a confirmed booking arriving by the end of today as reserved
+     * @param dayEnd Midnight at the end of today
+     * @param now The update timestamp
+     * @return The number of rooms changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RoomModel r SET r.status = 'reserved', r.updatedAt = :now " +
+           "WHERE r.status NOT IN ('maintenance', 'reserved') " +
+           "AND NOT EXISTS (SELECT b.id FROM BookingModel b WHERE b.room = r AND b.status = 'checked_in') " +
+           "AND EXISTS (SELECT b.id FROM BookingModel b WHERE b.room = r AND b.status = 'confirmed' " +
+           "AND b.checkIn < :dayEnd AND b.checkOut > :now)")
+    int reconcileReserved(@Param("dayEnd") LocalDateTime dayEnd, @Param("now") LocalDateTime now);
+    
+    /**
+     * Mark rooms that are neither occupied nor held for today as available
+     * @param dayEnd Midnight at the end of today
+     * @param now The update timestamp
+     * @return The number of rooms changed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RoomModel r SET r.status = 'available', r.updatedAt = :now " +
+           "WHERE r.status NOT IN ('maintenance', 'available') " +
+           "AND NOT EXISTS (SELECT b.id FROM BookingModel b WHERE b.room = r AND (b.status = 'checked_in' " +
+           "OR (b.status = 'confirmed' AND b.checkIn < :dayEnd AND b.checkOut > :now)))")
+    int reconcileAvailable(@Param("dayEnd") LocalDateTime dayEnd, @Param("now") LocalDateTime now);
+}
\ No newline at end of file
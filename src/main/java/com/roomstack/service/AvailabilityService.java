@@ -0,0 +1,188 @@
+package com.roomstack.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.roomstack.event.BookingChangedEvent;
+import com.roomstack.event.CacheInvalidationEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Serves availability checks for the public endpoint. Identical concurrent
+ * checks share one evaluation (single flight), and results are cached for a
+ * short time. Every booking change on a room bumps that room's version, which
+ * invalidates its cached results and in-flight evaluations.
+ *
+ * Evaluations read the in-memory RoomInventoryService when it can answer.
+ * Booking creation still checks availability directly through BookingService.
+ */
+@Service
+public class AvailabilityService {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private RoomInventoryService roomInventoryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${roomstack.availability.cache-ttl-ms:2000}")
+    private long cacheTtlMillis;
+
+    @Value("${roomstack.availability.max-cached-results:10000}")
+    private int maxCachedResults;
+
+    // Only rooms that were ever invalidated get an entry, so reads for unknown IDs cannot grow the map
+    private final Map<String, AtomicLong> roomVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong fullFlushes = new AtomicLong();
+
+    private final Map<Key, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<Key, CachedResult> results = new ConcurrentHashMap<>();
+
+    private Counter requests;
+
+    private Counter cacheHits;
+
+    private Counter coalesced;
+
+    private Counter evaluations;
+
+    @PostConstruct
+    void init() {
+        requests = meterRegistry.counter("roomstack.availability.requests");
+        cacheHits = meterRegistry.counter("roomstack.availability.cache.hits");
+        coalesced = meterRegistry.counter("roomstack.availability.coalesced");
+        evaluations = meterRegistry.counter("roomstack.availability.evaluations");
+        Gauge.builder("roomstack.availability.coalescing.ratio", this, AvailabilityService::coalescingRatio)
+                .description("Share of availability checks answered without their own query")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check if a room is available for the given dates
+     */
+    public boolean checkAvailability(String roomId, LocalDateTime checkIn, LocalDateTime checkOut) {
+        requests.increment();
+
+        Key key = new Key(roomId, checkIn, checkOut, version(roomId));
+        long now = System.nanoTime();
+
+        CachedResult cached = results.get(key);
+        if (cached != null && cached.expiresAt - now > 0) {
+            cacheHits.increment();
+            return cached.available;
+        }
+
+        CompletableFuture<Boolean> evaluation = new CompletableFuture<>();
+        CompletableFuture<Boolean> leader = inFlight.putIfAbsent(key, evaluation);
+
+        if (leader != null) {
+            coalesced.increment();
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            evaluations.increment();
+            // The in-memory inventory answers unless it is still loading or the dates are in the past
+            Boolean inventory = roomInventoryService.isRoomAvailable(roomId, checkIn, checkOut);
+            boolean available = inventory != null ? inventory : bookingService.isRoomAvailable(roomId, checkIn, checkOut);
+
+            // Only cache if no booking changed on the room while we were evaluating
+            if (version(roomId) == key.version() && results.size() < maxCachedResults) {
+                results.put(key, new CachedResult(available,
+                        now + TimeUnit.MILLISECONDS.toNanos(cacheTtlMillis)));
+            }
+
+            evaluation.complete(available);
+            return available;
+        } catch (RuntimeException e) {
+            evaluation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, evaluation);
+        }
+    }
+
+    /**
+     * Invalidate cached availability for the room once the booking change is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        invalidateRoom(event.getRoomId());
+        if (event.getPreviousRoomId() != null) {
+            invalidateRoom(event.getPreviousRoomId());
+        }
+    }
+
+    /**
+     * Invalidate the rooms whose bookings other nodes changed, once the inventory has caught up with them
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFullFlush()) {
+            fullFlushes.incrementAndGet();
+            return;
+        }
+        event.getAffectedRoomIds().forEach(this::invalidateRoom);
+    }
+
+    /**
+     * Invalidate every cached result and in-flight evaluation for a room
+     */
+    public void invalidateRoom(String roomId) {
+        roomVersions.computeIfAbsent(roomId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Drop expired and superseded results
+     */
+    @Scheduled(fixedDelayString = "${roomstack.availability.cleanup-interval-ms:30000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        results.entrySet().removeIf(entry -> entry.getValue().expiresAt - now <= 0
+                || entry.getKey().version() != version(entry.getKey().roomId()));
+    }
+
+    /**
+     * Both counters only grow, so any invalidation of the room or full flush changes their sum
+     */
+    private long version(String roomId) {
+        AtomicLong roomVersion = roomVersions.get(roomId);
+        return fullFlushes.get() + (roomVersion == null ? 0 : roomVersion.get());
+    }
+
+    private double coalescingRatio() {
+        double total = requests.count();
+        return total == 0 ? 0 : (cacheHits.count() + coalesced.count()) / total;
+    }
+
+    private record Key(String roomId, LocalDateTime checkIn, LocalDateTime checkOut, long version) {
+    }
+
+    private record CachedResult(boolean available, long expiresAt) {
+    }
+}
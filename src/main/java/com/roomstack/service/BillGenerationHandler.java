@@ -0,0 +1,47 @@
+package com.roomstack.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.OutboxEventModel;
+import com.roomstack.repository.BillRepository;
+import com.roomstack.repository.BookingRepository;
+
+/**
+ * Generates the bill for a newly created booking
+ */
+@Component
+public class BillGenerationHandler implements OutboxEventHandler {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillService billService;
+
+    @Override
+    public boolean supports(String eventType) {
+        return OutboxService.BOOKING_CREATED.equals(eventType);
+    }
+
+    @Override
+    public void handle(OutboxEventModel event) {
+        BookingModel booking = bookingRepository.findById(event.getAggregateId()).orElse(null);
+
+        // Booking was deleted before the event was dispatched
+        if (booking == null) {
+            return;
+        }
+
+        // Redelivery: the bill already exists (the unique booking_id constraint backs this up)
+        if (billRepository.findByBookingId(booking.getId()).isPresent()) {
+            return;
+        }
+
+        billService.createBillForBooking(booking);
+    }
+}
@@ -1,22 +1,91 @@
 package com.roomstack.service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.roomstack.event.BillChangedEvent;
 import com.roomstack.model.BillModel;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.CacheInvalidationModel.EntityType;
+import com.roomstack.model.RoomModel;
+import com.roomstack.model.RoomQuote;
+import com.roomstack.model.SettlementEntry;
+import com.roomstack.model.SettlementResult;
+import com.roomstack.model.SettlementResult.Outcome;
 import com.roomstack.model.BillModel.PaymentStatus;
 import com.roomstack.repository.BillRepository;
 
+import jakarta.annotation.PostConstruct;
+
 @Service
 public class BillService {
     
+    // Compare-and-set on the status read at the start of the chunk, so a concurrent change is reported, not overwritten
+    private static final String SETTLE_BILL =
+            "UPDATE bills SET payment_status = ?, payment_date = COALESCE(?, payment_date), updated_at = ? " +
+            "WHERE id = ? AND payment_status = ?";
+    
+    private static final int[] SETTLE_BILL_TYPES =
+            { Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR };
+    
+    private static final String SETTLEMENT_CSV_HEADER = "line,billId,status,outcome,message\n";
+    
     @Autowired
     private BillRepository billRepository;
     
+    @Autowired
+    private RateCalendarService rateCalendarService;
+    
+    @Autowired
+    private CustomerStatsService customerStatsService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private InvalidationBus invalidationBus;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${roomstack.settlements.chunk-size:500}")
+    private int settlementChunkSize;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
     /**
      * Get all bills
      */
@@ -49,6 +118,7 @@ public class BillService {
             return null;
         }
         
+        PaymentStatus previousStatus = bill.getPaymentStatus();
         bill.setPaymentStatus(paymentStatus);
         
         // Set payment date if status is paid
@@ -56,7 +126,11 @@ public class BillService {
             bill.setPaymentDate(LocalDateTime.now());
         }
         
-        return billRepository.save(bill);
+        BillModel savedBill = billRepository.save(bill);
+        customerStatsService.onPaymentStatusChanged(savedBill, previousStatus);
+        eventPublisher.publishEvent(new BillChangedEvent(savedBill));
+        invalidationBus.invalidate(EntityType.bill, savedBill.getId());
+        return savedBill;
     }
     
     /**
@@ -77,12 +151,340 @@ public class BillService {
             return null;
         }
         
+        PaymentStatus previousStatus = bill.getPaymentStatus();
         bill.setPaymentStatus(status);
         
         if (status == PaymentStatus.paid) {
             bill.setPaymentDate(LocalDateTime.now());
         }
         
-        return billRepository.save(bill);
+        BillModel savedBill = billRepository.save(bill);
+        customerStatsService.onPaymentStatusChanged(savedBill, previousStatus);
+        eventPublisher.publishEvent(new BillChangedEvent(savedBill));
+        invalidationBus.invalidate(EntityType.bill, savedBill.getId());
+        return savedBill;
+    }
+    
+    /**
+     * Apply a batch of settlement entries in chunks, each chunk in its own transaction.
+     * Replaying a settlement is harmless: entries already applied come back as unchanged.
+     * @return The outcome of each entry, in order
+     */
+    public List<SettlementResult> settle(List<SettlementEntry> entries) {
+        List<SettlementResult> results = new ArrayList<>(entries.size());
+        
+        for (int from = 0; from < entries.size(); from += settlementChunkSize) {
+            List<SettlementEntry> chunk = entries.subList(from, Math.min(entries.size(), from + settlementChunkSize));
+            results.addAll(transactionTemplate.execute(status -> settleChunk(chunk)));
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Apply a CSV settlement file of billId,status[,paidAt] lines, with an optional header line.
+     * The file is read and applied one chunk at a time, and the outcome of each line is written
+     * as CSV as soon as its chunk commits, so neither side is held in memory.
+     * @return The number of entries processed
+     */
+    public long settleCsv(Reader csv, Writer out) throws IOException {
+        BufferedReader reader = new BufferedReader(csv);
+        out.write(SETTLEMENT_CSV_HEADER);
+        
+        List<SettlementEntry> entries = new ArrayList<>(settlementChunkSize);
+        List<String> parseErrors = new ArrayList<>(settlementChunkSize);
+        List<Long> lineNumbers = new ArrayList<>(settlementChunkSize);
+        long lineNumber = 0;
+        long processed = 0;
+        String line;
+        
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.trim().toLowerCase().startsWith("billid"))) {
+                continue;
+            }
+            
+            String[] fields = line.split(",", -1);
+            SettlementEntry entry = new SettlementEntry(fields[0].trim(),
+                    fields.length > 1 ? fields[1].trim() : null, null);
+            String error = null;
+            
+            if (fields.length > 3) {
+                error = "Expected billId,status[,paidAt]";
+            } else if (fields.length == 3 && !fields[2].isBlank()) {
+                try {
+                    entry.setPaidAt(LocalDateTime.parse(fields[2].trim()));
+                } catch (DateTimeParseException e) {
+                    error = "Invalid paidAt: " + fields[2].trim();
+                }
+            }
+            
+            entries.add(entry);
+            parseErrors.add(error);
+            lineNumbers.add(lineNumber);
+            
+            if (entries.size() == settlementChunkSize) {
+                processed += settleCsvChunk(entries, parseErrors, lineNumbers, out);
+            }
+        }
+        
+        processed += settleCsvChunk(entries, parseErrors, lineNumbers, out);
+        out.flush();
+        return processed;
+    }
+    
+    /**
+     * Quote a stay in a room from the rate calendar
+     */
+    public RoomQuote quote(RoomModel room, LocalDateTime checkIn, LocalDateTime checkOut) {
+        LocalDate firstNight = checkIn.toLocalDate();
+        long[] rates = rateCalendarService.nightlyRates(room, firstNight, checkOut.toLocalDate(), false);
+        
+        List<RoomQuote.NightlyRate> nights = new ArrayList<>(rates.length);
+        for (int night = 0; night < rates.length; night++) {
+            nights.add(new RoomQuote.NightlyRate(firstNight.plusDays(night), BigDecimal.valueOf(rates[night], 2)));
+        }
+        
+        BillModel bill = calculateBill(rates);
+        
+        RoomQuote quote = new RoomQuote();
+        quote.setRoomId(room.getId());
+        quote.setNights(nights);
+        quote.setRoomCharge(bill.getRoomCharge());
+        quote.setTaxAmount(bill.getTaxAmount());
+        quote.setTotal(bill.getTotal());
+        
+        return quote;
+    }
+    
+    /**
+     * Create the pending bill for a booking
+     */
+    @Transactional
+    public BillModel createBillForBooking(BookingModel booking) {
+        // The booking is already counted in the occupancy it is priced at
+        BillModel savedBill = billRepository.save(pendingBill(booking, true));
+        eventPublisher.publishEvent(new BillChangedEvent(savedBill));
+        invalidationBus.invalidate(EntityType.bill, savedBill.getId());
+        return savedBill;
+    }
+    
+    /**
+     * Create the pending bills for bookings that are not committed yet, in one batch
+     */
+    @Transactional
+    public List<BillModel> createBillsForBookings(List<BookingModel> bookings) {
+        List<BillModel> bills = new ArrayList<>(bookings.size());
+        for (BookingModel booking : bookings) {
+            BillModel bill = pendingBill(booking, false);
+            booking.setBill(bill);
+            bills.add(bill);
+        }
+        
+        List<BillModel> savedBills = billRepository.saveAll(bills);
+        savedBills.forEach(bill -> eventPublisher.publishEvent(new BillChangedEvent(bill)));
+        invalidationBus.invalidateAll(EntityType.bill, savedBills.stream().map(BillModel::getId).toList());
+        return savedBills;
+    }
+    
+    private int settleCsvChunk(List<SettlementEntry> entries, List<String> parseErrors, List<Long> lineNumbers,
+            Writer out) throws IOException {
+        List<SettlementEntry> parsed = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            if (parseErrors.get(i) == null) {
+                parsed.add(entries.get(i));
+            }
+        }
+        
+        Iterator<SettlementResult> applied = parsed.isEmpty()
+                ? List.<SettlementResult>of().iterator()
+                : transactionTemplate.execute(status -> settleChunk(parsed)).iterator();
+        
+        for (int i = 0; i < entries.size(); i++) {
+            SettlementResult result = parseErrors.get(i) == null
+                    ? applied.next()
+                    : new SettlementResult(entries.get(i), Outcome.invalid, parseErrors.get(i));
+            out.write(lineNumbers.get(i) + "," + csvField(result.getBillId()) + "," + csvField(result.getStatus())
+                    + "," + result.getOutcome() + "," + csvField(result.getMessage()) + "\n");
+        }
+        out.flush();
+        
+        int count = entries.size();
+        entries.clear();
+        parseErrors.clear();
+        lineNumbers.clear();
+        return count;
+    }
+    
+    /**
+     * Apply one chunk of settlement entries: one query reads the bills, one batched update changes them,
+     * and one batched update moves the customers' lifetime spend
+     */
+    private List<SettlementResult> settleChunk(List<SettlementEntry> entries) {
+        Set<String> ids = new HashSet<>();
+        for (SettlementEntry entry : entries) {
+            if (entry.getBillId() != null && !entry.getBillId().isBlank()) {
+                ids.add(entry.getBillId());
+            }
+        }
+        
+        Map<String, SettlementState> bills = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Object[] row : billRepository.findSettlementState(ids)) {
+                LocalDateTime createdAt = (LocalDateTime) row[5];
+                bills.put((String) row[0], new SettlementState((PaymentStatus) row[1], (BigDecimal) row[2],
+                        (String) row[3], (String) row[4], createdAt == null ? LocalDate.now() : createdAt.toLocalDate(),
+                        (String) row[6]));
+            }
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp updatedAt = Timestamp.valueOf(now);
+        List<SettlementResult> results = new ArrayList<>(entries.size());
+        List<Object[]> updates = new ArrayList<>();
+        List<SettlementResult> updated = new ArrayList<>();
+        List<SettlementState> updatedBills = new ArrayList<>();
+        List<BigDecimal> spendChanges = new ArrayList<>();
+        List<PaymentStatus> newStatuses = new ArrayList<>();
+        
+        for (SettlementEntry entry : entries) {
+            if (entry.getBillId() == null || entry.getBillId().isBlank()) {
+                results.add(new SettlementResult(entry, Outcome.invalid, "billId is required"));
+                continue;
+            }
+            
+            PaymentStatus status;
+            try {
+                status = PaymentStatus.valueOf(String.valueOf(entry.getStatus()));
+            } catch (IllegalArgumentException e) {
+                results.add(new SettlementResult(entry, Outcome.invalid, "Invalid payment status: " + entry.getStatus()));
+                continue;
+            }
+            
+            SettlementState bill = bills.get(entry.getBillId());
+            if (bill == null) {
+                results.add(new SettlementResult(entry, Outcome.not_found, "Bill not found"));
+                continue;
+            }
+            
+            if (bill.status == status) {
+                results.add(new SettlementResult(entry, Outcome.unchanged, null));
+                continue;
+            }
+            
+            Timestamp paymentDate = status != PaymentStatus.paid ? null
+                    : Timestamp.valueOf(entry.getPaidAt() != null ? entry.getPaidAt() : now);
+            updates.add(new Object[] { status.name(), paymentDate, updatedAt, entry.getBillId(), bill.status.name() });
+            
+            // Only moving into or out of paid changes the lifetime spend
+            BigDecimal spendChange = BigDecimal.ZERO;
+            if (bill.total != null && (status == PaymentStatus.paid) != (bill.status == PaymentStatus.paid)) {
+                spendChange = status == PaymentStatus.paid ? bill.total : bill.total.negate();
+            }
+            
+            // Later entries for the same bill in this chunk see this one's status
+            bill.status = status;
+            
+            SettlementResult result = new SettlementResult(entry, Outcome.applied, null);
+            results.add(result);
+            updated.add(result);
+            updatedBills.add(bill);
+            spendChanges.add(spendChange);
+            newStatuses.add(status);
+        }
+        
+        if (updates.isEmpty()) {
+            return results;
+        }
+        
+        int[] counts = jdbcTemplate.batchUpdate(SETTLE_BILL, updates, SETTLE_BILL_TYPES);
+        Map<String, BigDecimal> spendByCustomer = new HashMap<>();
+        List<String> settledBillIds = new ArrayList<>(counts.length);
+        
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                updated.get(i).setOutcome(Outcome.conflict);
+                updated.get(i).setMessage("Bill changed concurrently; retry the entry");
+                continue;
+            }
+            
+            SettlementState bill = updatedBills.get(i);
+            if (bill.customerId != null) {
+                spendByCustomer.merge(bill.customerId, spendChanges.get(i), BigDecimal::add);
+            }
+            eventPublisher.publishEvent(new BillChangedEvent(updated.get(i).getBillId(), bill.bookingId,
+                    bill.customerId, bill.billDate, bill.total, newStatuses.get(i), bill.propertyId));
+            settledBillIds.add(updated.get(i).getBillId());
+        }
+        
+        customerStatsService.addSpend(spendByCustomer);
+        invalidationBus.invalidateAll(EntityType.bill, settledBillIds);
+        return results;
+    }
+    
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+    
+    private BillModel pendingBill(BookingModel booking, boolean includesStay) {
+        long[] rates = rateCalendarService.nightlyRates(booking.getRoom(),
+                booking.getCheckIn().toLocalDate(), booking.getCheckOut().toLocalDate(), includesStay);
+        
+        BillModel bill = calculateBill(rates);
+        bill.setBooking(booking);
+        bill.setPropertyId(booking.getPropertyId()); // Kept when billed by a job working on the whole shard
+        bill.setPaymentStatus(PaymentStatus.pending);
+        return bill;
+    }
+    
+    /**
+     * Calculate bill from the nightly rates of a stay, in cents
+     */
+    private BillModel calculateBill(long[] nightlyRates) {
+        // Calculate room charge
+        long cents = 0;
+        for (long rate : nightlyRates) {
+            cents += rate;
+        }
+        BigDecimal roomCharge = BigDecimal.valueOf(cents, 2);
+        
+        // Calculate tax (10%)
+        BigDecimal taxAmount = roomCharge.multiply(BigDecimal.valueOf(0.1))
+                .setScale(2, RoundingMode.HALF_UP);
+        
+        // Calculate total
+        BigDecimal total = roomCharge.add(taxAmount);
+        
+        BillModel bill = new BillModel();
+        bill.setRoomCharge(roomCharge);
+        bill.setTaxAmount(taxAmount);
+        bill.setTotal(total);
+        
+        return bill;
+    }
+    
+    private static class SettlementState {
+        PaymentStatus status;
+        final BigDecimal total;
+        final String customerId;
+        final String bookingId;
+        final LocalDate billDate;
+        final String propertyId;
+        
+        SettlementState(PaymentStatus status, BigDecimal total, String customerId, String bookingId,
+                LocalDate billDate, String propertyId) {
+            this.status = status;
+            this.total = total;
+            this.customerId = customerId;
+            this.bookingId = bookingId;
+            this.billDate = billDate;
+            this.propertyId = propertyId;
+        }
     }
 }
@@ -0,0 +1,248 @@
+package com.roomstack.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.ShardRouter;
+import com.roomstack.event.BookingChangedEvent;
+import com.roomstack.event.BookingChangedEvent.ChangeType;
+import com.roomstack.model.ArchivedBillModel;
+import com.roomstack.model.ArchivedBookingModel;
+import com.roomstack.model.BillModel;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.ArchivedBillRepository;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.repository.RoomRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Moves finished bookings older than the archive horizon, with their bills,
+ * into bookings_archive and bills_archive, so the live tables and their
+ * indexes only hold recent and active rows. Each batch is copied with
+ * INSERT ... SELECT and deleted in the same transaction. Bookings that still
+ * owe money stay live, so receivables never reach the archive.
+ */
+@Service
+public class BookingArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingArchiveService.class);
+
+    private static final String ARCHIVE_BOOKINGS =
+            "INSERT INTO bookings_archive (id, property_id, room_id, customer_id, check_in, check_out, adults, children, " +
+            "special_requests, status, group_id, auto_assigned, created_at, updated_at, archived_at) " +
+            "SELECT id, property_id, room_id, customer_id, check_in, check_out, adults, children, " +
+            "special_requests, status, group_id, auto_assigned, created_at, updated_at, :archivedAt " +
+            "FROM bookings WHERE id IN (:ids)";
+
+    private static final String ARCHIVE_BILLS =
+            "INSERT INTO bills_archive (id, property_id, booking_id, customer_id, room_charge, tax_amount, total, " +
+            "payment_status, payment_date, created_at, updated_at, archived_at) " +
+            "SELECT bl.id, bl.property_id, bl.booking_id, bk.customer_id, bl.room_charge, bl.tax_amount, bl.total, " +
+            "bl.payment_status, bl.payment_date, bl.created_at, bl.updated_at, :archivedAt " +
+            "FROM bills bl JOIN bookings bk ON bk.id = bl.booking_id WHERE bl.booking_id IN (:ids)";
+
+    private static final String DELETE_BILLS = "DELETE FROM bills WHERE booking_id IN (:ids)";
+
+    private static final String DELETE_BOOKINGS = "DELETE FROM bookings WHERE id IN (:ids)";
+
+    private static final String SELECT_STAYS =
+            "SELECT id, room_id, customer_id, check_in, check_out, status, property_id " +
+            "FROM bookings WHERE id IN (:ids)";
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ArchivedBillRepository archivedBillRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${roomstack.archive.horizon-days:365}")
+    private int horizonDays;
+
+    @Value("${roomstack.archive.batch-size:1000}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Archive on schedule, off-peak
+     */
+    @Scheduled(cron = "${roomstack.archive.cron:0 0 3 * * *}")
+    public void archiveScheduled() {
+        shardRouter.forEachShard(this::archive);
+    }
+
+    /**
+     * Archive every finished booking that checked out before the horizon, one batch per transaction
+     * @return The number of bookings archived
+     */
+    public synchronized int archive() {
+        LocalDateTime cutoff = cutoff();
+        int archived = 0;
+        int moved;
+
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            archived += moved;
+        } while (moved > 0);
+
+        if (archived > 0) {
+            log.info("Archived {} bookings that checked out before {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    /**
+     * Whether a read starting at this time can reach archived bookings
+     * @param from Start of the read's date range; null for unbounded
+     */
+    public boolean reachesArchive(LocalDateTime from) {
+        return from == null || from.isBefore(cutoff());
+    }
+
+    /**
+     * Turn archived rows back into read-only bookings, with their room, customer and bill where those still exist
+     */
+    public List<BookingModel> toBookings(List<ArchivedBookingModel> archived) {
+        if (archived.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> roomIds = new HashSet<>();
+        Set<String> customerIds = new HashSet<>();
+        Set<String> bookingIds = new HashSet<>();
+        for (ArchivedBookingModel booking : archived) {
+            roomIds.add(booking.getRoomId());
+            customerIds.add(booking.getCustomerId());
+            bookingIds.add(booking.getId());
+        }
+
+        Map<String, RoomModel> rooms = new HashMap<>();
+        roomRepository.findAllById(roomIds).forEach(room -> rooms.put(room.getId(), room));
+        Map<String, CustomerModel> customers = new HashMap<>();
+        customerRepository.findAllById(customerIds).forEach(customer -> customers.put(customer.getId(), customer));
+        Map<String, ArchivedBillModel> bills = new HashMap<>();
+        archivedBillRepository.findByBookingIdIn(bookingIds).forEach(bill -> bills.put(bill.getBookingId(), bill));
+
+        List<BookingModel> bookings = new ArrayList<>(archived.size());
+        for (ArchivedBookingModel row : archived) {
+            BookingModel booking = new BookingModel();
+            booking.setId(row.getId());
+            booking.setPropertyId(row.getPropertyId());
+            booking.setRoom(rooms.get(row.getRoomId()));
+            booking.setCustomer(customers.get(row.getCustomerId()));
+            booking.setCheckIn(row.getCheckIn());
+            booking.setCheckOut(row.getCheckOut());
+            booking.setAdults(row.getAdults());
+            booking.setChildren(row.getChildren());
+            booking.setSpecialRequests(row.getSpecialRequests());
+            booking.setStatus(row.getStatus());
+            booking.setGroupId(row.getGroupId());
+            booking.setAutoAssigned(row.isAutoAssigned());
+            booking.setCreatedAt(row.getCreatedAt());
+            booking.setUpdatedAt(row.getUpdatedAt());
+
+            ArchivedBillModel archivedBill = bills.get(row.getId());
+            if (archivedBill != null) {
+                BillModel bill = new BillModel();
+                bill.setId(archivedBill.getId());
+                bill.setPropertyId(archivedBill.getPropertyId());
+                bill.setBooking(booking);
+                bill.setRoomCharge(archivedBill.getRoomCharge());
+                bill.setTaxAmount(archivedBill.getTaxAmount());
+                bill.setTotal(archivedBill.getTotal());
+                bill.setPaymentStatus(archivedBill.getPaymentStatus());
+                bill.setPaymentDate(archivedBill.getPaymentDate());
+                bill.setCreatedAt(archivedBill.getCreatedAt());
+                bill.setUpdatedAt(archivedBill.getUpdatedAt());
+                booking.setBill(bill);
+            }
+
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<String> ids = bookingRepository.findArchivableIds(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("archivedAt", LocalDateTime.now());
+
+        // Copy first, then delete the bills before the bookings they reference
+        namedParameterJdbcTemplate.update(ARCHIVE_BOOKINGS, params);
+        namedParameterJdbcTemplate.update(ARCHIVE_BILLS, params);
+        namedParameterJdbcTemplate.update(DELETE_BILLS, params);
+        publishArchived(params);
+        return namedParameterJdbcTemplate.update(DELETE_BOOKINGS, params);
+    }
+
+    /**
+     * Publish an archived change for each booking of the batch, so the journal and the in-memory views drop it
+     * once the batch commits
+     */
+    private void publishArchived(MapSqlParameterSource params) {
+        namedParameterJdbcTemplate.query(SELECT_STAYS, params, (RowCallbackHandler) rs -> {
+            BookingStatus status = BookingStatus.valueOf(rs.getString("status"));
+            eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.archived, rs.getString("id"),
+                    rs.getString("room_id"), rs.getString("customer_id"),
+                    rs.getTimestamp("check_in").toLocalDateTime(), rs.getTimestamp("check_out").toLocalDateTime(),
+                    status, status, rs.getString("property_id")));
+        });
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDate.now().minusDays(horizonDays).atStartOfDay();
+    }
+}
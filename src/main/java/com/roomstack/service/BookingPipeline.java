@@ -0,0 +1,356 @@
+package com.roomstack.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.config.ShardRouter;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional single-writer path for new bookings. Commands are partitioned by
+ * property and room over a fixed set of workers, so the requests for a room
+ * are only ever decided by one thread of this node. A worker takes whatever
+ * has queued up, decides each command against the stays it holds in memory,
+ * commits the admitted bookings and their bills in one transaction and then
+ * completes the callers' futures.
+ *
+ * <p>Group bookings, moves and other nodes write the same rooms, so a worker
+ * reads the stays of its batch's rooms afresh under the rooms' locks rather
+ * than trusting them across batches. Those are the row locks every other
+ * admission path takes too, so nodes with and without the pipeline can
+ * share rooms. A hot room then costs one lock, one read and one commit per
+ * batch instead of a lease, a lock, a read and a commit per request.</p>
+ */
+@Service
+public class BookingPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingPipeline.class);
+
+    /**
+     * What became of a booking command
+     */
+    public enum Outcome {
+        created,
+        conflict,
+        not_found
+    }
+
+    /**
+     * The reply to a booking command; booking is set when it was created
+     */
+    public record Admission(Outcome outcome, BookingModel booking) {
+    }
+
+    /**
+     * Thrown when a command is not queued, because its worker's queue is full or the pipeline is stopping
+     */
+    public static class RejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        RejectedException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${roomstack.bookings.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${roomstack.bookings.pipeline.workers:4}")
+    private int workerCount;
+
+    @Value("${roomstack.bookings.pipeline.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${roomstack.bookings.pipeline.max-batch:64}")
+    private int maxBatch;
+
+    private final List<Worker> workers = new ArrayList<>();
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter rejected;
+
+    private DistributionSummary batchSize;
+
+    private Timer commitTime;
+
+    private Timer latency;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        rejected = meterRegistry.counter("roomstack.bookings.pipeline.rejected");
+        batchSize = DistributionSummary.builder("roomstack.bookings.pipeline.batch.size")
+                .description("Booking commands decided and committed together")
+                .register(meterRegistry);
+        commitTime = Timer.builder("roomstack.bookings.pipeline.commit")
+                .description("Time to decide and commit one batch of a property")
+                .register(meterRegistry);
+        latency = Timer.builder("roomstack.bookings.pipeline.latency")
+                .description("Time from a booking command being queued to its reply")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker(new ArrayBlockingQueue<>(queueCapacity), "booking-pipeline-" + i);
+            workers.add(worker);
+            worker.thread.start();
+        }
+        Gauge.builder("roomstack.bookings.pipeline.queued", workers,
+                        all -> all.stream().mapToInt(worker -> worker.queue.size()).sum())
+                .description("Booking commands waiting for their worker")
+                .register(meterRegistry);
+        log.info("Booking pipeline started with {} workers", workerCount);
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.forEach(worker -> worker.thread.interrupt());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a booking for the worker that owns its room
+     * @return Completed once the booking is committed or turned down
+     * @throws RejectedException If the worker's queue is full
+     */
+    public CompletableFuture<Admission> submit(BookingModel booking, String roomId, String customerId) {
+        String propertyId = shardRouter.currentProperty();
+        Command command = new Command(propertyId, roomId, customerId, booking, System.nanoTime(),
+                new CompletableFuture<>());
+
+        Worker worker = workers.get(Math.floorMod((propertyId + "/" + roomId).hashCode(), workers.size()));
+        if (!worker.queue.offer(command)) {
+            rejected.increment();
+            throw new RejectedException("Too many bookings are waiting for room " + roomId);
+        }
+        return command.reply();
+    }
+
+    /**
+     * Decide and commit one batch, property by property
+     */
+    private void process(List<Command> batch) {
+        batchSize.record(batch.size());
+        Map<String, List<Command>> byProperty = batch.stream()
+                .collect(Collectors.groupingBy(Command::propertyId, LinkedHashMap::new, Collectors.toList()));
+
+        byProperty.forEach((propertyId, commands) -> {
+            try {
+                reply(commands, commit(propertyId, commands));
+            } catch (RuntimeException e) {
+                if (commands.size() == 1) {
+                    fail(commands.get(0), e);
+                    return;
+                }
+                // One bad command must not fail the others, so each gets a transaction of its own
+                log.warn("Booking batch of {} commands failed; committing them one by one", commands.size(), e);
+                for (Command command : commands) {
+                    try {
+                        reply(List.of(command), commit(propertyId, List.of(command)));
+                    } catch (RuntimeException single) {
+                        fail(command, single);
+                    }
+                }
+            }
+        });
+    }
+
+    private List<Admission> commit(String propertyId, List<Command> commands) {
+        return commitTime.record(() -> PropertyContext.callAs(propertyId,
+                () -> transactionTemplate.execute(status -> decide(commands))));
+    }
+
+    /**
+     * Lock the batch's rooms, read their stays into memory and decide the commands in arrival order
+     */
+    private List<Admission> decide(List<Command> commands) {
+        Set<String> roomIds = commands.stream().map(Command::roomId).collect(Collectors.toSet());
+        Set<String> customerIds = commands.stream().map(Command::customerId).collect(Collectors.toSet());
+
+        Map<String, RoomModel> rooms = bookingService.lockRooms(roomIds);
+        Map<String, CustomerModel> customers = new HashMap<>();
+        customerRepository.findAllById(customerIds).forEach(customer -> customers.put(customer.getId(), customer));
+
+        LocalDateTime from = commands.stream().map(command -> command.booking().getCheckIn())
+                .min(LocalDateTime::compareTo).orElseThrow();
+        LocalDateTime to = commands.stream().map(command -> command.booking().getCheckOut())
+                .max(LocalDateTime::compareTo).orElseThrow();
+        Map<String, List<LocalDateTime[]>> stays = new HashMap<>();
+        for (Object[] row : bookingRepository.findActiveStaysForRooms(roomIds, from, to)) {
+            stays.computeIfAbsent((String) row[1], room -> new ArrayList<>())
+                    .add(new LocalDateTime[] { (LocalDateTime) row[2], (LocalDateTime) row[3] });
+        }
+
+        List<Admission> admissions = new ArrayList<>(commands.size());
+        List<BookingModel> admitted = new ArrayList<>();
+        for (Command command : commands) {
+            RoomModel room = rooms.get(command.roomId());
+            CustomerModel customer = customers.get(command.customerId());
+            if (room == null || customer == null) {
+                admissions.add(new Admission(Outcome.not_found, null));
+                continue;
+            }
+
+            List<LocalDateTime[]> roomStays = stays.computeIfAbsent(room.getId(), id -> new ArrayList<>());
+            if (overlaps(roomStays, command.booking().getCheckIn(), command.booking().getCheckOut())) {
+                admissions.add(new Admission(Outcome.conflict, null));
+                continue;
+            }
+
+            // A fresh entity per attempt: one saved in a rolled-back batch keeps its generated ID and bill
+            BookingModel booking = copyRequest(command.booking());
+            booking.setRoom(room);
+            booking.setCustomer(customer);
+            booking.setStatus(BookingStatus.confirmed);
+            roomStays.add(new LocalDateTime[] { booking.getCheckIn(), booking.getCheckOut() });
+            admitted.add(booking);
+            admissions.add(new Admission(Outcome.created, booking));
+        }
+
+        if (!admitted.isEmpty()) {
+            bookingService.saveAdmittedBookings(admitted);
+            // The reply is written after this transaction, so the rooms' lazy collections are loaded now
+            admitted.forEach(booking -> {
+                Hibernate.initialize(booking.getRoom().getBeds());
+                Hibernate.initialize(booking.getRoom().getFeatures());
+            });
+        }
+        return admissions;
+    }
+
+    /**
+     * A new booking with the fields the client asked for
+     */
+    private static BookingModel copyRequest(BookingModel request) {
+        BookingModel booking = new BookingModel();
+        booking.setCheckIn(request.getCheckIn());
+        booking.setCheckOut(request.getCheckOut());
+        booking.setAdults(request.getAdults());
+        booking.setChildren(request.getChildren());
+        booking.setSpecialRequests(request.getSpecialRequests());
+        return booking;
+    }
+
+    /**
+     * Same inclusive bounds as BookingRepository.findOverlappingBookings
+     */
+    private static boolean overlaps(List<LocalDateTime[]> stays, LocalDateTime checkIn, LocalDateTime checkOut) {
+        for (LocalDateTime[] stay : stays) {
+            if (!checkIn.isAfter(stay[1]) && !stay[0].isAfter(checkOut)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reply(List<Command> commands, List<Admission> admissions) {
+        for (int i = 0; i < commands.size(); i++) {
+            Command command = commands.get(i);
+            latency.record(System.nanoTime() - command.queuedAt(), TimeUnit.NANOSECONDS);
+            command.reply().complete(admissions.get(i));
+        }
+    }
+
+    private void fail(Command command, RuntimeException e) {
+        latency.record(System.nanoTime() - command.queuedAt(), TimeUnit.NANOSECONDS);
+        command.reply().completeExceptionally(e);
+    }
+
+    private record Command(String propertyId, String roomId, String customerId, BookingModel booking,
+            long queuedAt, CompletableFuture<Admission> reply) {
+    }
+
+    /**
+     * One single-writer thread and its queue
+     */
+    private class Worker implements Runnable {
+
+        final BlockingQueue<Command> queue;
+
+        final Thread thread;
+
+        Worker(BlockingQueue<Command> queue, String name) {
+            this.queue = queue;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(maxBatch);
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatch - 1);
+                    process(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Stopping: commands still queued are turned away so their callers do not hang
+                batch.addAll(queue);
+                batch.forEach(command -> command.reply().completeExceptionally(
+                        new RejectedException("The booking pipeline is stopping")));
+            }
+        }
+    }
+}
@@ -1,22 +1,34 @@
 package com.roomstack.service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.roomstack.event.BookingChangedEvent;
+import com.roomstack.event.BookingChangedEvent.ChangeType;
+import com.roomstack.model.ArchivedBookingModel;
 import com.roomstack.model.BillModel;
 import com.roomstack.model.BookingModel;
+import com.roomstack.model.CacheInvalidationModel.EntityType;
 import com.roomstack.model.CustomerModel;
+import com.roomstack.model.GroupBookingRequest;
+import com.roomstack.model.GroupBookingResult;
 import com.roomstack.model.RoomModel;
-import com.roomstack.model.BillModel.PaymentStatus;
 import com.roomstack.model.BookingModel.BookingStatus;
-import com.roomstack.repository.BillRepository;
+import com.roomstack.repository.ArchivedBookingRepository;
 import com.roomstack.repository.BookingRepository;
 import com.roomstack.repository.CustomerRepository;
 import com.roomstack.repository.RoomRepository;
@@ -24,6 +36,22 @@ import com.roomstack.repository.RoomRepository;
 @Service
 public class BookingService {
     
+    // Bounds for a date range left open on one side
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    
+    /**
+     * Thrown when a room turns out to be booked for an overlapping stay once it is locked
+     */
+    public static class RoomUnavailableException extends RuntimeException {
+        
+        private static final long serialVersionUID = 1L;
+        
+        RoomUnavailableException(String roomId) {
+            super("Room " + roomId + " is not available for these dates", null, false, false);
+        }
+    }
+    
     @Autowired
     private BookingRepository bookingRepository;
     
@@ -34,7 +62,28 @@ public class BookingService {
     private CustomerRepository customerRepository;
     
     @Autowired
-    private BillRepository billRepository;
+    private OutboxService outboxService;
+    
+    @Autowired
+    private BillService billService;
+    
+    @Autowired
+    private CustomerStatsService customerStatsService;
+    
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+    
+    @Autowired
+    private BookingArchiveService bookingArchiveService;
+    
+    @Autowired
+    private InvalidationBus invalidationBus;
+    
+    @Autowired
+    private RoomLeaseService roomLeaseService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     /**
      * Get all bookings
@@ -51,18 +100,29 @@ public class BookingService {
     }
     
     /**
-     * Create a new booking and associated bill
+     * Create a new booking; its bill is generated from the outbox.
+     * The room is locked, then checked for overlapping bookings, as on every other admission path.
+     * @param lease The caller's lease on the room; fenced in this transaction
+     * @throws RoomUnavailableException If the room is booked for an overlapping stay
      */
     @Transactional
-    public BookingModel createBooking(BookingModel booking, String roomId, String customerId) {
+    public BookingModel createBooking(BookingModel booking, String roomId, String customerId,
+            RoomLeaseService.Lease lease) {
+        // A lease that expired meanwhile may have let another request on this room in
+        roomLeaseService.fence(lease);
+        
         // Get room and customer
-        RoomModel room = roomRepository.findById(roomId).orElse(null);
+        RoomModel room = lockRooms(List.of(roomId)).get(roomId);
         CustomerModel customer = customerRepository.findById(customerId).orElse(null);
         
         if (room == null || customer == null) {
             return null;
         }
         
+        if (!isRoomAvailable(roomId, booking.getCheckIn(), booking.getCheckOut())) {
+            throw new RoomUnavailableException(roomId);
+        }
+        
         // Set room and customer
         booking.setRoom(room);
         booking.setCustomer(customer);
@@ -77,15 +137,206 @@ public class BookingService {
         // Save booking
         BookingModel savedBooking = bookingRepository.save(booking);
         
-        // Calculate and create bill
-        BillModel bill = calculateBill(booking, room.getPricePerNight());
-        bill.setBooking(savedBooking);
-        bill.setPaymentStatus(PaymentStatus.pending);
-        billRepository.save(bill);
+        // Bill is generated asynchronously from the outbox once this transaction commits
+        outboxService.enqueue(OutboxService.AGGREGATE_BOOKING, savedBooking.getId(),
+                OutboxService.BOOKING_CREATED, null);
+        
+        eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.created, savedBooking, null));
+        invalidationBus.invalidate(EntityType.booking, savedBooking.getId(), room.getId());
         
         return savedBooking;
     }
     
+    /**
+     * Book every room of a group, with its bill, in one transaction, or none of them.
+     * The rooms are locked, then checked for overlapping bookings with one query.
+     * @return The group and its consolidated bill; unavailableRoomIds is set and nothing is booked
+     *         if any room is taken, and null is returned if the customer or a room does not exist
+     */
+    @Transactional
+    public GroupBookingResult createGroupBooking(GroupBookingRequest request) {
+        CustomerModel customer = customerRepository.findById(request.getCustomerId()).orElse(null);
+        
+        Set<String> roomIds = new HashSet<>();
+        request.getRooms().forEach(room -> roomIds.add(room.getRoomId()));
+        
+        Map<String, RoomModel> rooms = lockRooms(roomIds);
+        
+        if (customer == null || rooms.size() != roomIds.size()) {
+            return null;
+        }
+        
+        List<String> unavailableRoomIds = bookingRepository.findUnavailableRoomIds(
+                roomIds, request.getCheckIn(), request.getCheckOut());
+        if (!unavailableRoomIds.isEmpty()) {
+            GroupBookingResult result = new GroupBookingResult();
+            result.setUnavailableRoomIds(unavailableRoomIds);
+            return result;
+        }
+        
+        String groupId = UUID.randomUUID().toString();
+        List<BookingModel> bookings = new ArrayList<>();
+        for (GroupBookingRequest.RoomRequest roomRequest : request.getRooms()) {
+            BookingModel booking = new BookingModel();
+            booking.setRoom(rooms.get(roomRequest.getRoomId()));
+            booking.setCustomer(customer);
+            booking.setCheckIn(request.getCheckIn());
+            booking.setCheckOut(request.getCheckOut());
+            booking.setAdults(roomRequest.getAdults());
+            booking.setChildren(roomRequest.getChildren());
+            booking.setSpecialRequests(roomRequest.getSpecialRequests());
+            booking.setStatus(BookingStatus.confirmed);
+            booking.setGroupId(groupId);
+            bookings.add(booking);
+        }
+        
+        // Update room status, as for a single booking
+        rooms.values().forEach(room -> room.setStatus("occupied"));
+        roomRepository.saveAll(rooms.values());
+        
+        List<BookingModel> savedBookings = bookingRepository.saveAll(bookings);
+        
+        // Bills are created here rather than from the outbox, so the group is billed atomically;
+        // nothing else handles BOOKING_CREATED, so no outbox event is enqueued for these bookings
+        billService.createBillsForBookings(savedBookings);
+        
+        for (BookingModel savedBooking : savedBookings) {
+            eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.created, savedBooking, null));
+            invalidationBus.invalidate(EntityType.booking, savedBooking.getId(), savedBooking.getRoom().getId());
+        }
+        
+        return groupResult(groupId, savedBookings);
+    }
+    
+    /**
+     * Save bookings the booking pipeline admitted, with their bills, in the caller's transaction.
+     * The rooms must be locked and the bookings checked for overlaps already.
+     */
+    @Transactional
+    public List<BookingModel> saveAdmittedBookings(List<BookingModel> bookings) {
+        Map<String, RoomModel> rooms = new HashMap<>();
+        bookings.forEach(booking -> rooms.put(booking.getRoom().getId(), booking.getRoom()));
+        rooms.values().forEach(room -> room.setStatus("occupied"));
+        roomRepository.saveAll(rooms.values());
+        
+        List<BookingModel> savedBookings = bookingRepository.saveAll(bookings);
+        
+        // Billed here rather than from the outbox, as for a group, so each batch commits in one go
+        // and without a BOOKING_CREATED event
+        billService.createBillsForBookings(savedBookings);
+        
+        for (BookingModel savedBooking : savedBookings) {
+            eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.created, savedBooking, null));
+            invalidationBus.invalidate(EntityType.booking, savedBooking.getId(), savedBooking.getRoom().getId());
+        }
+        
+        return savedBookings;
+    }
+    
+    /**
+     * Get the bookings of a group and their consolidated bill
+     */
+    public GroupBookingResult getGroupBooking(String groupId) {
+        List<BookingModel> bookings = bookingRepository.findByGroupId(groupId);
+        
+        return bookings.isEmpty() ? null : groupResult(groupId, bookings);
+    }
+    
+    /**
+     * Create bookings placed by the room assignment engine, in one transaction.
+     * A booking is skipped if its room got an overlapping booking the engine did not see.
+     * @param knownBookingIds IDs of the bookings the engine planned around
+     * @return The bookings that were created
+     */
+    @Transactional
+    public List<BookingModel> createAssignedBookings(List<BookingModel> bookings, Set<String> knownBookingIds) {
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+        
+        Set<String> roomIds = new HashSet<>();
+        bookings.forEach(booking -> roomIds.add(booking.getRoom().getId()));
+        lockRooms(roomIds);
+        
+        List<Object[]> unknownStays = findUnknownStays(bookings, knownBookingIds);
+        
+        List<BookingModel> accepted = new ArrayList<>();
+        Map<String, RoomModel> rooms = new HashMap<>();
+        for (BookingModel booking : bookings) {
+            if (!overlapsAny(booking, booking.getRoom().getId(), unknownStays)) {
+                booking.setStatus(BookingStatus.confirmed);
+                booking.setAutoAssigned(true);
+                accepted.add(booking);
+                rooms.put(booking.getRoom().getId(), booking.getRoom());
+            }
+        }
+        
+        // Update room status, as for a single booking
+        rooms.values().forEach(room -> room.setStatus("occupied"));
+        roomRepository.saveAll(rooms.values());
+        
+        List<BookingModel> savedBookings = bookingRepository.saveAll(accepted);
+        
+        for (BookingModel savedBooking : savedBookings) {
+            outboxService.enqueue(OutboxService.AGGREGATE_BOOKING, savedBooking.getId(),
+                    OutboxService.BOOKING_CREATED, null);
+            eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.created, savedBooking, null));
+            invalidationBus.invalidate(EntityType.booking, savedBooking.getId(), savedBooking.getRoom().getId());
+        }
+        
+        return savedBookings;
+    }
+    
+    /**
+     * Move bookings to other rooms, in one transaction.
+     * A move is skipped if the target room got an overlapping booking the engine did not see.
+     * @param roomIdsByBookingId Target room ID of each booking to move
+     * @param knownBookingIds IDs of the bookings the engine planned around
+     * @return The bookings that were moved
+     */
+    @Transactional
+    public List<BookingModel> moveBookings(Map<String, String> roomIdsByBookingId, Set<String> knownBookingIds) {
+        if (roomIdsByBookingId.isEmpty()) {
+            return List.of();
+        }
+        
+        // Only the target rooms gain stays, so only they are locked
+        Map<String, RoomModel> rooms = lockRooms(new HashSet<>(roomIdsByBookingId.values()));
+        
+        List<BookingModel> bookings = bookingRepository.findAllById(roomIdsByBookingId.keySet());
+        List<BookingModel> targets = new ArrayList<>();
+        for (BookingModel booking : bookings) {
+            BookingModel target = new BookingModel();
+            target.setRoom(rooms.get(roomIdsByBookingId.get(booking.getId())));
+            target.setCheckIn(booking.getCheckIn());
+            target.setCheckOut(booking.getCheckOut());
+            targets.add(target);
+        }
+        List<Object[]> unknownStays = findUnknownStays(targets, knownBookingIds);
+        
+        List<BookingModel> moved = new ArrayList<>();
+        for (BookingModel booking : bookings) {
+            RoomModel room = rooms.get(roomIdsByBookingId.get(booking.getId()));
+            if (room == null || booking.getStatus() != BookingStatus.confirmed
+                    || overlapsAny(booking, room.getId(), unknownStays)) {
+                continue;
+            }
+            
+            String previousRoomId = booking.getRoom().getId();
+            booking.setRoom(room);
+            BookingModel savedBooking = bookingRepository.save(booking);
+            
+            eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.room_changed, savedBooking,
+                    savedBooking.getStatus(), previousRoomId));
+            // Both rooms' availability changes
+            invalidationBus.invalidate(EntityType.booking, savedBooking.getId(), room.getId());
+            invalidationBus.invalidate(EntityType.booking, savedBooking.getId(), previousRoomId);
+            moved.add(savedBooking);
+        }
+        
+        return moved;
+    }
+    
     /**
      * Update booking status
      */
@@ -97,6 +348,7 @@ public class BookingService {
             return null;
         }
         
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(status);
         
         // Update room status based on booking status
@@ -110,12 +362,19 @@ public class BookingService {
                 break;
             case checked_out:
             case cancelled:
+            case no_show:
                 room.setStatus("available");
                 break;
         }
         
         roomRepository.save(room);
-        return bookingRepository.save(booking);
+        BookingModel savedBooking = bookingRepository.save(booking);
+        customerStatsService.onStatusChanged(savedBooking, previousStatus);
+        
+        eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.status_changed, savedBooking, previousStatus));
+        invalidationBus.invalidate(EntityType.booking, savedBooking.getId(), room.getId());
+        
+        return savedBooking;
     }
     
     /**
@@ -137,39 +396,24 @@ public class BookingService {
         }
         
         bookingRepository.delete(booking);
+        customerStatsService.onBookingDeleted(booking);
+        
+        eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.deleted, booking, booking.getStatus()));
+        invalidationBus.invalidate(EntityType.booking, booking.getId(), booking.getRoom().getId());
+        
         return true;
     }
     
     /**
-     * Calculate bill from booking details
+     * Lock rooms for the rest of the transaction, in ID order. Every path that admits stays
+     * locks the rooms before its overlap check, so admissions on a room never interleave,
+     * whichever node runs them.
+     * @return The rooms that exist, by ID
      */
-    private BillModel calculateBill(BookingModel booking, double pricePerNight) {
-        // Calculate number of nights
-        long nights = ChronoUnit.DAYS.between(
-                booking.getCheckIn().toLocalDate(), 
-                booking.getCheckOut().toLocalDate());
-        
-        // Ensure at least 1 night is charged
-        nights = Math.max(1, nights);
-        
-        // Calculate room charge
-        BigDecimal roomCharge = BigDecimal.valueOf(pricePerNight)
-                .multiply(BigDecimal.valueOf(nights))
-                .setScale(2, RoundingMode.HALF_UP);
-        
-        // Calculate tax (10%)
-        BigDecimal taxAmount = roomCharge.multiply(BigDecimal.valueOf(0.1))
-                .setScale(2, RoundingMode.HALF_UP);
-        
-        // Calculate total
-        BigDecimal total = roomCharge.add(taxAmount);
-        
-        BillModel bill = new BillModel();
-        bill.setRoomCharge(roomCharge);
-        bill.setTaxAmount(taxAmount);
-        bill.setTotal(total);
-        
-        return bill;
+    public Map<String, RoomModel> lockRooms(Collection<String> roomIds) {
+        Map<String, RoomModel> rooms = new HashMap<>();
+        roomRepository.findAllByIdForUpdate(roomIds).forEach(room -> rooms.put(room.getId(), room));
+        return rooms;
     }
     
     /**
@@ -182,6 +426,58 @@ public class BookingService {
         return overlaps.isEmpty();
     }
     
+    /**
+     * Get bookings whose stay overlaps a date range, including archived ones if the range reaches back that far
+     */
+    public List<BookingModel> getBookingsByStay(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LATEST;
+        return withArchive(bookingRepository.findByStay(start, end), from,
+                () -> archivedBookingRepository.findByStay(start, end));
+    }
+    
+    /**
+     * Get bookings by status whose stay overlaps a date range, including archived ones if the range reaches back that far
+     */
+    public List<BookingModel> getBookingsByStatus(BookingStatus status, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return getBookingsByStatus(status);
+        }
+        
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LATEST;
+        return withArchive(bookingRepository.findByStatusAndStay(status, start, end), from,
+                () -> archivedBookingRepository.findByStatusAndStay(status, start, end));
+    }
+    
+    /**
+     * Get bookings for a room whose stay overlaps a date range, including archived ones if the range reaches back that far
+     */
+    public List<BookingModel> getBookingsByRoom(String roomId, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return getBookingsByRoom(roomId);
+        }
+        
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LATEST;
+        return withArchive(bookingRepository.findByRoomAndStay(roomId, start, end), from,
+                () -> archivedBookingRepository.findByRoomAndStay(roomId, start, end));
+    }
+    
+    /**
+     * Get bookings for a customer whose stay overlaps a date range, including archived ones if the range reaches back that far
+     */
+    public List<BookingModel> getBookingsByCustomer(String customerId, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return getBookingsByCustomer(customerId);
+        }
+        
+        LocalDateTime start = from != null ? from : EARLIEST;
+        LocalDateTime end = to != null ? to : LATEST;
+        return withArchive(bookingRepository.findByCustomerAndStay(customerId, start, end), from,
+                () -> archivedBookingRepository.findByCustomerAndStay(customerId, start, end));
+    }
+    
     /**
      * Get bookings by status
      */
@@ -214,4 +510,76 @@ public class BookingService {
         
         return bookingRepository.findByCustomer(customer);
     }
+    
+    private List<BookingModel> withArchive(List<BookingModel> live, LocalDateTime from,
+            Supplier<List<ArchivedBookingModel>> archived) {
+        if (!bookingArchiveService.reachesArchive(from)) {
+            return live;
+        }
+        
+        List<BookingModel> bookings = new ArrayList<>(live);
+        bookings.addAll(bookingArchiveService.toBookings(archived.get()));
+        return bookings;
+    }
+    
+    private GroupBookingResult groupResult(String groupId, List<BookingModel> bookings) {
+        BigDecimal roomCharge = BigDecimal.ZERO;
+        BigDecimal taxAmount = BigDecimal.ZERO;
+        BigDecimal total = BigDecimal.ZERO;
+        
+        for (BookingModel booking : bookings) {
+            BillModel bill = booking.getBill();
+            if (bill != null) {
+                roomCharge = roomCharge.add(bill.getRoomCharge());
+                taxAmount = taxAmount.add(bill.getTaxAmount());
+                total = total.add(bill.getTotal());
+            }
+        }
+        
+        GroupBookingResult result = new GroupBookingResult();
+        result.setGroupId(groupId);
+        result.setBookings(bookings);
+        result.setRoomCharge(roomCharge);
+        result.setTaxAmount(taxAmount);
+        result.setTotal(total);
+        return result;
+    }
+    
+    /**
+     * Stays in the rooms of the given bookings, around their dates, that are not among the known bookings
+     */
+    private List<Object[]> findUnknownStays(Collection<BookingModel> bookings, Set<String> knownBookingIds) {
+        Set<String> roomIds = new HashSet<>();
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        for (BookingModel booking : bookings) {
+            if (booking.getRoom() == null) {
+                continue;
+            }
+            roomIds.add(booking.getRoom().getId());
+            start = start == null || booking.getCheckIn().isBefore(start) ? booking.getCheckIn() : start;
+            end = end == null || booking.getCheckOut().isAfter(end) ? booking.getCheckOut() : end;
+        }
+        if (roomIds.isEmpty()) {
+            return List.of();
+        }
+        
+        List<Object[]> stays = new ArrayList<>(bookingRepository.findActiveStaysForRooms(roomIds, start, end));
+        stays.removeIf(stay -> knownBookingIds.contains((String) stay[0]));
+        return stays;
+    }
+    
+    /**
+     * Whether a booking would overlap one of the stays in a room; bounds are inclusive, as in findOverlappingBookings
+     */
+    private static boolean overlapsAny(BookingModel booking, String roomId, List<Object[]> stays) {
+        for (Object[] stay : stays) {
+            if (roomId.equals(stay[1])
+                    && !booking.getCheckIn().isAfter((LocalDateTime) stay[3])
+                    && !((LocalDateTime) stay[2]).isAfter(booking.getCheckOut())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
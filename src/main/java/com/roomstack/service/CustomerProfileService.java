@@ -0,0 +1,232 @@
+package com.roomstack.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.model.BillModel;
+import com.roomstack.model.BillModel.PaymentStatus;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.CustomerProfile;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.ArchivedBookingRepository;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Builds a customer's profile in one call: the customer, their live bookings
+ * with rooms and bills, and their archived bookings with archived bills are
+ * loaded concurrently on a dedicated executor, each stage in its own
+ * read-only transaction with a fixed number of set-based queries, whatever
+ * the number of bookings. Live bills are fetched with their bookings, since
+ * the booking-bill association loads eagerly either way.
+ */
+@Service
+public class CustomerProfileService {
+
+    private static final String CUSTOMER_STAGE = "customer";
+
+    private static final String BOOKINGS_STAGE = "bookings";
+
+    private static final String ARCHIVE_STAGE = "archive";
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private BookingArchiveService bookingArchiveService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${roomstack.profile.threads:6}")
+    private int threads;
+
+    @Value("${roomstack.profile.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${roomstack.profile.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private final Map<String, Timer> stageTimers = new LinkedHashMap<>();
+
+    private Timer totalTime;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger count = new AtomicInteger();
+        // Bounded queue: when saturated, profiles fail fast instead of piling up behind slow queries
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "customer-profile-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        for (String stage : List.of(CUSTOMER_STAGE, BOOKINGS_STAGE, ARCHIVE_STAGE)) {
+            stageTimers.put(stage, Timer.builder("roomstack.profile.stage")
+                    .description("Time to load one stage of a customer profile")
+                    .tag("stage", stage)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+        totalTime = Timer.builder("roomstack.profile.latency")
+                .description("Time to build a customer profile, all stages included")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Load a customer's profile at the current property
+     * @param customerId The customer ID
+     * @return The profile, or empty if the customer does not exist
+     * @throws IllegalStateException If the executor is saturated, or a stage fails or does not finish within the timeout
+     */
+    public Optional<CustomerProfile> getProfile(String customerId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Future<?>> pending = new ArrayList<>(3);
+        try {
+            Future<Optional<CustomerModel>> customer = submit(pending, CUSTOMER_STAGE,
+                    () -> customerRepository.findById(customerId));
+            Future<List<BookingModel>> bookings = submit(pending, BOOKINGS_STAGE,
+                    () -> initializeRooms(bookingRepository.findByCustomerWithBills(customerId)));
+            Future<List<BookingModel>> archived = submit(pending, ARCHIVE_STAGE,
+                    () -> initializeRooms(bookingArchiveService.toBookings(
+                            archivedBookingRepository.findByCustomerIdOrderByCheckInDesc(customerId))));
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            Optional<CustomerModel> found = await(customer, CUSTOMER_STAGE, deadline);
+            if (found.isEmpty()) {
+                return Optional.empty();
+            }
+
+            List<BookingModel> all = new ArrayList<>(await(bookings, BOOKINGS_STAGE, deadline));
+            all.addAll(await(archived, ARCHIVE_STAGE, deadline));
+            all.sort(Comparator.comparing(BookingModel::getCheckIn, Comparator.nullsLast(Comparator.reverseOrder())));
+
+            CustomerProfile profile = new CustomerProfile();
+            profile.setCustomer(found.get());
+            profile.setBookings(all);
+            summarizeBills(profile, all);
+            return Optional.of(profile);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+            sample.stop(totalTime);
+        }
+    }
+
+    private <T> Future<T> submit(List<Future<?>> pending, String stage, Callable<T> query) {
+        Timer timer = stageTimers.get(stage);
+        Callable<T> task = PropertyContext.wrap(() -> timer.recordCallable(() -> readOnlyTransaction.execute(status -> {
+            try {
+                return query.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        })));
+
+        try {
+            Future<T> future = executor.submit(task);
+            pending.add(future);
+            return future;
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Too many customer profiles in progress, try again later");
+        }
+    }
+
+    private <T> T await(Future<T> future, String stage, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Loading the " + stage + " of the profile failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Loading the " + stage + " of the profile took more than "
+                    + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the profile", e);
+        }
+    }
+
+    /**
+     * Load the bed and feature collections of the bookings' rooms while the stage's session is open;
+     * they are batch-fetched, so this takes a few queries per collection rather than one per room
+     */
+    private List<BookingModel> initializeRooms(List<BookingModel> bookings) {
+        for (BookingModel booking : bookings) {
+            RoomModel room = booking.getRoom();
+            if (room != null) {
+                Hibernate.initialize(room.getBeds());
+                Hibernate.initialize(room.getFeatures());
+            }
+        }
+        return bookings;
+    }
+
+    private void summarizeBills(CustomerProfile profile, List<BookingModel> bookings) {
+        BigDecimal totalBilled = BigDecimal.ZERO;
+        BigDecimal outstanding = BigDecimal.ZERO;
+        for (BookingModel booking : bookings) {
+            BillModel bill = booking.getBill();
+            if (bill == null || bill.getTotal() == null) {
+                continue;
+            }
+            totalBilled = totalBilled.add(bill.getTotal());
+            if (bill.getPaymentStatus() != PaymentStatus.paid) {
+                outstanding = outstanding.add(bill.getTotal());
+            }
+        }
+        profile.setTotalBilled(totalBilled);
+        profile.setOutstanding(outstanding);
+    }
+}
@@ -0,0 +1,298 @@
+package com.roomstack.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.config.ShardRouter;
+import com.roomstack.model.BillModel;
+import com.roomstack.model.BillModel.PaymentStatus;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.repository.ArchivedBillRepository;
+import com.roomstack.repository.ArchivedBookingRepository;
+import com.roomstack.repository.BillRepository;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the denormalized customer columns (currentGuest, stays, nights,
+ * lifetime spend and last stay date) in step with bookings and bills, so
+ * customer lists are read from the customers table alone. Booking status
+ * changes and payments apply single-row increments in the caller's
+ * transaction; anything that cannot be undone incrementally recomputes the
+ * customer from its bookings. A rebuild recomputes every customer in
+ * parallel chunks to recover from drift.
+ */
+@Service
+public class CustomerStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerStatsService.class);
+
+    private static final String UPDATE_STATS =
+            "UPDATE customers SET current_guest = ?, total_stays = ?, total_nights = ?, lifetime_spend = ?, " +
+            "last_stay_date = ?, updated_at = ? WHERE id = ?";
+
+    private static final String ADD_SPEND =
+            "UPDATE customers SET lifetime_spend = lifetime_spend + ?, updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private ArchivedBillRepository archivedBillRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${roomstack.customer-stats.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${roomstack.customer-stats.parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService executor;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(threads);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Apply a booking status transition to its customer
+     */
+    public void onStatusChanged(BookingModel booking, BookingStatus previousStatus) {
+        BookingStatus status = booking.getStatus();
+        if (status == previousStatus || booking.getCustomer() == null) {
+            return;
+        }
+
+        String customerId = booking.getCustomer().getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        // The lookups below read bookings, so the new status has to be visible to them
+        bookingRepository.flush();
+
+        if (previousStatus == BookingStatus.checked_out) {
+            // The last stay date cannot be rolled back incrementally
+            refreshCustomers(List.of(customerId));
+            return;
+        }
+
+        if (status == BookingStatus.checked_in) {
+            customerRepository.markCurrentGuest(customerId, now);
+        } else if (previousStatus == BookingStatus.checked_in) {
+            customerRepository.clearCurrentGuest(customerId, now);
+        }
+
+        if (status == BookingStatus.checked_out) {
+            LocalDate checkOut = booking.getCheckOut().toLocalDate();
+            int nights = (int) Math.max(1, ChronoUnit.DAYS.between(booking.getCheckIn().toLocalDate(), checkOut));
+            customerRepository.addStay(customerId, nights, checkOut, now);
+        }
+    }
+
+    /**
+     * Recompute the customer of a deleted booking; its stay and bill no longer count
+     */
+    public void onBookingDeleted(BookingModel booking) {
+        if (booking.getCustomer() == null) {
+            return;
+        }
+
+        bookingRepository.flush();
+        refreshCustomers(List.of(booking.getCustomer().getId()));
+    }
+
+    /**
+     * Apply a bill's payment status change to its customer's lifetime spend
+     */
+    public void onPaymentStatusChanged(BillModel bill, PaymentStatus previousStatus) {
+        boolean paid = bill.getPaymentStatus() == PaymentStatus.paid;
+        boolean wasPaid = previousStatus == PaymentStatus.paid;
+        if (paid == wasPaid || bill.getTotal() == null
+                || bill.getBooking() == null || bill.getBooking().getCustomer() == null) {
+            return;
+        }
+
+        BigDecimal amount = paid ? bill.getTotal() : bill.getTotal().negate();
+        customerRepository.addSpend(bill.getBooking().getCustomer().getId(), amount, LocalDateTime.now());
+    }
+
+    /**
+     * Apply the lifetime spend changes of many payments in one batch, in the caller's transaction
+     * @param amountsByCustomerId Net amount paid per customer; negative amounts reverse payments
+     */
+    public void addSpend(Map<String, BigDecimal> amountsByCustomerId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>(amountsByCustomerId.size());
+        amountsByCustomerId.forEach((id, amount) -> {
+            if (amount.signum() != 0) {
+                updates.add(new Object[] { amount, now, id });
+            }
+        });
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_SPEND, updates);
+        }
+    }
+
+    /**
+     * Recompute the stats of the given customers from their bookings and bills, in the caller's transaction
+     * @return The number of customers updated
+     */
+    public int refreshCustomers(Collection<String> customerIds) {
+        if (customerIds.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Stats> stats = new HashMap<>();
+        customerIds.forEach(id -> stats.put(id, new Stats()));
+
+        // Archived stays and bills still count towards a customer's history
+        List<Object[]> stays = new ArrayList<>(bookingRepository.findCompletedStays(stats.keySet()));
+        stays.addAll(archivedBookingRepository.findCompletedStays(stats.keySet()));
+        List<Object[]> paidTotals = new ArrayList<>(billRepository.sumPaidTotalsByCustomer(stats.keySet()));
+        paidTotals.addAll(archivedBillRepository.sumPaidTotalsByCustomer(stats.keySet()));
+
+        for (Object[] row : stays) {
+            LocalDate checkIn = ((LocalDateTime) row[1]).toLocalDate();
+            LocalDate checkOut = ((LocalDateTime) row[2]).toLocalDate();
+            Stats customer = stats.get((String) row[0]);
+            customer.stays++;
+            customer.nights += (int) Math.max(1, ChronoUnit.DAYS.between(checkIn, checkOut));
+            if (customer.lastStayDate == null || customer.lastStayDate.isBefore(checkOut)) {
+                customer.lastStayDate = checkOut;
+            }
+        }
+
+        for (Object[] row : paidTotals) {
+            Stats customer = stats.get((String) row[0]);
+            customer.spend = customer.spend.add((BigDecimal) row[1]);
+        }
+
+        for (String customerId : bookingRepository.findInHouseCustomerIds(stats.keySet())) {
+            stats.get(customerId).currentGuest = true;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>(stats.size());
+        stats.forEach((id, customer) -> updates.add(new Object[] {
+                customer.currentGuest, customer.stays, customer.nights, customer.spend,
+                customer.lastStayDate == null ? null : Date.valueOf(customer.lastStayDate), now, id }));
+
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPDATE_STATS, updates)) {
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+
+    /**
+     * Recompute every customer; chunks of customer IDs are refreshed in parallel, each in its own transaction.
+     * Increments committed while a chunk is being recomputed may be overwritten by the chunk's snapshot,
+     * so this is meant for recovery and off-peak runs.
+     * @return The number of customers updated
+     */
+    public synchronized int rebuild() {
+        long started = System.nanoTime();
+        List<Future<Integer>> chunks = new ArrayList<>();
+        String afterId = "";
+
+        while (true) {
+            List<String> ids = customerRepository.findIdChunk(afterId, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            afterId = ids.get(ids.size() - 1);
+            chunks.add(executor.submit(PropertyContext.wrap(
+                    () -> transactionTemplate.execute(status -> refreshCustomers(ids)))));
+        }
+
+        int updated = 0;
+        try {
+            for (Future<Integer> chunk : chunks) {
+                updated += chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw new IllegalStateException("Customer stats rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw new IllegalStateException("Customer stats rebuild failed", e.getCause());
+        }
+
+        log.info("Rebuilt stats of {} customers in {} chunks in {} ms", updated, chunks.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return updated;
+    }
+
+    /**
+     * Periodic rebuild to repair any drift from writes that bypassed the incremental updates
+     */
+    @Scheduled(cron = "${roomstack.customer-stats.rebuild-cron:0 0 4 * * SUN}")
+    public void rebuildScheduled() {
+        shardRouter.forEachShard(this::rebuild);
+    }
+
+    private static class Stats {
+        boolean currentGuest;
+        int stays;
+        int nights;
+        BigDecimal spend = BigDecimal.ZERO;
+        LocalDate lastStayDate;
+    }
+}
@@ -0,0 +1,318 @@
+package com.roomstack.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.config.ShardRouter;
+import com.roomstack.event.CacheInvalidationEvent;
+import com.roomstack.model.CacheInvalidationModel;
+import com.roomstack.model.CacheInvalidationModel.EntityType;
+import com.roomstack.repository.CacheInvalidationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Invalidation bus on the cache_invalidations table of each shard. Changes
+ * are inserted in the writer's transaction just before it commits; every
+ * node polls the table from a per-shard watermark and publishes the other
+ * nodes' changes.
+ *
+ * <p>IDs are allocated at insert but become visible at commit, so a poll can
+ * see an ID past one that is still in flight. Skipped IDs are remembered and
+ * looked up again on later polls; one that does not show up within the gap
+ * timeout was rolled back or missed for good, and the node flushes all its
+ * caches rather than guess. So does a node that falls too far behind.</p>
+ */
+@Service
+@DependsOn("shardSchemaInitializer")
+@ConditionalOnProperty(name = "roomstack.invalidation.bus", havingValue = "database", matchIfMissing = true)
+public class DatabaseInvalidationBus implements InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseInvalidationBus.class);
+
+    private static final String INSERT_INVALIDATION =
+            "INSERT INTO cache_invalidations (entity_type, entity_id, room_id, origin, created_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private CacheInvalidationRepository cacheInvalidationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${roomstack.invalidation.node-id:}")
+    private String nodeId;
+
+    @Value("${roomstack.invalidation.batch-size:500}")
+    private int batchSize;
+
+    @Value("${roomstack.invalidation.gap-timeout-ms:10000}")
+    private long gapTimeoutMillis;
+
+    @Value("${roomstack.invalidation.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>();
+
+    private final AtomicInteger openGaps = new AtomicInteger();
+
+    private Counter publishedCounter;
+
+    private Counter receivedCounter;
+
+    private Counter pollFailures;
+
+    private Timer lag;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+
+        publishedCounter = meterRegistry.counter("roomstack.invalidation.published");
+        receivedCounter = meterRegistry.counter("roomstack.invalidation.received");
+        pollFailures = meterRegistry.counter("roomstack.invalidation.poll.failures");
+        lag = Timer.builder("roomstack.invalidation.lag")
+                .description("Time from a change being announced to this node applying it")
+                .register(meterRegistry);
+        Gauge.builder("roomstack.invalidation.gaps", openGaps, AtomicInteger::get)
+                .description("Skipped invalidation IDs still waiting for their transaction")
+                .register(meterRegistry);
+
+        // Start from the current end of each table: the startup loads that follow read everything before it
+        shardRouter.forEachShard(() -> {
+            Long maxId = cacheInvalidationRepository.findMaxId();
+            watermarks.put(shardRouter.currentShard(), new Watermark(maxId == null ? 0 : maxId));
+        });
+        log.info("Invalidation bus on the database as node {}", nodeId);
+    }
+
+    @Override
+    public void invalidate(EntityType type, String id, String roomId) {
+        write(List.<Object[]>of(new Object[] { type.name(), id, roomId }));
+    }
+
+    @Override
+    public void invalidateAll(EntityType type, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        ids.forEach(id -> rows.add(new Object[] { type.name(), id, null }));
+        write(rows);
+    }
+
+    /**
+     * Read the new invalidations of every shard and publish the other nodes' changes
+     */
+    @Scheduled(fixedDelayString = "${roomstack.invalidation.poll-interval-ms:500}")
+    public void poll() {
+        String flushReason = null;
+        for (String shard : shardRouter.shards()) {
+            Watermark watermark = watermarks.get(shard);
+            try {
+                String reason = PropertyContext.callOnShard(shard, () -> pollShard(watermark));
+                flushReason = flushReason == null ? reason : flushReason;
+            } catch (RuntimeException e) {
+                // The watermark only moves once a batch is applied, so the next poll retries it
+                log.warn("Polling invalidations on shard {} failed", shard, e);
+                pollFailures.increment();
+            }
+        }
+        openGaps.set(watermarks.values().stream().mapToInt(watermark -> watermark.missing.size()).sum());
+
+        if (flushReason != null) {
+            log.warn("Invalidations may have been missed ({}); flushing every cache", flushReason);
+            meterRegistry.counter("roomstack.invalidation.full.flushes", "reason", flushReason).increment();
+            eventPublisher.publishEvent(CacheInvalidationEvent.fullFlush());
+        }
+    }
+
+    /**
+     * Remove invalidations past the retention period; a node that has not read them by then flushes instead
+     */
+    @Scheduled(fixedDelayString = "${roomstack.invalidation.purge-interval-ms:600000}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        shardRouter.forEachShard(() -> transactionTemplate.executeWithoutResult(
+                status -> cacheInvalidationRepository.deleteCreatedBefore(cutoff)));
+    }
+
+    /**
+     * Apply the invalidations after the watermark and those that filled earlier gaps
+     * @return Why the caches must be flushed, or null if nothing was missed
+     */
+    private String pollShard(Watermark watermark) {
+        long now = System.nanoTime();
+        String flushReason = null;
+        List<CacheInvalidationModel> changes = new ArrayList<>();
+        Set<Long> filled = new HashSet<>();
+        Map<Long, Long> skipped = new HashMap<>();
+
+        if (!watermark.missing.isEmpty()) {
+            for (CacheInvalidationModel change : cacheInvalidationRepository.findByIdIn(watermark.missing.keySet())) {
+                filled.add(change.getId());
+                changes.add(change);
+            }
+        }
+
+        long position = watermark.position;
+        List<CacheInvalidationModel> batch;
+        do {
+            batch = cacheInvalidationRepository.findAfter(position, PageRequest.ofSize(batchSize));
+            for (CacheInvalidationModel change : batch) {
+                long gap = change.getId() - position - 1;
+                if (gap > batchSize) {
+                    // Too many to wait for, e.g. after falling behind the purge
+                    flushReason = "behind";
+                } else {
+                    for (long id = position + 1; id < change.getId(); id++) {
+                        skipped.put(id, now);
+                    }
+                }
+                position = change.getId();
+                changes.add(change);
+            }
+        } while (batch.size() == batchSize);
+
+        publish(changes);
+
+        watermark.position = position;
+        filled.forEach(watermark.missing::remove);
+        watermark.missing.putAll(skipped);
+        long timeout = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+        if (watermark.missing.values().removeIf(since -> now - since > timeout) && flushReason == null) {
+            flushReason = "gap";
+        }
+        return flushReason;
+    }
+
+    private void publish(List<CacheInvalidationModel> changes) {
+        List<CacheInvalidationModel> remote = changes.stream()
+                .filter(change -> !nodeId.equals(change.getOrigin()))
+                .toList();
+        if (remote.isEmpty()) {
+            return;
+        }
+
+        eventPublisher.publishEvent(new CacheInvalidationEvent(remote));
+
+        LocalDateTime appliedAt = LocalDateTime.now();
+        for (CacheInvalidationModel change : remote) {
+            // Clocks of different nodes may disagree slightly
+            lag.record(Math.max(0, Duration.between(change.getCreatedAt(), appliedAt).toMillis()), TimeUnit.MILLISECONDS);
+        }
+        receivedCounter.increment(remote.size());
+    }
+
+    /**
+     * Inside a transaction the rows are written just before it commits, once its entity changes are flushed.
+     * A transaction that fails on its own writes then takes no IDs that other nodes would wait for as gaps.
+     */
+    private void write(List<Object[]> rows) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            insert(rows);
+            return;
+        }
+
+        PendingInvalidations pending = null;
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingInvalidations current) {
+                pending = current;
+            }
+        }
+        if (pending == null) {
+            pending = new PendingInvalidations();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.rows.addAll(rows);
+    }
+
+    private void insert(List<Object[]> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        rows.forEach(row -> args.add(new Object[] { row[0], row[1], row[2], nodeId, now }));
+        jdbcTemplate.batchUpdate(INSERT_INVALIDATION, args);
+        publishedCounter.increment(rows.size());
+    }
+
+    /**
+     * The invalidations of the current transaction: entity type, ID and room ID of each
+     */
+    private class PendingInvalidations implements TransactionSynchronization {
+        final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            entityManager.flush();
+            insert(rows);
+        }
+    }
+
+    /**
+     * How far a shard's table has been read: the highest ID seen, and skipped IDs with when they were first skipped
+     */
+    private static class Watermark {
+        long position;
+        final Map<Long, Long> missing = new HashMap<>();
+
+        Watermark(long position) {
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.roomstack.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.roomstack.config.ShardRouter;
+import com.roomstack.model.BillModel.PaymentStatus;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.ReportResult;
+import com.roomstack.model.ReportRow;
+import com.roomstack.util.ColumnarBookingFile;
+import com.roomstack.util.PricingKernel;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Historical reporting without the database. Closed bookings of a year, live
+ * and archived, are exported with their bills into one columnar file per year;
+ * reports then scan the memory-mapped files, aggregating into primitive arrays
+ * keyed by dictionary code.
+ */
+@Service
+public class HistoryArchiveService {
+
+    /**
+     * Dimensions a historical report can be grouped by
+     */
+    public enum Dimension {
+        month,
+        room,
+        customer,
+        status,
+        payment_status
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryArchiveService.class);
+
+    private static final String CLOSED_BOOKINGS_OF_YEAR =
+            "SELECT b.room_id, b.customer_id, b.check_in, b.check_out, b.status, " +
+            "bl.room_charge, bl.tax_amount, bl.total, bl.payment_status " +
+            "FROM bookings b LEFT JOIN bills bl ON bl.booking_id = b.id " +
+            "WHERE b.status IN ('checked_out', 'cancelled', 'no_show') AND b.check_in >= ? AND b.check_in < ? " +
+            "AND b.property_id = ? " +
+            "UNION ALL " +
+            "SELECT b.room_id, b.customer_id, b.check_in, b.check_out, b.status, " +
+            "bl.room_charge, bl.tax_amount, bl.total, bl.payment_status " +
+            "FROM bookings_archive b LEFT JOIN bills_archive bl ON bl.booking_id = b.id " +
+            "WHERE b.check_in >= ? AND b.check_in < ? AND b.property_id = ? " +
+            "ORDER BY 3";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${roomstack.history.dir:data/history}")
+    private String directory;
+
+    @Value("${roomstack.history.fetch-size:1000}")
+    private int fetchSize;
+
+    // Keyed by file, so each property maps its own exports
+    private final Map<Path, ColumnarBookingFile.Reader> readers = new ConcurrentHashMap<>();
+
+    @PreDestroy
+    void closeReaders() {
+        readers.values().forEach(HistoryArchiveService::closeQuietly);
+    }
+
+    /**
+     * Export the closed bookings checking in during a year, replacing any earlier export of that year
+     * @return The number of bookings exported and the file size
+     */
+    public synchronized Map<String, Long> export(int year) throws IOException {
+        String propertyId = shardRouter.currentProperty();
+        Path file = file(year);
+        Timestamp from = Timestamp.valueOf(LocalDate.of(year, 1, 1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(LocalDate.of(year + 1, 1, 1).atStartOfDay());
+        long bytes;
+        long rows;
+
+        try (ColumnarBookingFile.Writer writer = new ColumnarBookingFile.Writer(file)) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(CLOSED_BOOKINGS_OF_YEAR);
+                statement.setFetchSize(fetchSize);
+                statement.setTimestamp(1, from);
+                statement.setTimestamp(2, to);
+                statement.setString(3, propertyId);
+                statement.setTimestamp(4, from);
+                statement.setTimestamp(5, to);
+                statement.setString(6, propertyId);
+                return statement;
+            }, resultSet -> {
+                LocalDate checkIn = resultSet.getTimestamp(3).toLocalDateTime().toLocalDate();
+                LocalDate checkOut = resultSet.getTimestamp(4).toLocalDateTime().toLocalDate();
+                String paymentStatus = resultSet.getString(9);
+                try {
+                    writer.append(resultSet.getString(1), resultSet.getString(2), checkIn.toEpochDay(),
+                            (int) Math.max(1, ChronoUnit.DAYS.between(checkIn, checkOut)),
+                            BookingStatus.valueOf(resultSet.getString(5)).ordinal(),
+                            cents(resultSet.getBigDecimal(6)), cents(resultSet.getBigDecimal(7)),
+                            cents(resultSet.getBigDecimal(8)),
+                            paymentStatus == null ? -1 : PaymentStatus.valueOf(paymentStatus).ordinal());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            rows = writer.getRowCount();
+            bytes = writer.finish();
+        }
+
+        // Later reports map the new file; scans in flight keep their mapping of the old one
+        ColumnarBookingFile.Reader previous = readers.remove(file);
+        if (previous != null) {
+            closeQuietly(previous);
+        }
+
+        log.info("Exported {} bookings of {} into {} ({} bytes)", rows, year, file, bytes);
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("year", (long) year);
+        result.put("bookings", rows);
+        result.put("bytes", bytes);
+        return result;
+    }
+
+    /**
+     * Aggregate the exported bookings checking in within [from, to) by one dimension
+     */
+    public ReportResult report(LocalDate from, LocalDate to, Dimension groupBy) throws IOException {
+        Map<String, long[]> totals = new TreeMap<>();
+        long scanned = 0;
+
+        for (int year = from.getYear(); year <= to.minusDays(1).getYear(); year++) {
+            ColumnarBookingFile.Reader reader = reader(year);
+            if (reader != null) {
+                scanned += scan(reader, from.toEpochDay(), to.toEpochDay(), groupBy, totals);
+            }
+        }
+
+        List<ReportRow> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> {
+            Map<String, String> group = new LinkedHashMap<>();
+            group.put(groupBy.name(), key);
+
+            ReportRow row = new ReportRow();
+            row.setGroup(group);
+            row.setBookings(total[0]);
+            row.setNights(total[1]);
+            row.setRevenue(PricingKernel.toAmount(total[2]));
+            rows.add(row);
+        });
+
+        ReportResult result = new ReportResult();
+        result.setDimensions(List.of(groupBy.name()));
+        result.setScannedBookings(scanned);
+        result.setRows(rows);
+        return result;
+    }
+
+    /**
+     * Scan one file, totalling bookings, nights and revenue cents per group code, then name the groups
+     */
+    private static long scan(ColumnarBookingFile.Reader reader, long fromEpochDay, long toEpochDay,
+            Dimension groupBy, Map<String, long[]> totals) {
+        switch (groupBy) {
+            case room: {
+                long[][] byCode = new long[3][reader.roomCount()];
+                long scanned = reader.scan(fromEpochDay, toEpochDay,
+                        (room, customer, checkIn, nights, status, roomCharge, tax, total, paymentStatus) ->
+                                add(byCode, room, nights, total));
+                merge(byCode, reader::roomId, totals);
+                return scanned;
+            }
+            case customer: {
+                long[][] byCode = new long[3][reader.customerCount()];
+                long scanned = reader.scan(fromEpochDay, toEpochDay,
+                        (room, customer, checkIn, nights, status, roomCharge, tax, total, paymentStatus) ->
+                                add(byCode, customer, nights, total));
+                merge(byCode, reader::customerId, totals);
+                return scanned;
+            }
+            case status: {
+                long[][] byCode = new long[3][BookingStatus.values().length];
+                long scanned = reader.scan(fromEpochDay, toEpochDay,
+                        (room, customer, checkIn, nights, status, roomCharge, tax, total, paymentStatus) ->
+                                add(byCode, status, nights, total));
+                merge(byCode, code -> BookingStatus.values()[code].name(), totals);
+                return scanned;
+            }
+            case payment_status: {
+                // Code 0 is "no bill"; payment statuses follow
+                long[][] byCode = new long[3][PaymentStatus.values().length + 1];
+                long scanned = reader.scan(fromEpochDay, toEpochDay,
+                        (room, customer, checkIn, nights, status, roomCharge, tax, total, paymentStatus) ->
+                                add(byCode, paymentStatus + 1, nights, total));
+                merge(byCode, code -> code == 0 ? "none" : PaymentStatus.values()[code - 1].name(), totals);
+                return scanned;
+            }
+            default: {
+                // Months of the scanned range, indexed from the first one
+                YearMonth first = YearMonth.from(LocalDate.ofEpochDay(fromEpochDay));
+                int months = (int) ChronoUnit.MONTHS.between(first, YearMonth.from(LocalDate.ofEpochDay(toEpochDay))) + 1;
+                long[] monthStarts = new long[months + 1];
+                for (int month = 0; month <= months; month++) {
+                    monthStarts[month] = first.plusMonths(month).atDay(1).toEpochDay();
+                }
+
+                long[][] byCode = new long[3][months];
+                int[] month = { 0 };
+                long scanned = reader.scan(fromEpochDay, toEpochDay,
+                        (room, customer, checkIn, nights, status, roomCharge, tax, total, paymentStatus) -> {
+                            // Rows come in check-in order, so the month only ever moves forward
+                            while (checkIn >= monthStarts[month[0] + 1]) {
+                                month[0]++;
+                            }
+                            add(byCode, month[0], nights, total);
+                        });
+                merge(byCode, code -> first.plusMonths(code).toString(), totals);
+                return scanned;
+            }
+        }
+    }
+
+    private static void add(long[][] byCode, int code, int nights, long totalCents) {
+        byCode[0][code]++;
+        byCode[1][code] += nights;
+        byCode[2][code] += totalCents;
+    }
+
+    private static void merge(long[][] byCode, IntFunction<String> name, Map<String, long[]> totals) {
+        for (int code = 0; code < byCode[0].length; code++) {
+            if (byCode[0][code] == 0) {
+                continue;
+            }
+            long[] total = totals.computeIfAbsent(name.apply(code), key -> new long[3]);
+            total[0] += byCode[0][code];
+            total[1] += byCode[1][code];
+            total[2] += byCode[2][code];
+        }
+    }
+
+    private ColumnarBookingFile.Reader reader(int year) throws IOException {
+        Path file = file(year);
+        ColumnarBookingFile.Reader reader = readers.get(file);
+        if (reader != null) {
+            return reader;
+        }
+
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        ColumnarBookingFile.Reader opened = new ColumnarBookingFile.Reader(file);
+        ColumnarBookingFile.Reader existing = readers.putIfAbsent(file, opened);
+        if (existing != null) {
+            closeQuietly(opened);
+            return existing;
+        }
+        return opened;
+    }
+
+    private Path file(int year) {
+        // The default property keeps the files exported before there were properties
+        String propertyId = shardRouter.currentProperty();
+        Path propertyDirectory = shardRouter.getDefaultProperty().equals(propertyId)
+                ? Paths.get(directory)
+                : Paths.get(directory, propertyId);
+        return propertyDirectory.resolve("bookings-" + year + ".rscb");
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    private static void closeQuietly(ColumnarBookingFile.Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            log.warn("Could not close columnar history file", e);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.roomstack.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roomstack.config.ShardRouter;
+import com.roomstack.model.IdempotencyRecordModel;
+import com.roomstack.repository.IdempotencyRecordRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Makes retried POST/PUT requests safe. The first request carrying an
+ * Idempotency-Key runs normally and its response is stored; replays with the
+ * same key return the stored response without running the request again.
+ * Completed responses are kept in a bounded in-memory LRU in front of the
+ * idempotency_keys table.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    // A plain INSERT: the entity's ID is assigned, so save() would merge over a concurrent claim instead of failing
+    private static final String INSERT_CLAIM =
+            "INSERT INTO idempotency_keys (id, request_hash, status_code, expires_at, created_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${roomstack.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${roomstack.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${roomstack.idempotency.in-progress-timeout-seconds:60}")
+    private long inProgressTimeoutSeconds;
+
+    private Map<String, IdempotencyRecordModel> cache;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter replayedCounter;
+
+    private Counter storedCounter;
+
+    private Counter conflictCounter;
+
+    @PostConstruct
+    void init() {
+        // Access-ordered so the least recently used entry is evicted first
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecordModel> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        replayedCounter = meterRegistry.counter("roomstack.idempotency.replayed");
+        storedCounter = meterRegistry.counter("roomstack.idempotency.stored");
+        conflictCounter = meterRegistry.counter("roomstack.idempotency.conflicts");
+    }
+
+    /**
+     * Run the action at most once per (property, scope, key)
+     * @param scope The endpoint the key belongs to, e.g. "booking.create"
+     * @param key The client's Idempotency-Key header, or null to run the action unconditionally
+     * @param fingerprint Canonical description of the request; a replay with a different one is rejected
+     * @param action Produces the response for the first request
+     * @return The action's response, or the stored response for a replay
+     */
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint,
+            Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        if (key.length() > MAX_KEY_LENGTH) {
+            return message(HttpStatus.BAD_REQUEST, "Idempotency-Key is too long");
+        }
+
+        // Keys are the property's own: another property's request with the same key neither replays nor conflicts
+        String id = shardRouter.currentProperty() + ":" + scope + ":" + key;
+        String requestHash = hash(fingerprint);
+
+        IdempotencyRecordModel existing = lookup(id);
+        if (existing == null) {
+            existing = claim(id, requestHash);
+        }
+
+        if (existing == null) {
+            return runAndStore(id, requestHash, action);
+        }
+
+        return replay(existing, requestHash);
+    }
+
+    /**
+     * Remove expired records from the table
+     */
+    @Scheduled(fixedDelayString = "${roomstack.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        shardRouter.forEachShard(() -> transactionTemplate.executeWithoutResult(
+                status -> idempotencyRecordRepository.deleteExpiredBefore(LocalDateTime.now())));
+    }
+
+    private IdempotencyRecordModel lookup(String id) {
+        LocalDateTime now = LocalDateTime.now();
+
+        synchronized (cache) {
+            IdempotencyRecordModel cached = cache.get(id);
+            if (cached != null) {
+                if (cached.getExpiresAt().isAfter(now)) {
+                    return cached;
+                }
+                cache.remove(id);
+            }
+        }
+
+        IdempotencyRecordModel stored = idempotencyRecordRepository.findById(id).orElse(null);
+        if (stored == null) {
+            return null;
+        }
+
+        // Expired records and abandoned in-progress claims no longer count
+        if (stored.getExpiresAt().isBefore(now)) {
+            Integer deleted = transactionTemplate.execute(
+                    status -> idempotencyRecordRepository.deleteIfExpired(id, now));
+            if (deleted != null && deleted > 0) {
+                return null;
+            }
+
+            // Another request removed the expired record and claimed the key meanwhile
+            stored = idempotencyRecordRepository.findById(id).orElse(null);
+            if (stored == null || stored.getExpiresAt().isBefore(now)) {
+                return null;
+            }
+        }
+
+        if (stored.getStatusCode() != IdempotencyRecordModel.IN_PROGRESS) {
+            remember(stored);
+        }
+        return stored;
+    }
+
+    /**
+     * Insert an in-progress record for the key
+     * @return null if this request now owns the key, otherwise the record another request stored first
+     */
+    private IdempotencyRecordModel claim(String id, String requestHash) {
+        IdempotencyRecordModel claim = new IdempotencyRecordModel();
+        claim.setId(id);
+        claim.setRequestHash(requestHash);
+        claim.setStatusCode(IdempotencyRecordModel.IN_PROGRESS);
+        claim.setExpiresAt(LocalDateTime.now().plusSeconds(inProgressTimeoutSeconds));
+
+        try {
+            jdbcTemplate.update(INSERT_CLAIM, id, requestHash, IdempotencyRecordModel.IN_PROGRESS,
+                    claim.getExpiresAt(), LocalDateTime.now());
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key got there first
+            return idempotencyRecordRepository.findById(id).orElse(claim);
+        }
+    }
+
+    private ResponseEntity<?> runAndStore(String id, String requestHash, Supplier<ResponseEntity<?>> action) {
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(id);
+            throw e;
+        }
+
+        // Server errors are not stored so the client can retry them
+        if (response.getStatusCode().is5xxServerError()) {
+            release(id);
+            return response;
+        }
+
+        IdempotencyRecordModel record = new IdempotencyRecordModel();
+        record.setId(id);
+        record.setRequestHash(requestHash);
+        record.setStatusCode(response.getStatusCode().value());
+        record.setResponseBody(serialize(response.getBody()));
+        record.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+
+        transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.save(record));
+        remember(record);
+        storedCounter.increment();
+
+        return response;
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecordModel record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            conflictCounter.increment();
+            return message(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+
+        if (record.getStatusCode() == IdempotencyRecordModel.IN_PROGRESS) {
+            conflictCounter.increment();
+            return message(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+        }
+
+        replayedCounter.increment();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getStatusCode())
+                .header(REPLAYED_HEADER, "true");
+
+        if (record.getResponseBody() == null) {
+            return builder.build();
+        }
+
+        return builder.contentType(MediaType.APPLICATION_JSON).body(record.getResponseBody());
+    }
+
+    private void release(String id) {
+        transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.deleteById(id));
+    }
+
+    private void remember(IdempotencyRecordModel record) {
+        synchronized (cache) {
+            cache.put(record.getId(), record);
+        }
+    }
+
+    private String serialize(Object body) {
+        if (body == null) {
+            return null;
+        }
+
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response", e);
+        }
+    }
+
+    private static String hash(String fingerprint) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(fingerprint.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResponseEntity<Map<String, String>> message(HttpStatus status, String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", message);
+        return new ResponseEntity<>(response, status);
+    }
+}
@@ -0,0 +1,29 @@
+package com.roomstack.service;
+
+import java.util.Collection;
+
+import com.roomstack.model.CacheInvalidationModel.EntityType;
+
+/**
+ * Carries entity changes to the other nodes of a deployment, which reload
+ * what they cache of the entities. A node applies its own changes to its
+ * caches directly; the bus only tells the others. Receivers get the changes
+ * as a CacheInvalidationEvent. Selected by roomstack.invalidation.bus.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Announce a changed entity; inside a transaction the announcement commits or rolls back with it
+     * @param roomId The room whose availability the change affects, if any
+     */
+    void invalidate(EntityType type, String id, String roomId);
+
+    /**
+     * Announce changed entities that affect no room's availability
+     */
+    void invalidateAll(EntityType type, Collection<String> ids);
+
+    default void invalidate(EntityType type, String id) {
+        invalidate(type, id, null);
+    }
+}
@@ -0,0 +1,144 @@
+package com.roomstack.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.config.ShardRouter;
+import com.roomstack.event.CacheInvalidationEvent;
+import com.roomstack.model.CacheInvalidationModel;
+import com.roomstack.model.CacheInvalidationModel.EntityType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory stand-in for the database bus, for tests: every application
+ * context in the JVM that uses it is a node. Changes are handed to the other
+ * nodes' inboxes when the writer's transaction commits, and each node drains
+ * its inbox on the same schedule the database bus polls. Nothing is lost, so
+ * there are no gaps and no full flushes.
+ */
+@Service
+@ConditionalOnProperty(name = "roomstack.invalidation.bus", havingValue = "local")
+public class LocalInvalidationBus implements InvalidationBus {
+
+    private static final List<LocalInvalidationBus> NODES = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Queue<Delivery> inbox = new ConcurrentLinkedQueue<>();
+
+    private Counter publishedCounter;
+
+    private Counter receivedCounter;
+
+    private Timer lag;
+
+    @PostConstruct
+    void init() {
+        publishedCounter = meterRegistry.counter("roomstack.invalidation.published");
+        receivedCounter = meterRegistry.counter("roomstack.invalidation.received");
+        lag = Timer.builder("roomstack.invalidation.lag")
+                .description("Time from a change being announced to this node applying it")
+                .register(meterRegistry);
+        NODES.add(this);
+    }
+
+    @PreDestroy
+    void leave() {
+        NODES.remove(this);
+    }
+
+    @Override
+    public void invalidate(EntityType type, String id, String roomId) {
+        send(List.of(new CacheInvalidationModel(type, id, roomId, null, LocalDateTime.now())));
+    }
+
+    @Override
+    public void invalidateAll(EntityType type, Collection<String> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        send(ids.stream().map(id -> new CacheInvalidationModel(type, id, null, null, now)).toList());
+    }
+
+    /**
+     * Publish the changes received since the last drain, shard by shard
+     */
+    @Scheduled(fixedDelayString = "${roomstack.invalidation.poll-interval-ms:500}")
+    public void poll() {
+        Map<String, List<CacheInvalidationModel>> changesByShard = new LinkedHashMap<>();
+        Delivery delivery;
+        while ((delivery = inbox.poll()) != null) {
+            changesByShard.computeIfAbsent(delivery.shard(), shard -> new ArrayList<>()).add(delivery.change());
+        }
+
+        changesByShard.forEach((shard, changes) -> {
+            PropertyContext.callOnShard(shard, () -> {
+                eventPublisher.publishEvent(new CacheInvalidationEvent(changes));
+                return null;
+            });
+
+            LocalDateTime appliedAt = LocalDateTime.now();
+            changes.forEach(change -> lag.record(Duration.between(change.getCreatedAt(), appliedAt).toMillis(),
+                    TimeUnit.MILLISECONDS));
+            receivedCounter.increment(changes.size());
+        });
+    }
+
+    private void send(List<CacheInvalidationModel> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        String shard = shardRouter.currentShard();
+        Runnable deliver = () -> {
+            for (LocalInvalidationBus node : NODES) {
+                if (node != this) {
+                    changes.forEach(change -> node.inbox.add(new Delivery(shard, change)));
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver.run();
+                }
+            });
+        } else {
+            deliver.run();
+        }
+        publishedCounter.increment(changes.size());
+    }
+
+    private record Delivery(String shard, CacheInvalidationModel change) {
+    }
+}
@@ -0,0 +1,447 @@
+package com.roomstack.service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.config.ShardRouter;
+import com.roomstack.event.BookingChangedEvent;
+import com.roomstack.event.BookingChangedEvent.ChangeType;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.CacheInvalidationModel.EntityType;
+import com.roomstack.model.NightAuditRunModel;
+import com.roomstack.model.NightAuditRunModel.Stage;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.repository.NightAuditRunRepository;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.util.PricingKernel;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Nightly close of a business date. It checks out overdue stays, marks
+ * no-shows, posts the night's room charge for every in-house stay, and then
+ * reconciles room statuses and current guests. Bookings are processed in
+ * keyset-paged chunks with set-based updates. Each chunk commits together with
+ * the run's checkpoint, so an interrupted audit resumes after the last
+ * committed chunk without redoing it. A node claims the run's row before it
+ * audits the date and renews the claim in every chunk's transaction, so other
+ * nodes skip the date while it is held. A crashed holder's claim runs out
+ * after the claim TTL, judged by the database clock.
+ */
+@Service
+public class NightAuditService {
+
+    private static final Logger log = LoggerFactory.getLogger(NightAuditService.class);
+
+    private static final String INSERT_DAILY_CHARGE =
+            "INSERT INTO daily_charges (id, booking_id, room_id, charge_date, amount, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String CLAIM_RUN =
+            "UPDATE night_audit_runs SET claimed_by = ?, " +
+            "claimed_until = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) " +
+            "WHERE audit_date = ? AND completed_at IS NULL " +
+            "AND (claimed_by IS NULL OR claimed_until < CURRENT_TIMESTAMP(3))";
+
+    private static final String INSERT_RUN =
+            "INSERT INTO night_audit_runs (audit_date, stage, checked_out, no_shows, charges_posted, " +
+            "rooms_reconciled, customers_reconciled, started_at, updated_at, claimed_by, claimed_until) " +
+            "VALUES (?, ?, 0, 0, 0, 0, 0, ?, ?, ?, TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)))";
+
+    // Also locks the run's row until the chunk commits, so no other node can take the claim over meanwhile
+    private static final String RENEW_CLAIM =
+            "UPDATE night_audit_runs SET claimed_until = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) " +
+            "WHERE audit_date = ? AND claimed_by = ?";
+
+    private static final String RELEASE_CLAIM =
+            "UPDATE night_audit_runs SET claimed_by = NULL, claimed_until = NULL " +
+            "WHERE audit_date = ? AND claimed_by = ?";
+
+    /**
+     * Thrown when another node took over the run after this node's claim ran out; the chunk rolls back
+     */
+    public static class ClaimLostException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ClaimLostException(String message) {
+            super(message);
+        }
+    }
+
+    @Autowired
+    private NightAuditRunRepository nightAuditRunRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RateCalendarService rateCalendarService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private RoomInventoryService roomInventoryService;
+
+    @Autowired
+    private CustomerStatsService customerStatsService;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${roomstack.night-audit.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${roomstack.night-audit.claim-ttl-seconds:300}")
+    private long claimTtlSeconds;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Audit the business date that ended at midnight
+     */
+    @Scheduled(cron = "${roomstack.night-audit.cron:0 30 2 * * *}")
+    public void runScheduled() {
+        LocalDate auditDate = LocalDate.now().minusDays(1);
+        shardRouter.forEachShard(() -> run(auditDate));
+    }
+
+    /**
+     * Finish audits that were interrupted by a shutdown or crash
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        shardRouter.forEachShard(() -> {
+            for (NightAuditRunModel run : nightAuditRunRepository.findByCompletedAtIsNullOrderByAuditDateAsc()) {
+                log.info("Resuming night audit for {} on shard {} at stage {}", run.getAuditDate(),
+                        PropertyContext.shard(), run.getStage());
+                run(run.getAuditDate());
+            }
+        });
+    }
+
+    /**
+     * Get the audit run of a business date
+     */
+    public NightAuditRunModel getRun(LocalDate auditDate) {
+        return nightAuditRunRepository.findById(auditDate).orElse(null);
+    }
+
+    /**
+     * Run, or resume, the audit of a business date; does nothing if it already completed or another
+     * run holds it. Runs are kept per shard, so the audit covers every property on the current shard.
+     * @return The run as this call left it, or as the holding run has checkpointed it so far
+     */
+    public NightAuditRunModel run(LocalDate auditDate) {
+        return PropertyContext.callOnShard(shardRouter.currentShard(), () -> {
+            String holder = UUID.randomUUID().toString();
+            if (!claim(auditDate, holder)) {
+                log.info("Night audit for {} on shard {} is complete or held by another run", auditDate,
+                        PropertyContext.shard());
+                return getRun(auditDate);
+            }
+
+            try {
+                return audit(auditDate, holder);
+            } finally {
+                release(auditDate, holder);
+            }
+        });
+    }
+
+    /**
+     * Claim an unfinished run whose claim is free or has run out, or create the run already claimed
+     * @return Whether the holder now owns the run
+     */
+    private boolean claim(LocalDate auditDate, String holder) {
+        long ttlMicros = TimeUnit.SECONDS.toMicros(claimTtlSeconds);
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (jdbcTemplate.update(CLAIM_RUN, holder, ttlMicros, Date.valueOf(auditDate)) > 0) {
+                    return true;
+                }
+                if (nightAuditRunRepository.existsById(auditDate)) {
+                    return false;
+                }
+
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.update(INSERT_RUN, Date.valueOf(auditDate), Stage.check_outs.name(), now, now, holder,
+                        ttlMicros);
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the run first
+            return false;
+        }
+    }
+
+    /**
+     * Extend the claim inside a chunk's transaction
+     * @throws ClaimLostException If another run took the claim over
+     */
+    private void renew(LocalDate auditDate, String holder) {
+        int held = jdbcTemplate.update(RENEW_CLAIM, TimeUnit.SECONDS.toMicros(claimTtlSeconds),
+                Date.valueOf(auditDate), holder);
+        if (held == 0) {
+            throw new ClaimLostException("The night audit for " + auditDate + " was taken over by another run");
+        }
+    }
+
+    private void release(LocalDate auditDate, String holder) {
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> jdbcTemplate.update(RELEASE_CLAIM, Date.valueOf(auditDate), holder));
+        } catch (DataAccessException e) {
+            // The claim runs out on its own
+            log.warn("Could not release the night audit for {}", auditDate, e);
+        }
+    }
+
+    private NightAuditRunModel audit(LocalDate auditDate, String holder) {
+        NightAuditRunModel run = nightAuditRunRepository.findById(auditDate).orElseThrow();
+
+        LocalDateTime nightEnd = auditDate.plusDays(1).atStartOfDay();
+
+        while (run.getStage() != Stage.done) {
+            // The database keeps microseconds, so the changed bookings can be found again by their timestamp
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+            switch (run.getStage()) {
+                case check_outs:
+                    processChunks(run, holder,
+                            afterId -> bookingRepository.findOverdueCheckOutChunk(now, afterId, chunk()),
+                            rows -> {
+                                int checkedOut = updateStatus(rows, BookingStatus.checked_in,
+                                        BookingStatus.checked_out, now);
+                                // Recomputing is idempotent, so a resumed chunk cannot count a stay twice
+                                customerStatsService.refreshCustomers(
+                                        rows.stream().map(row -> (String) row[2]).distinct().toList());
+                                return checkedOut;
+                            });
+                    break;
+                case no_shows:
+                    // Guests had until the end of the audited day to arrive
+                    Set<String> releasedRooms = new HashSet<>();
+                    Set<String> noShows = new HashSet<>();
+                    processChunks(run, holder,
+                            afterId -> bookingRepository.findNoShowChunk(nightEnd, afterId, chunk()),
+                            rows -> {
+                                rows.forEach(row -> releasedRooms.add((String) row[1]));
+                                noShows.addAll(bookingIds(rows));
+                                rows.forEach(row -> invalidationBus.invalidate(EntityType.booking, (String) row[0],
+                                        (String) row[1]));
+                                return updateStatus(rows, BookingStatus.confirmed, BookingStatus.no_show, now);
+                            });
+                    // No-shows release their rooms and occupancy
+                    roomInventoryService.releaseBookings(noShows);
+                    releasedRooms.forEach(availabilityService::invalidateRoom);
+                    if (!releasedRooms.isEmpty()) {
+                        rateCalendarService.rebuild();
+                    }
+                    break;
+                case daily_charges:
+                    processChunks(run, holder,
+                            afterId -> bookingRepository.findInHouseChunk(nightEnd, afterId, chunk()),
+                            rows -> postDailyCharges(rows, auditDate, now));
+                    break;
+                case reconcile:
+                    reconcile(run, holder, now);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        log.info("Night audit for {} on shard {} done: {} checked out, {} no-shows, {} charges posted, {} rooms and {} customers reconciled",
+                auditDate, PropertyContext.shard(), run.getCheckedOut(), run.getNoShows(), run.getChargesPosted(),
+                run.getRoomsReconciled(), run.getCustomersReconciled());
+        return run;
+    }
+
+    /**
+     * Apply a stage to every chunk of bookings, committing each chunk with the checkpoint, then advance the stage
+     * @param nextChunk Loads the chunk after a booking ID; rows start with the booking ID
+     * @param apply Processes a chunk and returns how many bookings it changed
+     */
+    private void processChunks(NightAuditRunModel run, String holder, Function<String, List<Object[]>> nextChunk,
+            ToIntFunction<List<Object[]>> apply) {
+        boolean more = true;
+
+        while (more) {
+            more = transactionTemplate.execute(status -> {
+                renew(run.getAuditDate(), holder);
+                String afterId = run.getLastBookingId() == null ? "" : run.getLastBookingId();
+                List<Object[]> rows = nextChunk.apply(afterId);
+
+                if (rows.isEmpty()) {
+                    advance(run, nextStage(run.getStage()));
+                    return false;
+                }
+
+                count(run, apply.applyAsInt(rows));
+                run.setLastBookingId((String) rows.get(rows.size() - 1)[0]);
+                checkpoint(run);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Move a chunk's bookings that still have the expected status to the new one, and publish a change for each
+     * booking actually moved so the journal and the in-memory views see it once the chunk commits
+     * @return The number of bookings changed
+     */
+    private int updateStatus(List<Object[]> rows, BookingStatus expected, BookingStatus status, LocalDateTime now) {
+        List<String> ids = bookingIds(rows);
+        int changed = bookingRepository.updateStatusIfCurrent(ids, expected, status, now);
+        if (changed == 0) {
+            return 0;
+        }
+
+        for (Object[] stay : bookingRepository.findUpdatedStays(ids, status, now)) {
+            eventPublisher.publishEvent(new BookingChangedEvent(ChangeType.status_changed, (String) stay[0],
+                    (String) stay[1], (String) stay[2], (LocalDateTime) stay[3], (LocalDateTime) stay[4],
+                    expected, status, (String) stay[5]));
+        }
+        return changed;
+    }
+
+    /**
+     * Post the night's rate for each stay; the unique (booking_id, charge_date) key rejects a double post
+     */
+    private int postDailyCharges(List<Object[]> rows, LocalDate auditDate, LocalDateTime now) {
+        Set<String> roomIds = new HashSet<>();
+        rows.forEach(row -> roomIds.add((String) row[1]));
+
+        Map<String, RoomModel> rooms = new HashMap<>();
+        roomRepository.findAllById(roomIds).forEach(room -> rooms.put(room.getId(), room));
+
+        List<Object[]> charges = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            RoomModel room = rooms.get((String) row[1]);
+            if (room == null) {
+                continue;
+            }
+
+            long cents = rateCalendarService.nightlyRates(room, auditDate, auditDate.plusDays(1), true)[0];
+            charges.add(new Object[] { UUID.randomUUID().toString(), row[0], row[1],
+                    Date.valueOf(auditDate), PricingKernel.toAmount(cents), Timestamp.valueOf(now) });
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_DAILY_CHARGE, charges);
+        return charges.size();
+    }
+
+    /**
+     * Bring room statuses and current guests in line with the bookings, one bulk update each
+     */
+    private void reconcile(NightAuditRunModel run, String holder, LocalDateTime now) {
+        transactionTemplate.executeWithoutResult(status -> {
+            renew(run.getAuditDate(), holder);
+            LocalDateTime dayEnd = now.toLocalDate().plusDays(1).atStartOfDay();
+
+            run.setRoomsReconciled(roomRepository.reconcileOccupied(now)
+                    + roomRepository.reconcileReserved(dayEnd, now)
+                    + roomRepository.reconcileAvailable(dayEnd, now));
+            run.setCustomersReconciled(customerRepository.reconcileCurrentGuests(now)
+                    + customerRepository.reconcilePastGuests(now));
+
+            run.setCompletedAt(now);
+            advance(run, Stage.done);
+        });
+    }
+
+    private void advance(NightAuditRunModel run, Stage stage) {
+        run.setStage(stage);
+        run.setLastBookingId(null);
+        checkpoint(run);
+    }
+
+    private void checkpoint(NightAuditRunModel run) {
+        run.setUpdatedAt(LocalDateTime.now());
+        nightAuditRunRepository.save(run);
+    }
+
+    private static void count(NightAuditRunModel run, int changed) {
+        switch (run.getStage()) {
+            case check_outs:
+                run.setCheckedOut(run.getCheckedOut() + changed);
+                break;
+            case no_shows:
+                run.setNoShows(run.getNoShows() + changed);
+                break;
+            case daily_charges:
+                run.setChargesPosted(run.getChargesPosted() + changed);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Stage nextStage(Stage stage) {
+        return Stage.values()[stage.ordinal() + 1];
+    }
+
+    private static List<String> bookingIds(List<Object[]> rows) {
+        return rows.stream().map(row -> (String) row[0]).toList();
+    }
+
+    private PageRequest chunk() {
+        return PageRequest.of(0, chunkSize);
+    }
+}
@@ -0,0 +1,178 @@
+package com.roomstack.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.ShardRouter;
+import com.roomstack.model.OutboxEventModel;
+import com.roomstack.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Polls the outbox table and delivers pending events to their handlers in batches.
+ * Each event is claimed, handled and marked processed in its own transaction, so
+ * when several nodes poll the same outbox only one of them handles an event; a
+ * failure rolls the claim back and leaves the event pending with a backoff, so
+ * delivery is at-least-once.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private List<OutboxEventHandler> handlers;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${roomstack.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${roomstack.outbox.retry-backoff-seconds:5}")
+    private long retryBackoffSeconds;
+
+    @Value("${roomstack.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+
+    private Counter dispatchedCounter;
+
+    private Counter failedCounter;
+
+    private Timer deliveryLag;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        dispatchedCounter = meterRegistry.counter("roomstack.outbox.dispatched");
+        failedCounter = meterRegistry.counter("roomstack.outbox.failed");
+        deliveryLag = Timer.builder("roomstack.outbox.delivery.lag")
+                .description("Time from an event being written to it being processed")
+                .register(meterRegistry);
+        Gauge.builder("roomstack.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Events waiting to be dispatched")
+                .register(meterRegistry);
+        Gauge.builder("roomstack.outbox.lag.seconds", oldestPendingAgeMillis, age -> age.get() / 1000.0)
+                .description("Age of the oldest pending event")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Dispatch the due events of every shard; each shard's outbox holds the events of its properties
+     */
+    @Scheduled(fixedDelayString = "${roomstack.outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        AtomicLong pending = new AtomicLong();
+        AtomicLong oldestAgeMillis = new AtomicLong();
+
+        shardRouter.forEachShard(() -> {
+            dispatchDue();
+            pending.addAndGet(outboxEventRepository.countByProcessedAtIsNull());
+            oldestAgeMillis.accumulateAndGet(oldestPendingAgeMillis(), Math::max);
+        });
+
+        pendingEvents.set(pending.get());
+        oldestPendingAgeMillis.set(oldestAgeMillis.get());
+    }
+
+    /**
+     * Remove processed events that are past the retention period
+     */
+    @Scheduled(fixedDelayString = "${roomstack.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        shardRouter.forEachShard(() -> transactionTemplate.executeWithoutResult(
+                status -> outboxEventRepository.deleteProcessedBefore(cutoff)));
+    }
+
+    /**
+     * Dispatch due events until the backlog is drained or a batch comes back short
+     */
+    private void dispatchDue() {
+        List<OutboxEventModel> batch;
+        do {
+            batch = outboxEventRepository.findDueEvents(LocalDateTime.now(), PageRequest.ofSize(batchSize));
+            batch.forEach(this::deliver);
+        } while (batch.size() == batchSize);
+    }
+
+    private void deliver(OutboxEventModel event) {
+        LocalDateTime processedAt = LocalDateTime.now();
+        try {
+            Boolean claimed = transactionTemplate.execute(status -> {
+                // Another node that read the same batch either already committed the event or
+                // waits here on the row lock until this transaction ends
+                if (outboxEventRepository.claim(event.getId(), processedAt) == 0) {
+                    return false;
+                }
+
+                for (OutboxEventHandler handler : handlers) {
+                    if (handler.supports(event.getEventType())) {
+                        handler.handle(event);
+                    }
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(claimed)) {
+                return;
+            }
+
+            dispatchedCounter.increment();
+            deliveryLag.record(Duration.between(event.getCreatedAt(), processedAt).toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            log.warn("Outbox event {} ({}) failed on attempt {}", event.getId(), event.getEventType(),
+                    event.getAttempts() + 1, e);
+            failedCounter.increment();
+            scheduleRetry(event, e);
+        }
+    }
+
+    private void scheduleRetry(OutboxEventModel event, RuntimeException error) {
+        int attempts = event.getAttempts() + 1;
+        // Linear backoff so a poisoned event doesn't monopolise the dispatcher
+        LocalDateTime availableAt = LocalDateTime.now().plusSeconds(retryBackoffSeconds * attempts);
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.recordFailure(
+                event.getId(), event.getAttempts(), String.valueOf(error.getMessage()), availableAt));
+    }
+
+    private long oldestPendingAgeMillis() {
+        return outboxEventRepository.findFirstByProcessedAtIsNullOrderByCreatedAtAsc()
+                .map(event -> Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis())
+                .orElse(0L);
+    }
+}
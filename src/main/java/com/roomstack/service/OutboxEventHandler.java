@@ -0,0 +1,21 @@
+package com.roomstack.service;
+
+import com.roomstack.model.OutboxEventModel;
+
+/**
+ * Side effect triggered by an outbox event. Delivery is at-least-once, so
+ * implementations must be idempotent: handling the same event twice must
+ * leave the system in the same state as handling it once.
+ */
+public interface OutboxEventHandler {
+
+    /**
+     * Whether this handler reacts to the given event type
+     */
+    boolean supports(String eventType);
+
+    /**
+     * Apply the side effect; runs inside the dispatcher's transaction for the event
+     */
+    void handle(OutboxEventModel event);
+}
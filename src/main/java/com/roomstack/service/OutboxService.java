@@ -0,0 +1,38 @@
+package com.roomstack.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.roomstack.model.OutboxEventModel;
+import com.roomstack.repository.OutboxEventRepository;
+
+@Service
+public class OutboxService {
+
+    public static final String AGGREGATE_BOOKING = "booking";
+
+    public static final String BOOKING_CREATED = "BOOKING_CREATED";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    /**
+     * Record an event in the outbox. Must be called inside the transaction that
+     * performs the state change, so the event is stored if and only if it commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEventModel enqueue(String aggregateType, String aggregateId, String eventType, String payload) {
+        OutboxEventModel event = new OutboxEventModel();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        event.setPayload(payload);
+        event.setAvailableAt(LocalDateTime.now());
+
+        return outboxEventRepository.save(event);
+    }
+}
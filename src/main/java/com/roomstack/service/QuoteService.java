@@ -0,0 +1,79 @@
+package com.roomstack.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.roomstack.model.QuoteLine;
+import com.roomstack.model.QuoteRequest;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.util.PricingKernel;
+
+/**
+ * Prices many stays at once. Rooms are loaded in one query, and each stay is
+ * priced from the rate calendar with the long-cents PricingKernel; amounts only
+ * become BigDecimals for the response.
+ */
+@Service
+public class QuoteService {
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RateCalendarService rateCalendarService;
+
+    /**
+     * Quote every stay; a stay that cannot be priced gets a message instead of amounts
+     */
+    public List<QuoteLine> quoteBatch(List<QuoteRequest> requests) {
+        Set<String> roomIds = new HashSet<>();
+        for (QuoteRequest request : requests) {
+            if (request.getRoomId() != null) {
+                roomIds.add(request.getRoomId());
+            }
+        }
+
+        Map<String, RoomModel> rooms = new HashMap<>();
+        roomRepository.findAllById(roomIds).forEach(room -> rooms.put(room.getId(), room));
+
+        List<QuoteLine> lines = new ArrayList<>(requests.size());
+        for (QuoteRequest request : requests) {
+            lines.add(quote(request, rooms.get(request.getRoomId())));
+        }
+        return lines;
+    }
+
+    private QuoteLine quote(QuoteRequest request, RoomModel room) {
+        QuoteLine line = new QuoteLine(request);
+
+        if (room == null) {
+            line.setMessage("Room not found");
+            return line;
+        }
+        if (request.getCheckIn() == null || request.getCheckOut() == null) {
+            line.setMessage("Check-in and check-out dates are required");
+            return line;
+        }
+        if (request.getCheckIn().isAfter(request.getCheckOut())) {
+            line.setMessage("Check-out date must be after check-in date");
+            return line;
+        }
+
+        long roomCharge = rateCalendarService.roomChargeCents(room,
+                request.getCheckIn().toLocalDate(), request.getCheckOut().toLocalDate(), false);
+        long tax = PricingKernel.tax(roomCharge);
+
+        line.setRoomCharge(PricingKernel.toAmount(roomCharge));
+        line.setTaxAmount(PricingKernel.toAmount(tax));
+        line.setTotal(PricingKernel.toAmount(roomCharge + tax));
+        return line;
+    }
+}
@@ -0,0 +1,439 @@
+package com.roomstack.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.roomstack.config.ShardRouter;
+import com.roomstack.event.BookingChangedEvent;
+import com.roomstack.event.CacheInvalidationEvent;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.RatePlanRuleModel;
+import com.roomstack.model.RatePlanRuleModel.RuleType;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.RatePlanRuleRepository;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.util.PricingKernel;
+
+/**
+ * Precomputed nightly price calendar. For every room it keeps the rate of each
+ * night of a rolling horizon in cents, with seasonal and weekday rules already
+ * applied. Occupancy rules depend on live bookings, so they are applied when a
+ * stay is priced from a per-night count of booked rooms of the room's
+ * property, since each property is a hotel of its own. Pricing a stay is
+ * O(nights). A rule change only recomputes the rooms and nights it covers.
+ */
+@Service
+public class RateCalendarService {
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RatePlanRuleRepository ratePlanRuleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomInventoryService roomInventoryService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private static final AtomicIntegerArray EMPTY_OCCUPANCY = new AtomicIntegerArray(0);
+
+    @Value("${roomstack.rates.horizon-days:365}")
+    private int horizonDays;
+
+    private volatile LocalDate horizonStart;
+
+    // Room ID -> rate in cents for each night of the horizon
+    private final Map<String, long[]> calendars = new ConcurrentHashMap<>();
+
+    private final Map<String, Double> basePrices = new ConcurrentHashMap<>();
+
+    // Room ID -> property ID, and the number of rooms of each property
+    private final Map<String, String> propertyIds = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> roomCounts = new ConcurrentHashMap<>();
+
+    private volatile List<RatePlanRuleModel> rules = List.of();
+
+    private volatile List<RatePlanRuleModel> occupancyRules = List.of();
+
+    // Property ID -> booked rooms per night of the horizon
+    private volatile Map<String, AtomicIntegerArray> occupiedRooms = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuild the whole calendar; runs at startup and daily to roll the horizon forward
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${roomstack.rates.rebuild-cron:0 5 0 * * *}")
+    public synchronized void rebuild() {
+        LocalDate start = LocalDate.now();
+        LocalDateTime from = start.atStartOfDay();
+        LocalDateTime to = start.plusDays(horizonDays).atStartOfDay();
+        List<RatePlanRuleModel> loadedRules = shardRouter.scatter(ratePlanRuleRepository::findAll);
+        // Stays come from the in-memory inventory once it is loaded
+        boolean fromInventory = roomInventoryService.isLoaded();
+
+        List<RoomModel> rooms = new ArrayList<>();
+        List<Object[]> stays = new ArrayList<>();
+        shardRouter.forEachShard(() -> {
+            rooms.addAll(roomRepository.findAll());
+            if (!fromInventory) {
+                stays.addAll(bookingRepository.findActiveStayDates(from, to));
+            }
+        });
+        if (fromInventory) {
+            stays.addAll(roomInventoryService.activeStayDates(from, to));
+        }
+
+        setRules(loadedRules);
+        horizonStart = start;
+
+        calendars.clear();
+        basePrices.clear();
+        propertyIds.clear();
+        roomCounts.clear();
+        for (RoomModel room : rooms) {
+            addRoom(room);
+            calendars.put(room.getId(), computeCalendar(room, start));
+        }
+        occupiedRooms = countOccupancy(stays, start);
+    }
+
+    /**
+     * Recompute a room after it was created or its base price changed
+     */
+    public synchronized void refreshRoom(RoomModel room) {
+        if (horizonStart == null) {
+            return;
+        }
+
+        Double previous = basePrices.get(room.getId());
+        addRoom(room);
+
+        if (previous == null || previous != room.getPricePerNight()) {
+            calendars.put(room.getId(), computeCalendar(room, horizonStart));
+        }
+    }
+
+    /**
+     * Forget a deleted room
+     */
+    public synchronized void removeRoom(String roomId) {
+        basePrices.remove(roomId);
+        calendars.remove(roomId);
+        String propertyId = propertyIds.remove(roomId);
+        if (propertyId != null) {
+            roomCounts.computeIfPresent(propertyId, (property, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Recompute only the rooms and nights touched by a rule before and after a change
+     * @param before The rule before the change, or null if it was created
+     * @param after The rule after the change, or null if it was deleted
+     */
+    public synchronized void applyRuleChange(RatePlanRuleModel before, RatePlanRuleModel after) {
+        List<RatePlanRuleModel> updated = new ArrayList<>(rules);
+        if (before != null) {
+            updated.removeIf(rule -> rule.getId().equals(before.getId()));
+        }
+        if (after != null) {
+            updated.add(after);
+        }
+        setRules(updated);
+
+        // Occupancy rules are applied at pricing time, nothing is precomputed for them
+        for (RatePlanRuleModel changed : Arrays.asList(before, after)) {
+            if (changed != null && changed.getRuleType() != RuleType.occupancy) {
+                recompute(changed);
+            }
+        }
+    }
+
+    /**
+     * Nightly rates in cents for a stay. A stay of less than a night is charged one night.
+     * @param includesStay Whether the stay is already booked, so it must not count towards its own occupancy
+     */
+    public long[] nightlyRates(RoomModel room, LocalDate checkIn, LocalDate checkOut, boolean includesStay) {
+        long[] rates = new long[nights(checkIn, checkOut)];
+        priceStay(room, checkIn, rates.length, includesStay, rates);
+        return rates;
+    }
+
+    /**
+     * Room charge in cents for a stay; same as summing nightlyRates without allocating them
+     */
+    public long roomChargeCents(RoomModel room, LocalDate checkIn, LocalDate checkOut, boolean includesStay) {
+        return priceStay(room, checkIn, nights(checkIn, checkOut), includesStay, null);
+    }
+
+    /**
+     * Price every night of a stay
+     * @param rates Receives the nightly rates when not null
+     * @return The sum of the nightly rates
+     */
+    private long priceStay(RoomModel room, LocalDate checkIn, int nights, boolean includesStay, long[] rates) {
+        LocalDate start = horizonStart;
+        long[] calendar = calendars.get(room.getId());
+        String propertyId = propertyIds.getOrDefault(room.getId(), room.getPropertyId());
+        AtomicIntegerArray occupancy = propertyId == null ? EMPTY_OCCUPANCY
+                : occupiedRooms.getOrDefault(propertyId, EMPTY_OCCUPANCY);
+        List<RatePlanRuleModel> currentOccupancyRules = occupancyRules;
+        int totalRooms = propertyId == null ? 1 : Math.max(1, roomCounts.getOrDefault(propertyId, 0));
+
+        long sum = 0;
+        int offset = start == null ? -1 : (int) ChronoUnit.DAYS.between(start, checkIn);
+        for (int night = 0; night < nights; night++, offset++) {
+            boolean inHorizon = calendar != null && offset >= 0 && offset < calendar.length;
+
+            // Outside the horizon (or for a room not loaded yet) the rate is computed on the spot
+            long rate = inHorizon
+                    ? calendar[offset]
+                    : staticRate(room.getId(), propertyId, room.getPricePerNight(), checkIn.plusDays(night), rules);
+
+            if (!currentOccupancyRules.isEmpty() && offset >= 0 && offset < occupancy.length()) {
+                int booked = occupancy.get(offset) - (includesStay ? 1 : 0);
+                rate = applyOccupancy(rate, room.getId(), propertyId, checkIn.plusDays(night),
+                        booked * 100 / totalRooms, currentOccupancyRules);
+            }
+
+            if (rates != null) {
+                rates[night] = rate;
+            }
+            sum += rate;
+        }
+        return sum;
+    }
+
+    /**
+     * Keep the per-night occupancy in step with committed booking changes
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookingChanged(BookingChangedEvent event) {
+        boolean wasActive = event.getPreviousStatus() != null && holdsRoom(event.getPreviousStatus());
+        boolean isActive = !event.isRemoval() && holdsRoom(event.getStatus());
+
+        String propertyId = propertyIds.get(event.getRoomId());
+        if (wasActive != isActive && horizonStart != null && propertyId != null) {
+            AtomicIntegerArray occupancy = occupiedRooms.computeIfAbsent(propertyId,
+                    property -> new AtomicIntegerArray(horizonDays));
+            addStay(occupancy, horizonStart, event.getCheckIn(), event.getCheckOut(), isActive ? 1 : -1);
+        }
+    }
+
+    /**
+     * Catch up with rooms, rules and bookings other nodes changed; the inventory has already reloaded
+     * the rooms and bookings. A full flush rebuilds the calendar.
+     */
+    @EventListener
+    public synchronized void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFullFlush()) {
+            rebuild();
+            return;
+        }
+        if (horizonStart == null) {
+            return;
+        }
+
+        if (!event.getRoomIds().isEmpty()) {
+            Map<String, RoomModel> rooms = new HashMap<>();
+            roomRepository.findAllById(event.getRoomIds()).forEach(room -> rooms.put(room.getId(), room));
+            for (String roomId : event.getRoomIds()) {
+                RoomModel room = rooms.get(roomId);
+                if (room != null) {
+                    refreshRoom(room);
+                } else {
+                    removeRoom(roomId);
+                }
+            }
+        }
+
+        if (!event.getRateRuleIds().isEmpty()) {
+            Map<String, RatePlanRuleModel> changed = new HashMap<>();
+            ratePlanRuleRepository.findAllById(event.getRateRuleIds()).forEach(rule -> changed.put(rule.getId(), rule));
+            for (String ruleId : event.getRateRuleIds()) {
+                // A missing rule was deleted
+                RatePlanRuleModel before = rules.stream()
+                        .filter(rule -> rule.getId().equals(ruleId))
+                        .findFirst()
+                        .orElse(null);
+                applyRuleChange(before, changed.get(ruleId));
+            }
+        }
+
+        // Which stays changed how is not known here, so the occupancy is counted again
+        if (!event.getBookingIds().isEmpty() && roomInventoryService.isLoaded()) {
+            LocalDate start = horizonStart;
+            occupiedRooms = countOccupancy(roomInventoryService.activeStayDates(start.atStartOfDay(),
+                    start.plusDays(horizonDays).atStartOfDay()), start);
+        }
+    }
+
+    private void addRoom(RoomModel room) {
+        basePrices.put(room.getId(), room.getPricePerNight());
+        if (room.getPropertyId() != null && propertyIds.put(room.getId(), room.getPropertyId()) == null) {
+            roomCounts.merge(room.getPropertyId(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Count booked rooms per property and night from (room ID, check-in, check-out) stays
+     */
+    private Map<String, AtomicIntegerArray> countOccupancy(List<Object[]> stays, LocalDate start) {
+        Map<String, AtomicIntegerArray> occupancy = new ConcurrentHashMap<>();
+        for (Object[] stay : stays) {
+            String propertyId = propertyIds.get((String) stay[0]);
+            if (propertyId != null) {
+                addStay(occupancy.computeIfAbsent(propertyId, property -> new AtomicIntegerArray(horizonDays)),
+                        start, (LocalDateTime) stay[1], (LocalDateTime) stay[2], 1);
+            }
+        }
+        return occupancy;
+    }
+
+    private void setRules(List<RatePlanRuleModel> updated) {
+        rules = List.copyOf(updated);
+        occupancyRules = updated.stream().filter(rule -> rule.getRuleType() == RuleType.occupancy).toList();
+    }
+
+    private void recompute(RatePlanRuleModel rule) {
+        LocalDate start = horizonStart;
+        if (start == null) {
+            return;
+        }
+
+        int from = rule.getStartDate() == null ? 0
+                : (int) Math.max(0, ChronoUnit.DAYS.between(start, rule.getStartDate()));
+        int to = rule.getEndDate() == null ? horizonDays
+                : (int) Math.min(horizonDays, ChronoUnit.DAYS.between(start, rule.getEndDate()) + 1);
+
+        for (Map.Entry<String, Double> room : basePrices.entrySet()) {
+            String propertyId = propertyIds.get(room.getKey());
+            if (!appliesToRoom(rule, room.getKey(), propertyId) || from >= to) {
+                continue;
+            }
+
+            // Copy on write so concurrent readers always see a complete calendar
+            long[] calendar = calendars.get(room.getKey()).clone();
+            for (int offset = from; offset < to; offset++) {
+                calendar[offset] = staticRate(room.getKey(), propertyId, room.getValue(), start.plusDays(offset),
+                        rules);
+            }
+            calendars.put(room.getKey(), calendar);
+        }
+    }
+
+    private long[] computeCalendar(RoomModel room, LocalDate start) {
+        long[] calendar = new long[horizonDays];
+        for (int offset = 0; offset < horizonDays; offset++) {
+            calendar[offset] = staticRate(room.getId(), room.getPropertyId(), room.getPricePerNight(),
+                    start.plusDays(offset), rules);
+        }
+        return calendar;
+    }
+
+    /**
+     * Base price with every seasonal and weekday rule for the night applied, rounded once to cents
+     */
+    private static long staticRate(String roomId, String propertyId, double basePrice, LocalDate date,
+            List<RatePlanRuleModel> rules) {
+        BigDecimal price = BigDecimal.valueOf(basePrice);
+
+        for (RatePlanRuleModel rule : rules) {
+            if (rule.getRuleType() != RuleType.occupancy && appliesToRoom(rule, roomId, propertyId)
+                    && appliesToDate(rule, date)) {
+                price = price.multiply(BigDecimal.valueOf(100 + rule.getAdjustmentPercent()))
+                        .divide(BigDecimal.valueOf(100));
+            }
+        }
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Apply the occupancy rule with the highest threshold the night has reached
+     */
+    private static long applyOccupancy(long rate, String roomId, String propertyId, LocalDate date,
+            int occupancyPercent, List<RatePlanRuleModel> occupancyRules) {
+        RatePlanRuleModel best = null;
+        int bestThreshold = -1;
+
+        for (RatePlanRuleModel rule : occupancyRules) {
+            int threshold = rule.getMinOccupancyPercent() == null ? 0 : rule.getMinOccupancyPercent();
+            if (threshold <= occupancyPercent && threshold > bestThreshold
+                    && appliesToRoom(rule, roomId, propertyId) && appliesToDate(rule, date)) {
+                best = rule;
+                bestThreshold = threshold;
+            }
+        }
+
+        return best == null ? rate : PricingKernel.adjust(rate, best.getAdjustmentPercent());
+    }
+
+    /**
+     * Rules are loaded for every property, so a rule without a room still only covers its own property
+     */
+    private static boolean appliesToRoom(RatePlanRuleModel rule, String roomId, String propertyId) {
+        if (!Objects.equals(rule.getPropertyId(), propertyId)) {
+            return false;
+        }
+        return rule.getRoomId() == null || rule.getRoomId().equals(roomId);
+    }
+
+    private static boolean appliesToDate(RatePlanRuleModel rule, LocalDate date) {
+        if (rule.getStartDate() != null && date.isBefore(rule.getStartDate())) {
+            return false;
+        }
+        if (rule.getEndDate() != null && date.isAfter(rule.getEndDate())) {
+            return false;
+        }
+        if (rule.getRuleType() == RuleType.weekday && rule.getDaysOfWeek() != null) {
+            return Arrays.stream(rule.getDaysOfWeek().split(","))
+                    .map(String::trim)
+                    .anyMatch(day -> DayOfWeek.valueOf(day) == date.getDayOfWeek());
+        }
+        return true;
+    }
+
+    private static boolean holdsRoom(BookingStatus status) {
+        return status != BookingStatus.cancelled && status != BookingStatus.no_show;
+    }
+
+    private static int nights(LocalDate checkIn, LocalDate checkOut) {
+        return (int) Math.max(1, ChronoUnit.DAYS.between(checkIn, checkOut));
+    }
+
+    private static void addStay(AtomicIntegerArray occupancy, LocalDate start, LocalDateTime checkIn,
+            LocalDateTime checkOut, int delta) {
+        int from = (int) ChronoUnit.DAYS.between(start, checkIn.toLocalDate());
+        int nights = nights(checkIn.toLocalDate(), checkOut.toLocalDate());
+
+        for (int offset = Math.max(0, from); offset < Math.min(occupancy.length(), from + nights); offset++) {
+            occupancy.addAndGet(offset, delta);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.roomstack.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.roomstack.config.ShardRouter;
+import com.roomstack.event.BillChangedEvent;
+import com.roomstack.event.BookingChangedEvent;
+import com.roomstack.event.CacheInvalidationEvent;
+import com.roomstack.model.AgingReport;
+import com.roomstack.model.AgingReport.CustomerAging;
+import com.roomstack.model.BillModel.PaymentStatus;
+import com.roomstack.repository.BillRepository;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.util.PricingKernel;
+
+/**
+ * In-memory receivables ledger of every bill that is not fully paid. Balances
+ * are kept in cents per bill date, per property and per customer, so an aging
+ * report only walks the distinct bill dates instead of the bills table. The
+ * ledger is loaded from every shard at startup and then follows committed
+ * bill changes; each property reports only its own bills.
+ * Bills have no paid-to-date amount, so a partial bill counts in full.
+ */
+@Service
+public class ReceivablesAgingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReceivablesAgingService.class);
+
+    /** Upper bound, in days, of every bucket but the last */
+    private static final int[] BUCKET_LIMITS = { 30, 60, 90 };
+
+    private static final String[] BUCKET_LABELS = { "0-30", "31-60", "61-90", "90+" };
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final Map<String, Receivable> receivables = new HashMap<>();
+
+    private final Map<String, String> billIdsByBookingId = new HashMap<>();
+
+    // One ledger per property; a property's report never shows another's balances
+    private final Map<String, Ledger> ledgersByPropertyId = new HashMap<>();
+
+    private final Map<String, Ledger> ledgersByCustomerId = new HashMap<>();
+
+    // Bills changed while the startup load was reading; their loaded rows may be stale
+    private Set<String> changedDuringLoad;
+
+    /**
+     * Load the outstanding bills once the application is up; loading again replaces the ledger
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            changedDuringLoad = new HashSet<>();
+        }
+
+        List<Object[]> rows = shardRouter.scatter(billRepository::findOutstanding);
+
+        synchronized (this) {
+            // Bills changed while reading keep what their change left
+            Map<String, Receivable> changed = new HashMap<>();
+            changedDuringLoad.forEach(billId -> {
+                Receivable receivable = receivables.get(billId);
+                if (receivable != null) {
+                    changed.put(billId, receivable);
+                }
+            });
+            receivables.clear();
+            billIdsByBookingId.clear();
+            ledgersByPropertyId.clear();
+            ledgersByCustomerId.clear();
+
+            for (Object[] row : rows) {
+                if (!changedDuringLoad.contains((String) row[0])) {
+                    put(row);
+                }
+            }
+            changed.forEach((billId, receivable) -> put(billId, receivable.bookingId, receivable.customerId,
+                    receivable.billDate, receivable.cents, receivable.propertyId));
+            changedDuringLoad = null;
+            log.info("Loaded {} outstanding bills into the receivables ledger", receivables.size());
+        }
+    }
+
+    /**
+     * Track a committed bill change: outstanding bills are (re)entered, paid bills leave the ledger
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBillChanged(BillChangedEvent event) {
+        if (changedDuringLoad != null) {
+            changedDuringLoad.add(event.getBillId());
+        }
+
+        remove(event.getBillId());
+        if (event.getPaymentStatus() != PaymentStatus.paid) {
+            put(event.getBillId(), event.getBookingId(), event.getCustomerId(), event.getBillDate(), event.getTotal(),
+                    event.getPropertyId());
+        }
+    }
+
+    /**
+     * Deleting or archiving a booking removes its bill
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookingChanged(BookingChangedEvent event) {
+        if (!event.isRemoval()) {
+            return;
+        }
+
+        String billId = billIdsByBookingId.get(event.getBookingId());
+        if (billId != null) {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(billId);
+            }
+            remove(billId);
+        }
+    }
+
+    /**
+     * Reload the bills other nodes changed, and those of bookings they changed; a full flush reloads the ledger
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFullFlush()) {
+            load();
+            return;
+        }
+
+        Set<String> billIds = new HashSet<>(event.getBillIds());
+        synchronized (this) {
+            for (String bookingId : event.getBookingIds()) {
+                String billId = billIdsByBookingId.get(bookingId);
+                if (billId != null) {
+                    billIds.add(billId);
+                }
+            }
+        }
+        if (billIds.isEmpty()) {
+            return;
+        }
+
+        // Published on the shard the changes were made on
+        List<Object[]> rows = billRepository.findOutstandingByIds(billIds);
+
+        synchronized (this) {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.addAll(billIds);
+            }
+            billIds.forEach(this::remove);
+            rows.forEach(this::put);
+        }
+    }
+
+    /**
+     * Age the outstanding balances as of today
+     * @param customerId Only report this customer, if set
+     * @param limit The number of customers to list, largest balance first
+     */
+    public AgingReport report(String customerId, int limit) {
+        LocalDate today = LocalDate.now();
+        List<CustomerAging> customers = new ArrayList<>();
+        AgingReport report = new AgingReport();
+
+        String propertyId = shardRouter.currentProperty();
+
+        synchronized (this) {
+            Ledger overall = ledgersByPropertyId.getOrDefault(propertyId, new Ledger(propertyId));
+            long[] buckets = overall.buckets(today);
+            report.setAsOf(today);
+            report.setBuckets(amounts(buckets));
+            report.setTotal(PricingKernel.toAmount(overall.cents));
+            report.setBillCount(overall.bills);
+            report.setCustomerCount(overall.customers);
+
+            if (customerId != null) {
+                Ledger ledger = ledgersByCustomerId.get(customerId);
+                if (ledger != null && Objects.equals(ledger.propertyId, propertyId)) {
+                    customers.add(customerAging(customerId, ledger, today));
+                }
+            } else {
+                ledgersByCustomerId.entrySet().stream()
+                        .filter(entry -> Objects.equals(entry.getValue().propertyId, propertyId))
+                        .sorted(Comparator.comparingLong((Map.Entry<String, Ledger> entry) -> entry.getValue().cents)
+                                .reversed())
+                        .limit(limit)
+                        .forEach(entry -> customers.add(customerAging(entry.getKey(), entry.getValue(), today)));
+            }
+        }
+
+        // Names are looked up by primary key for the listed customers only
+        Map<String, String> names = new HashMap<>();
+        customerRepository.findAllById(customers.stream().map(CustomerAging::getCustomerId).toList())
+                .forEach(customer -> names.put(customer.getId(), customer.getName()));
+        customers.forEach(customer -> customer.setCustomerName(names.get(customer.getCustomerId())));
+
+        report.setCustomers(customers);
+        return report;
+    }
+
+    /**
+     * Enter a row of BillRepository.findOutstanding
+     */
+    private void put(Object[] row) {
+        LocalDateTime createdAt = (LocalDateTime) row[3];
+        put((String) row[0], (String) row[1], (String) row[2],
+                createdAt == null ? LocalDate.now() : createdAt.toLocalDate(), (BigDecimal) row[4], (String) row[6]);
+    }
+
+    private void put(String billId, String bookingId, String customerId, LocalDate billDate, BigDecimal total,
+            String propertyId) {
+        put(billId, bookingId, customerId, billDate, total == null ? 0 : total.movePointRight(2).longValue(), propertyId);
+    }
+
+    private void put(String billId, String bookingId, String customerId, LocalDate billDate, long cents,
+            String propertyId) {
+        Receivable receivable = new Receivable(bookingId, customerId, billDate, cents, propertyId);
+
+        receivables.put(billId, receivable);
+        billIdsByBookingId.put(bookingId, billId);
+        Ledger overall = ledgersByPropertyId.computeIfAbsent(propertyId, Ledger::new);
+        overall.add(billDate, cents, 1);
+        if (customerId != null) {
+            Ledger ledger = ledgersByCustomerId.get(customerId);
+            if (ledger == null) {
+                ledger = new Ledger(propertyId);
+                ledgersByCustomerId.put(customerId, ledger);
+                overall.customers++;
+            }
+            ledger.add(billDate, cents, 1);
+        }
+    }
+
+    private void remove(String billId) {
+        Receivable receivable = receivables.remove(billId);
+        if (receivable == null) {
+            return;
+        }
+
+        billIdsByBookingId.remove(receivable.bookingId);
+        Ledger overall = ledgersByPropertyId.get(receivable.propertyId);
+        overall.add(receivable.billDate, -receivable.cents, -1);
+        if (receivable.customerId != null) {
+            Ledger ledger = ledgersByCustomerId.get(receivable.customerId);
+            ledger.add(receivable.billDate, -receivable.cents, -1);
+            if (ledger.bills == 0) {
+                ledgersByCustomerId.remove(receivable.customerId);
+                overall.customers--;
+            }
+        }
+        if (overall.bills == 0) {
+            ledgersByPropertyId.remove(receivable.propertyId);
+        }
+    }
+
+    private static CustomerAging customerAging(String customerId, Ledger ledger, LocalDate today) {
+        return new CustomerAging(customerId, amounts(ledger.buckets(today)),
+                PricingKernel.toAmount(ledger.cents), ledger.bills);
+    }
+
+    private static Map<String, BigDecimal> amounts(long[] buckets) {
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < BUCKET_LABELS.length; bucket++) {
+            amounts.put(BUCKET_LABELS[bucket], PricingKernel.toAmount(buckets[bucket]));
+        }
+        return amounts;
+    }
+
+    private static int bucket(long ageDays) {
+        for (int bucket = 0; bucket < BUCKET_LIMITS.length; bucket++) {
+            if (ageDays <= BUCKET_LIMITS[bucket]) {
+                return bucket;
+            }
+        }
+        return BUCKET_LIMITS.length;
+    }
+
+    private record Receivable(String bookingId, String customerId, LocalDate billDate, long cents, String propertyId) {
+    }
+
+    /**
+     * Outstanding cents and bill count per bill date, of a property or one of its customers
+     */
+    private static class Ledger {
+        final String propertyId;
+        final TreeMap<LocalDate, long[]> byDate = new TreeMap<>();
+        long cents;
+        int bills;
+        // Customers with a balance, on a property's ledger
+        int customers;
+
+        Ledger(String propertyId) {
+            this.propertyId = propertyId;
+        }
+
+        void add(LocalDate billDate, long cents, int bills) {
+            long[] day = byDate.computeIfAbsent(billDate, date -> new long[2]);
+            day[0] += cents;
+            day[1] += bills;
+            if (day[1] == 0) {
+                byDate.remove(billDate);
+            }
+            this.cents += cents;
+            this.bills += bills;
+        }
+
+        long[] buckets(LocalDate today) {
+            long[] buckets = new long[BUCKET_LABELS.length];
+            byDate.forEach((date, day) -> buckets[bucket(Math.max(0, ChronoUnit.DAYS.between(date, today)))] += day[0]);
+            return buckets;
+        }
+    }
+}
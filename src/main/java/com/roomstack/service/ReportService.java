@@ -0,0 +1,411 @@
+package com.roomstack.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.ReportResult;
+import com.roomstack.model.ReportRow;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.RoomRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+@Service
+public class ReportService {
+
+    /**
+     * Dimensions a report can be grouped by
+     */
+    public enum Dimension {
+        floor,
+        feature,
+        beds,
+        status,
+        month,
+        length_of_stay
+    }
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${roomstack.reports.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${roomstack.reports.max-groups:10000}")
+    private int maxGroups;
+
+    @Value("${roomstack.reports.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    @Value("${roomstack.reports.parallelism:0}")
+    private int parallelism;
+
+    // Rows per leaf task before the aggregation stops splitting
+    private static final int SPLIT_THRESHOLD = 256;
+
+    private final Map<String, AtomicBoolean> runningQueries = new ConcurrentHashMap<>();
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void startPool() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    void stopPool() {
+        runningQueries.values().forEach(flag -> flag.set(true));
+        pool.shutdownNow();
+    }
+
+    /**
+     * Run an ad-hoc aggregation over bookings with a check-in date in the given range.
+     * Bookings are read in chunks; each chunk is aggregated on the fork/join pool
+     * while the next one is being read, so at most two chunks are held in memory.
+     * @throws CancellationException if the query is cancelled or exceeds the timeout
+     * @throws IllegalStateException if the number of groups exceeds the configured limit
+     */
+    public ReportResult runQuery(String queryId, LocalDateTime from, LocalDateTime to, List<Dimension> dimensions) {
+        String id = queryId != null ? queryId : UUID.randomUUID().toString();
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        if (runningQueries.putIfAbsent(id, cancelled) != null) {
+            throw new IllegalArgumentException("Query " + id + " is already running");
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        try {
+            Map<List<String>, Accumulator> totals = new HashMap<>();
+            ForkJoinTask<Map<List<String>, Accumulator>> pending = null;
+            String lastId = "";
+            long scanned = 0;
+
+            while (true) {
+                checkCancelled(cancelled, deadline);
+
+                final String afterId = lastId;
+                List<BookingFact> chunk = readOnly.execute(status -> readChunk(from, to, afterId));
+
+                // Merge the previous chunk before queueing the next one to keep memory bounded
+                if (pending != null) {
+                    merge(totals, join(pending));
+                    pending = null;
+                }
+
+                if (chunk.isEmpty()) {
+                    break;
+                }
+
+                scanned += chunk.size();
+                lastId = chunk.get(chunk.size() - 1).id();
+                pending = pool.submit(new AggregateTask(chunk, 0, chunk.size(), dimensions, cancelled, deadline));
+
+                if (chunk.size() < chunkSize) {
+                    merge(totals, join(pending));
+                    pending = null;
+                    break;
+                }
+            }
+
+            return toResult(id, dimensions, scanned, totals);
+        } finally {
+            // Stops any aggregation still in flight if the scan failed part-way
+            cancelled.set(true);
+            runningQueries.remove(id);
+        }
+    }
+
+    /**
+     * Cancel a running query
+     * @return true if the query was running
+     */
+    public boolean cancelQuery(String queryId) {
+        AtomicBoolean cancelled = runningQueries.get(queryId);
+
+        if (cancelled == null) {
+            return false;
+        }
+
+        cancelled.set(true);
+        return true;
+    }
+
+    /**
+     * Read one chunk of bookings and reduce them to detached facts, in three queries whatever the chunk size
+     */
+    private List<BookingFact> readChunk(LocalDateTime from, LocalDateTime to, String afterId) {
+        List<BookingModel> bookings = bookingRepository.findChunkByCheckInBetween(
+                from, to, afterId, PageRequest.ofSize(chunkSize));
+
+        // Collection fetches can't share the paged query, so the chunk's rooms get theirs in one query each
+        Set<String> roomIds = new HashSet<>();
+        bookings.forEach(booking -> roomIds.add(booking.getRoom().getId()));
+        if (!roomIds.isEmpty()) {
+            roomRepository.fetchFeatures(roomIds);
+            roomRepository.fetchBeds(roomIds);
+        }
+
+        List<BookingFact> facts = new ArrayList<>(bookings.size());
+        for (BookingModel booking : bookings) {
+            facts.add(BookingFact.of(booking));
+        }
+
+        // Drop the loaded entities so long scans don't grow the persistence context
+        entityManager.clear();
+        return facts;
+    }
+
+    private Map<List<String>, Accumulator> join(ForkJoinTask<Map<List<String>, Accumulator>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Report query interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void merge(Map<List<String>, Accumulator> target, Map<List<String>, Accumulator> source) {
+        source.forEach((key, value) -> target.merge(key, value, Accumulator::add));
+
+        if (target.size() > maxGroups) {
+            throw new IllegalStateException("Report exceeds the limit of " + maxGroups + " groups");
+        }
+    }
+
+    private static void checkCancelled(AtomicBoolean cancelled, long deadline) {
+        if (cancelled.get()) {
+            throw new CancellationException("Report query was cancelled");
+        }
+        if (System.nanoTime() > deadline) {
+            throw new CancellationException("Report query timed out");
+        }
+    }
+
+    private ReportResult toResult(String queryId, List<Dimension> dimensions, long scanned,
+            Map<List<String>, Accumulator> totals) {
+        // Sort groups by their dimension values for a stable response
+        Map<String, Map.Entry<List<String>, Accumulator>> sorted = new TreeMap<>();
+        totals.entrySet().forEach(entry -> sorted.put(String.join("\u0000", entry.getKey()), entry));
+
+        List<ReportRow> rows = new ArrayList<>(sorted.size());
+        for (Map.Entry<List<String>, Accumulator> entry : sorted.values()) {
+            Map<String, String> group = new LinkedHashMap<>();
+            for (int i = 0; i < dimensions.size(); i++) {
+                group.put(dimensions.get(i).name(), entry.getKey().get(i));
+            }
+
+            ReportRow row = new ReportRow();
+            row.setGroup(group);
+            row.setBookings(entry.getValue().bookings);
+            row.setNights(entry.getValue().nights);
+            row.setRevenue(entry.getValue().revenue);
+            rows.add(row);
+        }
+
+        ReportResult result = new ReportResult();
+        result.setQueryId(queryId);
+        result.setDimensions(dimensions.stream().map(Dimension::name).toList());
+        result.setScannedBookings(scanned);
+        result.setRows(rows);
+        return result;
+    }
+
+    /**
+     * Detached, immutable view of the booking fields a report can group by
+     */
+    private record BookingFact(String id, String floor, List<String> features, String beds,
+            String status, String month, long nights, BigDecimal revenue) {
+
+        static BookingFact of(BookingModel booking) {
+            RoomModel room = booking.getRoom();
+
+            long nights = Math.max(1, ChronoUnit.DAYS.between(
+                    booking.getCheckIn().toLocalDate(),
+                    booking.getCheckOut().toLocalDate()));
+
+            List<String> features = room.getFeatures() == null || room.getFeatures().isEmpty()
+                    ? List.of("none")
+                    : List.copyOf(room.getFeatures());
+
+            // Bed configuration as a canonical "type:count" list, e.g. "double:1,single:1"
+            String beds = room.getBeds() == null || room.getBeds().isEmpty()
+                    ? "none"
+                    : String.join(",", new TreeMap<>(room.getBeds()).entrySet().stream()
+                            .map(entry -> entry.getKey() + ":" + entry.getValue())
+                            .toList());
+
+            BigDecimal revenue = booking.getBill() != null && booking.getBill().getTotal() != null
+                    ? booking.getBill().getTotal()
+                    : BigDecimal.ZERO;
+
+            return new BookingFact(
+                    booking.getId(),
+                    String.valueOf(room.getFloor()),
+                    features,
+                    beds,
+                    booking.getStatus().name(),
+                    YearMonth.from(booking.getCheckIn()).toString(),
+                    nights,
+                    revenue);
+        }
+
+        List<String> values(Dimension dimension) {
+            switch (dimension) {
+                case floor:
+                    return List.of(floor);
+                case feature:
+                    return features;
+                case beds:
+                    return List.of(beds);
+                case status:
+                    return List.of(status);
+                case month:
+                    return List.of(month);
+                case length_of_stay:
+                    return List.of(String.valueOf(nights));
+                default:
+                    throw new IllegalArgumentException("Unknown dimension " + dimension);
+            }
+        }
+    }
+
+    /**
+     * Running totals for one group
+     */
+    private static final class Accumulator {
+        long bookings;
+        long nights;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        Accumulator add(Accumulator other) {
+            bookings += other.bookings;
+            nights += other.nights;
+            revenue = revenue.add(other.revenue);
+            return this;
+        }
+    }
+
+    /**
+     * Aggregates a slice of a chunk, splitting it in halves until it is small enough
+     */
+    private static final class AggregateTask extends RecursiveTask<Map<List<String>, Accumulator>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<BookingFact> facts;
+        private final int from;
+        private final int to;
+        private final List<Dimension> dimensions;
+        private final AtomicBoolean cancelled;
+        private final long deadline;
+
+        AggregateTask(List<BookingFact> facts, int from, int to, List<Dimension> dimensions,
+                AtomicBoolean cancelled, long deadline) {
+            this.facts = facts;
+            this.from = from;
+            this.to = to;
+            this.dimensions = dimensions;
+            this.cancelled = cancelled;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Map<List<String>, Accumulator> compute() {
+            checkCancelled(cancelled, deadline);
+
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                AggregateTask left = new AggregateTask(facts, from, mid, dimensions, cancelled, deadline);
+                AggregateTask right = new AggregateTask(facts, mid, to, dimensions, cancelled, deadline);
+                left.fork();
+                Map<List<String>, Accumulator> result = right.compute();
+                left.join().forEach((key, value) -> result.merge(key, value, Accumulator::add));
+                return result;
+            }
+
+            Map<List<String>, Accumulator> result = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                BookingFact fact = facts.get(i);
+                for (List<String> key : groupKeys(fact)) {
+                    Accumulator accumulator = result.computeIfAbsent(key, k -> new Accumulator());
+                    accumulator.bookings++;
+                    accumulator.nights += fact.nights();
+                    accumulator.revenue = accumulator.revenue.add(fact.revenue());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Expand a fact into its group keys; multi-valued dimensions (features) yield one key per value
+         */
+        private List<List<String>> groupKeys(BookingFact fact) {
+            List<List<String>> keys = List.of(List.of());
+
+            for (Dimension dimension : dimensions) {
+                List<String> values = fact.values(dimension);
+                List<List<String>> expanded = new ArrayList<>(keys.size() * values.size());
+                for (List<String> key : keys) {
+                    for (String value : values) {
+                        List<String> next = new ArrayList<>(key.size() + 1);
+                        next.addAll(key);
+                        next.add(value);
+                        expanded.add(Collections.unmodifiableList(next));
+                    }
+                }
+                keys = expanded;
+            }
+            return keys;
+        }
+    }
+}
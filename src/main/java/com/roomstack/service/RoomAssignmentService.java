@@ -0,0 +1,354 @@
+package com.roomstack.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.roomstack.model.AssignmentRequest;
+import com.roomstack.model.AssignmentResult;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.repository.RoomRepository;
+
+/**
+ * Assigns concrete rooms to reservations made for a kind of room. Each room's
+ * calendar is an interval tree of its stays (a TreeMap keyed by check-in), so
+ * checking a room and finding its neighbouring stays is O(log stays).
+ * Reservations are placed greedily in check-in order into the eligible room
+ * with the lowest fragmentation cost: back-to-back stays cost nothing, gaps
+ * too short to sell cost the most, and ties go to the smallest room that fits.
+ */
+@Service
+public class RoomAssignmentService {
+
+    // Cost of an open-ended or sellable gap next to a stay
+    private static final int OPEN_GAP_COST = 1;
+
+    // Cost of a gap shorter than the minimum sellable stay
+    private static final int ORPHAN_GAP_COST = 10;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private RoomFeatureIndex roomFeatureIndex;
+
+    @Value("${roomstack.assignment.min-sellable-nights:2}")
+    private int minSellableNights;
+
+    /**
+     * Assign a room to each reservation and create its booking.
+     * Runs are serialized so two batches never plan against the same free nights.
+     * @return One result per reservation, in request order
+     */
+    public synchronized List<AssignmentResult> assign(List<AssignmentRequest> requests) {
+        Map<String, CustomerModel> customers = new HashMap<>();
+        Set<String> customerIds = new HashSet<>();
+        requests.forEach(request -> {
+            if (request.getCustomerId() != null) {
+                customerIds.add(request.getCustomerId());
+            }
+        });
+        customerRepository.findAllById(customerIds).forEach(customer -> customers.put(customer.getId(), customer));
+
+        Map<AssignmentRequest, AssignmentResult> results = new HashMap<>();
+        List<AssignmentRequest> valid = new ArrayList<>();
+        for (AssignmentRequest request : requests) {
+            AssignmentResult result = new AssignmentResult();
+            result.setReference(request.getReference());
+            result.setMessage(validate(request, customers));
+            results.put(request, result);
+            if (result.getMessage() == null) {
+                valid.add(request);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            LocalDateTime start = valid.stream().map(AssignmentRequest::getCheckIn).min(Comparator.naturalOrder()).get();
+            LocalDateTime end = valid.stream().map(AssignmentRequest::getCheckOut).max(Comparator.naturalOrder()).get();
+            Plan plan = loadPlan(start, end);
+
+            // Earliest check-in first; longer stays first on the same day, they are harder to place
+            valid.sort(Comparator.comparing(AssignmentRequest::getCheckIn)
+                    .thenComparing(AssignmentRequest::getCheckOut, Comparator.reverseOrder()));
+
+            List<BookingModel> bookings = new ArrayList<>();
+            Map<BookingModel, AssignmentRequest> requestsByBooking = new HashMap<>();
+            for (AssignmentRequest request : valid) {
+                List<RoomModel> candidates = plan.candidates(request.getAdults() + request.getChildren(),
+                        request.getBeds(), request.getFeatures());
+                RoomModel room = plan.bestRoom(candidates, request.getCheckIn(), request.getCheckOut(), null);
+
+                if (room == null) {
+                    results.get(request).setMessage("No matching room is available for these dates");
+                    continue;
+                }
+                plan.calendar(room.getId()).add(request.getCheckIn(), request.getCheckOut());
+
+                BookingModel booking = new BookingModel();
+                booking.setRoom(room);
+                booking.setCustomer(customers.get(request.getCustomerId()));
+                booking.setCheckIn(request.getCheckIn());
+                booking.setCheckOut(request.getCheckOut());
+                booking.setAdults(request.getAdults());
+                booking.setChildren(request.getChildren());
+                booking.setSpecialRequests(request.getSpecialRequests());
+                bookings.add(booking);
+                requestsByBooking.put(booking, request);
+            }
+
+            bookingService.createAssignedBookings(bookings, plan.knownBookingIds);
+
+            for (BookingModel booking : bookings) {
+                AssignmentResult result = results.get(requestsByBooking.get(booking));
+                if (booking.getId() == null) {
+                    result.setMessage("Room was booked concurrently, retry");
+                } else {
+                    result.setBookingId(booking.getId());
+                    result.setRoomId(booking.getRoom().getId());
+                    result.setRoomNumber(booking.getRoom().getNumber());
+                }
+            }
+        }
+
+        return requests.stream().map(results::get).toList();
+    }
+
+    /**
+     * Re-run the assignment for confirmed, engine-placed bookings checking in within a date range.
+     * Bookings are taken out one at a time and moved only if another eligible room lowers the
+     * fragmentation cost, so each pass can only improve the plan. Manually placed bookings never move.
+     * @return One result per booking that was moved
+     */
+    public synchronized List<AssignmentResult> reoptimize(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingModel> movable = bookingRepository.findAutoAssignedBetween(from.isBefore(now) ? now : from, to);
+        if (movable.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime start = movable.get(0).getCheckIn();
+        LocalDateTime end = movable.stream().map(BookingModel::getCheckOut).max(Comparator.naturalOrder()).get();
+        Plan plan = loadPlan(start, end);
+
+        Map<String, String> roomIdsByBookingId = new HashMap<>();
+        for (BookingModel booking : movable) {
+            RoomModel current = booking.getRoom();
+            RoomCalendar calendar = plan.calendar(current.getId());
+            calendar.remove(booking.getCheckIn());
+
+            // A move must keep at least the beds and features of the current room
+            List<RoomModel> candidates = plan.candidates(booking.getAdults() + booking.getChildren(),
+                    current.getBeds(), current.getFeatures());
+            int currentCost = calendar.cost(booking.getCheckIn(), booking.getCheckOut(), minSellableNights);
+            RoomModel best = plan.bestRoom(candidates, booking.getCheckIn(), booking.getCheckOut(), current.getId());
+
+            if (best != null && (currentCost < 0 || plan.calendar(best.getId())
+                    .cost(booking.getCheckIn(), booking.getCheckOut(), minSellableNights) < currentCost)) {
+                plan.calendar(best.getId()).add(booking.getCheckIn(), booking.getCheckOut());
+                roomIdsByBookingId.put(booking.getId(), best.getId());
+            } else {
+                calendar.add(booking.getCheckIn(), booking.getCheckOut());
+            }
+        }
+
+        List<AssignmentResult> results = new ArrayList<>();
+        Map<String, String> previousRoomIds = new HashMap<>();
+        movable.forEach(booking -> previousRoomIds.put(booking.getId(), booking.getRoom().getId()));
+
+        for (BookingModel moved : bookingService.moveBookings(roomIdsByBookingId, plan.knownBookingIds)) {
+            AssignmentResult result = new AssignmentResult();
+            result.setBookingId(moved.getId());
+            result.setRoomId(moved.getRoom().getId());
+            result.setRoomNumber(moved.getRoom().getNumber());
+            result.setPreviousRoomId(previousRoomIds.get(moved.getId()));
+            results.add(result);
+        }
+        return results;
+    }
+
+    private String validate(AssignmentRequest request, Map<String, CustomerModel> customers) {
+        if (request.getCheckIn() == null || request.getCheckOut() == null) {
+            return "Check-in and check-out dates are required";
+        }
+        if (!request.getCheckIn().isBefore(request.getCheckOut())) {
+            return "Check-out date must be after check-in date";
+        }
+        if (request.getAdults() < 1) {
+            return "At least one adult is required";
+        }
+        if (request.getChildren() < 0) {
+            return "Children cannot be negative";
+        }
+        if (!customers.containsKey(request.getCustomerId())) {
+            return "Customer not found";
+        }
+        return null;
+    }
+
+    /**
+     * Load the rooms and the calendars of every stay around a date range
+     */
+    private Plan loadPlan(LocalDateTime start, LocalDateTime end) {
+        Plan plan = new Plan();
+
+        for (RoomModel room : roomRepository.findAll()) {
+            if (!"maintenance".equals(room.getStatus())) {
+                plan.rooms.add(room);
+            }
+        }
+        // Smallest rooms first, so the first room of the lowest cost is the tightest fit
+        plan.rooms.sort(Comparator.comparingInt(RoomModel::getCapacity).thenComparing(RoomModel::getNumber));
+
+        // Neighbouring stays within the minimum sellable stay decide whether a gap is orphaned
+        for (Object[] stay : bookingRepository.findActiveStays(
+                start.minusDays(minSellableNights), end.plusDays(minSellableNights))) {
+            plan.calendar((String) stay[1]).add((LocalDateTime) stay[2], (LocalDateTime) stay[3]);
+            plan.knownBookingIds.add((String) stay[0]);
+        }
+        return plan;
+    }
+
+    /**
+     * Rooms and calendars of one engine run
+     */
+    private class Plan {
+
+        private final List<RoomModel> rooms = new ArrayList<>();
+
+        private final Map<String, RoomCalendar> calendars = new HashMap<>();
+
+        private final Set<String> knownBookingIds = new HashSet<>();
+
+        // Eligible rooms per distinct set of constraints; reservations repeat the same few
+        private final Map<String, List<RoomModel>> candidatesByConstraints = new HashMap<>();
+
+        RoomCalendar calendar(String roomId) {
+            return calendars.computeIfAbsent(roomId, id -> new RoomCalendar());
+        }
+
+        List<RoomModel> candidates(int guests, Map<String, Integer> beds, List<String> features) {
+            Set<String> normalizedFeatures = new TreeSet<>();
+            if (features != null) {
+                features.forEach(feature -> normalizedFeatures.add(feature.trim().toLowerCase(Locale.ROOT)));
+            }
+            String key = guests + "|" + (beds == null ? "{}" : new TreeMap<>(beds)) + "|" + normalizedFeatures;
+
+            return candidatesByConstraints.computeIfAbsent(key, k -> {
+                Set<String> withFeatures = normalizedFeatures.isEmpty() ? null : roomFeatureIndex.findRoomIds(features);
+                return rooms.stream()
+                        .filter(room -> room.getCapacity() >= guests)
+                        .filter(room -> hasBeds(room, beds))
+                        .filter(room -> withFeatures == null || withFeatures.contains(room.getId()))
+                        .toList();
+            });
+        }
+
+        /**
+         * The free candidate with the lowest fragmentation cost
+         * @param excludeRoomId A room not to consider, or null
+         */
+        RoomModel bestRoom(List<RoomModel> candidates, LocalDateTime checkIn, LocalDateTime checkOut,
+                String excludeRoomId) {
+            RoomModel best = null;
+            int bestCost = Integer.MAX_VALUE;
+
+            for (RoomModel room : candidates) {
+                if (room.getId().equals(excludeRoomId)) {
+                    continue;
+                }
+                int cost = calendar(room.getId()).cost(checkIn, checkOut, minSellableNights);
+                if (cost >= 0 && cost < bestCost) {
+                    best = room;
+                    bestCost = cost;
+                    if (cost == 0) {
+                        break;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private boolean hasBeds(RoomModel room, Map<String, Integer> beds) {
+            if (beds == null) {
+                return true;
+            }
+            for (Map.Entry<String, Integer> bed : beds.entrySet()) {
+                int available = room.getBeds() == null ? 0 : room.getBeds().getOrDefault(bed.getKey(), 0);
+                if (bed.getValue() != null && available < bed.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Non-overlapping stays of one room, keyed by check-in
+     */
+    private static class RoomCalendar {
+
+        // Check-in -> check-out
+        private final TreeMap<LocalDateTime, LocalDateTime> stays = new TreeMap<>();
+
+        void add(LocalDateTime checkIn, LocalDateTime checkOut) {
+            stays.put(checkIn, checkOut);
+        }
+
+        void remove(LocalDateTime checkIn) {
+            stays.remove(checkIn);
+        }
+
+        /**
+         * Fragmentation cost of adding a stay
+         * @return The cost, or -1 if the stay overlaps one already in the room
+         */
+        int cost(LocalDateTime checkIn, LocalDateTime checkOut, int minSellableNights) {
+            // Stays don't overlap each other, so only the latest one starting by checkOut can overlap
+            Map.Entry<LocalDateTime, LocalDateTime> previous = stays.floorEntry(checkOut);
+            if (previous != null && !previous.getValue().isBefore(checkIn)) {
+                return -1;
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> next = stays.higherEntry(checkOut);
+
+            return gapCost(previous == null ? -1 : nights(previous.getValue(), checkIn), minSellableNights)
+                    + gapCost(next == null ? -1 : nights(checkOut, next.getKey()), minSellableNights);
+        }
+
+        private static int gapCost(long gapNights, int minSellableNights) {
+            if (gapNights == 0) {
+                return 0;
+            }
+            return gapNights > 0 && gapNights < minSellableNights ? ORPHAN_GAP_COST : OPEN_GAP_COST;
+        }
+
+        private static long nights(LocalDateTime from, LocalDateTime to) {
+            return ChronoUnit.DAYS.between(from.toLocalDate(), to.toLocalDate());
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.roomstack.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.config.ShardRouter;
+import com.roomstack.config.ShardingProperties;
+import com.roomstack.event.CacheInvalidationEvent;
+import com.roomstack.model.FeatureDictionaryModel;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.FeatureDictionaryRepository;
+import com.roomstack.repository.RoomRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory bitmap index from room feature to rooms. Rooms are mapped to dense
+ * ordinals, and each feature of the dictionary keeps a BitSet of the ordinals
+ * that have it, so multi-feature queries are BitSet intersections. The same
+ * dictionary bits make up the compact RoomModel.featureMask column.
+ */
+@Service
+public class RoomFeatureIndex {
+
+    // Bits that fit the featureMask column
+    private static final int MASK_BITS = Long.SIZE;
+
+    // A plain INSERT: the bit is an assigned ID, so save() would merge over a bit another node already took
+    private static final String INSERT_ENTRY = "INSERT INTO feature_dictionary (bit, name) VALUES (?, ?)";
+
+    @Autowired
+    private FeatureDictionaryRepository featureDictionaryRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate dictionaryTransaction;
+
+    private TransactionTemplate readOnly;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Lower-cased feature name -> dictionary bit
+    private final Map<String, Integer> bitsByFeature = new HashMap<>();
+
+    private final Map<String, Integer> ordinalsByRoom = new HashMap<>();
+
+    private final List<String> roomsByOrdinal = new ArrayList<>();
+
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    private final Map<Integer, BitSet> roomsByFeature = new HashMap<>();
+
+    private final Map<String, BitSet> featuresByRoom = new HashMap<>();
+
+    private final BitSet liveRooms = new BitSet();
+
+    @PostConstruct
+    void init() {
+        // Dictionary writes commit on their own, wherever the room being encoded lives
+        dictionaryTransaction = new TransactionTemplate(transactionManager);
+        dictionaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Load the dictionary and index every room of every shard; backfills feature masks that are missing or stale
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<FeatureDictionaryModel> dictionary = onDictionaryShard(featureDictionaryRepository::findAll);
+
+        lock.writeLock().lock();
+        try {
+            bitsByFeature.clear();
+            ordinalsByRoom.clear();
+            roomsByOrdinal.clear();
+            freeOrdinals.clear();
+            roomsByFeature.clear();
+            featuresByRoom.clear();
+            liveRooms.clear();
+            dictionary.forEach(entry -> bitsByFeature.put(key(entry.getName()), entry.getBit()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        shardRouter.forEachShard(this::indexShard);
+    }
+
+    /**
+     * Reindex the rooms other nodes changed; a full flush rebuilds the index
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFullFlush()) {
+            rebuild();
+            return;
+        }
+        if (event.getRoomIds().isEmpty()) {
+            return;
+        }
+
+        Map<String, List<String>> featuresByRoomId = new HashMap<>();
+        readOnly.executeWithoutResult(status -> roomRepository.findAllById(event.getRoomIds()).forEach(room ->
+                featuresByRoomId.put(room.getId(), room.getFeatures() == null ? List.of() : List.copyOf(room.getFeatures()))));
+
+        for (String roomId : event.getRoomIds()) {
+            List<String> features = featuresByRoomId.get(roomId);
+            if (features != null) {
+                indexRoom(roomId, features);
+            } else {
+                removeRoom(roomId);
+            }
+        }
+    }
+
+    private void indexShard() {
+        Map<String, List<String>> featuresByRoomId = new HashMap<>();
+        for (Object[] row : roomRepository.findAllRoomFeatures()) {
+            featuresByRoomId.computeIfAbsent((String) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        for (Object[] row : roomRepository.findAllFeatureMasks()) {
+            String roomId = (String) row[0];
+            List<String> features = featuresByRoomId.getOrDefault(roomId, List.of());
+
+            Long mask = encode(features);
+            if (mask == null ? row[1] != null : !mask.equals(row[1])) {
+                roomRepository.updateFeatureMask(roomId, mask);
+            }
+            indexRoom(roomId, features);
+        }
+    }
+
+    /**
+     * Encode features as a dictionary bitmask, adding unknown features to the dictionary
+     * @return The mask, or null if a feature's bit does not fit in 64 bits
+     */
+    public Long encode(Collection<String> features) {
+        BitSet bits = bits(features, true);
+
+        if (bits.length() > MASK_BITS) {
+            return null;
+        }
+        return bits.isEmpty() ? 0L : bits.toLongArray()[0];
+    }
+
+    /**
+     * Add or replace a room in the index
+     */
+    public void indexRoom(RoomModel room) {
+        indexRoom(room.getId(), room.getFeatures());
+    }
+
+    /**
+     * Remove a room from the index
+     */
+    public void removeRoom(String roomId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByRoom.remove(roomId);
+            BitSet features = featuresByRoom.remove(roomId);
+
+            if (ordinal == null) {
+                return;
+            }
+
+            features.stream().forEach(bit -> roomsByFeature.get(bit).clear(ordinal));
+            roomsByOrdinal.set(ordinal, null);
+            liveRooms.clear(ordinal);
+            freeOrdinals.push(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the rooms that have every one of the given features
+     */
+    public Set<String> findRoomIds(Collection<String> features) {
+        BitSet required = bits(features, false);
+
+        lock.readLock().lock();
+        try {
+            // A feature outside the dictionary matches no room
+            if (required == null) {
+                return Set.of();
+            }
+
+            BitSet matches = (BitSet) liveRooms.clone();
+
+            for (int bit = required.nextSetBit(0); bit >= 0 && !matches.isEmpty(); bit = required.nextSetBit(bit + 1)) {
+                BitSet rooms = roomsByFeature.get(bit);
+                if (rooms == null) {
+                    return Set.of();
+                }
+                matches.and(rooms);
+            }
+
+            Set<String> roomIds = new LinkedHashSet<>();
+            matches.stream().forEach(ordinal -> roomIds.add(roomsByOrdinal.get(ordinal)));
+            return roomIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether an indexed room has every one of the given features
+     */
+    public boolean hasFeatures(String roomId, Collection<String> features) {
+        BitSet required = bits(features, false);
+
+        lock.readLock().lock();
+        try {
+            BitSet roomFeatures = featuresByRoom.get(roomId);
+            if (required == null || roomFeatures == null) {
+                return false;
+            }
+
+            BitSet missing = (BitSet) required.clone();
+            missing.andNot(roomFeatures);
+            return missing.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexRoom(String roomId, Collection<String> features) {
+        BitSet bits = bits(features, true);
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByRoom.get(roomId);
+            if (ordinal == null) {
+                ordinal = freeOrdinals.isEmpty() ? roomsByOrdinal.size() : freeOrdinals.pop();
+                if (ordinal == roomsByOrdinal.size()) {
+                    roomsByOrdinal.add(roomId);
+                } else {
+                    roomsByOrdinal.set(ordinal, roomId);
+                }
+                ordinalsByRoom.put(roomId, ordinal);
+                liveRooms.set(ordinal);
+            }
+
+            BitSet previous = featuresByRoom.put(roomId, bits);
+            if (previous != null) {
+                final int cleared = ordinal;
+                previous.stream().forEach(bit -> roomsByFeature.get(bit).clear(cleared));
+            }
+
+            final int set = ordinal;
+            bits.stream().forEach(bit -> roomsByFeature.computeIfAbsent(bit, b -> new BitSet()).set(set));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dictionary bits of the given features
+     * @param create Whether unknown features are added to the dictionary
+     * @return The bits, or null if a feature is unknown and create is false
+     */
+    private BitSet bits(Collection<String> features, boolean create) {
+        BitSet bits = new BitSet();
+        if (features == null) {
+            return bits;
+        }
+
+        for (String feature : features) {
+            Integer bit = bitFor(feature, create);
+            if (bit == null) {
+                return null;
+            }
+            bits.set(bit);
+        }
+        return bits;
+    }
+
+    private Integer bitFor(String feature, boolean create) {
+        String key = key(feature);
+
+        lock.readLock().lock();
+        try {
+            Integer bit = bitsByFeature.get(key);
+            if (bit != null || !create) {
+                return bit;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return addToDictionary(feature.trim());
+    }
+
+    private synchronized Integer addToDictionary(String feature) {
+        String key = key(feature);
+
+        for (int attempt = 0; ; attempt++) {
+            lock.readLock().lock();
+            int next;
+            try {
+                Integer existing = bitsByFeature.get(key);
+                if (existing != null) {
+                    return existing;
+                }
+                next = bitsByFeature.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            int bit = next;
+            try {
+                onDictionaryShard(() -> jdbcTemplate.update(INSERT_ENTRY, bit, feature));
+            } catch (DataIntegrityViolationException e) {
+                // Another node took the bit or the name; reload the dictionary and try again
+                if (attempt >= 3) {
+                    throw e;
+                }
+                reloadDictionary();
+                continue;
+            }
+
+            lock.writeLock().lock();
+            try {
+                bitsByFeature.put(key, next);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return next;
+        }
+    }
+
+    private void reloadDictionary() {
+        List<FeatureDictionaryModel> entries = onDictionaryShard(featureDictionaryRepository::findAll);
+
+        lock.writeLock().lock();
+        try {
+            entries.forEach(entry -> bitsByFeature.put(key(entry.getName()), entry.getBit()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Bits are shared by every property, so the dictionary lives on the default shard only
+    private <T> T onDictionaryShard(Supplier<T> work) {
+        return PropertyContext.callOnShard(ShardingProperties.DEFAULT_SHARD,
+                () -> dictionaryTransaction.execute(status -> work.get()));
+    }
+
+    // Feature names match case-insensitively, like the unique name column under MySQL
+    private static String key(String feature) {
+        return feature.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,540 @@
+package com.roomstack.service;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.config.ShardRouter;
+import com.roomstack.event.BookingChangedEvent;
+import com.roomstack.event.CacheInvalidationEvent;
+import com.roomstack.event.RoomChangedEvent;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.util.InventorySnapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory room catalog and the booked stays of every room, from the start
+ * of the current day on. Availability checks and the rate calendar rebuild
+ * read from it instead of the database.
+ *
+ * <p>The state is written to a snapshot file periodically and on shutdown. At
+ * startup the snapshot is loaded and caught up with the rooms and bookings
+ * changed since its watermark, and with bookings deleted since; a missing or
+ * damaged snapshot falls back to a full load from the database.</p>
+ */
+@Service
+public class RoomInventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomInventoryService.class);
+
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${roomstack.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${roomstack.snapshot.file:data/snapshot/inventory.rsis}")
+    private String snapshotFile;
+
+    // Changes committed shortly before the watermark may have missed the snapshot; they are caught up too
+    @Value("${roomstack.snapshot.catch-up-margin-seconds:60}")
+    private long catchUpMarginSeconds;
+
+    @Value("${roomstack.snapshot.verify-chunk-size:1000}")
+    private int verifyChunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private State state = new State(Long.MIN_VALUE);
+
+    // Changes committed while loading, applied again on top of the loaded state; guarded by lock
+    private List<Consumer<State>> changedDuringLoad;
+
+    private volatile boolean loaded;
+
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Load the inventory before the other startup loads that read from it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        load(snapshotEnabled);
+    }
+
+    private void load(boolean useSnapshot) {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        State loadedState = null;
+        String source = "database";
+
+        if (useSnapshot) {
+            try {
+                loadedState = fromSnapshot();
+                source = "snapshot";
+            } catch (NoSuchFileException e) {
+                log.info("No inventory snapshot at {}; loading from the database", snapshotFile);
+            } catch (IOException e) {
+                log.warn("Inventory snapshot is unusable ({}); loading from the database", e.getMessage());
+            }
+        }
+        if (loadedState == null) {
+            loadedState = fromDatabase();
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Consumer<State> change : changedDuringLoad) {
+                change.accept(loadedState);
+            }
+            state = loadedState;
+            changedDuringLoad = null;
+            loaded = true;
+            log.info("Loaded {} rooms and {} stays from the {} in {} ms", state.rooms.size(),
+                    state.roomIdsByBookingId.size(), source, (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshot on schedule
+     */
+    @Scheduled(fixedDelayString = "${roomstack.snapshot.interval-ms:300000}",
+               initialDelayString = "${roomstack.snapshot.interval-ms:300000}")
+    public void saveScheduled() {
+        save();
+    }
+
+    @PreDestroy
+    void saveOnShutdown() {
+        save();
+    }
+
+    /**
+     * Write the current state to the snapshot file, first dropping stays that ended before today
+     */
+    public synchronized void save() {
+        if (!snapshotEnabled || !loaded) {
+            return;
+        }
+
+        InventorySnapshot snapshot;
+        lock.writeLock().lock();
+        try {
+            state.prune(epochSecond(LocalDate.now().atStartOfDay()));
+            snapshot = new InventorySnapshot(epochSecond(LocalDateTime.now()), state.windowStart,
+                    new ArrayList<>(state.rooms.values()), state.stays());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long bytes = snapshot.write(Paths.get(snapshotFile));
+            log.debug("Wrote inventory snapshot of {} rooms and {} stays ({} bytes)",
+                    snapshot.getRooms().size(), snapshot.getStays().size(), bytes);
+        } catch (IOException e) {
+            log.warn("Could not write inventory snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Whether no active stay in a room overlaps the dates; bounds are inclusive, as in findOverlappingBookings
+     * @return Null if the inventory cannot answer: it is not loaded yet, or the dates start before its window
+     */
+    public Boolean isRoomAvailable(String roomId, LocalDateTime checkIn, LocalDateTime checkOut) {
+        if (!loaded) {
+            return null;
+        }
+
+        long from = epochSecond(checkIn);
+        long to = epochSecond(checkOut);
+
+        lock.readLock().lock();
+        try {
+            if (from < state.windowStart) {
+                return null;
+            }
+
+            Map<String, long[]> stays = state.staysByRoomId.get(roomId);
+            if (stays != null) {
+                for (long[] stay : stays.values()) {
+                    if (stay[0] <= to && from <= stay[1]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The rooms of the catalog, with their number, capacity, floor, price and features
+     */
+    public List<RoomModel> rooms() {
+        lock.readLock().lock();
+        try {
+            List<RoomModel> rooms = new ArrayList<>(state.rooms.size());
+            for (InventorySnapshot.Room entry : state.rooms.values()) {
+                RoomModel room = new RoomModel();
+                room.setId(entry.id());
+                room.setNumber(entry.number());
+                room.setCapacity(entry.capacity());
+                room.setFloor(entry.floor());
+                room.setPricePerNight(entry.pricePerNight());
+                room.setFeatures(new ArrayList<>(entry.features()));
+                rooms.add(room);
+            }
+            return rooms;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The stay dates of active bookings overlapping a date range, like BookingRepository.findActiveStayDates
+     * @return Room ID, check-in and check-out of each stay
+     */
+    public List<Object[]> activeStayDates(LocalDateTime startDate, LocalDateTime endDate) {
+        long from = epochSecond(startDate);
+        long to = epochSecond(endDate);
+
+        lock.readLock().lock();
+        try {
+            List<Object[]> stays = new ArrayList<>();
+            for (Map.Entry<String, Map<String, long[]>> roomStays : state.staysByRoomId.entrySet()) {
+                for (long[] stay : roomStays.getValue().values()) {
+                    if (stay[1] > from && stay[0] < to) {
+                        stays.add(new Object[] { roomStays.getKey(), dateTime(stay[0]), dateTime(stay[1]) });
+                    }
+                }
+            }
+            return stays;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keep the stays in step with committed booking changes
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        boolean holdsRoom = !event.isRemoval() && holdsRoom(event.getStatus());
+        String bookingId = event.getBookingId();
+        String roomId = event.getRoomId();
+        long checkIn = epochSecond(event.getCheckIn());
+        long checkOut = epochSecond(event.getCheckOut());
+
+        change(current -> {
+            current.removeStay(bookingId);
+            if (holdsRoom) {
+                current.putStay(bookingId, roomId, checkIn, checkOut);
+            }
+        });
+    }
+
+    /**
+     * Keep the catalog in step with committed room changes
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomChanged(RoomChangedEvent event) {
+        if (event.getType() == RoomChangedEvent.ChangeType.deleted) {
+            String roomId = event.getRoomId();
+            change(current -> current.removeRoom(roomId));
+            return;
+        }
+
+        InventorySnapshot.Room room = new InventorySnapshot.Room(event.getRoomId(), event.getNumber(),
+                event.getCapacity(), event.getFloor(), event.getPricePerNight(), event.getFeatures());
+        change(current -> current.putRoom(room));
+    }
+
+    /**
+     * Reload the rooms and stays other nodes changed, before the caches that read from the inventory
+     * see the event; a full flush reloads everything from the database
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFullFlush()) {
+            load(false);
+            return;
+        }
+
+        Set<String> roomIds = event.getRoomIds();
+        Set<String> bookingIds = event.getBookingIds();
+        if (roomIds.isEmpty() && bookingIds.isEmpty()) {
+            return;
+        }
+
+        // Published on the shard the changes were made on
+        Map<String, InventorySnapshot.Room> rooms = new HashMap<>();
+        List<Object[]> stays = new ArrayList<>();
+        readOnly.executeWithoutResult(status -> {
+            if (!roomIds.isEmpty()) {
+                roomRepository.findAllById(roomIds).forEach(room -> rooms.put(room.getId(), entry(room)));
+            }
+            if (!bookingIds.isEmpty()) {
+                stays.addAll(bookingRepository.findStaysByIds(bookingIds));
+            }
+        });
+
+        change(current -> {
+            for (String roomId : roomIds) {
+                InventorySnapshot.Room room = rooms.get(roomId);
+                if (room != null) {
+                    current.putRoom(room);
+                } else {
+                    current.removeRoom(roomId);
+                }
+            }
+
+            bookingIds.forEach(current::removeStay);
+            for (Object[] row : stays) {
+                long checkOut = epochSecond((LocalDateTime) row[3]);
+                if (holdsRoom((BookingStatus) row[4]) && checkOut >= current.windowStart) {
+                    current.putStay((String) row[0], (String) row[1], epochSecond((LocalDateTime) row[2]), checkOut);
+                }
+            }
+        });
+    }
+
+    /**
+     * Release the rooms of bookings whose status was changed in bulk to one that no longer holds a room
+     */
+    public void releaseBookings(Collection<String> bookingIds) {
+        List<String> released = List.copyOf(bookingIds);
+        change(current -> released.forEach(current::removeStay));
+    }
+
+    private void change(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Load the snapshot, then catch up with the rooms and bookings changed or deleted since it was written
+     */
+    private State fromSnapshot() throws IOException {
+        Path path = Paths.get(snapshotFile);
+        InventorySnapshot snapshot = InventorySnapshot.read(path);
+
+        State loadedState = new State(snapshot.getWindowStart());
+        snapshot.getRooms().forEach(loadedState::putRoom);
+        snapshot.getStays().forEach(stay ->
+                loadedState.putStay(stay.bookingId(), stay.roomId(), stay.checkIn(), stay.checkOut()));
+
+        LocalDateTime since = dateTime(snapshot.getWatermark()).minusSeconds(catchUpMarginSeconds);
+        List<String> bookingIds = new ArrayList<>(loadedState.roomIdsByBookingId.keySet());
+        Set<String> roomIds = new HashSet<>();
+        Set<String> existingBookingIds = new HashSet<>();
+        AtomicInteger changedRooms = new AtomicInteger();
+        AtomicInteger changedStays = new AtomicInteger();
+
+        // Each shard is read in its own read-only transaction, which also loads the rooms' features
+        shardRouter.forEachShard(() -> readOnly.executeWithoutResult(status -> {
+            List<RoomModel> rooms = roomRepository.findByUpdatedAtGreaterThanEqual(since);
+            rooms.forEach(room -> loadedState.putRoom(entry(room)));
+            changedRooms.addAndGet(rooms.size());
+            roomIds.addAll(roomRepository.findAllIds());
+
+            List<Object[]> stays = bookingRepository.findStaysChangedSince(since);
+            for (Object[] row : stays) {
+                loadedState.removeStay((String) row[0]);
+                long checkOut = epochSecond((LocalDateTime) row[3]);
+                if (holdsRoom((BookingStatus) row[4]) && checkOut >= loadedState.windowStart) {
+                    loadedState.putStay((String) row[0], (String) row[1], epochSecond((LocalDateTime) row[2]), checkOut);
+                }
+            }
+            changedStays.addAndGet(stays.size());
+
+            // Deleted bookings leave no trace to query by time, so the snapshot's bookings are checked by ID
+            for (int from = 0; from < bookingIds.size(); from += verifyChunkSize) {
+                List<String> chunk = bookingIds.subList(from, Math.min(bookingIds.size(), from + verifyChunkSize));
+                existingBookingIds.addAll(bookingRepository.findExistingIds(chunk));
+            }
+        }));
+
+        new ArrayList<>(loadedState.rooms.keySet()).stream()
+                .filter(roomId -> !roomIds.contains(roomId))
+                .forEach(loadedState::removeRoom);
+        int deleted = 0;
+        for (String bookingId : bookingIds) {
+            if (!existingBookingIds.contains(bookingId) && loadedState.roomIdsByBookingId.containsKey(bookingId)) {
+                loadedState.removeStay(bookingId);
+                deleted++;
+            }
+        }
+
+        log.info("Caught up the inventory snapshot from {}: {} rooms and {} bookings changed, {} bookings deleted",
+                since, changedRooms.get(), changedStays.get(), deleted);
+        return loadedState;
+    }
+
+    private State fromDatabase() {
+        LocalDateTime windowStart = LocalDate.now().atStartOfDay();
+        State loadedState = new State(epochSecond(windowStart));
+
+        shardRouter.forEachShard(() -> readOnly.executeWithoutResult(status -> {
+            roomRepository.findAll().forEach(room -> loadedState.putRoom(entry(room)));
+            for (Object[] row : bookingRepository.findActiveStays(windowStart, LATEST)) {
+                loadedState.putStay((String) row[0], (String) row[1],
+                        epochSecond((LocalDateTime) row[2]), epochSecond((LocalDateTime) row[3]));
+            }
+        }));
+        return loadedState;
+    }
+
+    private static InventorySnapshot.Room entry(RoomModel room) {
+        return new InventorySnapshot.Room(room.getId(), room.getNumber(), room.getCapacity(), room.getFloor(),
+                room.getPricePerNight(), room.getFeatures() == null ? List.of() : List.copyOf(room.getFeatures()));
+    }
+
+    private static boolean holdsRoom(BookingStatus status) {
+        return status != BookingStatus.cancelled && status != BookingStatus.no_show;
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime dateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Catalog and stays; stays are kept per room, each as {checkIn, checkOut} in epoch seconds
+     */
+    private static class State {
+        final Map<String, InventorySnapshot.Room> rooms = new HashMap<>();
+        final Map<String, Map<String, long[]>> staysByRoomId = new HashMap<>();
+        final Map<String, String> roomIdsByBookingId = new HashMap<>();
+        long windowStart;
+
+        State(long windowStart) {
+            this.windowStart = windowStart;
+        }
+
+        void putRoom(InventorySnapshot.Room room) {
+            rooms.put(room.id(), room);
+        }
+
+        void removeRoom(String roomId) {
+            rooms.remove(roomId);
+            Map<String, long[]> stays = staysByRoomId.remove(roomId);
+            if (stays != null) {
+                stays.keySet().forEach(roomIdsByBookingId::remove);
+            }
+        }
+
+        void putStay(String bookingId, String roomId, long checkIn, long checkOut) {
+            staysByRoomId.computeIfAbsent(roomId, id -> new HashMap<>()).put(bookingId, new long[] { checkIn, checkOut });
+            roomIdsByBookingId.put(bookingId, roomId);
+        }
+
+        void removeStay(String bookingId) {
+            String roomId = roomIdsByBookingId.remove(bookingId);
+            if (roomId == null) {
+                return;
+            }
+            Map<String, long[]> stays = staysByRoomId.get(roomId);
+            stays.remove(bookingId);
+            if (stays.isEmpty()) {
+                staysByRoomId.remove(roomId);
+            }
+        }
+
+        void prune(long newWindowStart) {
+            if (newWindowStart <= windowStart) {
+                return;
+            }
+            List<String> ended = new ArrayList<>();
+            staysByRoomId.values().forEach(stays -> stays.forEach((bookingId, stay) -> {
+                if (stay[1] < newWindowStart) {
+                    ended.add(bookingId);
+                }
+            }));
+            ended.forEach(this::removeStay);
+            windowStart = newWindowStart;
+        }
+
+        List<InventorySnapshot.Stay> stays() {
+            List<InventorySnapshot.Stay> stays = new ArrayList<>(roomIdsByBookingId.size());
+            staysByRoomId.forEach((roomId, roomStays) -> roomStays.forEach((bookingId, stay) ->
+                    stays.add(new InventorySnapshot.Stay(bookingId, roomId, stay[0], stay[1]))));
+            return stays;
+        }
+    }
+}
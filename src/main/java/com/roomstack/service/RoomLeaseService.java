@@ -0,0 +1,257 @@
+package com.roomstack.service;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cross-node leases on rooms in the room_leases table of the room's shard,
+ * so single bookings of a room are admitted one request at a time whichever
+ * node serves them, instead of piling up on the room's row lock. The row
+ * lock, which every admission path takes before its overlap check, is what
+ * excludes group, assignment and pipeline bookings; the lease only orders
+ * the single-booking requests in front of it. Leases expire after a short
+ * TTL, so a crashed holder blocks the room only briefly; each new holder gets
+ * a higher fencing token, and the booking transaction checks its token
+ * before it commits. Expiry is judged by the database clock, so node clocks
+ * need not agree.
+ */
+@Service
+public class RoomLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomLeaseService.class);
+
+    private static final String TAKE_RELEASED =
+            "UPDATE room_leases SET holder = ?, fencing_token = fencing_token + 1, " +
+            "acquired_at = CURRENT_TIMESTAMP(3), expires_at = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) " +
+            "WHERE room_id = ? AND holder IS NULL";
+
+    private static final String TAKE_EXPIRED =
+            "UPDATE room_leases SET holder = ?, fencing_token = fencing_token + 1, " +
+            "acquired_at = CURRENT_TIMESTAMP(3), expires_at = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) " +
+            "WHERE room_id = ? AND expires_at < CURRENT_TIMESTAMP(3)";
+
+    private static final String INSERT_LEASE =
+            "INSERT INTO room_leases (room_id, holder, fencing_token, acquired_at, expires_at) " +
+            "VALUES (?, ?, 1, CURRENT_TIMESTAMP(3), TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)))";
+
+    private static final String FENCE =
+            "UPDATE room_leases SET fenced_at = CURRENT_TIMESTAMP(3) " +
+            "WHERE room_id = ? AND holder = ? AND fencing_token = ? AND expires_at > CURRENT_TIMESTAMP(3)";
+
+    private static final String RELEASE =
+            "UPDATE room_leases SET holder = NULL, expires_at = CURRENT_TIMESTAMP(3) " +
+            "WHERE room_id = ? AND holder = ? AND fencing_token = ?";
+
+    /**
+     * A held lease; the token identifies this holding among all holdings of the room
+     */
+    public record Lease(String roomId, String holder, long fencingToken, long acquiredAtNanos) {
+    }
+
+    /**
+     * Thrown when a lease cannot be had within the wait timeout, or was lost before the work committed
+     */
+    public static class LeaseUnavailableException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        LeaseUnavailableException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${roomstack.leases.ttl-ms:5000}")
+    private long ttlMillis;
+
+    @Value("${roomstack.leases.wait-timeout-ms:2000}")
+    private long waitTimeoutMillis;
+
+    @Value("${roomstack.leases.min-backoff-ms:2}")
+    private long minBackoffMillis;
+
+    @Value("${roomstack.leases.max-backoff-ms:50}")
+    private long maxBackoffMillis;
+
+    private TransactionTemplate leaseTransaction;
+
+    private Counter acquired;
+
+    private Counter contended;
+
+    private Counter attempts;
+
+    private Counter timeouts;
+
+    private Counter takeovers;
+
+    private Counter fenceFailures;
+
+    private Timer waitTime;
+
+    private Timer holdTime;
+
+    @PostConstruct
+    void init() {
+        // Lease changes commit on their own, never with the caller's work
+        leaseTransaction = new TransactionTemplate(transactionManager);
+        leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        acquired = meterRegistry.counter("roomstack.leases.acquired");
+        contended = meterRegistry.counter("roomstack.leases.contended");
+        attempts = meterRegistry.counter("roomstack.leases.attempts");
+        timeouts = meterRegistry.counter("roomstack.leases.timeouts");
+        takeovers = meterRegistry.counter("roomstack.leases.expired.takeovers");
+        fenceFailures = meterRegistry.counter("roomstack.leases.fence.failures");
+        waitTime = Timer.builder("roomstack.leases.wait")
+                .description("Time spent waiting for a room lease")
+                .register(meterRegistry);
+        holdTime = Timer.builder("roomstack.leases.held")
+                .description("Time a room lease was held")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run work while holding the lease on a room, waiting for it up to the wait timeout
+     * @throws LeaseUnavailableException If the lease stays held by others for the whole wait
+     */
+    public <T> T withLease(String roomId, Function<Lease, T> work) {
+        Lease lease = acquire(roomId);
+        try {
+            return work.apply(lease);
+        } finally {
+            release(lease);
+        }
+    }
+
+    /**
+     * Check, inside the transaction that writes under the lease, that it is still held and unexpired.
+     * The row stays locked until that transaction ends, so no one can take over before it commits.
+     * @throws LeaseUnavailableException If the lease expired; the transaction must roll back
+     */
+    public void fence(Lease lease) {
+        int held = jdbcTemplate.update(FENCE, lease.roomId(), lease.holder(), lease.fencingToken());
+        if (held == 0) {
+            fenceFailures.increment();
+            throw new LeaseUnavailableException("The lease on room " + lease.roomId() + " expired");
+        }
+    }
+
+    private Lease acquire(String roomId) {
+        String holder = UUID.randomUUID().toString();
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+        long backoff = minBackoffMillis;
+        boolean waited = false;
+
+        while (true) {
+            attempts.increment();
+            Long token = tryAcquire(roomId, holder);
+            if (token != null) {
+                long now = System.nanoTime();
+                acquired.increment();
+                if (waited) {
+                    contended.increment();
+                }
+                waitTime.record(now - started, TimeUnit.NANOSECONDS);
+                return new Lease(roomId, holder, token, now);
+            }
+
+            waited = true;
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                timeouts.increment();
+                contended.increment();
+                waitTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                throw new LeaseUnavailableException("Room " + roomId + " is being booked by another request");
+            }
+
+            // Jittered exponential backoff, so waiters on different nodes do not retry in lockstep
+            sleep(Math.min(remaining, ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1)));
+            backoff = Math.min(maxBackoffMillis, backoff * 2);
+        }
+    }
+
+    /**
+     * One attempt: take a released or expired lease, or create the room's lease row
+     * @return The fencing token, or null if someone else holds the lease
+     */
+    private Long tryAcquire(String roomId, String holder) {
+        long ttlMicros = TimeUnit.MILLISECONDS.toMicros(ttlMillis);
+        try {
+            return leaseTransaction.execute(status -> {
+                int taken = jdbcTemplate.update(TAKE_RELEASED, holder, ttlMicros, roomId);
+                if (taken == 0) {
+                    taken = jdbcTemplate.update(TAKE_EXPIRED, holder, ttlMicros, roomId);
+                    if (taken > 0) {
+                        takeovers.increment();
+                        log.warn("Took over the expired lease on room {}", roomId);
+                    }
+                }
+                if (taken > 0) {
+                    return jdbcTemplate.queryForObject(
+                            "SELECT fencing_token FROM room_leases WHERE room_id = ? AND holder = ?",
+                            Long.class, roomId, holder);
+                }
+
+                Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM room_leases WHERE room_id = ?",
+                        Integer.class, roomId);
+                if (rows != null && rows > 0) {
+                    return null;
+                }
+                jdbcTemplate.update(INSERT_LEASE, roomId, holder, ttlMicros);
+                return 1L;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another request created the row first
+            return null;
+        }
+    }
+
+    private void release(Lease lease) {
+        holdTime.record(System.nanoTime() - lease.acquiredAtNanos(), TimeUnit.NANOSECONDS);
+        try {
+            leaseTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.update(RELEASE, lease.roomId(), lease.holder(), lease.fencingToken()));
+        } catch (DataAccessException e) {
+            // The lease runs out on its own
+            log.warn("Could not release the lease on room {}", lease.roomId(), e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LeaseUnavailableException("Interrupted while waiting for a room lease");
+        }
+    }
+}
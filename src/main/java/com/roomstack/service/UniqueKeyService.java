@@ -0,0 +1,227 @@
+package com.roomstack.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.roomstack.config.ShardRouter;
+import com.roomstack.event.CacheInvalidationEvent;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.util.BloomFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Answers "does this customer email / room number already exist?" with a Bloom
+ * filter in front of the database. A definite miss skips the query; possible
+ * hits are confirmed against the repository, and the unique constraints remain
+ * the final arbiter on insert.
+ */
+@Service
+public class UniqueKeyService {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${roomstack.unique-keys.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${roomstack.unique-keys.min-capacity:10000}")
+    private long minCapacity;
+
+    private KeyFilter emails;
+
+    private KeyFilter roomNumbers;
+
+    @PostConstruct
+    void init() {
+        // One filter for every property: a miss is still definite, a hit is confirmed within the property
+        emails = new KeyFilter("email", () -> shardRouter.scatter(customerRepository::findAllEmails),
+                () -> count(customerRepository::count));
+        roomNumbers = new KeyFilter("room_number", () -> shardRouter.scatter(roomRepository::findAllNumbers),
+                () -> count(roomRepository::count));
+    }
+
+    /**
+     * Load both filters once the application is up; until then every check goes to the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild both filters from the database; drops keys of deleted or renamed rows
+     */
+    @Scheduled(fixedDelayString = "${roomstack.unique-keys.rebuild-interval-ms:21600000}",
+               initialDelayString = "${roomstack.unique-keys.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        emails.rebuild();
+        roomNumbers.rebuild();
+    }
+
+    /**
+     * Record the keys of customers and rooms other nodes stored; a full flush rebuilds both filters.
+     * Keys other nodes removed stay in the filter until the next rebuild, which only costs a query.
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFullFlush()) {
+            rebuild();
+            return;
+        }
+
+        if (!event.getCustomerIds().isEmpty()) {
+            customerRepository.findAllById(event.getCustomerIds()).forEach(customer -> recordEmail(customer.getEmail()));
+        }
+        if (!event.getRoomIds().isEmpty()) {
+            roomRepository.findAllById(event.getRoomIds()).forEach(room -> recordRoomNumber(room.getNumber()));
+        }
+    }
+
+    /**
+     * Check whether a customer with this email exists
+     */
+    public boolean emailExists(String email) {
+        return emails.exists(email, key -> customerRepository.findByEmail(email).isPresent());
+    }
+
+    /**
+     * Record an email that has just been stored
+     */
+    public void recordEmail(String email) {
+        emails.record(email);
+    }
+
+    /**
+     * Check whether a room with this number exists
+     */
+    public boolean roomNumberExists(String number) {
+        return roomNumbers.exists(number, key -> roomRepository.findByNumber(number).isPresent());
+    }
+
+    /**
+     * Record a room number that has just been stored
+     */
+    public void recordRoomNumber(String number) {
+        roomNumbers.record(number);
+    }
+
+    /**
+     * Bloom filter for one kind of key, with its metrics
+     */
+    private class KeyFilter {
+
+        private final Supplier<List<String>> loader;
+
+        private final LongSupplier counter;
+
+        private final Counter checks;
+
+        private final Counter skipped;
+
+        private final Counter falsePositives;
+
+        private volatile BloomFilter current;
+
+        // Receives writes while a rebuild is loading, so none are lost in the swap
+        private volatile BloomFilter pending;
+
+        KeyFilter(String kind, Supplier<List<String>> loader, LongSupplier counter) {
+            this.loader = loader;
+            this.counter = counter;
+            this.checks = meterRegistry.counter("roomstack.unique_keys.checks", "key", kind);
+            this.skipped = meterRegistry.counter("roomstack.unique_keys.skipped", "key", kind);
+            this.falsePositives = meterRegistry.counter("roomstack.unique_keys.false_positives", "key", kind);
+
+            Gauge.builder("roomstack.unique_keys.false_positive_rate", this, KeyFilter::falsePositiveRate)
+                    .tag("key", kind)
+                    .description("Share of absent keys the filter failed to rule out")
+                    .register(meterRegistry);
+        }
+
+        boolean exists(String key, Predicate<String> database) {
+            checks.increment();
+
+            BloomFilter filter = current;
+            if (key != null && filter != null && !filter.mightContain(normalize(key))) {
+                skipped.increment();
+                return false;
+            }
+
+            boolean found = database.test(key);
+            if (!found && filter != null) {
+                falsePositives.increment();
+            }
+            return found;
+        }
+
+        void record(String key) {
+            if (key == null) {
+                return;
+            }
+
+            // Read pending first: once it is cleared, current already points at the rebuilt filter
+            String normalized = normalize(key);
+            BloomFilter rebuilding = pending;
+            BloomFilter filter = current;
+
+            if (rebuilding != null) {
+                rebuilding.put(normalized);
+            }
+            if (filter != null) {
+                filter.put(normalized);
+            }
+        }
+
+        synchronized void rebuild() {
+            long capacity = Math.max(minCapacity, 2 * counter.getAsLong());
+            BloomFilter fresh = new BloomFilter(capacity, falsePositiveRate);
+
+            // Writes recorded from here on reach the new filter; anything committed earlier is in the query
+            pending = fresh;
+            try {
+                loader.get().forEach(key -> fresh.put(normalize(key)));
+                current = fresh;
+            } finally {
+                pending = null;
+            }
+        }
+
+        private double falsePositiveRate() {
+            double negatives = skipped.count() + falsePositives.count();
+            return negatives == 0 ? 0 : falsePositives.count() / negatives;
+        }
+    }
+
+    private long count(LongSupplier counter) {
+        return shardRouter.scatter(() -> List.of(counter.getAsLong())).stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Lookups are case-insensitive under the default MySQL collation
+    private static String normalize(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,343 @@
+package com.roomstack.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar file of closed bookings for historical reporting. Each field is
+ * stored as its own column: room and customer IDs as dictionary codes,
+ * check-in as the day delta from the previous row (rows are written in
+ * check-in order) and the stay as a night count, both as varints, and bill
+ * amounts as cents in longs. A reader maps every column read-only, so a scan
+ * runs over off-heap pages and allocates nothing per row.
+ *
+ * <pre>
+ * header:  magic, version, rowCount, baseEpochDay, then (offset, length) per section
+ * columns: room int[], customer int[], checkIn varint[], nights varint[], status byte[],
+ *          roomCharge long[], taxAmount long[], total long[], paymentStatus byte[]
+ * dicts:   room IDs, customer IDs; each a count then (length, UTF-8 bytes) per ID
+ * </pre>
+ */
+public final class ColumnarBookingFile {
+
+    private static final int MAGIC = 0x52534342; // "RSCB"
+
+    private static final int VERSION = 1;
+
+    private static final int ROOM = 0;
+    private static final int CUSTOMER = 1;
+    private static final int CHECK_IN = 2;
+    private static final int NIGHTS = 3;
+    private static final int STATUS = 4;
+    private static final int ROOM_CHARGE = 5;
+    private static final int TAX_AMOUNT = 6;
+    private static final int TOTAL = 7;
+    private static final int PAYMENT_STATUS = 8;
+    private static final int ROOM_DICTIONARY = 9;
+    private static final int CUSTOMER_DICTIONARY = 10;
+    private static final int SECTIONS = 11;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + SECTIONS * 16;
+
+    private ColumnarBookingFile() {
+    }
+
+    /**
+     * Receives the rows of a scan as primitives; dictionary codes resolve through the reader
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+        void row(int roomCode, int customerCode, long checkInEpochDay, int nights, int status,
+                long roomChargeCents, long taxCents, long totalCents, int paymentStatus);
+    }
+
+    /**
+     * Streams rows into one temporary file per column, then assembles the final file.
+     * Rows must be appended in check-in order.
+     */
+    public static class Writer implements AutoCloseable {
+
+        private final Path target;
+        private final Path[] columnFiles = new Path[PAYMENT_STATUS + 1];
+        private final DataOutputStream[] columns = new DataOutputStream[PAYMENT_STATUS + 1];
+        private final Map<String, Integer> roomCodes = new HashMap<>();
+        private final List<String> rooms = new ArrayList<>();
+        private final Map<String, Integer> customerCodes = new HashMap<>();
+        private final List<String> customers = new ArrayList<>();
+        private long rowCount;
+        private long baseEpochDay;
+        private long previousEpochDay;
+
+        public Writer(Path target) throws IOException {
+            this.target = target;
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            for (int column = 0; column < columns.length; column++) {
+                columnFiles[column] = Files.createTempFile(target.toAbsolutePath().getParent(), "column", ".tmp");
+                columns[column] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(columnFiles[column])));
+            }
+        }
+
+        /**
+         * Append one booking
+         * @param status Booking status ordinal
+         * @param paymentStatus Payment status ordinal, or -1 if the booking has no bill
+         */
+        public void append(String roomId, String customerId, long checkInEpochDay, int nights, int status,
+                long roomChargeCents, long taxCents, long totalCents, int paymentStatus) throws IOException {
+            if (rowCount == 0) {
+                baseEpochDay = checkInEpochDay;
+                previousEpochDay = checkInEpochDay;
+            }
+            if (checkInEpochDay < previousEpochDay) {
+                throw new IllegalArgumentException("Rows must be appended in check-in order");
+            }
+
+            columns[ROOM].writeInt(code(roomId, roomCodes, rooms));
+            columns[CUSTOMER].writeInt(code(customerId, customerCodes, customers));
+            writeVarint(columns[CHECK_IN], checkInEpochDay - previousEpochDay);
+            writeVarint(columns[NIGHTS], nights);
+            columns[STATUS].writeByte(status);
+            columns[ROOM_CHARGE].writeLong(roomChargeCents);
+            columns[TAX_AMOUNT].writeLong(taxCents);
+            columns[TOTAL].writeLong(totalCents);
+            columns[PAYMENT_STATUS].writeByte(paymentStatus);
+
+            previousEpochDay = checkInEpochDay;
+            rowCount++;
+        }
+
+        /**
+         * Write the header, columns and dictionaries, then move the file into place atomically
+         * @return The size of the file in bytes
+         */
+        public long finish() throws IOException {
+            for (DataOutputStream column : columns) {
+                column.close();
+            }
+
+            byte[][] dictionaries = { dictionary(rooms), dictionary(customers) };
+            long[] offsets = new long[SECTIONS];
+            long[] lengths = new long[SECTIONS];
+            long offset = HEADER_BYTES;
+            for (int section = 0; section < SECTIONS; section++) {
+                offsets[section] = offset;
+                lengths[section] = section < columns.length
+                        ? Files.size(columnFiles[section])
+                        : dictionaries[section - ROOM_DICTIONARY].length;
+                offset += lengths[section];
+            }
+
+            Path assembled = Files.createTempFile(target.toAbsolutePath().getParent(), "columnar", ".tmp");
+            try {
+                writeFile(assembled, offsets, lengths, dictionaries);
+                Files.move(assembled, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(assembled);
+                close();
+            }
+            return offset;
+        }
+
+        private void writeFile(Path path, long[] offsets, long[] lengths, byte[][] dictionaries) throws IOException {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+                DataOutputStream header = new DataOutputStream(out);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.writeLong(rowCount);
+                header.writeLong(baseEpochDay);
+                for (int section = 0; section < SECTIONS; section++) {
+                    header.writeLong(offsets[section]);
+                    header.writeLong(lengths[section]);
+                }
+                for (Path columnFile : columnFiles) {
+                    Files.copy(columnFile, out);
+                }
+                for (byte[] dictionary : dictionaries) {
+                    out.write(dictionary);
+                }
+            }
+        }
+
+        /**
+         * Remove the temporary column files; an export that never finished leaves no file behind
+         */
+        @Override
+        public void close() throws IOException {
+            for (int column = 0; column < columns.length; column++) {
+                columns[column].close();
+                Files.deleteIfExists(columnFiles[column]);
+            }
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        private static int code(String id, Map<String, Integer> codes, List<String> ids) {
+            return codes.computeIfAbsent(id == null ? "" : id, key -> {
+                ids.add(key);
+                return ids.size() - 1;
+            });
+        }
+
+        private static byte[] dictionary(List<String> ids) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(ids.size());
+            for (String id : ids) {
+                byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(utf8.length);
+                out.write(utf8);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private static void writeVarint(DataOutputStream out, long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+    }
+
+    /**
+     * Memory-maps each column of a file read-only for scanning
+     */
+    public static class Reader implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final long rowCount;
+        private final long baseEpochDay;
+        private final MappedByteBuffer[] sections = new MappedByteBuffer[SECTIONS];
+        private final String[] rooms;
+        private final String[] customers;
+
+        public Reader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException("Not a columnar booking file: " + path);
+                }
+                rowCount = header.getLong();
+                baseEpochDay = header.getLong();
+                for (int section = 0; section < SECTIONS; section++) {
+                    long offset = header.getLong();
+                    long length = header.getLong();
+                    sections[section] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                }
+                rooms = readDictionary(sections[ROOM_DICTIONARY]);
+                customers = readDictionary(sections[CUSTOMER_DICTIONARY]);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Visit every row whose check-in falls in [fromEpochDay, toEpochDay); rows are in check-in order,
+         * so the scan stops at the first row past the range
+         */
+        public long scan(long fromEpochDay, long toEpochDay, RowVisitor visitor) {
+            ByteBuffer room = sections[ROOM].duplicate();
+            ByteBuffer customer = sections[CUSTOMER].duplicate();
+            ByteBuffer checkIn = sections[CHECK_IN].duplicate();
+            ByteBuffer nights = sections[NIGHTS].duplicate();
+            ByteBuffer status = sections[STATUS].duplicate();
+            ByteBuffer roomCharge = sections[ROOM_CHARGE].duplicate();
+            ByteBuffer taxAmount = sections[TAX_AMOUNT].duplicate();
+            ByteBuffer total = sections[TOTAL].duplicate();
+            ByteBuffer paymentStatus = sections[PAYMENT_STATUS].duplicate();
+
+            long epochDay = baseEpochDay;
+            long visited = 0;
+            for (long row = 0; row < rowCount; row++) {
+                epochDay += readVarint(checkIn);
+                if (epochDay >= toEpochDay) {
+                    break;
+                }
+
+                int roomCode = room.getInt();
+                int customerCode = customer.getInt();
+                int stay = (int) readVarint(nights);
+                int bookingStatus = status.get();
+                long roomChargeCents = roomCharge.getLong();
+                long taxCents = taxAmount.getLong();
+                long totalCents = total.getLong();
+                int billStatus = paymentStatus.get();
+
+                if (epochDay >= fromEpochDay) {
+                    visitor.row(roomCode, customerCode, epochDay, stay, bookingStatus,
+                            roomChargeCents, taxCents, totalCents, billStatus);
+                    visited++;
+                }
+            }
+            return visited;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        public String roomId(int code) {
+            return rooms[code];
+        }
+
+        public String customerId(int code) {
+            return customers[code];
+        }
+
+        public int roomCount() {
+            return rooms.length;
+        }
+
+        public int customerCount() {
+            return customers.length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private static String[] readDictionary(ByteBuffer buffer) {
+            ByteBuffer in = buffer.duplicate();
+            String[] ids = new String[in.getInt()];
+            for (int code = 0; code < ids.length; code++) {
+                byte[] utf8 = new byte[in.getShort() & 0xFFFF];
+                in.get(utf8);
+                ids[code] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            return ids;
+        }
+
+        private static long readVarint(ByteBuffer in) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.roomstack.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of the room catalog and the booked stays of every room, for
+ * a warm restart. The body is checksummed, so a truncated or damaged file is
+ * rejected instead of loaded. Stays refer to their room by its index in the
+ * catalog, and times are epoch seconds.
+ *
+ * <pre>
+ * header: magic, version, watermark, windowStart, roomCount, stayCount, bodyLength, crc32c(body)
+ * body:   rooms (id, number, capacity, floor, pricePerNight, features), then stays (room index, booking ID, checkIn, checkOut)
+ * </pre>
+ */
+public final class InventorySnapshot {
+
+    private static final int MAGIC = 0x52534953; // "RSIS"
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 8 + 4;
+
+    /**
+     * A room of the catalog
+     */
+    public record Room(String id, String number, int capacity, int floor, double pricePerNight, List<String> features) {
+    }
+
+    /**
+     * A booked stay, from check-in to check-out in epoch seconds
+     */
+    public record Stay(String bookingId, String roomId, long checkIn, long checkOut) {
+    }
+
+    // Changes made at or after this time, in epoch seconds, may be missing from the snapshot
+    private final long watermark;
+
+    // Stays that checked out before this time, in epoch seconds, were left out
+    private final long windowStart;
+
+    private final List<Room> rooms;
+
+    private final List<Stay> stays;
+
+    public InventorySnapshot(long watermark, long windowStart, List<Room> rooms, List<Stay> stays) {
+        this.watermark = watermark;
+        this.windowStart = windowStart;
+        this.rooms = rooms;
+        this.stays = stays;
+    }
+
+    /**
+     * Write the snapshot to a temporary file and move it into place atomically
+     * @return The size of the file in bytes
+     */
+    public long write(Path target) throws IOException {
+        // Stays of a room deleted since they were booked go with the room
+        Map<String, Integer> roomIndexes = new HashMap<>();
+        rooms.forEach(room -> roomIndexes.put(room.id(), roomIndexes.size()));
+        List<Stay> written = stays.stream().filter(stay -> roomIndexes.containsKey(stay.roomId())).toList();
+
+        byte[] body = body(roomIndexes, written);
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Path temporary = Files.createTempFile(target.toAbsolutePath().getParent(), "snapshot", ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temporary);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(watermark);
+                out.writeLong(windowStart);
+                out.writeInt(rooms.size());
+                out.writeInt(written.size());
+                out.writeLong(body.length);
+                out.writeInt((int) crc.getValue());
+                out.write(body);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return HEADER_BYTES + body.length;
+    }
+
+    /**
+     * Read a snapshot through a read-only mapping of the file
+     * @throws IOException If the file is not a snapshot, or is truncated or damaged
+     */
+    public static InventorySnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Snapshot is truncated: " + path);
+            }
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not an inventory snapshot: " + path);
+            }
+            long watermark = in.getLong();
+            long windowStart = in.getLong();
+            int roomCount = in.getInt();
+            int stayCount = in.getInt();
+            long bodyLength = in.getLong();
+            int expectedCrc = in.getInt();
+            if (bodyLength != in.remaining()) {
+                throw new IOException("Snapshot is truncated: " + path);
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(in.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Snapshot checksum mismatch: " + path);
+            }
+
+            try {
+                List<Room> rooms = new ArrayList<>(roomCount);
+                for (int room = 0; room < roomCount; room++) {
+                    String id = readString(in);
+                    String number = readString(in);
+                    int capacity = in.getInt();
+                    int floor = in.getInt();
+                    double pricePerNight = in.getDouble();
+                    int featureCount = in.getShort() & 0xFFFF;
+                    List<String> features = new ArrayList<>(featureCount);
+                    for (int feature = 0; feature < featureCount; feature++) {
+                        features.add(readString(in));
+                    }
+                    rooms.add(new Room(id, number, capacity, floor, pricePerNight, features));
+                }
+
+                List<Stay> stays = new ArrayList<>(stayCount);
+                for (int stay = 0; stay < stayCount; stay++) {
+                    String roomId = rooms.get(in.getInt()).id();
+                    stays.add(new Stay(readString(in), roomId, in.getLong(), in.getLong()));
+                }
+                return new InventorySnapshot(watermark, windowStart, rooms, stays);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Snapshot is malformed: " + path, e);
+            }
+        }
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public List<Room> getRooms() {
+        return rooms;
+    }
+
+    public List<Stay> getStays() {
+        return stays;
+    }
+
+    private byte[] body(Map<String, Integer> roomIndexes, List<Stay> written) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        for (Room room : rooms) {
+            writeString(out, room.id());
+            writeString(out, room.number());
+            out.writeInt(room.capacity());
+            out.writeInt(room.floor());
+            out.writeDouble(room.pricePerNight());
+            List<String> features = room.features() == null ? List.of() : room.features();
+            out.writeShort(features.size());
+            for (String feature : features) {
+                writeString(out, feature);
+            }
+        }
+
+        for (Stay stay : written) {
+            out.writeInt(roomIndexes.get(stay.roomId()));
+            writeString(out, stay.bookingId());
+            out.writeLong(stay.checkIn());
+            out.writeLong(stay.checkOut());
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] utf8 = new byte[in.getShort() & 0xFFFF];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,297 @@
+package com.roomstack.util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of opaque records in fixed-size, memory-mapped segment
+ * files. An append copies the record into the mapped segment under a lock;
+ * a background flusher forces dirty pages to disk every few milliseconds, so
+ * one fsync covers every record appended since the last (group commit).
+ * Callers that need durability wait for the flush that covers their record.
+ *
+ * <p>Each record is {@code [int length][int crc32c][payload]}; a zero length
+ * marks the end of a segment's data. On open, every segment is scanned and
+ * the first record with a bad length or CRC ends the log, which drops a torn
+ * write at the tail; segments after a damaged one are deleted, so a later
+ * replay cannot run into their stale records. Records are addressed by a
+ * position packing the segment number and offset.</p>
+ */
+public class MappedJournal implements AutoCloseable {
+
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentBytes;
+    // Appended to under this lock, read without it
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService flusher;
+    private final FileChannel lockChannel;
+
+    // Guarded by this
+    private MappedByteBuffer active;
+    private int activeSegment;
+    private int writeOffset;
+    private int firstDirtySegment;
+
+    // Written under this lock
+    private volatile long appended;
+
+    private volatile long flushed;
+    private volatile boolean closed;
+
+    /**
+     * Open (or create) the journal in a directory and replay every intact record
+     * @param replay Receives the position and payload of each record, in order
+     */
+    public MappedJournal(Path directory, int segmentBytes, long flushIntervalMillis,
+            BiConsumer<Long, byte[]> replay) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+
+        // Two writers on one directory would overwrite each other's records
+        lockChannel = FileChannel.open(directory.resolve("journal.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Journal directory is in use: " + directory);
+        }
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().matches("segment-\\d{8}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path file : files) {
+            segments.add(map(file, Math.max(segmentBytes, (int) Files.size(file))));
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(segmentFile(0), segmentBytes));
+        }
+
+        // Replay up to the first damaged record, which becomes the append point
+        boolean damaged = false;
+        for (int segment = 0; segment < segments.size() && !damaged; segment++) {
+            ByteBuffer buffer = segments.get(segment).duplicate();
+            activeSegment = segment;
+            writeOffset = 0;
+
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int offset = buffer.position();
+                int length = buffer.getInt();
+                int crc = buffer.getInt();
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || length > buffer.remaining() || crc != crc(buffer, offset + RECORD_HEADER_BYTES, length)) {
+                    damaged = true;
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                replay.accept(position(segment, offset), payload);
+                writeOffset = buffer.position();
+                appended++;
+            }
+        }
+
+        // Segments after a damaged one hold nothing reachable, but a replay after later appends would reach them
+        if (damaged) {
+            for (int segment = segments.size() - 1; segment > activeSegment; segment--) {
+                segments.remove(segment);
+                Files.delete(segmentFile(segment));
+            }
+        }
+        active = segments.get(activeSegment);
+        clearFrom(active, writeOffset);
+        firstDirtySegment = activeSegment;
+        flushed = appended;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Append a record; it is durable once {@link #awaitFlushed(long, long)} returns true for the returned sequence
+     * @return The record's sequence number (1-based count of records in the journal)
+     */
+    public synchronized long append(byte[] payload, long[] positionOut) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        if (payload.length + RECORD_HEADER_BYTES > segmentBytes - RECORD_HEADER_BYTES) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds the segment size");
+        }
+
+        // Keep room for the zero-length end marker that closes a full segment
+        if (writeOffset + RECORD_HEADER_BYTES + payload.length > segmentBytes - RECORD_HEADER_BYTES) {
+            roll();
+        }
+
+        int offset = writeOffset;
+        ByteBuffer buffer = active.duplicate();
+        buffer.position(offset + RECORD_HEADER_BYTES);
+        buffer.put(payload);
+        buffer.putInt(0); // End marker until the next record overwrites it
+        int crc = crc(active, offset + RECORD_HEADER_BYTES, payload.length);
+        // The length goes in last, so a reader never sees a record before its payload
+        active.putInt(offset + 4, crc);
+        active.putInt(offset, payload.length);
+
+        writeOffset = offset + RECORD_HEADER_BYTES + payload.length;
+        if (positionOut != null) {
+            positionOut[0] = position(activeSegment, offset);
+        }
+        return ++appended;
+    }
+
+    /**
+     * Read the payload of the record at a position
+     */
+    public byte[] read(long position) {
+        ByteBuffer buffer = segments.get((int) (position >>> 32)).duplicate();
+        buffer.position((int) position);
+        int length = buffer.getInt();
+        buffer.getInt();
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        return payload;
+    }
+
+    /**
+     * Wait until the record with this sequence has been forced to disk
+     * @return false if the wait timed out
+     */
+    public boolean awaitFlushed(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (flusher) {
+            while (flushed < sequence) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || closed) {
+                    return flushed >= sequence;
+                }
+                flusher.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Force every record appended so far to disk and wake the writers waiting on them
+     */
+    public void flush() {
+        long target;
+        List<MappedByteBuffer> dirty;
+        synchronized (this) {
+            target = appended;
+            if (target == flushed) {
+                return;
+            }
+            dirty = new ArrayList<>(segments.subList(firstDirtySegment, activeSegment + 1));
+            firstDirtySegment = activeSegment;
+        }
+
+        dirty.forEach(MappedByteBuffer::force);
+
+        synchronized (flusher) {
+            flushed = Math.max(flushed, target);
+            flusher.notifyAll();
+        }
+    }
+
+    public long getAppended() {
+        return appended;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flusher.shutdown();
+        flush();
+        synchronized (flusher) {
+            flusher.notifyAll();
+        }
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            // Closing the channel releases the lock either way
+        }
+    }
+
+    private void roll() throws IOException {
+        // The end marker is already in place after the last record
+        activeSegment++;
+        if (activeSegment == segments.size()) {
+            segments.add(map(segmentFile(activeSegment), segmentBytes));
+        }
+        active = segments.get(activeSegment);
+        clearFrom(active, 0);
+        writeOffset = 0;
+    }
+
+    private Path segmentFile(int segment) {
+        return directory.resolve(String.format("segment-%08d.log", segment));
+    }
+
+    private static MappedByteBuffer map(Path file, int bytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() < bytes) {
+                raf.setLength(bytes);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    private static void clearFrom(MappedByteBuffer buffer, int offset) {
+        if (offset + 4 <= buffer.capacity()) {
+            buffer.putInt(offset, 0);
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(offset).limit(offset + length));
+        return (int) crc.getValue();
+    }
+
+    private static long position(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+}
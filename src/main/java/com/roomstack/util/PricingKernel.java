@@ -0,0 +1,72 @@
+package com.roomstack.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point pricing arithmetic on amounts in cents. Every operation gives the
+ * same result as the BigDecimal scale-2 HALF_UP calculation it replaces, but
+ * works on primitive longs, so pricing a stay allocates nothing until the
+ * result is turned into a BigDecimal for the response.
+ */
+public final class PricingKernel {
+
+    /** Tax charged on the room charge */
+    public static final int TAX_PERCENT = 10;
+
+    private PricingKernel() {
+    }
+
+    /**
+     * Room charge of a stay: the sum of its nightly rates
+     */
+    public static long roomCharge(long[] nightlyRates) {
+        long cents = 0;
+        for (long rate : nightlyRates) {
+            cents += rate;
+        }
+        return cents;
+    }
+
+    /**
+     * Tax on a room charge, as roomCharge.multiply(0.1).setScale(2, HALF_UP)
+     */
+    public static long tax(long roomChargeCents) {
+        return percentOf(roomChargeCents, TAX_PERCENT);
+    }
+
+    /**
+     * Room charge plus tax
+     */
+    public static long total(long roomChargeCents) {
+        return roomChargeCents + tax(roomChargeCents);
+    }
+
+    /**
+     * Amount adjusted by a percentage, as amount * (100 + percent) / 100 rounded HALF_UP
+     */
+    public static long adjust(long cents, int percent) {
+        return percentOf(cents, 100 + percent);
+    }
+
+    /**
+     * Percentage of an amount, rounded HALF_UP to the cent
+     */
+    public static long percentOf(long cents, int percent) {
+        return divideHalfUp(cents * percent, 100);
+    }
+
+    /**
+     * Convert cents to a scale-2 amount, e.g. for a response or a BillModel
+     */
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // HALF_UP rounds ties away from zero, on both sides of it
+    private static long divideHalfUp(long dividend, long divisor) {
+        long half = divisor / 2;
+        return dividend >= 0
+                ? (dividend + half) / divisor
+                : -((-dividend + half) / divisor);
+    }
+}
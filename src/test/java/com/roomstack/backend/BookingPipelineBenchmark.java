@@ -0,0 +1,173 @@
+package com.roomstack.backend;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import com.roomstack.controller.BookingController;
+import com.roomstack.controller.CustomerController;
+import com.roomstack.controller.RoomController;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.RoomModel;
+
+/**
+ * Flash sale on a few hot rooms: many threads book random stays in them
+ * through BookingController, once on the synchronous path under room leases
+ * and once through the single-writer booking pipeline, each on its own H2
+ * database. Not run by surefire; run with
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.roomstack.backend.BookingPipelineBenchmark
+ * </pre>
+ *
+ * and compare ops/ms, the p0.99 and p0.999 latencies, and the created,
+ * conflict and rejected counts (rejected: the lease wait timed out or the
+ * pipeline queue was full).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(32)
+public class BookingPipelineBenchmark {
+
+    @Param({ "false", "true" })
+    boolean pipeline;
+
+    @Param({ "4" })
+    int hotRooms;
+
+    ConfigurableApplicationContext context;
+
+    BookingController bookingController;
+
+    String customerId;
+
+    List<String> roomIds;
+
+    /**
+     * Replies of one thread by status
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Replies {
+        public long created;
+        public long conflict;
+        public long rejected;
+        public long other;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            created = 0;
+            conflict = 0;
+            rejected = 0;
+            other = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(RoomstackBackendApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:pipeline_" + pipeline + ";MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--server.port=0",
+                "--roomstack.journal.enabled=false",
+                "--roomstack.snapshot.enabled=false",
+                "--roomstack.bookings.pipeline.enabled=" + pipeline);
+        bookingController = context.getBean(BookingController.class);
+
+        CustomerModel customer = new CustomerModel();
+        customer.setName("Flash Sale");
+        customer.setEmail("flash-" + UUID.randomUUID() + "@example.com");
+        customer.setPhone("555");
+        customerId = ((CustomerModel) context.getBean(CustomerController.class).createCustomer(customer).getBody())
+                .getId();
+    }
+
+    /**
+     * Fresh hot rooms each iteration, so every iteration starts from the same free calendar
+     */
+    @Setup(Level.Iteration)
+    public void createRooms() {
+        RoomController roomController = context.getBean(RoomController.class);
+        roomIds = new ArrayList<>();
+        for (int i = 0; i < hotRooms; i++) {
+            RoomModel room = new RoomModel();
+            room.setNumber("F" + UUID.randomUUID().toString().substring(0, 8));
+            room.setCapacity(2);
+            room.setPricePerNight(90);
+            room.setFloor(1);
+            room.setStatus("available");
+            room.setBeds(Map.of("queen", 1));
+            roomIds.add(roomController.createRoom(room).getBody().getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int book(Replies replies) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime checkIn = LocalDateTime.of(2030, 1, 1, 14, 0).plusDays(random.nextInt(3650));
+        LocalDateTime checkOut = checkIn.plusDays(1 + random.nextInt(3)).withHour(11);
+
+        ResponseEntity<?> response = bookingController.createBooking(
+                Map.of("checkIn", checkIn.toString() + ":00", "checkOut", checkOut.toString() + ":00", "adults", 2),
+                roomIds.get(random.nextInt(roomIds.size())), customerId, null).join();
+
+        int status = response.getStatusCode().value();
+        if (status == 201) {
+            replies.created++;
+        } else if (status == 409) {
+            replies.conflict++;
+        } else if (status == 503) {
+            replies.rejected++;
+        } else {
+            replies.other++;
+        }
+        return status;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingPipelineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+package com.roomstack.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.controller.CustomerController;
+import com.roomstack.controller.RoomController;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.service.BookingPipeline;
+
+/**
+ * A batch of the booking pipeline whose commit fails is retried command by
+ * command, so only the bad command fails
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:booking_pipeline;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "roomstack.journal.enabled=false",
+    "roomstack.snapshot.enabled=false",
+    "roomstack.bookings.pipeline.enabled=true",
+    "roomstack.bookings.pipeline.workers=1"
+})
+class BookingPipelineTests {
+
+    @Autowired
+    private BookingPipeline bookingPipeline;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private CustomerController customerController;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aBadCommandDoesNotFailTheRestOfItsBatch() throws Exception {
+        String roomId = createRoom();
+        String customerId = createCustomer();
+
+        List<CompletableFuture<BookingPipeline.Admission>> good = new ArrayList<>();
+        CompletableFuture<BookingPipeline.Admission> bad;
+
+        // Hold the room's lock so the commands queue up behind the worker's first batch
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        bad = transaction.execute(status -> {
+            roomRepository.findAllByIdForUpdate(List.of(roomId));
+            good.add(bookingPipeline.submit(stay(0, 2), roomId, customerId));
+            pause();
+            for (int i = 1; i <= 4; i++) {
+                good.add(bookingPipeline.submit(stay(i * 3, 2), roomId, customerId));
+            }
+            // Fails validation when the batch is flushed, after the others were saved
+            BookingModel invalid = stay(20, 2);
+            invalid.setAdults(0);
+            CompletableFuture<BookingPipeline.Admission> reply = bookingPipeline.submit(invalid, roomId, customerId);
+            for (int i = 5; i <= 6; i++) {
+                good.add(bookingPipeline.submit(stay(i * 3 + 20, 2), roomId, customerId));
+            }
+            pause();
+            return reply;
+        });
+
+        for (CompletableFuture<BookingPipeline.Admission> reply : good) {
+            BookingPipeline.Admission admission = reply.get(30, TimeUnit.SECONDS);
+            assertThat(admission.outcome()).isEqualTo(BookingPipeline.Outcome.created);
+            assertThat(admission.booking().getBill()).isNotNull();
+        }
+        assertThatThrownBy(() -> bad.get(30, TimeUnit.SECONDS)).hasMessageContaining("adult");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE room_id = ?",
+                Integer.class, roomId)).isEqualTo(good.size());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bills bi JOIN bookings b " +
+                "ON bi.booking_id = b.id WHERE b.room_id = ?", Integer.class, roomId)).isEqualTo(good.size());
+        // Billed with the batch, so there is nothing left for the outbox to bill
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events o JOIN bookings b " +
+                "ON o.aggregate_id = b.id WHERE b.room_id = ?", Integer.class, roomId)).isZero();
+    }
+
+    private static BookingModel stay(int startDay, int nights) {
+        BookingModel booking = new BookingModel();
+        booking.setCheckIn(LocalDateTime.of(2031, 1, 1, 14, 0).plusDays(startDay));
+        booking.setCheckOut(LocalDateTime.of(2031, 1, 1, 11, 0).plusDays(startDay + nights));
+        booking.setAdults(2);
+        return booking;
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String createRoom() {
+        RoomModel room = new RoomModel();
+        room.setNumber("P" + UUID.randomUUID().toString().substring(0, 8));
+        room.setCapacity(2);
+        room.setPricePerNight(90);
+        room.setFloor(1);
+        room.setStatus("available");
+        room.setBeds(Map.of("queen", 1));
+        return roomController.createRoom(room).getBody().getId();
+    }
+
+    private String createCustomer() {
+        CustomerModel customer = new CustomerModel();
+        customer.setName("Pipeline Guest");
+        customer.setEmail("pipeline-" + UUID.randomUUID() + "@example.com");
+        customer.setPhone("555");
+        return ((CustomerModel) customerController.createCustomer(customer).getBody()).getId();
+    }
+}
@@ -0,0 +1,148 @@
+package com.roomstack.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.controller.CustomerController;
+import com.roomstack.controller.RoomController;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.JournalEntry;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.service.BookingArchiveService;
+import com.roomstack.service.EventJournalService;
+import com.roomstack.service.NightAuditService;
+
+/**
+ * The night audit's bulk check-outs and no-shows and the archive's bulk
+ * deletes leave a journal entry for every booking they change, readable
+ * only by the booking's property
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:bulk_change_journal;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "roomstack.journal.enabled=true",
+    "roomstack.journal.dir=target/journal-${random.uuid}",
+    "roomstack.journal.segment-size-mb=1",
+    "roomstack.snapshot.enabled=false",
+    "roomstack.sharding.properties.lakeside=default"
+})
+class BulkChangeJournalTests {
+
+    @Autowired
+    private NightAuditService nightAuditService;
+
+    @Autowired
+    private BookingArchiveService bookingArchiveService;
+
+    @Autowired
+    private EventJournalService eventJournalService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private CustomerController customerController;
+
+    @Test
+    void nightAuditAndArchiveJournalEveryBookingTheyChange() {
+        String roomId = createRoom();
+        String customerId = createCustomer();
+        LocalDateTime today = LocalDate.now().atTime(14, 0);
+
+        String overdue = saveBooking(roomId, customerId, today.minusDays(3), today.minusDays(1).withHour(11),
+                BookingStatus.checked_in);
+        String noShow = saveBooking(roomId, customerId, today.minusDays(2), today.plusDays(2).withHour(11),
+                BookingStatus.confirmed);
+        String old = saveBooking(roomId, customerId, today.minusYears(2), today.minusYears(2).plusDays(2).withHour(11),
+                BookingStatus.checked_out);
+
+        nightAuditService.run(LocalDate.now().minusDays(1));
+        bookingArchiveService.archive();
+
+        assertThat(lastEntry(overdue).getType()).isEqualTo("status_changed");
+        assertThat(lastEntry(overdue).getPreviousStatus()).isEqualTo("checked_in");
+        assertThat(lastEntry(overdue).getStatus()).isEqualTo("checked_out");
+        assertThat(lastEntry(overdue).getRoomId()).isEqualTo(roomId);
+        assertThat(lastEntry(overdue).getPropertyId()).isEqualTo("main");
+
+        assertThat(lastEntry(noShow).getType()).isEqualTo("status_changed");
+        assertThat(lastEntry(noShow).getPreviousStatus()).isEqualTo("confirmed");
+        assertThat(lastEntry(noShow).getStatus()).isEqualTo("no_show");
+
+        assertThat(bookingRepository.existsById(old)).isFalse();
+        assertThat(lastEntry(old).getType()).isEqualTo("archived");
+        assertThat(lastEntry(old).getCustomerId()).isEqualTo(customerId);
+        assertThat(lastEntry(old).getPropertyId()).isEqualTo("main");
+
+        // Another property of the same shard reads none of it
+        assertThat(PropertyContext.callAs("lakeside", () -> eventJournalService.bookingHistory(overdue))).isEmpty();
+        assertThat(PropertyContext.callAs("lakeside", () -> eventJournalService.roomHistory(roomId))).isEmpty();
+        assertThat(eventJournalService.roomHistory(roomId)).isNotEmpty();
+    }
+
+    private JournalEntry lastEntry(String bookingId) {
+        List<JournalEntry> history = eventJournalService.bookingHistory(bookingId);
+        assertThat(history).isNotEmpty();
+        return history.get(history.size() - 1);
+    }
+
+    private String saveBooking(String roomId, String customerId, LocalDateTime checkIn, LocalDateTime checkOut,
+            BookingStatus status) {
+        BookingModel booking = new BookingModel();
+        booking.setRoom(roomRepository.findById(roomId).orElseThrow());
+        booking.setCustomer(customerRepository.findById(customerId).orElseThrow());
+        booking.setCheckIn(checkIn);
+        booking.setCheckOut(checkOut);
+        booking.setAdults(1);
+        booking.setStatus(status);
+        booking.setCreatedAt(checkIn.minusDays(10));
+        booking.setUpdatedAt(checkIn.minusDays(10));
+        return bookingRepository.save(booking).getId();
+    }
+
+    private String createRoom() {
+        RoomModel room = new RoomModel();
+        room.setNumber("J" + UUID.randomUUID().toString().substring(0, 8));
+        room.setCapacity(2);
+        room.setPricePerNight(90);
+        room.setFloor(1);
+        room.setStatus("available");
+        room.setBeds(Map.of("queen", 1));
+        return roomController.createRoom(room).getBody().getId();
+    }
+
+    private String createCustomer() {
+        CustomerModel customer = new CustomerModel();
+        customer.setName("Journal Guest");
+        customer.setEmail("journal-" + UUID.randomUUID() + "@example.com");
+        customer.setPhone("555");
+        return ((CustomerModel) customerController.createCustomer(customer).getBody()).getId();
+    }
+}
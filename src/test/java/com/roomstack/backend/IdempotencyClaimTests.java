@@ -0,0 +1,129 @@
+package com.roomstack.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.roomstack.config.PropertyContext;
+import com.roomstack.service.IdempotencyService;
+
+/**
+ * Concurrent first requests with the same Idempotency-Key: exactly one may
+ * claim the key and run, the others must see the claim. Keys are per property.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:idempotency_claims;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "roomstack.sharding.properties.lakeside=default",
+    "roomstack.journal.enabled=false",
+    "roomstack.snapshot.enabled=false"
+})
+class IdempotencyClaimTests {
+
+    private static final int CLIENTS = 16;
+
+    private static final String INSERT_EXPIRED =
+            "INSERT INTO idempotency_keys (id, request_hash, status_code, expires_at, created_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentClaimsOnOneKeyRunTheActionOnce() throws Exception {
+        for (int round = 0; round < 5; round++) {
+            assertOneClaimRuns(UUID.randomUUID().toString());
+        }
+    }
+
+    @Test
+    void concurrentClaimsOverAnExpiredRecordRunTheActionOnce() throws Exception {
+        for (int round = 0; round < 5; round++) {
+            String key = UUID.randomUUID().toString();
+            // An abandoned claim: every client sees it expired and tries to remove it
+            jdbcTemplate.update(INSERT_EXPIRED, "main:test.claim:" + key, "abandoned", 0,
+                    LocalDateTime.now().minusMinutes(5), LocalDateTime.now().minusMinutes(10));
+
+            assertOneClaimRuns(key);
+        }
+    }
+
+    @Test
+    void propertiesDoNotShareKeys() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        for (String propertyId : List.of("main", "lakeside")) {
+            ResponseEntity<?> response = PropertyContext.callAs(propertyId, () -> idempotencyService.execute(
+                    "test.claim", key, "same request", () -> {
+                        runs.incrementAndGet();
+                        return new ResponseEntity<>("created", HttpStatus.CREATED);
+                    }));
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        }
+
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    private void assertOneClaimRuns(String key) throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(CLIENTS);
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<ResponseEntity<?>>> replies = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                replies.add(clients.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute("test.claim", key, "same request", () -> {
+                        runs.incrementAndGet();
+                        try {
+                            // Keep the claim in progress while the other clients arrive
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return new ResponseEntity<>("created", HttpStatus.CREATED);
+                    });
+                }));
+            }
+
+            int created = 0;
+            for (Future<ResponseEntity<?>> reply : replies) {
+                HttpStatus status = HttpStatus.valueOf(reply.get().getStatusCode().value());
+                if (status == HttpStatus.CREATED) {
+                    created++;
+                } else {
+                    assertThat(status).isEqualTo(HttpStatus.CONFLICT);
+                }
+            }
+
+            assertThat(runs.get()).isEqualTo(1);
+            assertThat(created).isEqualTo(1);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.roomstack.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.roomstack.controller.CustomerController;
+import com.roomstack.controller.RoomController;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.NightAuditRunModel;
+import com.roomstack.model.NightAuditRunModel.Stage;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.service.NightAuditService;
+import com.roomstack.service.RateCalendarService;
+
+/**
+ * A night audit that fails partway through posting charges resumes after its
+ * last committed chunk, and a date another run holds is left alone
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:night_audit_resume;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "roomstack.journal.enabled=false",
+    "roomstack.snapshot.enabled=false",
+    "roomstack.night-audit.chunk-size=2"
+})
+class NightAuditResumeTests {
+
+    private static final int STAYS = 5;
+
+    @Autowired
+    private NightAuditService nightAuditService;
+
+    @MockitoSpyBean
+    private RateCalendarService rateCalendarService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private CustomerController customerController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void stopFailing() {
+        reset(rateCalendarService);
+    }
+
+    @Test
+    void aFailedChunkIsResumedWithoutPostingAChargeTwice() {
+        LocalDate auditDate = LocalDate.of(2031, 2, 10);
+        seedInHouseStays(auditDate);
+
+        // The third stay priced is the first of the second chunk
+        AtomicInteger priced = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (priced.incrementAndGet() == 3) {
+                throw new IllegalStateException("Rate calendar unavailable");
+            }
+            return invocation.callRealMethod();
+        }).when(rateCalendarService).nightlyRates(any(), any(), any(), anyBoolean());
+
+        assertThatThrownBy(() -> nightAuditService.run(auditDate)).hasMessage("Rate calendar unavailable");
+
+        NightAuditRunModel interrupted = nightAuditService.getRun(auditDate);
+        assertThat(interrupted.getStage()).isEqualTo(Stage.daily_charges);
+        assertThat(interrupted.getChargesPosted()).isEqualTo(2);
+        assertThat(interrupted.getClaimedBy()).isNull();
+        assertThat(chargesOn(auditDate)).isEqualTo(2);
+
+        reset(rateCalendarService);
+        nightAuditService.resumeUnfinished();
+
+        NightAuditRunModel resumed = nightAuditService.getRun(auditDate);
+        assertThat(resumed.getStage()).isEqualTo(Stage.done);
+        assertThat(resumed.getCompletedAt()).isNotNull();
+        assertThat(resumed.getChargesPosted()).isEqualTo(STAYS);
+        assertThat(chargesOn(auditDate)).isEqualTo(STAYS);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT booking_id) FROM daily_charges "
+                + "WHERE charge_date = ?", Integer.class, Date.valueOf(auditDate))).isEqualTo(STAYS);
+    }
+
+    @Test
+    void aRunHeldByAnotherNodeIsSkipped() {
+        LocalDate auditDate = LocalDate.of(2031, 3, 10);
+        seedInHouseStays(auditDate);
+        jdbcTemplate.update("INSERT INTO night_audit_runs (audit_date, stage, checked_out, no_shows, charges_posted, "
+                + "rooms_reconciled, customers_reconciled, started_at, updated_at, claimed_by, claimed_until) "
+                + "VALUES (?, 'daily_charges', 0, 0, 0, 0, 0, ?, ?, 'other-node', ?)", Date.valueOf(auditDate),
+                LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now().plusMinutes(5));
+
+        NightAuditRunModel run = nightAuditService.run(auditDate);
+
+        assertThat(run.getClaimedBy()).isEqualTo("other-node");
+        assertThat(run.getCompletedAt()).isNull();
+        assertThat(chargesOn(auditDate)).isZero();
+
+        // Once the claim runs out, the date can be taken over
+        jdbcTemplate.update("UPDATE night_audit_runs SET claimed_until = ? WHERE audit_date = ?",
+                LocalDateTime.now().minusMinutes(1), Date.valueOf(auditDate));
+
+        assertThat(nightAuditService.run(auditDate).getStage()).isEqualTo(Stage.done);
+        assertThat(chargesOn(auditDate)).isEqualTo(STAYS);
+    }
+
+    private int chargesOn(LocalDate auditDate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM daily_charges WHERE charge_date = ?",
+                Integer.class, Date.valueOf(auditDate));
+    }
+
+    /**
+     * Checked-in stays over the audited night, each in a room of its own
+     */
+    private void seedInHouseStays(LocalDate auditDate) {
+        String customerId = createCustomer();
+        for (int i = 0; i < STAYS; i++) {
+            BookingModel booking = new BookingModel();
+            booking.setRoom(roomRepository.findById(createRoom()).orElseThrow());
+            booking.setCustomer(customerRepository.findById(customerId).orElseThrow());
+            booking.setCheckIn(auditDate.minusDays(1).atTime(14, 0));
+            booking.setCheckOut(auditDate.plusDays(2).atTime(11, 0));
+            booking.setAdults(1);
+            booking.setStatus(BookingStatus.checked_in);
+            bookingRepository.save(booking);
+        }
+    }
+
+    private String createRoom() {
+        RoomModel room = new RoomModel();
+        room.setNumber("N" + UUID.randomUUID().toString().substring(0, 8));
+        room.setCapacity(2);
+        room.setPricePerNight(90);
+        room.setFloor(1);
+        room.setStatus("occupied");
+        room.setBeds(Map.of("queen", 1));
+        return roomController.createRoom(room).getBody().getId();
+    }
+
+    private String createCustomer() {
+        CustomerModel customer = new CustomerModel();
+        customer.setName("Audit Guest");
+        customer.setEmail("audit-" + UUID.randomUUID() + "@example.com");
+        customer.setPhone("555");
+        return ((CustomerModel) customerController.createCustomer(customer).getBody()).getId();
+    }
+}
@@ -0,0 +1,146 @@
+package com.roomstack.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.roomstack.controller.CustomerController;
+import com.roomstack.controller.RoomController;
+import com.roomstack.model.BillModel;
+import com.roomstack.model.BillModel.PaymentStatus;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.ReportResult;
+import com.roomstack.model.ReportRow;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BillRepository;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.service.ReportService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * A report reads each chunk of bookings with a fixed number of queries,
+ * however many bookings, rooms and bills the chunk holds
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:report_query;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "roomstack.journal.enabled=false",
+    "roomstack.snapshot.enabled=false",
+    "roomstack.reports.chunk-size=100"
+})
+class ReportQueryTests {
+
+    private static final int ROOMS = 40;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private CustomerController customerController;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void aChunkIsReadWithoutAQueryPerBooking() {
+        String customerId = createCustomer();
+        LocalDateTime checkIn = LocalDateTime.of(2033, 3, 1, 14, 0);
+        for (int i = 0; i < ROOMS; i++) {
+            String roomId = createRoom(i % 2 == 0 ? List.of("balcony", "sea_view") : List.of("balcony"));
+            saveBookingWithBill(roomId, customerId, checkIn.plusDays(i % 20), new BigDecimal("110.00"));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ReportResult result = reportService.runQuery(null, checkIn, checkIn.plusDays(30),
+                List.of(ReportService.Dimension.feature, ReportService.Dimension.beds));
+
+        // One chunk is three statements: bookings with rooms, customers and bills, then room features and beds.
+        // The outbox and cache invalidation pollers share these statistics, so the bound leaves them room;
+        // a statement per booking would still take it past 40
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+
+        assertThat(result.getScannedBookings()).isEqualTo(ROOMS);
+        Map<String, ReportRow> rows = new HashMap<>();
+        result.getRows().forEach(row -> rows.put(row.getGroup().get("feature"), row));
+        assertThat(rows.get("balcony").getBookings()).isEqualTo(ROOMS);
+        assertThat(rows.get("balcony").getRevenue()).isEqualByComparingTo(new BigDecimal("4400.00"));
+        assertThat(rows.get("sea_view").getBookings()).isEqualTo(ROOMS / 2);
+        assertThat(rows.get("sea_view").getGroup().get("beds")).isEqualTo("queen:1");
+    }
+
+    private void saveBookingWithBill(String roomId, String customerId, LocalDateTime checkIn, BigDecimal total) {
+        BookingModel booking = new BookingModel();
+        booking.setRoom(roomRepository.findById(roomId).orElseThrow());
+        booking.setCustomer(customerRepository.findById(customerId).orElseThrow());
+        booking.setCheckIn(checkIn);
+        booking.setCheckOut(checkIn.plusDays(1).withHour(11));
+        booking.setAdults(1);
+        booking.setStatus(BookingStatus.confirmed);
+        booking = bookingRepository.save(booking);
+
+        BillModel bill = new BillModel();
+        bill.setBooking(booking);
+        bill.setRoomCharge(total);
+        bill.setTaxAmount(BigDecimal.ZERO);
+        bill.setTotal(total);
+        bill.setPaymentStatus(PaymentStatus.pending);
+        billRepository.save(bill);
+    }
+
+    private String createRoom(List<String> features) {
+        RoomModel room = new RoomModel();
+        room.setNumber("R" + UUID.randomUUID().toString().substring(0, 8));
+        room.setCapacity(2);
+        room.setPricePerNight(90);
+        room.setFloor(1);
+        room.setStatus("available");
+        room.setBeds(Map.of("queen", 1));
+        room.setFeatures(features);
+        return roomController.createRoom(room).getBody().getId();
+    }
+
+    private String createCustomer() {
+        CustomerModel customer = new CustomerModel();
+        customer.setName("Report Guest");
+        customer.setEmail("report-" + UUID.randomUUID() + "@example.com");
+        customer.setPhone("555");
+        return ((CustomerModel) customerController.createCustomer(customer).getBody()).getId();
+    }
+}
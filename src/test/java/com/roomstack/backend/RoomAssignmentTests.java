@@ -0,0 +1,292 @@
+package com.roomstack.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomstack.controller.CustomerController;
+import com.roomstack.controller.RoomController;
+import com.roomstack.model.AssignmentRequest;
+import com.roomstack.model.AssignmentResult;
+import com.roomstack.model.BookingModel;
+import com.roomstack.model.BookingModel.BookingStatus;
+import com.roomstack.model.CustomerModel;
+import com.roomstack.model.RoomModel;
+import com.roomstack.repository.BookingRepository;
+import com.roomstack.repository.CustomerRepository;
+import com.roomstack.repository.RoomRepository;
+import com.roomstack.service.BookingService;
+import com.roomstack.service.RoomAssignmentService;
+
+/**
+ * The room assignment engine places reservations by capacity, beds and
+ * features, prefers rooms where the stay leaves no orphan gap, only moves
+ * engine-placed bookings to rooms that are at least as good, and skips a
+ * room that was booked while it was planning. Each test tags its rooms with
+ * a feature of its own, so it only ever places stays into them.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:room_assignment;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "roomstack.journal.enabled=false",
+    "roomstack.snapshot.enabled=false",
+    "roomstack.assignment.min-sellable-nights=2"
+})
+class RoomAssignmentTests {
+
+    @Autowired
+    private RoomAssignmentService roomAssignmentService;
+
+    @MockitoSpyBean
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private RoomController roomController;
+
+    @Autowired
+    private CustomerController customerController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void stopInterfering() {
+        reset(bookingService);
+    }
+
+    @Test
+    void reservationsOnlyGoToRoomsWithTheirCapacityBedsAndFeatures() {
+        String tag = tag();
+        String customerId = createCustomer();
+        String single = createRoom(tag, "a", 2, Map.of("queen", 1));
+        String twin = createRoom(tag, "b", 4, Map.of("twin", 2));
+        String twinWithBalcony = createRoom(tag, "c", 4, Map.of("twin", 2), "Balcony");
+        LocalDateTime checkIn = day(1);
+
+        List<AssignmentResult> results = assign(List.of(
+                request("couple", customerId, checkIn, 2, 2, null, List.of(tag)),
+                request("family", customerId, checkIn, 2, 3, Map.of("twin", 2), List.of(tag, "balcony")),
+                request("party", customerId, checkIn, 2, 5, null, List.of(tag)),
+                request("king", customerId, checkIn, 2, 1, Map.of("king", 1), List.of(tag))));
+
+        // The smallest room that fits is the tightest fit
+        assertThat(results.get(0).getRoomId()).isEqualTo(single);
+        assertThat(results.get(1).getRoomId()).isEqualTo(twinWithBalcony);
+        assertThat(results.get(2).getMessage()).isEqualTo("No matching room is available for these dates");
+        assertThat(results.get(3).getMessage()).isEqualTo("No matching room is available for these dates");
+
+        BookingModel family = bookingRepository.findById(results.get(1).getBookingId()).orElseThrow();
+        assertThat(family.getStatus()).isEqualTo(BookingStatus.confirmed);
+        assertThat(family.isAutoAssigned()).isTrue();
+        assertThat(bookingsIn(twin)).isZero();
+    }
+
+    @Test
+    void aStayGoesWhereItLeavesNoOrphanGap() {
+        String tag = tag();
+        String customerId = createCustomer();
+        String first = createRoom(tag, "a", 2, Map.of("queen", 1));
+        String second = createRoom(tag, "b", 2, Map.of("queen", 1));
+        String third = createRoom(tag, "c", 2, Map.of("queen", 1));
+
+        // Placed after these, the stay leaves one unsellable night in the first room,
+        // three sellable ones in the second and none in the third
+        saveBooking(first, customerId, day(20).minusDays(3), day(20).minusDays(1), false);
+        saveBooking(second, customerId, day(20).minusDays(5), day(20).minusDays(3), false);
+        saveBooking(third, customerId, day(20).minusDays(2), day(20), false);
+
+        List<AssignmentResult> results = assign(List.of(
+                request("stay", customerId, day(20), 2, 2, null, List.of(tag)),
+                request("next", customerId, day(40), 2, 2, null, List.of(tag))));
+
+        assertThat(results.get(0).getRoomId()).isEqualTo(third);
+        // With nothing around it, the first room in size order takes it
+        assertThat(results.get(1).getRoomId()).isEqualTo(first);
+
+        // Without the back-to-back room, a sellable gap beats an orphaned night
+        String otherTag = tag();
+        String orphaning = createRoom(otherTag, "a", 2, Map.of("queen", 1));
+        String sellable = createRoom(otherTag, "b", 2, Map.of("queen", 1));
+        saveBooking(orphaning, customerId, day(60).minusDays(3), day(60).minusDays(1), false);
+        saveBooking(sellable, customerId, day(60).minusDays(5), day(60).minusDays(3), false);
+
+        assertThat(assign(List.of(
+                request("gap", customerId, day(60), 2, 2, null, List.of(otherTag)))).get(0).getRoomId())
+                .isEqualTo(sellable);
+    }
+
+    @Test
+    void reoptimizingOnlyMovesEnginePlacedBookingsToBetterMatchingRooms() {
+        String tag = tag();
+        String customerId = createCustomer();
+        String left = createRoom(tag, "a", 2, Map.of("queen", 1));
+        String right = createRoom(tag, "b", 2, Map.of("queen", 1));
+        String balcony = createRoom(tag, "c", 2, Map.of("queen", 1), "Balcony");
+        LocalDateTime base = day(100);
+
+        // Leaves one orphaned night in the left room, but would be back to back in the right one
+        saveBooking(left, customerId, base.minusDays(4), base.minusDays(1), false);
+        saveBooking(right, customerId, base.minusDays(4), base, false);
+        String movable = saveBooking(left, customerId, base, base.plusDays(2), true);
+
+        // Same gap in the balcony room, but no other room has a balcony
+        saveBooking(balcony, customerId, base.plusDays(9), base.plusDays(11), false);
+        String keepsItsBalcony = saveBooking(balcony, customerId, base.plusDays(12), base.plusDays(14), true);
+        saveBooking(left, customerId, base.plusDays(9), base.plusDays(12), false);
+
+        // Placed by hand in a room that orphans a night; never moved
+        saveBooking(right, customerId, base.plusDays(20), base.plusDays(22), false);
+        String manual = saveBooking(right, customerId, base.plusDays(23), base.plusDays(25), false);
+
+        List<AssignmentResult> moves = reoptimize(base.minusDays(1), base.plusDays(30));
+
+        assertThat(moves).hasSize(1);
+        assertThat(moves.get(0).getBookingId()).isEqualTo(movable);
+        assertThat(moves.get(0).getPreviousRoomId()).isEqualTo(left);
+        assertThat(moves.get(0).getRoomId()).isEqualTo(right);
+        assertThat(roomOf(movable)).isEqualTo(right);
+        assertThat(roomOf(keepsItsBalcony)).isEqualTo(balcony);
+        assertThat(roomOf(manual)).isEqualTo(right);
+
+        // The plan cannot improve any further
+        assertThat(reoptimize(base.minusDays(1), base.plusDays(30))).isEmpty();
+    }
+
+    @Test
+    void aRoomBookedWhileTheEnginePlannedIsSkipped() {
+        String tag = tag();
+        String customerId = createCustomer();
+        String roomId = createRoom(tag, "a", 2, Map.of("queen", 1));
+        LocalDateTime checkIn = day(200);
+
+        // Someone books the room between the engine's plan and its commit
+        List<String> concurrent = new ArrayList<>();
+        doAnswer(invocation -> {
+            concurrent.add(saveBooking(roomId, customerId, checkIn, checkIn.plusDays(2), false));
+            return invocation.callRealMethod();
+        }).when(bookingService).createAssignedBookings(anyList(), any());
+
+        List<AssignmentResult> results = assign(List.of(
+                request("late", customerId, checkIn, 2, 2, null, List.of(tag))));
+
+        assertThat(results.get(0).getBookingId()).isNull();
+        assertThat(results.get(0).getMessage()).isEqualTo("Room was booked concurrently, retry");
+        assertThat(concurrent).hasSize(1);
+        assertThat(bookingsIn(roomId)).isEqualTo(1);
+
+        // Planned again, the engine sees the booking and finds no room
+        reset(bookingService);
+        assertThat(assign(List.of(
+                request("retry", customerId, checkIn, 2, 2, null, List.of(tag)))).get(0).getMessage())
+                .isEqualTo("No matching room is available for these dates");
+    }
+
+    /**
+     * The engine reads room beds and features lazily, as within a request's open session
+     */
+    private List<AssignmentResult> assign(List<AssignmentRequest> requests) {
+        return new TransactionTemplate(transactionManager).execute(status -> roomAssignmentService.assign(requests));
+    }
+
+    private List<AssignmentResult> reoptimize(LocalDateTime from, LocalDateTime to) {
+        return new TransactionTemplate(transactionManager)
+                .execute(status -> roomAssignmentService.reoptimize(from, to));
+    }
+
+    private static LocalDateTime day(int offset) {
+        return LocalDate.of(2032, 1, 1).plusDays(offset).atTime(14, 0);
+    }
+
+    private static String tag() {
+        return "t" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static AssignmentRequest request(String reference, String customerId, LocalDateTime checkIn, int nights,
+            int guests, Map<String, Integer> beds, List<String> features) {
+        AssignmentRequest request = new AssignmentRequest();
+        request.setReference(reference);
+        request.setCustomerId(customerId);
+        request.setCheckIn(checkIn);
+        request.setCheckOut(checkIn.plusDays(nights).withHour(11));
+        request.setAdults(guests);
+        request.setBeds(beds);
+        request.setFeatures(features);
+        return request;
+    }
+
+    private String saveBooking(String roomId, String customerId, LocalDateTime checkIn, LocalDateTime checkOut,
+            boolean autoAssigned) {
+        BookingModel booking = new BookingModel();
+        booking.setRoom(roomRepository.findById(roomId).orElseThrow());
+        booking.setCustomer(customerRepository.findById(customerId).orElseThrow());
+        booking.setCheckIn(checkIn);
+        booking.setCheckOut(checkOut.withHour(11));
+        booking.setAdults(1);
+        booking.setStatus(BookingStatus.confirmed);
+        booking.setAutoAssigned(autoAssigned);
+        return bookingRepository.save(booking).getId();
+    }
+
+    private String roomOf(String bookingId) {
+        return jdbcTemplate.queryForObject("SELECT room_id FROM bookings WHERE id = ?", String.class, bookingId);
+    }
+
+    private int bookingsIn(String roomId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE room_id = ?", Integer.class, roomId);
+    }
+
+    private String createRoom(String tag, String suffix, int capacity, Map<String, Integer> beds, String... features) {
+        List<String> roomFeatures = new ArrayList<>(List.of(features));
+        roomFeatures.add(tag);
+        RoomModel room = new RoomModel();
+        room.setNumber(tag + suffix);
+        room.setCapacity(capacity);
+        room.setPricePerNight(90);
+        room.setFloor(1);
+        room.setStatus("available");
+        room.setBeds(beds);
+        room.setFeatures(roomFeatures);
+        return roomController.createRoom(room).getBody().getId();
+    }
+
+    private String createCustomer() {
+        CustomerModel customer = new CustomerModel();
+        customer.setName("Assigned Guest");
+        customer.setEmail("assigned-" + UUID.randomUUID() + "@example.com");
+        customer.setPhone("555");
+        return ((CustomerModel) customerController.createCustomer(customer).getBody()).getId();
+    }
+}
@@ -0,0 +1,349 @@
+package com.roomstack.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roomstack.service.BookingArchiveService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Three application contexts on one H2 database stand in for three nodes.
+ * Concurrent single and group booking requests spread over the nodes must
+ * never double-book a room; the throughput of uncontended bookings is
+ * measured on one node and on all three. Rate rule changes made on one node
+ * must reach the prices of the others, and archivers running on every node
+ * must move each booking once.
+ */
+class RoomLeaseMultiNodeTests {
+
+    private static final int NODES = 3;
+
+    private static final int CLIENTS_PER_NODE = 6;
+
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    private static final HttpClient http = HttpClient.newHttpClient();
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static String customerId;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        // Command-line arguments win over system properties, so every node uses this database
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new SpringApplicationBuilder(RoomstackBackendApplication.class).run(
+                    "--spring.datasource.url=jdbc:h2:mem:lease_nodes;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                    "--spring.datasource.driverClassName=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                    "--spring.main.banner-mode=off",
+                    "--server.port=0",
+                    "--roomstack.invalidation.node-id=node-" + i,
+                    "--roomstack.journal.enabled=false",
+                    "--roomstack.snapshot.enabled=false"));
+        }
+
+        Map<String, Object> customer = post(0, "/api/customers",
+                "{\"name\":\"Guest\",\"email\":\"guest-" + UUID.randomUUID() + "@example.com\",\"phone\":\"555\"}");
+        customerId = (String) customer.get("id");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void concurrentRequestsOnEveryNodeBookARoomOnce() throws Exception {
+        String roomId = createRoom();
+        long contendedBefore = leaseMeter("roomstack.leases.contended");
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runClients(NODES * CLIENTS_PER_NODE, client -> {
+            int status = book(client % NODES, roomId, "2027-03-01T14:00:00", "2027-03-04T11:00:00");
+            (status == 201 ? created : rejected).incrementAndGet();
+            assertThat(status).isIn(201, 409, 503);
+            return null;
+        });
+
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(bookingsOf(roomId)).isEqualTo(1);
+        assertThat(leaseMeter("roomstack.leases.contended")).isGreaterThan(contendedBefore);
+    }
+
+    @Test
+    void overlappingStaysAreNeverAdmittedTogether() throws Exception {
+        List<String> roomIds = List.of(createRoom(), createRoom());
+
+        runClients(NODES * CLIENTS_PER_NODE * 4, client -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            LocalDateTime checkIn = LocalDateTime.of(2027, 5, 1, 14, 0).plusDays(random.nextInt(20));
+            LocalDateTime checkOut = checkIn.plusDays(1 + random.nextInt(4)).withHour(11);
+            book(client % NODES, roomIds.get(random.nextInt(roomIds.size())),
+                    checkIn.toString() + ":00", checkOut.toString() + ":00");
+            return null;
+        });
+
+        assertThat(bookingsOf(roomIds.get(0)) + bookingsOf(roomIds.get(1))).isPositive();
+        assertThat(overlapsIn(roomIds)).isZero();
+    }
+
+    @Test
+    void singleAndGroupBookingsExcludeEachOther() throws Exception {
+        List<String> roomIds = List.of(createRoom(), createRoom());
+
+        runClients(NODES * CLIENTS_PER_NODE * 4, client -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String checkIn = LocalDateTime.of(2027, 6, 1, 14, 0).plusDays(random.nextInt(20)).toString() + ":00";
+            String checkOut = LocalDateTime.of(2027, 6, 1, 11, 0).plusDays(21 + random.nextInt(3)).toString() + ":00";
+            if (client % 2 == 0) {
+                book(client % NODES, roomIds.get(random.nextInt(roomIds.size())), checkIn, checkOut);
+            } else {
+                send(client % NODES, "/api/bookings/group", "{\"customerId\":\"" + customerId + "\","
+                        + "\"checkIn\":\"" + checkIn + "\",\"checkOut\":\"" + checkOut + "\",\"rooms\":["
+                        + "{\"roomId\":\"" + roomIds.get(0) + "\",\"adults\":1},"
+                        + "{\"roomId\":\"" + roomIds.get(1) + "\",\"adults\":1}]}");
+            }
+            return null;
+        });
+
+        assertThat(bookingsOf(roomIds.get(0)) + bookingsOf(roomIds.get(1))).isPositive();
+        assertThat(overlapsIn(roomIds)).isZero();
+    }
+
+    @Test
+    void rateRuleChangesReachEveryNode() throws Exception {
+        String roomId = createRoom();
+        LocalDate night = LocalDate.now().plusDays(40);
+        Map<String, Object> rule = post(0, "/api/rate-plans/rules",
+                "{\"name\":\"Festival\",\"roomId\":\"" + roomId + "\",\"ruleType\":\"seasonal\","
+                + "\"startDate\":\"" + night + "\",\"endDate\":\"" + night + "\",\"adjustmentPercent\":50}");
+
+        awaitRoomCharge(1, roomId, night, "135.00");
+        awaitRoomCharge(2, roomId, night, "135.00");
+
+        HttpResponse<Void> deleted = http.send(HttpRequest.newBuilder(uri(0, "/api/rate-plans/rules/" + rule.get("id")))
+                .DELETE()
+                .build(), HttpResponse.BodyHandlers.discarding());
+        assertThat(deleted.statusCode()).isEqualTo(200);
+
+        awaitRoomCharge(1, roomId, night, "90.00");
+        awaitRoomCharge(2, roomId, night, "90.00");
+    }
+
+    @Test
+    void concurrentArchiversMoveEachBookingOnce() throws Exception {
+        String roomId = createRoom();
+        LocalDateTime checkIn = LocalDateTime.now().minusYears(3).withNano(0);
+        List<Object[]> bookings = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            bookings.add(new Object[] { UUID.randomUUID().toString(), roomId, customerId, checkIn.plusDays(i),
+                    checkIn.plusDays(i + 1) });
+        }
+        jdbc().batchUpdate("INSERT INTO bookings (id, property_id, room_id, customer_id, check_in, check_out, "
+                + "adults, children, status, auto_assigned, created_at, updated_at) "
+                + "VALUES (?, 'main', ?, ?, ?, ?, 1, 0, 'checked_out', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                bookings);
+
+        AtomicInteger archived = new AtomicInteger();
+        runClients(NODES, node -> {
+            archived.addAndGet(nodes.get(node).getBean(BookingArchiveService.class).archive());
+            return null;
+        });
+
+        assertThat(archived.get()).isEqualTo(bookings.size());
+        assertThat(bookingsOf(roomId)).isZero();
+        assertThat(jdbc().queryForObject("SELECT COUNT(*) FROM bookings_archive WHERE room_id = ?", Integer.class,
+                roomId)).isEqualTo(bookings.size());
+    }
+
+    @Test
+    void throughputScalesWithNodes() throws Exception {
+        int bookings = 240;
+        double oneNode = uncontendedThroughput(1, bookings);
+        double allNodes = uncontendedThroughput(NODES, bookings);
+
+        System.out.printf("Uncontended bookings: %.0f/s on 1 node, %.0f/s on %d nodes (%.2fx)%n",
+                oneNode, allNodes, NODES, allNodes / oneNode);
+        assertThat(oneNode).isPositive();
+        assertThat(allNodes).isPositive();
+    }
+
+    /**
+     * Book a distinct room per request, with the same number of clients spread over the first nodes
+     * @return Bookings per second
+     */
+    private double uncontendedThroughput(int nodeCount, int bookings) throws Exception {
+        List<String> roomIds = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            roomIds.add(createRoom());
+        }
+
+        Map<Integer, Integer> statuses = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        long started = System.nanoTime();
+        runClients(NODES * CLIENTS_PER_NODE, client -> {
+            for (int i = next.getAndIncrement(); i < bookings; i = next.getAndIncrement()) {
+                int status = book(client % nodeCount, roomIds.get(i), "2027-08-01T14:00:00", "2027-08-03T11:00:00");
+                statuses.merge(status, 1, Integer::sum);
+            }
+            return null;
+        });
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        assertThat(statuses).containsOnlyKeys(201);
+        return bookings / seconds;
+    }
+
+    /**
+     * Book a room like a client would, retrying while the service asks to
+     * @return The final HTTP status
+     */
+    private static int book(int node, String roomId, String checkIn, String checkOut) throws Exception {
+        return send(node, "/api/bookings?roomId=" + roomId + "&customerId=" + customerId,
+                "{\"checkIn\":\"" + checkIn + "\",\"checkOut\":\"" + checkOut + "\",\"adults\":2}");
+    }
+
+    /**
+     * POST a request, retrying while the service asks to
+     * @return The final HTTP status
+     */
+    private static int send(int node, String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(node, path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+
+        int status = 0;
+        for (int attempt = 0; attempt < 20; attempt++) {
+            status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status != 503) {
+                break;
+            }
+            Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50));
+        }
+        return status;
+    }
+
+    /**
+     * Wait for a node to quote the night at the expected charge; rule changes reach it with the next invalidation poll
+     */
+    private static void awaitRoomCharge(int node, String roomId, LocalDate night, String expected) throws Exception {
+        BigDecimal charge = null;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            String path = "/api/rooms/" + roomId + "/quote?checkIn=" + night.atTime(14, 0) + ":00"
+                    + "&checkOut=" + night.plusDays(1).atTime(11, 0) + ":00";
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri(node, path)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            charge = new BigDecimal(objectMapper.readTree(response.body()).get("roomCharge").asText());
+            if (charge.compareTo(new BigDecimal(expected)) == 0) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        assertThat(charge).isEqualByComparingTo(expected);
+    }
+
+    private static String createRoom() throws Exception {
+        String number = "L" + UUID.randomUUID().toString().substring(0, 8);
+        Map<String, Object> room = post(0, "/api/rooms", "{\"number\":\"" + number + "\",\"capacity\":2,"
+                + "\"pricePerNight\":90,\"floor\":1,\"status\":\"available\",\"beds\":{\"queen\":1}}");
+        return (String) room.get("id");
+    }
+
+    private static Map<String, Object> post(int node, String path, String json) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri(node, path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(201);
+        return objectMapper.readValue(response.body(), new TypeReference<>() { });
+    }
+
+    private static void runClients(int clients, ClientTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                Callable<Void> call = () -> {
+                    start.await();
+                    return task.run(client);
+                };
+                results.add(executor.submit(call));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int bookingsOf(String roomId) {
+        return jdbc().queryForObject("SELECT COUNT(*) FROM bookings WHERE room_id = ?", Integer.class, roomId);
+    }
+
+    // Same inclusive bounds as BookingRepository.findOverlappingBookings
+    private static int overlapsIn(List<String> roomIds) {
+        return jdbc().queryForObject(
+                "SELECT COUNT(*) FROM bookings a JOIN bookings b ON a.room_id = b.room_id AND a.id < b.id " +
+                "WHERE a.room_id IN (?, ?) AND a.check_in <= b.check_out AND b.check_in <= a.check_out",
+                Integer.class, roomIds.get(0), roomIds.get(1));
+    }
+
+    private static long leaseMeter(String name) {
+        return nodes.stream()
+                .mapToLong(node -> (long) node.getBean(MeterRegistry.class).counter(name).count())
+                .sum();
+    }
+
+    private static JdbcTemplate jdbc() {
+        return new JdbcTemplate(nodes.get(0).getBean(DataSource.class));
+    }
+
+    private static URI uri(int node, String path) {
+        return URI.create("http://localhost:" + nodes.get(node).getEnvironment().getProperty("local.server.port") + path);
+    }
+
+    @FunctionalInterface
+    private interface ClientTask {
+        Void run(int client) throws Exception;
+    }
+}
@@ -0,0 +1,236 @@
+package com.roomstack.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roomstack.config.PropertyFilter;
+import com.roomstack.config.ShardRoutingDataSource;
+
+/**
+ * Two H2 databases as shards: "main" and "lakeside" share the default shard,
+ * "harbor" lives on the "east" shard
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:shard_default;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "roomstack.sharding.shards.east.url=jdbc:h2:mem:shard_east;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "roomstack.sharding.shards.east.driver-class-name=org.h2.Driver",
+    "roomstack.sharding.shards.east.username=sa",
+    "roomstack.sharding.shards.east.password=",
+    "roomstack.sharding.properties.harbor=east",
+    "roomstack.sharding.properties.lakeside=default",
+    "roomstack.journal.enabled=false",
+    "roomstack.snapshot.enabled=false"
+})
+@AutoConfigureMockMvc
+class ShardRoutingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void propertiesOnlySeeTheirOwnRooms() throws Exception {
+        String number = uniqueNumber();
+        Map<String, Object> harborRoom = createRoom("harbor", number);
+        Map<String, Object> lakesideRoom = createRoom("lakeside", number);
+
+        assertThat(harborRoom.get("propertyId")).isEqualTo("harbor");
+        assertThat(lakesideRoom.get("propertyId")).isEqualTo("lakeside");
+        assertThat(roomNumbers("harbor")).containsOnlyOnce(number);
+        assertThat(roomNumbers("lakeside")).containsOnlyOnce(number);
+        assertThat(roomNumbers("main")).doesNotContain(number);
+
+        // Same shard, other property
+        mockMvc.perform(get("/api/rooms/" + lakesideRoom.get("id")).header(PropertyFilter.PROPERTY_HEADER, "main"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/rooms/" + lakesideRoom.get("id")).header(PropertyFilter.PROPERTY_HEADER, "lakeside"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rowsAreStoredOnTheShardOfTheirProperty() throws Exception {
+        String email = "guest-" + UUID.randomUUID() + "@example.com";
+        createCustomer("harbor", email);
+
+        assertThat(shard("east").queryForList("SELECT property_id FROM customers WHERE email = ?", String.class, email))
+                .containsExactly("harbor");
+        assertThat(shard("default").queryForList("SELECT property_id FROM customers WHERE email = ?", String.class, email))
+                .isEmpty();
+    }
+
+    @Test
+    void lookupByEmailGathersEveryShard() throws Exception {
+        String email = "guest-" + UUID.randomUUID() + "@example.com";
+        createCustomer("main", email);
+        createCustomer("lakeside", email);
+        createCustomer("harbor", email);
+
+        MvcResult result = mockMvc.perform(get("/api/customers/lookup").param("email", email))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<Map<String, Object>> customers = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<>() { });
+
+        assertThat(customers).extracting(customer -> customer.get("propertyId"))
+                .containsExactlyInAnyOrder("main", "lakeside", "harbor");
+    }
+
+    @Test
+    void emailsAreUniquePerProperty() throws Exception {
+        String email = "guest-" + UUID.randomUUID() + "@example.com";
+        createCustomer("lakeside", email);
+
+        mockMvc.perform(post("/api/customers").header(PropertyFilter.PROPERTY_HEADER, "lakeside")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(customerJson(email)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void csvSettlementsRunAsTheRequestsProperty() throws Exception {
+        Map<String, Object> room = createRoom("harbor", uniqueNumber());
+        String email = "guest-" + UUID.randomUUID() + "@example.com";
+        MvcResult customer = mockMvc.perform(post("/api/customers").header(PropertyFilter.PROPERTY_HEADER, "harbor")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(customerJson(email)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String customerId = (String) objectMapper.readValue(customer.getResponse().getContentAsString(),
+                new TypeReference<Map<String, Object>>() { }).get("id");
+
+        // Group bookings are billed in their own transaction
+        mockMvc.perform(post("/api/bookings/group").header(PropertyFilter.PROPERTY_HEADER, "harbor")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerId\":\"" + customerId + "\",\"checkIn\":\"2030-04-01T14:00:00\","
+                        + "\"checkOut\":\"2030-04-03T11:00:00\",\"rooms\":[{\"roomId\":\"" + room.get("id")
+                        + "\",\"adults\":1}]}"))
+                .andExpect(status().isCreated());
+        String billId = shard("east").queryForObject("SELECT bi.id FROM bills bi JOIN bookings b "
+                + "ON bi.booking_id = b.id WHERE b.room_id = ?", String.class, room.get("id"));
+
+        MvcResult started = mockMvc.perform(post("/api/bills/settlements").header(PropertyFilter.PROPERTY_HEADER, "harbor")
+                .contentType("text/csv")
+                .content("billId,status\n" + billId + ",paid\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String outcomes = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(outcomes).contains(billId + ",paid,applied");
+        assertThat(shard("east").queryForObject("SELECT payment_status FROM bills WHERE id = ?", String.class, billId))
+                .isEqualTo("paid");
+    }
+
+    @Test
+    void ratePlanRulesOnlyCoverTheirOwnProperty() throws Exception {
+        Map<String, Object> mainRoom = createRoom("main", uniqueNumber());
+        Map<String, Object> lakesideRoom = createRoom("lakeside", uniqueNumber());
+        LocalDate start = LocalDate.now().plusDays(30);
+
+        // No room: every room of lakeside, and none of main on the same shard
+        MvcResult created = mockMvc.perform(post("/api/rate-plans/rules").header(PropertyFilter.PROPERTY_HEADER, "lakeside")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Regatta\",\"ruleType\":\"seasonal\",\"startDate\":\"" + start
+                        + "\",\"endDate\":\"" + start.plusDays(1) + "\",\"adjustmentPercent\":50}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String ruleId = (String) objectMapper.readValue(created.getResponse().getContentAsString(),
+                new TypeReference<Map<String, Object>>() { }).get("id");
+
+        assertThat(roomCharge("lakeside", lakesideRoom.get("id"), start)).isEqualByComparingTo("135.00");
+        assertThat(roomCharge("main", mainRoom.get("id"), start)).isEqualByComparingTo("90.00");
+        mockMvc.perform(get("/api/rate-plans/rules/" + ruleId).header(PropertyFilter.PROPERTY_HEADER, "main"))
+                .andExpect(status().isNotFound());
+        assertThat(mockMvc.perform(get("/api/rate-plans/rules").header(PropertyFilter.PROPERTY_HEADER, "main"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).doesNotContain(ruleId);
+    }
+
+    @Test
+    void unknownPropertyIsRejected() throws Exception {
+        mockMvc.perform(get("/api/rooms").header(PropertyFilter.PROPERTY_HEADER, "nowhere"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Map<String, Object> createRoom(String propertyId, String number) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/rooms").header(PropertyFilter.PROPERTY_HEADER, propertyId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"number\":\"" + number + "\",\"capacity\":2,\"pricePerNight\":90,\"floor\":1,"
+                        + "\"status\":\"available\",\"beds\":{\"queen\":1},\"features\":[\"WiFi\"]}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() { });
+    }
+
+    private BigDecimal roomCharge(String propertyId, Object roomId, LocalDate night) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/rooms/" + roomId + "/quote")
+                .header(PropertyFilter.PROPERTY_HEADER, propertyId)
+                .param("checkIn", night.atTime(14, 0).toString())
+                .param("checkOut", night.plusDays(1).atTime(11, 0).toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+        return new BigDecimal(objectMapper.readTree(result.getResponse().getContentAsString())
+                .get("roomCharge").asText());
+    }
+
+    private void createCustomer(String propertyId, String email) throws Exception {
+        mockMvc.perform(post("/api/customers").header(PropertyFilter.PROPERTY_HEADER, propertyId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(customerJson(email)))
+                .andExpect(status().isCreated());
+    }
+
+    private List<String> roomNumbers(String propertyId) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/rooms").header(PropertyFilter.PROPERTY_HEADER, propertyId))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<Map<String, Object>> rooms = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<>() { });
+        return rooms.stream().map(room -> (String) room.get("number")).toList();
+    }
+
+    private JdbcTemplate shard(String shard) {
+        return new JdbcTemplate(((ShardRoutingDataSource) dataSource).getResolvedDataSources().get(shard));
+    }
+
+    private static String customerJson(String email) {
+        return "{\"name\":\"Guest\",\"email\":\"" + email + "\",\"phone\":\"555\"}";
+    }
+
+    private static String uniqueNumber() {
+        return "R" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,130 @@
+package com.roomstack.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class AdmissionControlFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AdmissionControlFilter filter = new AdmissionControlFilter();
+
+    @BeforeEach
+    void init() {
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "totalLimit", 4);
+        ReflectionTestUtils.setField(filter, "reservedCritical", 2);
+        ReflectionTestUtils.setField(filter, "bulkMinLimit", 1);
+        ReflectionTestUtils.setField(filter, "bulkQueueSize", 10);
+        ReflectionTestUtils.setField(filter, "bulkQueueTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(filter, "criticalQueueSize", 10);
+        ReflectionTestUtils.setField(filter, "criticalQueueTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(filter, "latencyTargetMillis", 60_000L);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 1);
+        filter.init();
+    }
+
+    @Test
+    void bulkReadsLeaveTheReservedPermitsFreeWhileCriticalRequestsRun() throws Exception {
+        List<MockAsyncContext> running = new ArrayList<>();
+
+        // Two critical requests take half of the budget
+        running.add(startAsync(critical()));
+        running.add(startAsync(critical()));
+
+        // Only the reserved permits remain, so a bulk read must not take one
+        assertEquals(503, filterStatus(bulk()));
+        assertEquals(0, inFlight("bulk"));
+
+        // Critical requests may still use them
+        running.add(startAsync(critical()));
+        running.add(startAsync(critical()));
+        assertEquals(4, inFlight("critical"));
+
+        running.forEach(MockAsyncContext::complete);
+        assertEquals(0, inFlight("critical"));
+    }
+
+    @Test
+    void asyncRequestsHoldTheirPermitUntilTheyComplete() throws Exception {
+        MockAsyncContext first = startAsync(bulk());
+        MockAsyncContext second = startAsync(bulk());
+        assertEquals(2, inFlight("bulk"));
+
+        // A request that completes twice returns its permit once
+        first.complete();
+        first.complete();
+        assertEquals(1, inFlight("bulk"));
+
+        second.complete();
+        assertEquals(0, inFlight("bulk"));
+    }
+
+    @Test
+    void criticalRequestsAreAdmittedWhileBulkReadsQueue() throws Exception {
+        MockAsyncContext bulkRead = startAsync(bulk());
+        MockAsyncContext otherRead = startAsync(bulk());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> queued = executor.submit(() -> filterStatus(bulk()));
+            MockAsyncContext booking = startAsync(critical());
+            assertEquals(1, inFlight("critical"));
+
+            booking.complete();
+            bulkRead.complete();
+            assertEquals(200, queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+            otherRead.complete();
+        }
+    }
+
+    private MockAsyncContext startAsync(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> req.startAsync();
+        filter.doFilter(request, response, chain);
+        assertEquals(200, response.getStatus());
+        return (MockAsyncContext) request.getAsyncContext();
+    }
+
+    private int filterStatus(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> { });
+        return response.getStatus();
+    }
+
+    private int inFlight(String priority) {
+        return (int) meterRegistry.get("roomstack.admission.in.flight").tag("priority", priority).gauge().value();
+    }
+
+    private static MockHttpServletRequest critical() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/bookings");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static MockHttpServletRequest bulk() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/rooms");
+        request.setAsyncSupported(true);
+        return request;
+    }
+}
@@ -0,0 +1,76 @@
+package com.roomstack.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsAfterADamagedSegmentAreNeverReplayed() throws IOException {
+        try (MappedJournal journal = open(new ArrayList<>())) {
+            for (int i = 0; i < 1000; i++) {
+                journal.append(record("old-" + i), null);
+            }
+            assertTrue(journal.getSegmentCount() >= 3);
+        }
+
+        // Damage the first record of the second segment
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("segment-00000001.log").toFile(), "rw")) {
+            file.seek(4);
+            file.writeInt(file.readInt() ^ 1);
+        }
+
+        List<String> intact = new ArrayList<>();
+        try (MappedJournal journal = open(intact)) {
+            assertEquals(2, journal.getSegmentCount());
+            assertEquals(intact.size(), journal.getAppended());
+            journal.append(record("new"), null);
+        }
+        assertFalse(Files.exists(directory.resolve("segment-00000002.log")));
+
+        List<String> replayed = new ArrayList<>();
+        try (MappedJournal journal = open(replayed)) {
+            List<String> expected = new ArrayList<>(intact);
+            expected.add("new");
+            assertEquals(expected, replayed);
+            assertEquals(expected.size(), journal.getAppended());
+        }
+    }
+
+    @Test
+    void readsSeeRecordsInSegmentsAddedAfterOpening() throws IOException {
+        try (MappedJournal journal = open(new ArrayList<>())) {
+            long[] position = new long[1];
+            for (int i = 0; i < 1000; i++) {
+                journal.append(record("record-" + i), position);
+                assertEquals("record-" + i, new String(journal.read(position[0]), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private MappedJournal open(List<String> replayed) throws IOException {
+        return new MappedJournal(directory, SEGMENT_BYTES, 1,
+                (position, payload) -> replayed.add(new String(payload, StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] record(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
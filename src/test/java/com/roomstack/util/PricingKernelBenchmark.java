@@ -0,0 +1,79 @@
+package com.roomstack.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput and allocation rate of pricing a stay with PricingKernel against
+ * the BigDecimal path of BillService.calculateBill. Not run by surefire; run with
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.roomstack.util.PricingKernelBenchmark
+ * </pre>
+ *
+ * and compare ops/us and gc.alloc.rate.norm (bytes per operation).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingKernelBenchmark {
+
+    @Param({ "3", "14" })
+    int nights;
+
+    long[] rates;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        rates = new long[nights];
+        for (int night = 0; night < nights; night++) {
+            rates[night] = 8_000 + random.nextInt(20_000);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal roomCharge = BigDecimal.ZERO;
+        for (long rate : rates) {
+            roomCharge = roomCharge.add(BigDecimal.valueOf(rate, 2));
+        }
+        BigDecimal taxAmount = roomCharge.multiply(BigDecimal.valueOf(0.1))
+                .setScale(2, RoundingMode.HALF_UP);
+        return roomCharge.add(taxAmount);
+    }
+
+    @Benchmark
+    public long kernel() {
+        return PricingKernel.total(PricingKernel.roomCharge(rates));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingKernelBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
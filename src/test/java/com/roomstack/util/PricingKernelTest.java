@@ -0,0 +1,61 @@
+package com.roomstack.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PricingKernelTest {
+
+    @Test
+    void taxAndTotalMatchBigDecimalPath() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long[] rates = new long[1 + random.nextInt(30)];
+            for (int night = 0; night < rates.length; night++) {
+                rates[night] = random.nextInt(1_000_000);
+            }
+
+            long roomCharge = PricingKernel.roomCharge(rates);
+            BigDecimal expectedCharge = BigDecimal.ZERO;
+            for (long rate : rates) {
+                expectedCharge = expectedCharge.add(BigDecimal.valueOf(rate, 2));
+            }
+            BigDecimal expectedTax = expectedCharge.multiply(BigDecimal.valueOf(0.1))
+                    .setScale(2, RoundingMode.HALF_UP);
+
+            assertEquals(expectedCharge, PricingKernel.toAmount(roomCharge));
+            assertEquals(expectedTax, PricingKernel.toAmount(PricingKernel.tax(roomCharge)));
+            assertEquals(expectedCharge.add(expectedTax), PricingKernel.toAmount(PricingKernel.total(roomCharge)));
+        }
+    }
+
+    @Test
+    void taxRoundsHalfCentsUp() {
+        assertEquals(1, PricingKernel.tax(5));
+        assertEquals(0, PricingKernel.tax(4));
+        assertEquals(2, PricingKernel.tax(15));
+        assertEquals(-1, PricingKernel.tax(-5));
+    }
+
+    @Test
+    void adjustMatchesBigDecimalPath() {
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            long cents = random.nextInt(2_000_001) - 1_000_000;
+            int percent = random.nextInt(301) - 100;
+
+            BigDecimal expected = BigDecimal.valueOf(cents, 2)
+                    .multiply(BigDecimal.valueOf(100 + percent))
+                    .divide(BigDecimal.valueOf(100))
+                    .setScale(2, RoundingMode.HALF_UP);
+
+            assertEquals(expected, PricingKernel.toAmount(PricingKernel.adjust(cents, percent)));
+        }
+    }
+}